@@ -0,0 +1,98 @@
+package ch.yvesguillo.bench;
+
+import ch.yvesguillo.model.CliOption;
+import ch.yvesguillo.model.CliSchemaParser;
+import ch.yvesguillo.model.OptionValues;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of compiling a large CLI schema, and of the option lookups the GUI and the batch mode do on every run:
+ * by flag, and by {@link CliOption} as a key of a {@link HashMap} and of {@link OptionValues}.
+ * Each benchmark touches every option once per invocation; times are per invocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CliSchemaBenchmark {
+
+    @Param({"100", "5000"})
+    public int optionCount;
+
+    private String json;
+    private List<CliOption> options;
+    private String[] flags;
+    private Map<CliOption, Object> hashValues;
+    private OptionValues optionValues;
+
+    @Setup
+    public void setup() {
+        json = SyntheticSchema.json(optionCount);
+        options = CliSchemaParser.lazyGetInstance(json).getAllOptions();
+        flags = options.stream().map(option -> option.flags.get(option.flags.size() - 1)).toArray(String[]::new);
+
+        hashValues = new HashMap<>();
+        optionValues = new OptionValues();
+        for (int i = 0; i < options.size(); i++) {
+            hashValues.put(options.get(i), SyntheticSchema.value(i));
+            optionValues.put(options.get(i), SyntheticSchema.value(i));
+        }
+    }
+
+    @Benchmark
+    public CliSchemaParser parseSchema() throws IOException {
+        return CliSchemaParser.parse(json);
+    }
+
+    @Benchmark
+    public void findByFlag(Blackhole blackhole) {
+        CliSchemaParser parser = CliSchemaParser.getInstance();
+        for (String flag : flags) {
+            blackhole.consume(parser.findOption(flag));
+        }
+    }
+
+    @Benchmark
+    public void hashMapGet(Blackhole blackhole) {
+        for (CliOption option : options) {
+            blackhole.consume(hashValues.get(option));
+        }
+    }
+
+    @Benchmark
+    public Map<CliOption, Object> hashMapCopy() {
+        return new HashMap<>(hashValues);
+    }
+
+    @Benchmark
+    public void optionValuesGet(Blackhole blackhole) {
+        for (CliOption option : options) {
+            blackhole.consume(optionValues.get(option));
+        }
+    }
+
+    @Benchmark
+    public Map<CliOption, Object> optionValuesCopy() {
+        // The snapshot taken on each run.
+        return new OptionValues(optionValues);
+    }
+}
@@ -0,0 +1,73 @@
+package ch.yvesguillo.bench;
+
+import ch.yvesguillo.controller.CommandBuilder;
+import ch.yvesguillo.model.CliOption;
+import ch.yvesguillo.model.CliSchemaParser;
+import ch.yvesguillo.model.OptionValues;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of building the Crawlect arguments from the option values, as done before every run
+ * (interactive, queued, watched or batch). Every option has a value.
+ *
+ * The builder logs each option to stdout: the log is written to a discarding stream,
+ * so the formatting is measured but not the console.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommandBuilderBenchmark {
+
+    @Param({"40", "1000"})
+    public int optionCount;
+
+    private List<CliOption> options;
+    private Map<CliOption, Object> values;
+    private PrintStream console;
+
+    @Setup
+    public void setup() {
+        options = CliSchemaParser.lazyGetInstance(SyntheticSchema.json(optionCount)).getAllOptions();
+        values = new OptionValues();
+        for (int i = 0; i < options.size(); i++) {
+            values.put(options.get(i), SyntheticSchema.value(i));
+        }
+        console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(console);
+    }
+
+    @Benchmark
+    public List<String> buildArgs() {
+        return CommandBuilder.buildArgs(options, values);
+    }
+
+    @Benchmark
+    public String validate() {
+        return CommandBuilder.validate(options, values);
+    }
+}
@@ -0,0 +1,105 @@
+package ch.yvesguillo.bench;
+
+import ch.yvesguillo.controller.IgnoreMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Classification throughput of {@link IgnoreMatcher}, in paths per second (target: 1M/s).
+ *
+ * Paths come from a synthetic tree of 80,000 directories holding each sample file once, classified in walk order
+ * against a .crawlectignore, a .gitignore with a few hundred rules and a .dockerignore.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IgnoreMatcherBenchmark {
+
+    private static final String[] DIRECTORY_NAMES = {"src", "main", "java", "app", "lib", "util", "node_modules", "target", "docs", "test", "res", "build"};
+    // Bare names, so the name rules (README.md, Makefile, !important.log, tmp[0-9]*) can match.
+    private static final String[] FILE_NAMES = {"App.java", "index.js", "bundle.min.js", "server.log", "important.log", "notes.md", "README.md", "Makefile", "data.json", "manual.pdf", "tmp3", "draft.txt~", "Main.class"};
+
+    private static final int DIRECTORIES = 80_000;
+    private static final int FILES_PER_DIRECTORY = 13; // FILE_NAMES.length, as a constant for @OperationsPerInvocation
+    private static final int PATHS = DIRECTORIES * FILES_PER_DIRECTORY;
+
+    private IgnoreMatcher matcher;
+    private String[] paths;
+
+    @Setup
+    public void setup() {
+        List<String> gitRules = new ArrayList<>(List.of(
+                "node_modules/", "*.log", "!important.log", "/dist", "build/", "**/target/", "*.class", ".idea/",
+                "coverage/", "*.min.js", "docs/**/*.pdf", "tmp[0-9]*", "*~", ".DS_Store", "vendor/**"));
+        for (int i = 0; i < 300; i++) {
+            gitRules.add(switch (i % 3) {
+                case 0 -> "/generated" + i + "/";
+                case 1 -> "*.ext" + i;
+                default -> "file" + i + ".txt";
+            });
+        }
+
+        matcher = IgnoreMatcher.builder()
+                .addRules(List.of("# Crawlect", "README.md", "Makefile", "*.json"), false)
+                .addRules(gitRules, false)
+                .addRules(List.of("*.md", "/secrets", "**/*.bak"), true)
+                .build();
+
+        Random random = new Random(42);
+        paths = new String[PATHS];
+        for (int d = 0; d < DIRECTORIES; d++) {
+            StringBuilder directory = new StringBuilder();
+            int depth = 1 + random.nextInt(7);
+            for (int level = 0; level < depth; level++) {
+                directory.append(DIRECTORY_NAMES[random.nextInt(DIRECTORY_NAMES.length)]);
+                if (level == depth - 1) {
+                    directory.append(d);
+                }
+                directory.append('/');
+            }
+            // The directory carries the index: each name appears once per directory, in a random order.
+            List<String> names = new ArrayList<>(List.of(FILE_NAMES));
+            Collections.shuffle(names, random);
+            for (int f = 0; f < names.size(); f++) {
+                paths[d * FILES_PER_DIRECTORY + f] = directory + names.get(f);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PATHS)
+    public void classifyPaths(Blackhole blackhole) {
+        for (String path : paths) {
+            blackhole.consume(matcher.isIgnored(path, false));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PATHS)
+    public void classifyEntries(Blackhole blackhole) {
+        // Tree-walk usage: parents already known to be included, segments already split.
+        for (String path : paths) {
+            String[] segments = IgnoreMatcher.split(path);
+            blackhole.consume(matcher.isEntryIgnored(segments, segments.length, false));
+        }
+    }
+}
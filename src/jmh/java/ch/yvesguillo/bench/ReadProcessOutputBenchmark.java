@@ -0,0 +1,95 @@
+package ch.yvesguillo.bench;
+
+import ch.yvesguillo.controller.OutputCapture;
+import ch.yvesguillo.controller.PythonRunner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link PythonRunner#readProcessOutput(InputStream, OutputCapture, java.util.function.Consumer)},
+ * in MB of process output per second, on a {@value #STREAM_MEGABYTES} MB synthetic stream of Crawlect-like lines.
+ *
+ * The capture spills the whole stream to a temporary file (deleted after each invocation), as for a real run:
+ * the temporary directory needs that much free space. A line listener stands for the console.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class ReadProcessOutputBenchmark {
+
+    private static final int STREAM_MEGABYTES = 2048;
+    private static final long STREAM_BYTES = (long) STREAM_MEGABYTES << 20;
+
+    private byte[] block;
+
+    @Setup
+    public void setup() {
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; lines.length() < 64 * 1024; i++) {
+            lines.append("Crawling /home/user/projects/app/src/main/java/module").append(i % 97)
+                    .append("/Component").append(i).append(".java\n");
+        }
+        block = lines.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STREAM_MEGABYTES)
+    public long readOutput(Blackhole blackhole) throws Exception {
+        try (OutputCapture capture = OutputCapture.create()) {
+            PythonRunner.readProcessOutput(new RepeatingStream(block, STREAM_BYTES), capture, blackhole::consume);
+            return capture.getLineCount();
+        }
+    }
+
+    /**
+     * Stream repeating a block of bytes up to a given length, without allocating.
+     */
+    private static final class RepeatingStream extends InputStream {
+
+        private final byte[] block;
+        private final long length;
+        private long position = 0;
+
+        RepeatingStream(byte[] block, long length) {
+            this.block = block;
+            this.length = length;
+        }
+
+        @Override
+        public int read() {
+            if (position >= length) {
+                return -1;
+            }
+            return block[(int) (position++ % block.length)] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int count) {
+            if (position >= length) {
+                return -1;
+            }
+            int start = (int) (position % block.length);
+            int read = (int) Math.min(Math.min(count, block.length - start), length - position);
+            System.arraycopy(block, start, buffer, offset, read);
+            position += read;
+            return read;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package ch.yvesguillo.bench;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generates Crawlect-like CLI schemas of any size, in the JSON format of {@code crawlect -clischem}.
+ *
+ * Options cycle through the four kinds the GUI handles (boolean with a negative flag, choice, text with a short flag,
+ * path), spread over 20 groups. The output is deterministic, so forks of a benchmark see the same schema.
+ */
+final class SyntheticSchema {
+
+    private static final int GROUPS = 20;
+
+    // Private constructor to prevent instantiation.
+    private SyntheticSchema() {
+        throw new UnsupportedOperationException("SyntheticSchema is an utility class");
+    }
+
+    /**
+     * Returns a schema with the given number of options.
+     *
+     * @param optionCount number of options.
+     * @return JSON array of options.
+     */
+    static String json(int optionCount) {
+        List<Map<String, Object>> options = new ArrayList<>(optionCount);
+        for (int i = 0; i < optionCount; i++) {
+            Map<String, Object> option = new LinkedHashMap<>();
+            option.put("group", "Group " + (i % GROUPS));
+            switch (i % 4) {
+                case 0 -> {
+                    option.put("flags", List.of("--flag-" + i, "--no-flag-" + i));
+                    option.put("default", "False");
+                    option.put("guitype", "checkbox");
+                }
+                case 1 -> {
+                    option.put("flags", List.of("--choice-" + i));
+                    option.put("choices", List.of("low", "medium", "high"));
+                    option.put("default", "medium");
+                }
+                case 2 -> {
+                    option.put("flags", List.of("-t" + i, "--text-" + i));
+                    option.put("type", "str");
+                    option.put("metavar", "TEXT");
+                }
+                default -> {
+                    option.put("flags", List.of("--path-" + i));
+                    option.put("type", "str");
+                    option.put("guitype", "path");
+                }
+            }
+            option.put("help", "Synthetic option number " + i + ", with a help text of a realistic length.");
+            option.put("guilabel", "Option " + i);
+            options.add(option);
+        }
+        try {
+            return new ObjectMapper().writeValueAsString(options);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns a value matching the kind of the option at the given position, as the GUI would store it.
+     *
+     * @param index option position in the schema.
+     * @return option value.
+     */
+    static Object value(int index) {
+        return switch (index % 4) {
+            case 0 -> index % 8 == 0;
+            case 1 -> "high";
+            case 2 -> "  some text " + index + "  ";
+            default -> "/home/user/projects/module-" + index;
+        };
+    }
+}
@@ -0,0 +1,90 @@
+package ch.yvesguillo.bench;
+
+import ch.yvesguillo.controller.UserSettings;
+import ch.yvesguillo.model.CliOption;
+import ch.yvesguillo.model.CliSchemaParser;
+import ch.yvesguillo.model.OptionValues;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Cost of saving the option values to the config file and reading them back, as on every successful run
+ * and every startup. {@code saveAndFlush} includes the atomic file replace; {@code roundTrip} adds the load.
+ *
+ * Uses a dedicated {@value #APP_NAME} config directory, deleted afterwards. The settings log each save and load
+ * to stdout: the log is discarded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserSettingsBenchmark {
+
+    private static final String APP_NAME = "crawlect-gui-bench";
+
+    @Param({"40", "1000"})
+    public int optionCount;
+
+    private UserSettings settings;
+    private Map<CliOption, Object> values;
+    private PrintStream console;
+
+    @Setup
+    public void setup() {
+        console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        List<CliOption> options = CliSchemaParser.lazyGetInstance(SyntheticSchema.json(optionCount)).getAllOptions();
+        values = new OptionValues();
+        for (int i = 0; i < options.size(); i++) {
+            values.put(options.get(i), SyntheticSchema.value(i));
+        }
+        settings = UserSettings.lazyGetInstance(APP_NAME);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        System.setOut(console);
+        File directory = settings.getConfigDirectory();
+        try (Stream<Path> files = Files.walk(directory.toPath())) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public void saveAndFlush() {
+        settings.saveConfig(values);
+        settings.flush();
+    }
+
+    @Benchmark
+    public Map<CliOption, Object> roundTrip() {
+        settings.saveConfig(values);
+        settings.flush();
+        return settings.loadConfig();
+    }
+}
@@ -1,16 +1,34 @@
 package ch.yvesguillo;
 
+import ch.yvesguillo.controller.BatchRunner;
+import ch.yvesguillo.controller.Metrics;
+import ch.yvesguillo.controller.OutputCapture;
 import ch.yvesguillo.controller.PythonRunner;
+import ch.yvesguillo.controller.SchemaCache;
+import ch.yvesguillo.controller.StartupTimeline;
+import ch.yvesguillo.controller.ProfileStore;
+import ch.yvesguillo.controller.RunJournal;
 import ch.yvesguillo.controller.UserSettings;
 import ch.yvesguillo.controller.MainController;
 import ch.yvesguillo.model.CliSchemaParser;
 import ch.yvesguillo.view.MainWindow;
+import ch.yvesguillo.view.StartupSplash;
 
+import javax.imageio.ImageIO;
 import javax.swing.*;
 import java.awt.*;
+import java.io.IOException;
 import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import com.formdev.flatlaf.FlatDarkLaf;
 
@@ -19,9 +37,12 @@ import com.formdev.flatlaf.FlatDarkLaf;
  *
  * Responsibilities:
  * - Set the application theme and icon
- * - Initialize the CLI schema from the Python backend
  * - Load versioning info from resources
- * - Launch the Swing GUI
+ * - Initialize the CLI schema (cached, or from the Python backend)
+ * - Launch the Swing GUI, or the headless batch mode ({@link BatchRunner}) when asked to
+ *
+ * Independent startup phases run concurrently as a dependency graph, each one timed by {@link StartupTimeline}.
+ * A splash window is shown while they run.
  */
 public class CrawlectGUI {
 
@@ -35,99 +56,267 @@ public class CrawlectGUI {
     public static MainWindow view;
 
     /**
-     * Main method: launches the GUI.
+     * Main method: launches the GUI, or runs a headless batch if the arguments ask for it.
+     *
+     * GUI phase graph:
+     * - laf → splash
+     * - version → settings → interpreter → schema
+     * - icons, spill
+     * - laf + schema + icons → window (on the EDT)
      *
-     * @param args Optional CLI args (not used in current version).
+     * @param args Optional CLI args: {@code --batch [FILE]} runs headless (see {@link BatchRunner}).
      */
     public static void main(String[] args) {
-        try {
-            // Set FlatLaf dark theme (look and feel)
-            UIManager.setLookAndFeel(new FlatDarkLaf());
+        if (BatchRunner.isBatchRequest(args)) {
+            // Decided before any AWT or Swing class is touched.
+            System.setProperty("java.awt.headless", "true");
+            loadVersion();
+            System.exit(BatchRunner.run(args, appName, appVersion));
+        }
 
-            // Fetch CLI schema (JSON) from the Crawlect Python backend
-            String json = PythonRunner.getCliSchemaJson();
-            CliSchemaParser.initialize(json);
+        Gui.launch();
+    }
 
-            // Default fallback values
-            String name = "Crawlect-GUI";
-            String version = "DEV";
+    /**
+     * A startup phase body, allowed to throw.
+     */
+    @FunctionalInterface
+    private interface PhaseBody {
+        void run() throws Exception;
+    }
 
-            // Load app name and version from embedded properties file
-            try (InputStream stream = CrawlectGUI.class.getResourceAsStream("/version.properties")) {
-                if (stream != null) {
-                    Properties props = new Properties();
-                    props.load(stream);
-                    appName = props.getProperty("project.name", name);
-                    appVersion = props.getProperty("project.version", version);
-                }
-            } catch (Exception e) {
-                System.err.println("[Init] Could not load version.properties: " + e.getMessage());
-                appName = name;
-                appVersion = version;
-            }
+    /**
+     * Schedules a timed phase once all its dependencies have completed.
+     *
+     * @param name phase name (see {@link StartupTimeline}).
+     * @param executor executor running the phase.
+     * @param body phase body.
+     * @param dependencies phases that must complete first.
+     * @return the scheduled phase.
+     */
+    private static CompletableFuture<Void> phase(String name, Executor executor, PhaseBody body, CompletableFuture<?>... dependencies) {
+        return CompletableFuture.allOf(dependencies).thenRunAsync(() -> timed(name, () -> {
+            body.run();
+            return null;
+        }), executor);
+    }
 
-            // Load user settings (config.json)
-            UserSettings.initialize(appName.toLowerCase() + " " + appVersion);
+    /**
+     * Times a phase, wrapping checked exceptions for the {@link CompletableFuture} chain.
+     *
+     * @param name phase name.
+     * @param work phase body.
+     * @param <T> phase result type.
+     * @return phase result.
+     */
+    private static <T> T timed(String name, Callable<T> work) {
+        try {
+            return StartupTimeline.time(name, work);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
 
-            // UI-related work must run on the Event Dispatch Thread
-            SwingUtilities.invokeLater(() -> {
-                // Initialize and display the GUI window
-                MainWindow.initialize(CliSchemaParser.getInstance().getGroups(), appName, appVersion);
-                view = MainWindow.getInstance();
-
-                // Initialize controller
-                MainController.initialize(view);
-
-                setAppIcon(view);
-                view.setVisible(true);
-            });
-
-        } catch (Exception error) {
-            // Graceful error fallback: show dialog and exit
-            SwingUtilities.invokeLater(() -> {
-                JOptionPane.showMessageDialog(
-                        null,
-                        "Crawlect is not available on this system.\n" + error.getMessage(),
-                        "Error",
-                        JOptionPane.ERROR_MESSAGE
-                );
-                System.exit(1);
-            });
+    /**
+     * Loads the app name and version from the embedded properties file, with fallback values.
+     */
+    private static void loadVersion() {
+        // Default fallback values
+        appName = "Crawlect-GUI";
+        appVersion = "DEV";
+
+        try (InputStream stream = CrawlectGUI.class.getResourceAsStream("/version.properties")) {
+            if (stream != null) {
+                Properties props = new Properties();
+                props.load(stream);
+                appName = props.getProperty("project.name", appName);
+                appVersion = props.getProperty("project.version", appVersion);
+            }
+        } catch (Exception e) {
+            System.err.println("[Init] Could not load version.properties: " + e.getMessage());
         }
     }
 
     /**
-     * Sets the application icon depending on the platform (macOS, Windows, Linux).
-     *
-     * @param win The main application JFrame.
+     * GUI startup, kept in its own class: the batch mode never loads it, so no AWT or Swing class is loaded either.
      */
-    private static void setAppIcon(JFrame win) {
-        try {
+    private static final class Gui {
+
+        // Splash shown during startup (EDT only).
+        private static StartupSplash splash;
+
+        /**
+         * Runs the startup phase graph and shows the main window.
+         */
+        static void launch() {
+            ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+            Executor edt = SwingUtilities::invokeLater;
+
+            // Set FlatLaf dark theme (look and feel)
+            CompletableFuture<Void> laf = phase("laf", executor, () -> UIManager.setLookAndFeel(new FlatDarkLaf()));
+            laf.thenRunAsync(Gui::showSplash, edt);
+
+            // Delete output spill files left behind by crashed instances; nothing waits for it
+            phase("spill", executor, OutputCapture::sweepSpillFiles);
+
+            // Load app name and version from embedded properties file
+            CompletableFuture<Void> version = phase("version", executor, CrawlectGUI::loadVersion);
+
+            // Locate the user settings folder
+            CompletableFuture<Void> settings = phase("settings", executor, () -> UserSettings.initialize(appName.toLowerCase() + " " + appVersion), version);
+
+            // Read config.json alongside the Python and schema phases; mapping to CLI options waits for the schema
+            CompletableFuture<Void> config = phase("config", executor, () -> UserSettings.getInstance().preloadConfig(), settings);
+
+            // Index the saved profiles (names only); the window does not wait for it
+            phase("profiles", executor, () -> ProfileStore.lazyGetInstance().getNames(), settings);
+
+            // Load the recent run journal for predictions; the window does not wait for it
+            phase("journal", executor, () -> RunJournal.lazyGetInstance().getEntries(), settings);
+
+            // Locate Python (persisted next to the settings)
+            CompletableFuture<Void> interpreter = phase("interpreter", executor, PythonRunner::getPythonCommand, settings);
+
+            // Fetch CLI schema (JSON) from the cache next to the settings, or from the Crawlect Python backend
+            CompletableFuture<Void> schema = phase("schema", executor, () -> {
+                String json = SchemaCache.getCliSchemaJson(UserSettings.getInstance().getConfigDirectory());
+                Metrics.timer("schema.parse").time(() -> {
+                    CliSchemaParser.initialize(json);
+                    return null;
+                });
+            }, interpreter);
+
+            // Decode icon images (best effort: the window shows without icons rather than not at all)
+            CompletableFuture<List<Image>> icons = CompletableFuture.supplyAsync(() -> timed("icons", Gui::loadAppIcons), executor)
+                    .exceptionally(error -> {
+                        System.err.println("[GUI] Could not load icons: " + error.getMessage());
+                        return List.of();
+                    });
+
+            // UI-related work must run on the Event Dispatch Thread
+            CompletableFuture<Void> startup = CompletableFuture.allOf(laf, schema, config, icons)
+                    .thenRunAsync(() -> timed("window", () -> {
+                        // Initialize and display the GUI window
+                        MainWindow.initialize(CliSchemaParser.getInstance().getGroups(), appName, appVersion);
+                        view = MainWindow.getInstance();
+
+                        // Initialize controller
+                        MainController.initialize(view);
+
+                        setAppIcon(view, icons.join());
+                        view.setVisible(true);
+                        hideSplash();
+                        return null;
+                    }), edt)
+                    .whenComplete((result, error) -> {
+                        executor.shutdown();
+                        if (error != null) {
+                            // Graceful error fallback: show dialog and exit
+                            Throwable cause = (error instanceof CompletionException && error.getCause() != null) ? error.getCause() : error;
+                            SwingUtilities.invokeLater(() -> {
+                                hideSplash();
+                                JOptionPane.showMessageDialog(
+                                        null,
+                                        "Crawlect is not available on this system.\n" + cause.getMessage(),
+                                        "Error",
+                                        JOptionPane.ERROR_MESSAGE
+                                );
+                                System.exit(1);
+                            });
+                            return;
+                        }
+                        StartupTimeline.mark("first-frame");
+                        StartupTimeline.report();
+                        // Expose the metrics to JConsole / VisualVM, off the startup path.
+                        Thread.ofVirtual().name("crawlect-metrics-publish").start(Metrics::publish);
+                    });
+
+            // Phases run on daemon (virtual) threads: keep main alive until the EDT has taken over.
+            startup.exceptionally(error -> null).join();
+        }
+
+        /**
+         * Shows the splash window (EDT only).
+         */
+        private static void showSplash() {
+            // The window may already be up if everything else was faster.
+            if (view == null) {
+                splash = new StartupSplash("Crawlect-GUI");
+                splash.setVisible(true);
+            }
+        }
+
+        /**
+         * Hides the splash window, if shown (EDT only).
+         */
+        private static void hideSplash() {
+            if (splash != null) {
+                splash.dispose();
+                splash = null;
+            }
+        }
+
+        /**
+         * Decodes the application icons for the current platform (macOS, Windows, Linux).
+         * Best effort: a missing or corrupt icon is logged, and the window shows without icons.
+         *
+         * @return decoded icons (only the dock icon on macOS), or an empty list if one cannot be decoded.
+         */
+        private static List<Image> loadAppIcons() {
             String os = System.getProperty("os.name").toLowerCase();
+            List<String> names = os.contains("mac")
+                    ? List.of("crawlect-gui_64-mac.png")
+                    : List.of("crawlect-gui_16.png", "crawlect-gui_32.png", "crawlect-gui_64.png", "crawlect-gui_256.png");
 
-            if (os.contains("mac")) {
-                // macOS: only dock icon is needed
-                Taskbar.getTaskbar().setIconImage(
-                        new ImageIcon(CrawlectGUI.class.getResource("/icons/crawlect-gui_64-mac.png")).getImage()
-                );
-            } else {
-                // Windows & Linux: full icon list
-                List<Image> icons = List.of(
-                        new ImageIcon(CrawlectGUI.class.getResource("/icons/crawlect-gui_16.png")).getImage(),
-                        new ImageIcon(CrawlectGUI.class.getResource("/icons/crawlect-gui_32.png")).getImage(),
-                        new ImageIcon(CrawlectGUI.class.getResource("/icons/crawlect-gui_64.png")).getImage(),
-                        new ImageIcon(CrawlectGUI.class.getResource("/icons/crawlect-gui_256.png")).getImage()
-                );
-                win.setIconImages(icons);
-
-                if (os.contains("linux")) {
-                    // Linux-specific hint for Look & Feel to use the icon
-                    // Use 64px icon
-                    UIManager.put("Frame.iconImage", icons.get(2));
+            List<Image> icons = new ArrayList<>();
+            try {
+                for (String name : names) {
+                    URL resource = CrawlectGUI.class.getResource("/icons/" + name);
+                    Image icon = (resource != null) ? ImageIO.read(resource) : null;
+                    if (icon == null) {
+                        throw new IOException("missing or unreadable icon " + name);
+                    }
+                    icons.add(icon);
                 }
+            } catch (IOException e) {
+                System.err.println("[GUI] Could not load icons: " + e.getMessage());
+                return List.of();
+            }
+            return icons;
+        }
+
+        /**
+         * Sets the application icon depending on the platform (macOS, Windows, Linux).
+         *
+         * @param win The main application JFrame.
+         * @param icons Icons decoded by {@link #loadAppIcons()}.
+         */
+        private static void setAppIcon(JFrame win, List<Image> icons) {
+            if (icons.isEmpty()) {
+                // Not loaded (already logged).
+                return;
+            }
+            try {
+                String os = System.getProperty("os.name").toLowerCase();
+
+                if (os.contains("mac")) {
+                    // macOS: only dock icon is needed
+                    Taskbar.getTaskbar().setIconImage(icons.get(0));
+                } else {
+                    // Windows & Linux: full icon list
+                    win.setIconImages(icons);
+
+                    if (os.contains("linux")) {
+                        // Linux-specific hint for Look & Feel to use the icon
+                        // Use 64px icon
+                        UIManager.put("Frame.iconImage", icons.get(2));
+                    }
+                }
+            } catch (Exception e) {
+                System.err.println("[GUI] Could not set icon: " + e.getMessage());
             }
-        } catch (Exception e) {
-            System.err.println("[GUI] Could not set icon: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+}
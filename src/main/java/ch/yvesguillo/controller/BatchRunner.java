@@ -0,0 +1,508 @@
+package ch.yvesguillo.controller;
+
+import ch.yvesguillo.model.CliOption;
+import ch.yvesguillo.model.CliSchemaParser;
+import ch.yvesguillo.model.CrawlJob;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Headless batch mode: runs Crawlect for one settings file or a manifest of many runs, without loading AWT or Swing.
+ *
+ * Usage: {@code crawlect-gui --batch [FILE] [--parallel N] [--overwrite] [--no-cache] [--timeout S] [--idle-timeout S] [--split N] [--chunk-tokens N] [--llm-proxy URL]}
+ * <ul>
+ *   <li>no FILE: the settings saved by the GUI;</li>
+ *   <li>a settings file: an object of values keyed by flag, as saved by the GUI (one run);</li>
+ *   <li>a manifest: an array of run definitions, or an object with a {@code runs} array and optional
+ *       {@code parallel}, {@code overwrite} and {@code defaults} (values applied to every run).</li>
+ * </ul>
+ * A run definition holds values keyed by flag, plus an optional {@code name}, an optional saved
+ * {@code profile} and an optional {@code settings} file (relative to the manifest), whose values it overrides
+ * (in that order: the settings file overrides the profile).
+ *
+ * Stdout only carries results, as JSON lines: one {@code result} per run as it ends, then a {@code summary}.
+ * Logs and Crawlect output go to stderr. Exit code: 0 if all runs succeeded, 1 if any did not, 2 on usage errors.
+ */
+public final class BatchRunner {
+
+    /** Exit code when every run succeeded. */
+    public static final int EXIT_OK = 0;
+
+    /** Exit code when at least one run failed, was cancelled or was invalid. */
+    public static final int EXIT_FAILED = 1;
+
+    /** Exit code for invalid command lines or manifests. */
+    public static final int EXIT_USAGE = 2;
+
+    private static final String USAGE = """
+            Usage: crawlect-gui --batch [FILE] [--parallel N] [--overwrite] [--no-cache] [--timeout S] [--idle-timeout S] [--split N] [--chunk-tokens N] [--llm-proxy URL]
+
+              FILE          Settings file or manifest (JSON). Defaults to the settings saved by the GUI.
+              --parallel N  Maximum number of Crawlect runs at once (overrides the manifest).
+              --overwrite   Replace existing output files instead of reporting the run as invalid.
+              --no-cache    Always run Crawlect, even when the options and the crawled files are unchanged.
+              --timeout S   Stop each run after S seconds (its partial output is deleted).
+              --idle-timeout S
+                            Stop a run that prints nothing for S seconds (e.g. a stuck LLM call).
+              --split N     Crawl large trees as up to N parallel Crawlect runs of their subtrees, merged into the output.
+              --chunk-tokens N
+                            Also split each output into chunks of at most N estimated tokens for LLMs (<output>-chunks/).
+              --llm-proxy URL
+                            Cache the answers of the Ollama host URL, so unchanged prompts are not sent again.
+
+            Manifest: [ {run}, ... ] or { "parallel": 2, "overwrite": false, "defaults": {...}, "runs": [ {run}, ... ] }
+            Run:      { "name": "api", "profile": "deep", "settings": "api.json", "--path": "services/api", "--output": "api.md", "--recur": true }
+            """;
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    // Held while a result line is written to stdout, from the run threads.
+    private static final ReentrantLock EMIT_LOCK = new ReentrantLock();
+
+    // Private constructor to prevent instantiation.
+    private BatchRunner() {
+        throw new UnsupportedOperationException("BatchRunner is an utility class");
+    }
+
+    /**
+     * One run from the manifest, with its values still keyed by flag.
+     *
+     * @param index position in the manifest.
+     * @param name display name.
+     * @param values raw values keyed by flag.
+     */
+    private record RunDefinition(int index, String name, Map<String, Object> values) {
+    }
+
+    /**
+     * Tells whether the command line asks for the batch mode.
+     *
+     * @param args application arguments.
+     * @return true if the GUI must not be started.
+     */
+    public static boolean isBatchRequest(String[] args) {
+        for (String arg : args) {
+            if (arg.equals("--batch") || arg.equals("--help") || arg.equals("-h")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Runs the batch described by the command line.
+     *
+     * @param args application arguments.
+     * @param appName application name (selects the settings directory).
+     * @param appVersion application version (selects the settings directory).
+     * @return process exit code.
+     */
+    public static int run(String[] args, String appName, String appVersion) {
+        // Keep stdout for results only: everything else logs through System.out.
+        PrintStream results = System.out;
+        System.setOut(System.err);
+
+        String file = null;
+        Integer parallel = null;
+        boolean overwrite = false;
+        int chunkTokens = 0;
+        String llmProxyHost = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--batch" -> {
+                    if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                        file = args[++i];
+                    }
+                }
+                case "--parallel" -> {
+                    if (i + 1 >= args.length) {
+                        return usage("Missing value for --parallel.");
+                    }
+                    try {
+                        parallel = Integer.parseInt(args[++i]);
+                    } catch (NumberFormatException e) {
+                        return usage("--parallel must be an integer.");
+                    }
+                }
+                case "--overwrite" -> overwrite = true;
+                case "--no-cache" -> ResultCache.setEnabled(false);
+                case "--timeout", "--idle-timeout" -> {
+                    if (i + 1 >= args.length) {
+                        return usage("Missing value for " + args[i] + ".");
+                    }
+                    long seconds;
+                    try {
+                        seconds = Long.parseLong(args[i + 1]);
+                    } catch (NumberFormatException e) {
+                        return usage(args[i] + " must be a number of seconds.");
+                    }
+                    if (args[i].equals("--timeout")) {
+                        RunControl.setDefaultTimeouts(seconds * 1000, RunControl.getDefaultIdleTimeoutMillis());
+                    } else {
+                        RunControl.setDefaultTimeouts(RunControl.getDefaultTimeoutMillis(), seconds * 1000);
+                    }
+                    i++;
+                }
+                case "--split" -> {
+                    if (i + 1 >= args.length) {
+                        return usage("Missing value for --split.");
+                    }
+                    try {
+                        SplitCrawl.setParallelRuns(Integer.parseInt(args[++i]));
+                    } catch (NumberFormatException e) {
+                        return usage("--split must be an integer.");
+                    }
+                }
+                case "--chunk-tokens" -> {
+                    if (i + 1 >= args.length) {
+                        return usage("Missing value for --chunk-tokens.");
+                    }
+                    try {
+                        chunkTokens = Integer.parseInt(args[++i]);
+                    } catch (NumberFormatException e) {
+                        return usage("--chunk-tokens must be an integer.");
+                    }
+                    if (chunkTokens < DigestChunker.MIN_TOKEN_BUDGET) {
+                        return usage("--chunk-tokens must be at least " + DigestChunker.MIN_TOKEN_BUDGET + ".");
+                    }
+                }
+                case "--llm-proxy" -> {
+                    if (i + 1 >= args.length) {
+                        return usage("Missing value for --llm-proxy.");
+                    }
+                    llmProxyHost = args[++i];
+                }
+                case "--help", "-h" -> {
+                    System.err.print(USAGE);
+                    return EXIT_OK;
+                }
+                default -> {
+                    return usage("Unknown argument: " + args[i]);
+                }
+            }
+        }
+
+        try {
+            UserSettings.initialize(appName.toLowerCase() + " " + appVersion);
+            String schema = SchemaCache.getCliSchemaJson(UserSettings.getInstance().getConfigDirectory());
+            Metrics.timer("schema.parse").time(() -> {
+                CliSchemaParser.initialize(schema);
+                return null;
+            });
+        } catch (Exception e) {
+            System.err.println("[Batch] Crawlect is not available on this system: " + e.getMessage());
+            return EXIT_FAILED;
+        }
+
+        if (llmProxyHost != null) {
+            try {
+                LlmProxy.start(llmProxyHost, LlmProxy.DEFAULT_MAX_CACHE_BYTES);
+            } catch (IllegalArgumentException e) {
+                return usage("--llm-proxy: " + e.getMessage());
+            } catch (IOException e) {
+                System.err.println("[Batch] Could not start the LLM cache proxy: " + e.getMessage());
+                return EXIT_FAILED;
+            }
+        }
+
+        List<RunDefinition> runs = new ArrayList<>();
+        try {
+            JsonNode manifest = (file != null)
+                    ? mapper.readTree(new File(file))
+                    : mapper.readTree(UserSettings.getInstance().getConfigFile());
+            File baseDir = (file != null) ? new File(file).getAbsoluteFile().getParentFile() : null;
+
+            JsonNode runNodes;
+            Map<String, Object> defaults = new HashMap<>();
+            if (manifest.isArray()) {
+                runNodes = manifest;
+            } else if (manifest.has("runs")) {
+                runNodes = manifest.get("runs");
+                if (parallel == null && manifest.has("parallel")) {
+                    parallel = manifest.get("parallel").asInt();
+                }
+                overwrite = overwrite || manifest.path("overwrite").asBoolean(false);
+                if (manifest.has("defaults")) {
+                    defaults.putAll(toMap(manifest.get("defaults")));
+                }
+            } else {
+                // A plain settings file: a single run.
+                runNodes = mapper.createArrayNode().add(manifest);
+            }
+
+            for (JsonNode node : runNodes) {
+                runs.add(parseRun(runs.size(), node, defaults, baseDir));
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            return usage("Invalid batch file: " + e.getMessage());
+        }
+
+        if (runs.isEmpty()) {
+            return usage("Nothing to run.");
+        }
+
+        OutputCapture.sweepSpillFiles();
+        JobScheduler.initialize((parallel != null) ? parallel : JobScheduler.defaultConcurrency());
+        JobScheduler scheduler = JobScheduler.getInstance();
+        System.err.println("[Batch] " + runs.size() + " run(s), " + scheduler.getConcurrency() + " at a time");
+
+        // Ctrl+C or CI timeout: do not leave Crawlect processes behind.
+        Thread cancelHook = new Thread(scheduler::cancelAll, "crawlect-batch-cancel");
+        Runtime.getRuntime().addShutdownHook(cancelHook);
+
+        long start = System.currentTimeMillis();
+        Map<String, Integer> totals = new LinkedHashMap<>();
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+
+        int chunkBudget = chunkTokens;
+        for (RunDefinition run : runs) {
+            Map<CliOption, Object> values = UserSettings.toOptionValues(run.values());
+            List<CliOption> options = CliSchemaParser.getInstance().getAllOptions();
+
+            String error = CommandBuilder.validate(options, values);
+            List<String> commandArgs = (error == null) ? CommandBuilder.buildArgs(options, values) : List.of();
+            if (error == null) {
+                error = checkPaths(commandArgs, overwrite);
+            }
+            if (error != null) {
+                emit(results, totals, invalidResult(run, error));
+                continue;
+            }
+
+            CrawlJob job = scheduler.createJob(commandArgs);
+            pending.add(scheduler.submit(job, false, System.err::println)
+                    .handle((output, failure) -> {
+                        ObjectNode result = jobResult(run, job, output, failure);
+                        if (chunkBudget > 0 && output != null) {
+                            chunk(result, job, chunkBudget);
+                        }
+                        emit(results, totals, result);
+                        if (output != null) {
+                            output.close();
+                        }
+                        return null;
+                    }));
+        }
+
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).join();
+        Runtime.getRuntime().removeShutdownHook(cancelHook);
+
+        ObjectNode summary = mapper.createObjectNode();
+        summary.put("type", "summary");
+        summary.put("total", runs.size());
+        for (String state : List.of("SUCCEEDED", "FAILED", "CANCELLED", "INVALID")) {
+            summary.put(state.toLowerCase(), totals.getOrDefault(state, 0));
+        }
+        summary.put("wallMillis", System.currentTimeMillis() - start);
+        results.println(summary);
+        results.flush();
+
+        return (totals.getOrDefault("SUCCEEDED", 0) == runs.size()) ? EXIT_OK : EXIT_FAILED;
+    }
+
+    /**
+     * Parses one run definition, resolving its settings file and flag aliases.
+     *
+     * @param index position in the manifest.
+     * @param node run definition.
+     * @param defaults values applied to every run.
+     * @param baseDir directory against which settings files are resolved (null: current directory).
+     * @return the run definition, with values keyed by primary flag.
+     * @throws IOException if a settings file cannot be read.
+     * @throws IllegalArgumentException if the definition is malformed or uses an unknown flag.
+     */
+    private static RunDefinition parseRun(int index, JsonNode node, Map<String, Object> defaults, File baseDir) throws IOException {
+        if (!node.isObject()) {
+            throw new IllegalArgumentException("run #" + index + " is not an object.");
+        }
+
+        Map<String, Object> values = new HashMap<>(defaults);
+        if (node.has("profile")) {
+            String profile = node.get("profile").asText();
+            Map<String, Object> saved = ProfileStore.lazyGetInstance().load(profile);
+            if (saved == null) {
+                throw new IllegalArgumentException("run #" + index + ": unknown profile " + profile);
+            }
+            values.putAll(normalize(saved, index));
+        }
+        if (node.has("settings")) {
+            File settings = new File(node.get("settings").asText());
+            if (!settings.isAbsolute() && baseDir != null) {
+                settings = new File(baseDir, settings.getPath());
+            }
+            values.putAll(normalize(UserSettings.readSettingsFile(settings), index));
+        }
+        values.putAll(normalize(toMap(node), index));
+
+        String name = node.path("name").asText("run-" + index);
+        return new RunDefinition(index, name, values);
+    }
+
+    /**
+     * Converts JSON object fields to plain Java values.
+     *
+     * @param node JSON object.
+     * @return fields as a map.
+     */
+    private static Map<String, Object> toMap(JsonNode node) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (Map.Entry<String, JsonNode> field : node.properties()) {
+            map.put(field.getKey(), mapper.convertValue(field.getValue(), Object.class));
+        }
+        return map;
+    }
+
+    /**
+     * Maps raw keys to primary flags and values to the types the GUI stores
+     * (Boolean for switches, String otherwise). Negative flags invert their value.
+     *
+     * @param raw values keyed by any flag of the option (plus "name", "profile" and "settings").
+     * @param index run position, for error messages.
+     * @return values keyed by primary flag.
+     * @throws IllegalArgumentException if a key is not a known flag.
+     */
+    private static Map<String, Object> normalize(Map<String, Object> raw, int index) {
+        Map<String, Object> values = new HashMap<>();
+        for (Map.Entry<String, Object> entry : raw.entrySet()) {
+            String key = entry.getKey();
+            if (key.equals("name") || key.equals("profile") || key.equals("settings")) {
+                continue;
+            }
+
+            CliOption option = CliSchemaParser.getInstance().findOption(key);
+            if (option == null) {
+                throw new IllegalArgumentException("run #" + index + ": unknown flag " + key);
+            }
+
+            Object value = entry.getValue();
+            if (option.isBoolean) {
+                boolean flag = (value instanceof Boolean b) ? b : Boolean.parseBoolean(String.valueOf(value));
+                values.put(option.getPrimaryFlag(), key.equals(option.getNegativeFlag()) != flag);
+            } else {
+                values.put(option.getPrimaryFlag(), (value != null) ? String.valueOf(value) : "");
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Performs the checks the GUI does with dialogs: the scanned path must be a directory,
+     * and an existing output file is only replaced when allowed.
+     *
+     * @param args CLI arguments.
+     * @param overwrite true to delete existing output files.
+     * @return an error message, or null if the run can start.
+     */
+    private static String checkPaths(List<String> args, boolean overwrite) {
+        for (int i = 0; i + 1 < args.size(); i++) {
+            String flag = args.get(i);
+            if (flag.equals("--path") || flag.equals("-p")) {
+                File path = new File(args.get(i + 1));
+                if (!path.isDirectory()) {
+                    return "The path to scan does not exist or is not a directory: " + path;
+                }
+            } else if (flag.equals("--output") || flag.equals("-o")) {
+                File output = new File(args.get(i + 1));
+                if (output.exists()) {
+                    if (!overwrite) {
+                        return "The output file already exists (use --overwrite): " + output;
+                    }
+                    if (!output.delete()) {
+                        return "Failed to delete the existing output file: " + output;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private static ObjectNode invalidResult(RunDefinition run, String error) {
+        ObjectNode result = baseResult(run);
+        result.put("state", "INVALID");
+        result.put("message", error);
+        return result;
+    }
+
+    private static ObjectNode jobResult(RunDefinition run, CrawlJob job, OutputCapture output, Throwable failure) {
+        Throwable cause = (failure instanceof CompletionException && failure.getCause() != null) ? failure.getCause() : failure;
+
+        ObjectNode result = baseResult(run);
+        result.put("job", job.getId());
+        result.put("state", (cause instanceof CancellationException) ? "CANCELLED" : job.getState().name());
+        if (job.getExitCode() != null) {
+            result.put("exitCode", job.getExitCode());
+        } else {
+            result.putNull("exitCode");
+        }
+        result.put("durationMillis", job.getDurationMillis());
+        result.put("path", job.getPath());
+        result.put("output", job.getOutput());
+        if (output != null) {
+            result.put("outputLines", output.getLineCount());
+        }
+        result.put("message", job.getMessage());
+        result.set("args", mapper.valueToTree(job.getArgs()));
+        return result;
+    }
+
+    /**
+     * Splits the output of a succeeded job into chunks for LLMs, and adds them to its result.
+     * A failure to chunk is reported in the result; the run itself still succeeded.
+     */
+    private static void chunk(ObjectNode result, CrawlJob job, int tokenBudget) {
+        if (job.getOutputFile() == null || !Files.isRegularFile(job.getOutputFile())) {
+            return;
+        }
+        try {
+            DigestChunker.Result chunks = DigestChunker.split(job.getOutputFile(), tokenBudget);
+            result.put("chunks", chunks.chunks().size());
+            result.put("chunkTokens", chunks.tokens());
+            result.put("chunkManifest", chunks.directory().resolve(DigestChunker.MANIFEST).toString());
+        } catch (IOException e) {
+            result.put("chunkError", e.getMessage());
+        }
+    }
+
+    private static ObjectNode baseResult(RunDefinition run) {
+        ObjectNode result = mapper.createObjectNode();
+        result.put("type", "result");
+        result.put("index", run.index());
+        result.put("name", run.name());
+        return result;
+    }
+
+    /**
+     * Prints one result line and counts it. Results may end concurrently.
+     */
+    private static void emit(PrintStream results, Map<String, Integer> totals, ObjectNode result) {
+        EMIT_LOCK.lock();
+        try {
+            totals.merge(result.get("state").asText(), 1, Integer::sum);
+            results.println(result);
+            results.flush();
+        } finally {
+            EMIT_LOCK.unlock();
+        }
+    }
+
+    private static int usage(String message) {
+        System.err.println("[Batch] " + message);
+        System.err.print(USAGE);
+        return EXIT_USAGE;
+    }
+}
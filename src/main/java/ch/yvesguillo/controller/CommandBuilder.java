@@ -0,0 +1,87 @@
+package ch.yvesguillo.controller;
+
+import ch.yvesguillo.model.CliOption;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Utility class turning option values into Crawlect CLI arguments.
+ *
+ * Free of any Swing dependency, so it is shared by the GUI and the headless batch mode.
+ */
+public final class CommandBuilder {
+
+    // Private constructor to prevent instantiation.
+    private CommandBuilder() {
+        throw new UnsupportedOperationException("CommandBuilder is an utility class");
+    }
+
+    /**
+     * Checks the values of the options against their schema (see {@link OptionValidator#check(Object)}).
+     * Paths are not looked up on the file system.
+     *
+     * @param options options to check.
+     * @param values values keyed by option.
+     * @return the first error message, or null if the values are valid.
+     */
+    public static String validate(Iterable<CliOption> options, Map<CliOption, Object> values) {
+        for (CliOption option : options) {
+            OptionValidator.Verdict verdict = OptionValidator.of(option).check(values.get(option));
+            if (verdict.isError()) {
+                return verdict.message();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Builds the CLI arguments for the given values.
+     * Booleans equal to their default, empty values and symbolic defaults (e.g. {@code --depth inf}) are omitted.
+     *
+     * @param options all known options, in schema order.
+     * @param values values keyed by option.
+     * @return CLI arguments (excluding the "python -m crawlect" prefix).
+     */
+    public static List<String> buildArgs(List<CliOption> options, Map<CliOption, Object> values) {
+        List<String> args = new ArrayList<>();
+
+        for (CliOption option : options) {
+            String flag = option.getPrimaryFlag();
+            Object value = values.get(option);
+
+            System.out.println("[Arg] got " + flag + " = " + value);
+
+            if (option.isBoolean) {
+                if (Boolean.TRUE.equals(value) && !Objects.equals(option.defaultValue, "True")) {
+                    // Add positive flag.
+                    args.add(flag);
+                } else if (Boolean.FALSE.equals(value) && !Objects.equals(option.defaultValue, "False")) {
+                    String negativeFlag = option.getNegativeFlag();
+                    if (negativeFlag != null) {
+                        // Add --no-flag form.
+                        args.add(negativeFlag);
+                    }
+                }
+            } else if (option.hasChoices) {
+                if (value instanceof String strVal && !strVal.isEmpty()) {
+                    args.add(flag);
+                    args.add(strVal);
+                }
+                // else: skip empty.
+            } else {
+                if (value instanceof String strVal) {
+                    strVal = strVal.trim();
+                    if (!strVal.isEmpty() && !OptionValidator.of(option).isSymbolicDefault(strVal)) {
+                        args.add(flag);
+                        args.add(strVal);
+                    }
+                }
+            }
+        }
+
+        return args;
+    }
+}
@@ -0,0 +1,28 @@
+package ch.yvesguillo.controller;
+
+/**
+ * Thrown when a Crawlect run ends with a non-zero exit code.
+ */
+public class CrawlectExitException extends RuntimeException {
+
+    private final int exitCode;
+
+    /**
+     * Constructs the exception for the given exit code.
+     *
+     * @param exitCode Crawlect process exit code.
+     */
+    public CrawlectExitException(int exitCode) {
+        super("Crawlect exited with code " + exitCode);
+        this.exitCode = exitCode;
+    }
+
+    /**
+     * Returns the Crawlect exit code.
+     *
+     * @return exit code.
+     */
+    public int getExitCode() {
+        return exitCode;
+    }
+}
@@ -0,0 +1,237 @@
+package ch.yvesguillo.controller;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Utility class starting Crawlect runs, either in the warm worker or in a dedicated process.
+ * Runs on unchanged trees are served from the {@link ResultCache} when it is enabled.
+ *
+ * Free of any Swing dependency, so the job scheduler can use it in the headless batch mode
+ * without loading AWT.
+ */
+public final class CrawlectLauncher {
+
+    private static final Metrics.Counter CACHE_HITS = Metrics.counter("run.cache.hits");
+    private static final Metrics.Timer SPAWN_TIMER = Metrics.timer("run.spawn");
+    private static final Metrics.Timer FIRST_OUTPUT_TIMER = Metrics.timer("run.firstOutput");
+
+    // Private constructor to prevent instantiation.
+    private CrawlectLauncher() {
+        throw new UnsupportedOperationException("CrawlectLauncher is an utility class");
+    }
+
+    /**
+     * Runs the Crawlect module with the given arguments, forwarding each output line as it is produced.
+     * The run can be cancelled through the given control.
+     *
+     * @param args list of CLI arguments (excluding the "python -m crawlect" prefix).
+     * @param lineListener receives every output line (may be null).
+     * @param control cancellation handle.
+     * @return captured stdout output (to be closed by the caller).
+     * @throws CrawlectExitException if Crawlect exits with an error.
+     * @throws CancellationException if the run was cancelled.
+     * @throws TimeoutException if the run was stopped by a timeout.
+     */
+    public static OutputCapture run(List<String> args, Consumer<String> lineListener, RunControl control) throws Exception {
+        if (control.isCancelled()) {
+            throw stopped(control);
+        }
+
+        ResultCache.Lookup cached = ResultCache.isEnabled() ? ResultCache.lazyGetInstance().lookup(args, control) : null;
+        if (cached != null && cached.isHit()) {
+            OutputCapture restored = cached.restore(lineListener);
+            forgetOutputProbe(args);
+            if (restored != null) {
+                control.markCached();
+                CACHE_HITS.increment();
+                return restored;
+            }
+        }
+
+        OutputCapture output;
+        try {
+            output = execute(args, lineListener, control);
+        } finally {
+            forgetOutputProbe(args);
+        }
+        if (cached != null) {
+            cached.store(output);
+        }
+        return output;
+    }
+
+    /**
+     * Drops what the validation probes knew about the output file of a run, which may have just created,
+     * replaced or deleted it.
+     *
+     * @param args Crawlect CLI arguments.
+     */
+    private static void forgetOutputProbe(List<String> args) {
+        for (int i = 0; i + 1 < args.size(); i++) {
+            if (args.get(i).equals("--output") || args.get(i).equals("-o")) {
+                ValidationEngine.lazyGetInstance().getProbes().invalidate(Path.of(args.get(i + 1)).toAbsolutePath().normalize());
+            }
+        }
+    }
+
+    /**
+     * Runs Crawlect for real: split into parallel runs if enabled and worth it (see {@link SplitCrawl}),
+     * otherwise in the warm worker if enabled and idle, otherwise in a dedicated process.
+     * LLM calls go through the {@link LlmProxy} when it runs for the run's host.
+     *
+     * @param args list of CLI arguments (excluding the "python -m crawlect" prefix).
+     * @param lineListener receives every output line (may be null).
+     * @param control cancellation handle.
+     * @return captured stdout output (to be closed by the caller).
+     * @throws CrawlectExitException if Crawlect exits with an error.
+     * @throws CancellationException if the run was cancelled.
+     * @throws TimeoutException if the run was stopped by a timeout.
+     */
+    private static OutputCapture execute(List<String> args, Consumer<String> lineListener, RunControl control) throws Exception {
+        args = LlmProxy.route(args);
+
+        if (SplitCrawl.isEnabled()) {
+            OutputCapture output = SplitCrawl.run(args, lineListener, control);
+            if (output != null) {
+                return output;
+            }
+            // Not worth splitting, or not splittable exactly: run as a whole.
+        }
+
+        if (CrawlectWorker.isEnabled()) {
+            OutputCapture output = runInWorker(args, lineListener, control);
+            if (output != null) {
+                return output;
+            }
+            // Worker busy with another run: fall back to a dedicated process.
+        }
+
+        OutputCapture output = OutputCapture.create();
+        try {
+            runProcess(args, output, lineListener, control);
+        } catch (Exception e) {
+            output.close();
+            throw e;
+        } finally {
+            control.finish();
+        }
+        return output;
+    }
+
+    /**
+     * Runs Crawlect in a dedicated process, attached to the given control.
+     * Several processes may share the control and the capture (a split run).
+     *
+     * @param args list of CLI arguments (excluding the "python -m crawlect" prefix).
+     * @param output receives every output line.
+     * @param lineListener also receives every output line (may be null).
+     * @param control cancellation handle.
+     * @throws CrawlectExitException if Crawlect exits with an error.
+     * @throws CancellationException if the run was cancelled.
+     * @throws TimeoutException if the run was stopped by a timeout.
+     */
+    static void runProcess(List<String> args, OutputCapture output, Consumer<String> lineListener, RunControl control) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add(PythonRunner.getPythonCommand());
+        command.add("-m");
+        command.add("crawlect");
+        command.addAll(args);
+
+        System.out.println("[Run] Executing: " + String.join(" ", command));
+
+        long start = SPAWN_TIMER.start();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        SPAWN_TIMER.stop(start);
+        control.attach(process);
+        PythonRunner.readProcessOutput(process.getInputStream(), output, observe(control, start, lineListener));
+        // Output ended: sample the CPU time while the process can still be inspected.
+        control.release(process);
+
+        int exitCode = process.waitFor();
+        if (control.isCancelled()) {
+            throw stopped(control);
+        }
+        if (exitCode != 0) {
+            throw new CrawlectExitException(exitCode);
+        }
+    }
+
+    /**
+     * Runs Crawlect in the warm worker process.
+     *
+     * @param args list of CLI arguments (excluding the "python -m crawlect" prefix).
+     * @param lineListener receives every output line (may be null).
+     * @param control cancellation handle (cancelling kills the worker, which is then restarted).
+     * @return captured output (to be closed by the caller), or null if the worker is busy.
+     * @throws CrawlectExitException if Crawlect exits with an error.
+     */
+    private static OutputCapture runInWorker(List<String> args, Consumer<String> lineListener, RunControl control) throws Exception {
+        System.out.println("[Run] Executing in worker: crawlect " + String.join(" ", args));
+
+        OutputCapture output = OutputCapture.create();
+        Consumer<String> observedListener = observe(control, FIRST_OUTPUT_TIMER.start(), lineListener);
+        Integer exitCode;
+        try {
+            exitCode = CrawlectWorker.lazyGetInstance().tryRun(args, line -> {
+                output.accept(line);
+                observedListener.accept(line);
+            }, control);
+        } catch (Exception e) {
+            control.finish();
+            output.close();
+            if (control.isCancelled()) {
+                throw stopped(control);
+            }
+            throw e;
+        }
+
+        control.finish();
+        if (exitCode == null) {
+            output.close();
+            return null;
+        }
+        if (exitCode != 0) {
+            output.close();
+            throw new CrawlectExitException(exitCode);
+        }
+        return output;
+    }
+
+    /**
+     * Wraps a line listener to report output activity (idle timeout) and record the time to the first output line.
+     *
+     * @param control run control told about every line.
+     * @param startNanos when the run was started ({@link System#nanoTime()}).
+     * @param lineListener receives every output line (may be null).
+     * @return listener observing every line, then forwarding it.
+     */
+    private static Consumer<String> observe(RunControl control, long startNanos, Consumer<String> lineListener) {
+        AtomicBoolean seen = new AtomicBoolean(false);
+        return line -> {
+            control.outputSeen();
+            if (!seen.getAndSet(true)) {
+                FIRST_OUTPUT_TIMER.stop(startNanos);
+            }
+            if (lineListener != null) {
+                lineListener.accept(line);
+            }
+        };
+    }
+
+    /**
+     * Returns the exception reporting a run stopped through its control.
+     *
+     * @param control run control of the stopped run.
+     * @return a {@link TimeoutException} if a timeout expired, a {@link CancellationException} otherwise.
+     */
+    static Exception stopped(RunControl control) {
+        String reason = control.getTimeoutReason();
+        return (reason != null) ? new TimeoutException(reason + ".") : new CancellationException("Crawlect run cancelled.");
+    }
+}
@@ -1,22 +1,37 @@
 package ch.yvesguillo.controller;
 
 import java.io.File;
-import java.util.ArrayList;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 
 import javax.swing.*;
 
 import ch.yvesguillo.model.CliOption;
 import ch.yvesguillo.model.CliSchemaParser;
+import ch.yvesguillo.model.OptionValues;
 import ch.yvesguillo.model.ComboItem;
+import ch.yvesguillo.model.CrawlJob;
+import ch.yvesguillo.view.ConsolePanel;
+import ch.yvesguillo.view.RunStatusBar;
 import ch.yvesguillo.view.ShowMessages;
 
-import java.awt.*;
-
 public class CrawlectRunner {
 
+    // Pre-scans block on the fork-join walk: one virtual thread each keeps the EDT free.
+    private static final ExecutorService SCAN_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+    private static final Metrics.Timer BUILD_TIMER = Metrics.timer("args.build");
+    private static final Metrics.Timer OUTPUT_CHECK_TIMER = Metrics.timer("precheck.output");
+    private static final Metrics.Timer VALIDATE_TIMER = Metrics.timer("precheck.validate");
+
     // Private constructor to prevent instantiation.
     private CrawlectRunner() {
         throw new UnsupportedOperationException("CrawlectRunner is an utility class");
@@ -40,60 +55,76 @@ public class CrawlectRunner {
         }
     }
 
-    public static boolean validateInputs(Map<CliOption, JComponent> inputMap, Map<CliOption, Object> storedValues, JFrame win) {
-        for (Map.Entry<CliOption, JComponent> entry : inputMap.entrySet()) {
-            CliOption option = entry.getKey();
-            Object value = storedValues.get(option);
-
-            // Mandatory: --path
-            if (option.getPrimaryFlag().equals("--path")) {
-                String path = (value instanceof String s) ? s.trim() : "";
-                if (path.isEmpty()) {
-                    ShowMessages.showValidationError("The '--path' field is required.", win);
-                    return false;
-                }
-            }
+    /**
+     * Arguments of a run, and the option values they were built from.
+     *
+     * @param args Crawlect CLI arguments.
+     * @param values snapshot of the option values.
+     */
+    private record Prepared(List<String> args, Map<CliOption, Object> values) {
+    }
 
-            // Mandatory: --output
-            if (option.getPrimaryFlag().equals("--output")) {
-                String output = (value instanceof String s) ? s.trim() : "";
-                if (output.isEmpty()) {
-                    ShowMessages.showValidationError("The '--output' field is required.", win);
-                    return false;
-                }
-            }
+    /**
+     * Checks the values of all options. Runs in the background: file system checks may wait for a slow mount,
+     * though they are mostly answered by the probes made while typing.
+     *
+     * @param values values of all CLI options.
+     * @return every error message (empty if the run may go on).
+     */
+    private static List<String> validationErrors(Map<CliOption, Object> values) {
+        long start = VALIDATE_TIMER.start();
+        Map<CliOption, OptionValidator.Verdict> verdicts = ValidationEngine.lazyGetInstance()
+                .validateAll(CliSchemaParser.getInstance().getAllOptions(), values);
+        VALIDATE_TIMER.stop(start);
+
+        return verdicts.values().stream()
+                .filter(OptionValidator.Verdict::isError)
+                .map(OptionValidator.Verdict::message)
+                .toList();
+    }
 
-            // Integer: --depth
-            if (option.getPrimaryFlag().equals("--depth")) {
-                String str = (value instanceof String s) ? s.trim() : "";
-                if (!str.isEmpty()) {
-                    try {
-                        Integer.parseInt(str);
-                    } catch (NumberFormatException e) {
-                        ShowMessages.showValidationError("The '--depth' field must be a valid integer.", win);
-                        return false;
-                    }
-                }
+    /**
+     * Tells whether the output file of a run exists, asking the file system afresh: an existing digest must never
+     * be replaced without asking, whatever the validation probes remember. Runs in the background.
+     *
+     * @param args Crawlect CLI arguments.
+     * @return true if the output file exists.
+     */
+    private static boolean outputExists(List<String> args) {
+        Path output = outputOf(args);
+        if (output == null) {
+            return false;
+        }
+        ValidationEngine.lazyGetInstance().getProbes().invalidate(output);
+        return Files.exists(output);
+    }
+
+    private static Path outputOf(List<String> args) {
+        for (int i = 0; i + 1 < args.size(); i++) {
+            if (args.get(i).equals("--output") || args.get(i).equals("-o")) {
+                return Path.of(args.get(i + 1)).toAbsolutePath().normalize();
             }
         }
-        return true;
+        return null;
     }
 
-    public static String handleOutputFileOverwrite(List<String> command, JFrame win) {
+    /**
+     * Asks the user what to do when the output file already exists.
+     *
+     * @param command Crawlect CLI arguments (the output path is replaced if the user picks another file).
+     * @param outputExists whether the output file exists (see {@link #outputExists(List)}).
+     * @param win parent window for dialogs.
+     * @return the output path, "ok" if there is nothing to ask, or null if the run should not happen.
+     */
+    public static String handleOutputFileOverwrite(List<String> command, boolean outputExists, JFrame win) {
         for (int i = 0; i < command.size(); i++) {
             String flag = command.get(i);
             if (flag.equals("-o") || flag.equals("--output")) {
                 if (i + 1 < command.size()) {
                     String outputPath = command.get(i + 1);
-                    java.io.File outputFile = new java.io.File(outputPath);
-
-                    File parentDir = outputFile.getParentFile();
-                    if (parentDir != null && (!parentDir.exists() || !parentDir.canWrite())) {
-                        JOptionPane.showMessageDialog(win, "Cannot write to the output directory:\n" + parentDir.getAbsolutePath(), "Output Path Error", JOptionPane.ERROR_MESSAGE);
-                        return null;
-                    }
+                    File outputFile = new File(outputPath);
 
-                    if (outputFile.exists()) {
+                    if (outputExists) {
                         int choice = JOptionPane.showOptionDialog(win,
                                 "The file '" + outputFile.getName() + "' already exists.\nWhat would you like to do?",
                                 "Output File Exists",
@@ -118,7 +149,9 @@ public class CrawlectRunner {
                             }
                         } else if (choice == 1) {
                             // Overwrite.
-                            if (!outputFile.delete()) {
+                            boolean deleted = outputFile.delete();
+                            ValidationEngine.lazyGetInstance().getProbes().invalidate(outputFile.toPath().toAbsolutePath().normalize());
+                            if (!deleted) {
                                 JOptionPane.showMessageDialog(win, "Failed to delete the existing output file.\nPlease try changing the file name.", "File Deletion Error", JOptionPane.ERROR_MESSAGE);
                                 return null;
                             }
@@ -135,112 +168,292 @@ public class CrawlectRunner {
         return "ok";
     }
 
-    public static void runCrawlectCommand(Map<CliOption, JComponent> inputMap, Map<CliOption, Object> storedValues, JFrame win) {
+    /**
+     * Captures the inputs, then validates them and builds the Crawlect arguments in the background
+     * (the file system checks may be slow). Must be called on the EDT.
+     * The result is delivered on the EDT, after reporting the errors or asking about an existing output file.
+     *
+     * @param inputMap input widgets built so far.
+     * @param storedValues values of all CLI options.
+     * @param win parent window for dialogs.
+     * @return completed on the EDT with the prepared run, or with null if the run should not happen
+     *         (invalid input or user cancel).
+     */
+    private static CompletableFuture<Prepared> prepareArgs(Map<CliOption, JComponent> inputMap, Map<CliOption, Object> storedValues, JFrame win) {
         // store visible inputs before collecting args.
         captureCurrentInputs(inputMap, storedValues);
+        // Snapshot the settings now: the user may keep editing meanwhile.
+        Map<CliOption, Object> values = new OptionValues(storedValues);
+
+        CompletableFuture<Prepared> prepared = new CompletableFuture<>();
+        SCAN_EXECUTOR.submit(() -> {
+            try {
+                List<String> errors = validationErrors(values);
+                if (!errors.isEmpty()) {
+                    SwingUtilities.invokeLater(() -> {
+                        ShowMessages.showValidationError(String.join("\n\n", errors), win);
+                        prepared.complete(null);
+                    });
+                    return;
+                }
 
-        if (!validateInputs(inputMap, storedValues, win)) {
-            // Stop if validation fails.
-            return;
-        }
+                long start = BUILD_TIMER.start();
+                List<String> args = CommandBuilder.buildArgs(CliSchemaParser.getInstance().getAllOptions(), values);
+                BUILD_TIMER.stop(start);
+                boolean exists = outputExists(args);
+
+                SwingUtilities.invokeLater(() -> {
+                    // Includes the time the user takes to answer, if asked.
+                    long asked = OUTPUT_CHECK_TIMER.start();
+                    String outputCheck = handleOutputFileOverwrite(args, exists, win);
+                    OUTPUT_CHECK_TIMER.stop(asked);
+                    // Null if the user cancelled.
+                    prepared.complete(outputCheck == null ? null : new Prepared(args, values));
+                });
+            } catch (Exception ex) {
+                SwingUtilities.invokeLater(() -> {
+                    JOptionPane.showMessageDialog(win, "Error running Crawlect: " + ex.getMessage(), "Execution Error", JOptionPane.ERROR_MESSAGE);
+                    prepared.complete(null);
+                });
+            }
+        });
+        return prepared;
+    }
 
-        List<String> args = new ArrayList<>();
+    /**
+     * Validates the inputs and builds the Crawlect arguments (see {@link #prepareArgs}),
+     * pre-scans the target tree, then runs Crawlect in the background ahead of any queued job,
+     * streaming its output to the console. The pre-scan totals drive the status bar's progress and ETA.
+     *
+     * @param inputMap input widgets built so far.
+     * @param storedValues values of all CLI options.
+     * @param win parent window for dialogs.
+     * @param console console receiving the live output.
+     * @param statusBar status bar showing the scan and run progress.
+     * @return completed once the run has ended, or right away if it was not started (invalid input or user cancel).
+     */
+    public static CompletableFuture<Void> runCrawlectCommand(Map<CliOption, JComponent> inputMap, Map<CliOption, Object> storedValues, JFrame win, ConsolePanel console, RunStatusBar statusBar) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        prepareArgs(inputMap, storedValues, win).thenAccept(prepared -> {
+            if (prepared == null) {
+                done.complete(null);
+            } else {
+                scanAndRun(prepared.args(), prepared.values(), win, console, statusBar, done);
+            }
+        });
+        return done;
+    }
 
-        List<CliOption> allOptions = CliSchemaParser.getInstance().getAllOptions();
+    /**
+     * Pre-scans the target tree, then runs Crawlect.
+     *
+     * @param args Crawlect CLI arguments.
+     * @param settingsSnapshot settings saved if the run succeeds.
+     * @param win parent window for dialogs.
+     * @param console console receiving the live output.
+     * @param statusBar status bar showing the scan and run progress.
+     * @param done completed once the run has ended.
+     */
+    private static void scanAndRun(List<String> args, Map<CliOption, Object> settingsSnapshot, JFrame win, ConsolePanel console, RunStatusBar statusBar, CompletableFuture<Void> done) {
+        console.appendLine("> crawlect " + String.join(" ", args));
 
-        for (CliOption option : allOptions) {
-            String flag = option.getPrimaryFlag();
-            Object value = storedValues.get(option);
+        PathScanner scanner = PathScanner.fromArgs(args);
+        if (scanner == null) {
+            startRun(args, null, settingsSnapshot, win, console, statusBar, done);
+            return;
+        }
 
-            System.out.println("[Arg] got " + flag + " = " + value);
+        statusBar.trackScan(scanner, scanner::cancel);
+        CompletableFuture.supplyAsync(scanner::scan, SCAN_EXECUTOR).whenComplete((totals, error) -> {
+            Throwable cause = (error instanceof CompletionException && error.getCause() != null) ? error.getCause() : error;
+            if (cause instanceof CancellationException) {
+                console.appendLine("[Cancelled] Pre-scan stopped, Crawlect was not started.");
+                SwingUtilities.invokeLater(() -> statusBar.showIdle("Cancelled"));
+                done.complete(null);
+                return;
+            }
 
-            if (option.isBoolean) {
-                if (Boolean.TRUE.equals(value) && !Objects.equals(option.defaultValue, "True")) {
-                    // Add positive flag.
-                    args.add(flag);
-                } else if (Boolean.FALSE.equals(value) && !Objects.equals(option.defaultValue, "False")) {
-                    String negativeFlag = option.getNegativeFlag();
-                    if (negativeFlag != null) {
-                        // Add --no-flag form.
-                        args.add(negativeFlag);
-                    }
-                }
-            } else if (option.hasChoices) {
-                if (value instanceof String strVal && !strVal.isEmpty()) {
-                    args.add(flag);
-                    args.add(strVal);
-                }
-                // else: skip empty.
+            RunProgress progress = null;
+            if (cause != null) {
+                // No estimate, but nothing prevents the run itself.
+                console.appendLine("[Scan] Failed: " + cause.getMessage());
             } else {
-                if (value instanceof String strVal) {
-                    strVal = strVal.trim();
-                    if (!strVal.isEmpty()) {
-                        args.add(flag);
-                        args.add(strVal);
-                    }
-                }
+                console.appendLine("[Scan] " + totals.describe());
+                progress = new RunProgress(totals, args);
             }
-        }
+            startRun(args, progress, settingsSnapshot, win, console, statusBar, done);
+        });
+    }
 
-        try {
+    /**
+     * Submits the interactive run at the head of the job queue and reports its outcome.
+     *
+     * @param args Crawlect CLI arguments.
+     * @param progress progress estimator fed with the output (may be null).
+     * @param settingsSnapshot settings saved if the run succeeds.
+     * @param win parent window for dialogs.
+     * @param console console receiving the live output.
+     * @param statusBar status bar showing the run progress.
+     * @param done completed once the run has ended.
+     */
+    private static void startRun(List<String> args, RunProgress progress, Map<CliOption, Object> settingsSnapshot, JFrame win, ConsolePanel console, RunStatusBar statusBar, CompletableFuture<Void> done) {
+        JobScheduler scheduler = JobScheduler.lazyGetInstance();
+        CrawlJob job = scheduler.createJob(args);
+        if (progress != null) {
+            job.setScanTotals(progress.getTotals().files(), progress.getTotals().bytes());
+        }
 
-            String outputCheck = handleOutputFileOverwrite(args, win);
-            if (outputCheck == null) {
-                return; // User cancelled.
+        // Tell how long similar runs took; the estimate also seeds the ETA until the output shows progress.
+        RunJournal.Prediction prediction = RunJournal.lazyGetInstance().predict(args, job.getScannedBytes());
+        if (prediction != null) {
+            console.appendLine("[Journal] Expected ~" + formatDuration(prediction.millis()) + " (" + prediction.samples() + " past " + prediction.basis() + ")");
+            if (progress != null) {
+                progress.setExpectedMillis(prediction.millis());
+            }
+        }
+        SwingUtilities.invokeLater(() -> statusBar.trackRun(progress, () -> scheduler.cancel(job)));
+
+        Consumer<String> listener = (progress == null) ? console::appendLine : line -> {
+            console.appendLine(line);
+            progress.accept(line);
+        };
+
+        scheduler.submit(job, true, listener).whenComplete((output, error) -> {
+            String status = switch (job.getState()) {
+                case SUCCEEDED -> "Done in " + formatDuration(job.getDurationMillis());
+                case CANCELLED -> "Cancelled";
+                default -> "Failed: " + job.getMessage();
+            };
+            SwingUtilities.invokeLater(() -> statusBar.showIdle(status));
+
+            if (error == null) {
+                SwingUtilities.invokeLater(() -> {
+                    ShowMessages.showRunResult(output, job.getOutputFile(), win);
+                    // Spilled log is no longer reachable once the dialog is closed.
+                    output.close();
+                });
+
+                // Save current settings.
+                UserSettings.getInstance().saveConfig(settingsSnapshot);
+
+            } else if (error instanceof CancellationException) {
+                console.appendLine("[Cancelled]");
+            } else {
+                console.appendLine("[Error] " + error.getMessage());
+                SwingUtilities.invokeLater(() ->
+                        JOptionPane.showMessageDialog(win, "Error running Crawlect: " + error.getMessage(), "Execution Error", JOptionPane.ERROR_MESSAGE));
             }
+            done.complete(null);
+        });
+    }
 
-            // Check if path exists (for --path or -p)
-            for (int i = 0; i < args.size(); i++) {
-                String flag = args.get(i);
-                if ((flag.equals("--path") || flag.equals("-p")) && i + 1 < args.size()) {
-                    String pathStr = args.get(i + 1);
-                    java.io.File path = new java.io.File(pathStr);
-                    if (!path.exists() || !path.isDirectory()) {
-                        JOptionPane.showMessageDialog(win, "The selected path to scan does not exist or is not a directory:\n" + pathStr, "Invalid Path to Scan", JOptionPane.ERROR_MESSAGE);
-                        return;
-                    }
-                }
+    private static String formatDuration(long millis) {
+        long seconds = millis / 1000;
+        return String.format("%d:%02d", seconds / 60, seconds % 60);
+    }
+
+    /**
+     * Validates the inputs and builds the Crawlect arguments (see {@link #prepareArgs}),
+     * then appends the run to the job queue. Outcomes are reported to the console only.
+     *
+     * @param inputMap input widgets built so far.
+     * @param storedValues values of all CLI options.
+     * @param win parent window for dialogs.
+     * @param console console receiving the live output.
+     * @return completed on the EDT with true if the job was queued.
+     */
+    public static CompletableFuture<Boolean> enqueueCrawlectCommand(Map<CliOption, JComponent> inputMap, Map<CliOption, Object> storedValues, JFrame win, ConsolePanel console) {
+        return prepareArgs(inputMap, storedValues, win).thenApply(prepared -> {
+            if (prepared == null) {
+                return false;
             }
+            enqueue(prepared, console);
+            return true;
+        });
+    }
 
-            String output = runCrawlect(args);
-            JTextArea textArea = new JTextArea(output);
-            textArea.setEditable(false);
-            JScrollPane scrollPane = new JScrollPane(textArea);
-            scrollPane.setPreferredSize(new Dimension(480, 270));
+    private static void enqueue(Prepared prepared, ConsolePanel console) {
+        List<String> args = prepared.args();
 
-            JOptionPane.showMessageDialog(win, scrollPane, "Crawlect finished", JOptionPane.INFORMATION_MESSAGE);
+        // Queued runs only keep their arguments: the settings are saved right away.
+        UserSettings.getInstance().saveConfig(prepared.values());
 
-            // Save current settings.
-            UserSettings.getInstance().saveConfig(storedValues);
+        console.appendLine("> queued: crawlect " + String.join(" ", args));
 
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(win, "Error running Crawlect: " + ex.getMessage(), "Execution Error", JOptionPane.ERROR_MESSAGE);
-        }
+        JobScheduler.lazyGetInstance().submit(args, false, console::appendLine).whenComplete((output, error) -> {
+            if (error == null) {
+                console.appendLine("[Done] " + output.getLineCount() + " lines of output");
+                output.close();
+            } else if (error instanceof CancellationException) {
+                console.appendLine("[Cancelled]");
+            } else {
+                console.appendLine("[Error] " + error.getMessage());
+            }
+        });
     }
 
     /**
-     * Runs the Crawlect module with the given arguments.
+     * Validates the inputs and builds the Crawlect arguments (see {@link #prepareArgs}), then starts watching the
+     * target tree: Crawlect runs once right away, then again after every (debounced) burst of changes.
      *
-     * @param args list of CLI arguments (excluding the "python -m crawlect" prefix).
-     * @return stdout output as a string.
-     * @throws RuntimeException if Crawlect exits with an error.
+     * @param inputMap input widgets built so far.
+     * @param storedValues values of all CLI options.
+     * @param win parent window for dialogs.
+     * @param console console receiving the output of every run.
+     * @param statusBar status bar showing the watch state.
+     * @param debounceMillis quiet time before a burst of changes triggers a run.
+     * @return completed on the EDT with the watch session, or with null if it was not started
+     *         (invalid input or user cancel).
      */
-    public static String runCrawlect(List<String> args) throws Exception {
-        List<String> command = new ArrayList<>();
-        command.add(PythonRunner.getPythonCommand());
-        command.add("-m");
-        command.add("crawlect");
-        command.addAll(args);
+    public static CompletableFuture<WatchSession> startWatch(Map<CliOption, JComponent> inputMap, Map<CliOption, Object> storedValues, JFrame win, ConsolePanel console, RunStatusBar statusBar, long debounceMillis) {
+        return prepareArgs(inputMap, storedValues, win).thenApply(prepared ->
+                (prepared == null) ? null : watch(prepared, win, console, statusBar, debounceMillis));
+    }
 
-        System.out.println("[Run] Executing: " + String.join(" ", command));
+    private static WatchSession watch(Prepared prepared, JFrame win, ConsolePanel console, RunStatusBar statusBar, long debounceMillis) {
+        List<String> args = prepared.args();
+        if (PathScanner.fromArgs(args) == null) {
+            JOptionPane.showMessageDialog(win, "Watch mode needs a path to crawl.", "Watch Mode", JOptionPane.ERROR_MESSAGE);
+            return null;
+        }
 
-        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
-        String output = PythonRunner.readProcessOutput(process);
+        UserSettings.getInstance().saveConfig(prepared.values());
+        console.appendLine("> watch: crawlect " + String.join(" ", args));
+
+        WatchSession session = new WatchSession(args, debounceMillis, console::appendLine,
+                text -> SwingUtilities.invokeLater(() -> statusBar.showIdle(text)));
+        // Registering the watches walks the whole tree.
+        SCAN_EXECUTOR.submit(() -> {
+            try {
+                session.start();
+            } catch (Exception e) {
+                console.appendLine("[Watch] Could not watch the tree: " + e.getMessage());
+                session.stop();
+            }
+        });
+        return session;
+    }
 
-        if (process.waitFor() != 0) {
-            throw new RuntimeException("Crawlect exited with code " + process.exitValue());
-        }
+    /**
+     * Runs the Crawlect module with the given arguments.
+     *
+     * @param args list of CLI arguments (excluding the "python -m crawlect" prefix).
+     * @return captured stdout output (to be closed by the caller).
+     * @throws CrawlectExitException if Crawlect exits with an error.
+     */
+    public static OutputCapture runCrawlect(List<String> args) throws Exception {
+        return runCrawlect(args, null);
+    }
 
-        return output;
+    /**
+     * Runs the Crawlect module with the given arguments, forwarding each output line as it is produced.
+     *
+     * @param args list of CLI arguments (excluding the "python -m crawlect" prefix).
+     * @param lineListener receives every output line (may be null).
+     * @return captured stdout output (to be closed by the caller).
+     * @throws CrawlectExitException if Crawlect exits with an error.
+     */
+    public static OutputCapture runCrawlect(List<String> args, Consumer<String> lineListener) throws Exception {
+        return CrawlectLauncher.run(args, lineListener, new RunControl());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,404 @@
+package ch.yvesguillo.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Singleton managing an optional long-lived Python worker running Crawlect in-process.
+ *
+ * The worker (see {@code /python/crawlect_worker.py}) is started once and receives run requests
+ * over a JSON-lines protocol on its stdin; output lines and exit codes are streamed back on its stdout.
+ * Repeated runs therefore skip interpreter startup and Crawlect module import.
+ *
+ * The worker serves one run at a time, is health-checked periodically while idle,
+ * and is restarted automatically (with backoff) if it crashes.
+ */
+public final class CrawlectWorker {
+
+    private static final String SCRIPT_RESOURCE = "/python/crawlect_worker.py";
+    private static final long READY_TIMEOUT_SECONDS = 60;
+    private static final long PING_TIMEOUT_SECONDS = 5;
+    private static final long HEALTH_CHECK_PERIOD_SECONDS = 30;
+    private static final long MAX_RESTART_DELAY_SECONDS = 30;
+
+    private static CrawlectWorker instance;
+    private static volatile boolean enabled = false;
+    private static Path scriptFile;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final Map<Long, Pending> pending = new ConcurrentHashMap<>();
+    // Held for a whole run: tryRun() skips a busy worker instead of waiting.
+    private final ReentrantLock runLock = new ReentrantLock();
+    // Guards the process state. Held while the process is spawned.
+    private final ReentrantLock stateLock = new ReentrantLock();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "crawlect-worker-monitor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Process process;
+    private BufferedWriter stdin;
+    private CompletableFuture<JsonNode> ready;
+    private int restartAttempts = 0;
+
+    /**
+     * A request awaiting its final response.
+     *
+     * @param lineListener receives "out" lines (may be null).
+     * @param response completed with the final response message.
+     */
+    private record Pending(Consumer<String> lineListener, CompletableFuture<JsonNode> response) {
+    }
+
+    // Private constructor to enforce singleton pattern.
+    private CrawlectWorker() {
+        scheduler.scheduleWithFixedDelay(this::healthCheck, HEALTH_CHECK_PERIOD_SECONDS, HEALTH_CHECK_PERIOD_SECONDS, TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::stop, "crawlect-worker-shutdown"));
+    }
+
+    /**
+     * Lazily creates the singleton (the worker process itself starts on first use).
+     *
+     * @return singleton instance of CrawlectWorker.
+     */
+    public static synchronized CrawlectWorker lazyGetInstance() {
+        if (instance == null) {
+            instance = new CrawlectWorker();
+        }
+        return instance;
+    }
+
+    /**
+     * Tells whether runs should go through the warm worker.
+     *
+     * @return true if the worker is enabled.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enables the worker (warming it up in the background) or disables it (stopping the process).
+     *
+     * @param enable true to enable the worker.
+     */
+    public static void setEnabled(boolean enable) {
+        enabled = enable;
+        CrawlectWorker worker = lazyGetInstance();
+        if (enable) {
+            Thread.ofVirtual().start(() -> {
+                try {
+                    worker.ensureStarted();
+                } catch (Exception e) {
+                    System.err.println("[Worker] Could not start: " + e.getMessage());
+                }
+            });
+        } else {
+            worker.stop();
+        }
+    }
+
+    /**
+     * Runs Crawlect in the worker, unless it is already busy with another run.
+     *
+     * @param args list of CLI arguments (excluding the "python -m crawlect" prefix).
+     * @param lineListener receives every output line (may be null).
+     * @param control cancellation handle; cancelling kills the worker process (restarted afterwards).
+     * @return the Crawlect exit code, or null if the worker is busy (nothing was run).
+     * @throws Exception if the worker cannot be started or dies during the run.
+     */
+    public Integer tryRun(List<String> args, Consumer<String> lineListener, RunControl control) throws Exception {
+        if (!runLock.tryLock()) {
+            return null;
+        }
+        try {
+            ensureStarted();
+            stateLock.lock();
+            try {
+                if (process != null) {
+                    control.attach(process);
+                }
+            } finally {
+                stateLock.unlock();
+            }
+            JsonNode exit = request(Map.of("cmd", "run", "args", args), lineListener).get();
+            return exit.path("code").asInt(1);
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    /**
+     * Starts the worker process if it is not running, and waits until it is ready.
+     *
+     * @throws Exception if the worker does not become ready.
+     */
+    private void ensureStarted() throws Exception {
+        CompletableFuture<JsonNode> readiness;
+        stateLock.lock();
+        try {
+            if (process == null || !process.isAlive()) {
+                start();
+            }
+            readiness = ready;
+        } finally {
+            stateLock.unlock();
+        }
+        readiness.get(READY_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Spawns the worker process and its stdout reader. Called with the state lock held.
+     *
+     * @throws Exception if the process cannot be started.
+     */
+    private void start() throws Exception {
+        ProcessBuilder builder = new ProcessBuilder(PythonRunner.getPythonCommand(), "-u", extractScript().toString())
+                .redirectError(ProcessBuilder.Redirect.INHERIT);
+        builder.environment().put("PYTHONIOENCODING", "utf-8");
+
+        Process started = builder.start();
+        process = started;
+        stdin = new BufferedWriter(new OutputStreamWriter(started.getOutputStream(), StandardCharsets.UTF_8));
+        ready = new CompletableFuture<>();
+        System.out.println("[Worker] Started (pid " + started.pid() + ")");
+
+        Thread.ofVirtual().name("crawlect-worker-reader").start(() -> readLoop(started));
+    }
+
+    /**
+     * Dispatches the worker's responses until it exits, then fails the pending requests and schedules a restart.
+     *
+     * @param worker worker process.
+     */
+    private void readLoop(Process worker) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(worker.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                dispatch(line);
+            }
+        } catch (IOException e) {
+            System.err.println("[Worker] Read failed: " + e.getMessage());
+        }
+
+        IOException crash = new IOException("Crawlect worker stopped unexpectedly.");
+        stateLock.lock();
+        try {
+            if (worker == process) {
+                ready.completeExceptionally(crash);
+            }
+        } finally {
+            stateLock.unlock();
+        }
+        pending.values().forEach(request -> request.response().completeExceptionally(crash));
+        pending.clear();
+
+        if (enabled) {
+            scheduleRestart();
+        }
+    }
+
+    /**
+     * Routes one protocol message to the request it belongs to.
+     *
+     * @param line raw protocol line.
+     */
+    private void dispatch(String line) {
+        JsonNode message;
+        try {
+            message = mapper.readTree(line);
+        } catch (IOException e) {
+            // Stray output not belonging to the protocol.
+            System.out.println("[Worker] " + line);
+            return;
+        }
+
+        String type = message.path("type").asText();
+        if (type.equals("ready")) {
+            restartAttempts = 0;
+            System.out.println("[Worker] Ready (Crawlect " + message.path("version").asText() + ")");
+            ready.complete(message);
+            return;
+        }
+
+        Pending request = pending.get(message.path("id").asLong());
+        if (request == null) {
+            System.out.println("[Worker] " + line);
+            return;
+        }
+
+        switch (type) {
+            case "out" -> {
+                if (request.lineListener() != null) {
+                    request.lineListener().accept(message.path("line").asText());
+                }
+            }
+            case "error" -> {
+                pending.remove(message.path("id").asLong());
+                request.response().completeExceptionally(new IllegalStateException(message.path("message").asText()));
+            }
+            default -> {
+                pending.remove(message.path("id").asLong());
+                request.response().complete(message);
+            }
+        }
+    }
+
+    /**
+     * Sends a request to the worker.
+     *
+     * @param body request fields (without id).
+     * @param lineListener receives "out" lines (may be null).
+     * @return the final response.
+     * @throws IOException if the request cannot be written.
+     */
+    private CompletableFuture<JsonNode> request(Map<String, Object> body, Consumer<String> lineListener) throws IOException {
+        long id = nextId.getAndIncrement();
+        Pending request = new Pending(lineListener, new CompletableFuture<>());
+        pending.put(id, request);
+
+        Map<String, Object> message = new HashMap<>(body);
+        message.put("id", id);
+        try {
+            send(message);
+        } catch (IOException e) {
+            pending.remove(id);
+            throw e;
+        }
+        return request.response();
+    }
+
+    private void send(Map<String, Object> message) throws IOException {
+        stateLock.lock();
+        try {
+            if (stdin == null) {
+                throw new IOException("Crawlect worker is not running.");
+            }
+            stdin.write(mapper.writeValueAsString(message));
+            stdin.newLine();
+            stdin.flush();
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    /**
+     * Pings the worker while it is idle; kills it if it does not answer (it is then restarted).
+     */
+    private void healthCheck() {
+        Process current;
+        stateLock.lock();
+        try {
+            current = process;
+        } finally {
+            stateLock.unlock();
+        }
+        if (!enabled || current == null || !current.isAlive() || runLock.isLocked()) {
+            return;
+        }
+        try {
+            request(Map.of("cmd", "ping"), null).get(PING_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            System.err.println("[Worker] Health check failed, restarting: " + e.getMessage());
+            current.destroyForcibly();
+        }
+    }
+
+    /**
+     * Restarts the worker after an exponential backoff delay.
+     */
+    private void scheduleRestart() {
+        long delay = Math.min(1L << Math.min(restartAttempts, 5), MAX_RESTART_DELAY_SECONDS);
+        restartAttempts++;
+        System.err.println("[Worker] Restarting in " + delay + " s");
+        scheduler.schedule(() -> {
+            if (!enabled) {
+                return;
+            }
+            try {
+                ensureStarted();
+            } catch (Exception e) {
+                System.err.println("[Worker] Restart failed: " + e.getMessage());
+            }
+        }, delay, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stops the worker process, politely first.
+     */
+    private void stop() {
+        Process current;
+        stateLock.lock();
+        try {
+            current = process;
+            process = null;
+            if (current == null) {
+                return;
+            }
+            try {
+                stdin.write("{\"cmd\": \"exit\"}");
+                stdin.newLine();
+                stdin.flush();
+            } catch (IOException e) {
+                // Already gone.
+            }
+            stdin = null;
+        } finally {
+            stateLock.unlock();
+        }
+        try {
+            if (!current.waitFor(2, TimeUnit.SECONDS)) {
+                current.destroyForcibly();
+            }
+        } catch (InterruptedException e) {
+            current.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+        System.out.println("[Worker] Stopped");
+    }
+
+    /**
+     * Extracts the worker script from the resources to a temporary file (once). Called with the state lock held.
+     *
+     * @return script path.
+     * @throws IOException if the script cannot be extracted.
+     */
+    private static Path extractScript() throws IOException {
+        if (scriptFile == null) {
+            try (InputStream stream = CrawlectWorker.class.getResourceAsStream(SCRIPT_RESOURCE)) {
+                if (stream == null) {
+                    throw new IOException("Missing resource " + SCRIPT_RESOURCE);
+                }
+                Path file = Files.createTempFile("crawlect-worker-", ".py");
+                file.toFile().deleteOnExit();
+                Files.copy(stream, file, StandardCopyOption.REPLACE_EXISTING);
+                scriptFile = file;
+            }
+        }
+        return scriptFile;
+    }
+}
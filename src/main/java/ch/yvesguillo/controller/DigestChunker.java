@@ -0,0 +1,420 @@
+package ch.yvesguillo.controller;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a Markdown digest into numbered chunks that each fit a token budget, for LLMs with a limited context window.
+ *
+ * The digest is read once, as a stream: memory is bounded by the budget, whatever the size of the digest or of its lines.
+ * Chunks are cut at section boundaries (headings outside code blocks, e.g. one per crawled file), packing as many whole
+ * sections as fit. A section larger than the budget is cut between lines (a line larger than the budget, between
+ * characters); a code block cut that way is closed at the end of the chunk and reopened at the start of the next.
+ * Tokens are estimated with {@link TokenEstimator}.
+ *
+ * Chunks ({@code chunk-0001.md}, ...) and a {@code manifest.json} describing them are written to a directory next to
+ * the digest, as the digest is read.
+ */
+public final class DigestChunker {
+
+    /** Default token budget per chunk: fits 128k-token context windows with room for instructions. */
+    public static final int DEFAULT_TOKEN_BUDGET = 100_000;
+
+    /** Smallest accepted token budget. */
+    public static final int MIN_TOKEN_BUDGET = 256;
+
+    /** Name of the manifest written with the chunks. */
+    public static final String MANIFEST = "manifest.json";
+
+    private static final String CHUNK_PREFIX = "chunk-";
+
+    private static final Metrics.Timer CHUNK_TIMER = Metrics.timer("chunk.write");
+
+    /**
+     * One chunk written.
+     *
+     * @param index chunk number, from 1.
+     * @param file chunk file.
+     * @param tokens estimated tokens.
+     * @param firstLine first digest line (from 1) in the chunk.
+     * @param lastLine last digest line in the chunk.
+     * @param sections number of sections starting in the chunk.
+     * @param firstHeading first heading starting a section in the chunk, or null if none does.
+     */
+    public record Chunk(int index, Path file, long tokens, long firstLine, long lastLine, int sections, String firstHeading) {
+    }
+
+    /**
+     * Outcome of a split.
+     *
+     * @param directory directory holding the chunks and the manifest.
+     * @param chunks chunks in order.
+     * @param tokens estimated tokens of the whole digest.
+     * @param millis wall-clock time.
+     */
+    public record Result(Path directory, List<Chunk> chunks, long tokens, long millis) {
+    }
+
+    // A line, or a piece of a line longer than the piece limit.
+    private record Piece(String text, boolean endsLine, long line, long tokens, boolean sectionStart, String fenceAfter) {
+    }
+
+    private final Path digest;
+    private final Path directory;
+    private final int budget;
+    private final int pieceChars;
+
+    // Current chunk.
+    private BufferedWriter out;
+    private JsonGenerator manifest;
+    private final List<Chunk> chunks = new ArrayList<>();
+    private long chunkTokens;
+    private long chunkFirstLine;
+    private long chunkLastLine;
+    private int chunkSections;
+    private String chunkFirstHeading;
+    // Code block open after the last piece written, as its opening line (null outside code blocks),
+    // and whether that piece ended its line.
+    private String writtenFence;
+    private boolean writtenEndsLine = true;
+
+    // Section being read, held back until known to fit: at most a budget worth of tokens.
+    private final List<Piece> pending = new ArrayList<>();
+    private long pendingTokens;
+    private boolean pendingIsSection;
+
+    private long totalTokens;
+
+    private DigestChunker(Path digest, Path directory, int budget) {
+        this.digest = digest;
+        this.directory = directory;
+        this.budget = budget;
+        // A character is at most one token: a piece always fits a chunk, with its code block markers.
+        this.pieceChars = budget / 2;
+    }
+
+    /**
+     * Returns the directory the chunks of a digest are written to: {@code <name>-chunks} next to it.
+     *
+     * @param digest digest file.
+     * @return chunk directory.
+     */
+    public static Path chunkDirectory(Path digest) {
+        String name = digest.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return digest.resolveSibling(((dot > 0) ? name.substring(0, dot) : name) + "-chunks");
+    }
+
+    /**
+     * Splits a digest into chunks in {@link #chunkDirectory(Path)}, replacing the chunks of a previous split.
+     *
+     * @param digest digest file.
+     * @param tokenBudget maximum estimated tokens per chunk (at least {@value #MIN_TOKEN_BUDGET}).
+     * @return the chunks written.
+     * @throws IOException if the digest cannot be read or a chunk written.
+     * @throws IllegalArgumentException if the budget is too small.
+     */
+    public static Result split(Path digest, int tokenBudget) throws IOException {
+        if (tokenBudget < MIN_TOKEN_BUDGET) {
+            throw new IllegalArgumentException("The token budget must be at least " + MIN_TOKEN_BUDGET + ".");
+        }
+        long start = CHUNK_TIMER.start();
+        Result result = new DigestChunker(digest, chunkDirectory(digest), tokenBudget).run();
+        CHUNK_TIMER.stop(start);
+        System.out.println("[Chunk] " + digest + ": " + result.chunks().size() + " chunk(s) of at most " + tokenBudget
+                + " tokens (~" + result.tokens() + " in all) in " + result.directory() + " (" + result.millis() + " ms)");
+        return result;
+    }
+
+    private Result run() throws IOException {
+        long start = System.currentTimeMillis();
+        Files.createDirectories(directory);
+        deleteOldChunks();
+
+        JsonFactory factory = new JsonFactory();
+        try (Reader reader = new InputStreamReader(Files.newInputStream(digest), StandardCharsets.UTF_8);
+             JsonGenerator generator = factory.createGenerator(directory.resolve(MANIFEST).toFile(), JsonEncoding.UTF8)) {
+            manifest = generator;
+            manifest.useDefaultPrettyPrinter();
+            manifest.writeStartObject();
+            manifest.writeStringField("source", digest.toAbsolutePath().toString());
+            manifest.writeNumberField("tokenBudget", budget);
+            manifest.writeStringField("tokenizer", "approximate");
+            manifest.writeArrayFieldStart("chunks");
+
+            readPieces(reader);
+            flushPending();
+            closeChunk();
+
+            manifest.writeEndArray();
+            manifest.writeNumberField("chunkCount", chunks.size());
+            manifest.writeNumberField("totalTokens", totalTokens);
+            manifest.writeEndObject();
+        } finally {
+            if (out != null) {
+                out.close();
+            }
+        }
+        return new Result(directory, List.copyOf(chunks), totalTokens, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Reads the digest as lines (pieces of at most {@code pieceChars} characters) and feeds them to {@link #accept(Piece)}.
+     */
+    private void readPieces(Reader reader) throws IOException {
+        char[] buffer = new char[8192];
+        StringBuilder piece = new StringBuilder();
+        boolean lineStart = true;
+        long line = 1;
+        String fence = null;
+
+        int read;
+        boolean pendingCarriageReturn = false;
+        while ((read = reader.read(buffer)) != -1) {
+            for (int i = 0; i < read; i++) {
+                char c = buffer[i];
+                if (pendingCarriageReturn && c != '\n') {
+                    piece.append('\r');
+                }
+                pendingCarriageReturn = (c == '\r');
+                if (pendingCarriageReturn) {
+                    continue;
+                }
+                if (c != '\n') {
+                    piece.append(c);
+                    if (piece.length() < pieceChars) {
+                        continue;
+                    }
+                }
+
+                boolean endsLine = (c == '\n');
+                String text = piece.toString();
+                piece.setLength(0);
+                boolean sectionStart = lineStart && fence == null && isHeading(text);
+                if (lineStart) {
+                    fence = nextFence(fence, text);
+                }
+                accept(new Piece(text, endsLine, line, tokens(text, lineStart, endsLine), sectionStart, fence));
+                lineStart = endsLine;
+                if (endsLine) {
+                    line++;
+                }
+            }
+        }
+        if (pendingCarriageReturn) {
+            piece.append('\r');
+        }
+        if (!piece.isEmpty()) {
+            String text = piece.toString();
+            boolean sectionStart = lineStart && fence == null && isHeading(text);
+            accept(new Piece(text, false, line, tokens(text, lineStart, false), sectionStart, fence));
+        }
+    }
+
+    // The rest of a cut line has no indentation to merge with the line break.
+    private static long tokens(String text, boolean lineStart, boolean endsLine) {
+        return lineStart ? TokenEstimator.countLine(text, endsLine) : TokenEstimator.count(text) + (endsLine ? 1 : 0);
+    }
+
+    /**
+     * Adds a piece: to the section being read if it fits the current chunk, otherwise to a new chunk.
+     */
+    private void accept(Piece piece) throws IOException {
+        totalTokens += piece.tokens();
+        if (piece.sectionStart()) {
+            // The previous section fits: write it.
+            flushPending();
+            pendingIsSection = true;
+        }
+
+        if (chunkTokens + pendingTokens + piece.tokens() + reserve(piece) <= budget) {
+            pending.add(piece);
+            pendingTokens += piece.tokens();
+            return;
+        }
+
+        if (pendingIsSection && out != null && pendingTokens + piece.tokens() + reserve(piece) <= budget) {
+            // The section does not fit what is left of this chunk, but fits a new one: move it there whole.
+            closeChunk();
+        } else {
+            // The section alone is larger than a chunk: cut it here.
+            flushPending();
+            closeChunk();
+            pendingIsSection = false;
+        }
+        pending.add(piece);
+        pendingTokens += piece.tokens();
+    }
+
+    // Room needed to close the code block if the chunk is cut after a piece.
+    private static long reserve(Piece piece) {
+        return (piece.fenceAfter() != null && !piece.endsLine()) ? closingTokens(piece.fenceAfter()) + 1 : closingTokens(piece.fenceAfter());
+    }
+
+    private void flushPending() throws IOException {
+        for (Piece piece : pending) {
+            write(piece);
+        }
+        pending.clear();
+        pendingTokens = 0;
+    }
+
+    private void write(Piece piece) throws IOException {
+        if (out == null) {
+            openChunk(piece);
+        }
+        if (piece.sectionStart()) {
+            chunkSections++;
+            if (chunkFirstHeading == null) {
+                chunkFirstHeading = piece.text().trim();
+            }
+        }
+        out.write(piece.text());
+        if (piece.endsLine()) {
+            out.write('\n');
+        }
+        chunkTokens += piece.tokens();
+        chunkLastLine = piece.line();
+        writtenFence = piece.fenceAfter();
+        writtenEndsLine = piece.endsLine();
+    }
+
+    private void openChunk(Piece first) throws IOException {
+        out = Files.newBufferedWriter(chunkFile(chunks.size() + 1), StandardCharsets.UTF_8);
+        chunkFirstLine = first.line();
+        chunkSections = 0;
+        chunkFirstHeading = null;
+        if (writtenFence != null) {
+            // Continue the code block the previous chunk was cut in.
+            out.write(writtenFence);
+            out.write('\n');
+        }
+    }
+
+    private void closeChunk() throws IOException {
+        if (out == null) {
+            return;
+        }
+        if (writtenFence != null) {
+            if (!writtenEndsLine) {
+                out.write('\n');
+                chunkTokens++;
+            }
+            out.write(closingFence(writtenFence));
+            out.write('\n');
+            chunkTokens += closingTokens(writtenFence);
+        }
+        out.close();
+        out = null;
+
+        Chunk chunk = new Chunk(chunks.size() + 1, chunkFile(chunks.size() + 1), chunkTokens, chunkFirstLine, chunkLastLine,
+                chunkSections, chunkFirstHeading);
+        chunks.add(chunk);
+        manifest.writeStartObject();
+        manifest.writeNumberField("index", chunk.index());
+        manifest.writeStringField("file", chunk.file().getFileName().toString());
+        manifest.writeNumberField("tokens", chunk.tokens());
+        manifest.writeNumberField("bytes", Files.size(chunk.file()));
+        manifest.writeNumberField("firstLine", chunk.firstLine());
+        manifest.writeNumberField("lastLine", chunk.lastLine());
+        manifest.writeNumberField("sections", chunk.sections());
+        manifest.writeStringField("firstHeading", chunk.firstHeading());
+        manifest.writeEndObject();
+        manifest.flush();
+
+        // The next chunk starts with the code block reopened.
+        chunkTokens = (writtenFence != null) ? TokenEstimator.countLine(writtenFence, true) : 0;
+    }
+
+    private Path chunkFile(int index) {
+        return directory.resolve(String.format("%s%04d.md", CHUNK_PREFIX, index));
+    }
+
+    private void deleteOldChunks() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, CHUNK_PREFIX + "*.md")) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        Files.deleteIfExists(directory.resolve(MANIFEST));
+    }
+
+    /**
+     * Tells whether a line is an ATX heading ({@code #} to {@code ######}, indented by at most three spaces).
+     */
+    static boolean isHeading(String line) {
+        int i = indentation(line);
+        int level = 0;
+        while (i < line.length() && line.charAt(i) == '#') {
+            level++;
+            i++;
+        }
+        return level >= 1 && level <= 6 && (i == line.length() || line.charAt(i) == ' ' || line.charAt(i) == '\t');
+    }
+
+    /**
+     * Returns the code block open after a line.
+     *
+     * @param fence opening line of the code block open before the line, or null.
+     * @param line the line.
+     * @return opening line of the code block open after the line, or null.
+     */
+    static String nextFence(String fence, String line) {
+        int i = indentation(line);
+        if (i > 3) {
+            // Indented code, or code block content.
+            return fence;
+        }
+        int run = markerRun(line, i);
+        if (run < 3) {
+            return fence;
+        }
+        if (fence == null) {
+            return line;
+        }
+        // Closed by a bare marker of the same character, at least as long.
+        char marker = line.charAt(i);
+        int openAt = indentation(fence);
+        return (marker == fence.charAt(openAt) && run >= markerRun(fence, openAt) && line.substring(i + run).isBlank()) ? null : fence;
+    }
+
+    private static String closingFence(String fence) {
+        int at = indentation(fence);
+        return fence.substring(0, at + markerRun(fence, at));
+    }
+
+    private static long closingTokens(String fence) {
+        return (fence != null) ? TokenEstimator.countLine(closingFence(fence), true) : 0;
+    }
+
+    private static int markerRun(String line, int at) {
+        if (at >= line.length() || (line.charAt(at) != '`' && line.charAt(at) != '~')) {
+            return 0;
+        }
+        int end = at;
+        while (end < line.length() && line.charAt(end) == line.charAt(at)) {
+            end++;
+        }
+        return end - at;
+    }
+
+    private static int indentation(String line) {
+        int i = 0;
+        while (i < line.length() && line.charAt(i) == ' ') {
+            i++;
+        }
+        return i;
+    }
+}
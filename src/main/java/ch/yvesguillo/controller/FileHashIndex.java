@@ -0,0 +1,167 @@
+package ch.yvesguillo.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Content hashes of the files of one crawled tree, keyed by relative path and persisted incrementally.
+ *
+ * A hash stays valid while the file keeps its size and modification time, so unchanged files are never read again.
+ * The index file is a JSON-lines log: each new or changed hash is appended as soon as it is computed
+ * (later lines override earlier ones), and the log is rewritten only once it holds mostly stale lines.
+ */
+public final class FileHashIndex {
+
+    // Rewrite the log once it holds more than this many lines per live entry (plus some slack).
+    private static final int COMPACTION_RATIO = 2;
+    private static final int COMPACTION_SLACK = 1000;
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * Known hash of a file, (de)serialized by Jackson as one log line.
+     *
+     * @param path path relative to the tree root, with '/' separators.
+     * @param size file size when hashed.
+     * @param modified modification time (milliseconds) when hashed.
+     * @param hash hex-encoded content hash.
+     */
+    public record Stamp(String path, long size, long modified, String hash) {
+    }
+
+    private final Path file;
+    private final Map<String, Stamp> stamps = new ConcurrentHashMap<>();
+    // Guards the log writer. Held while writing.
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private BufferedWriter writer;
+    private long lineCount = 0;
+
+    private FileHashIndex(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Loads an index from its log file (an empty index if the file does not exist yet).
+     * Unreadable lines, e.g. the last one of an interrupted session, are skipped.
+     *
+     * @param file index log file.
+     * @return the loaded index.
+     * @throws IOException if the file exists but cannot be read.
+     */
+    public static FileHashIndex load(Path file) throws IOException {
+        FileHashIndex index = new FileHashIndex(file);
+        if (Files.exists(file)) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    index.lineCount++;
+                    try {
+                        Stamp stamp = mapper.readValue(line, Stamp.class);
+                        index.stamps.put(stamp.path(), stamp);
+                    } catch (IOException e) {
+                        // Truncated or corrupted line: the file will simply be hashed again.
+                    }
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Returns the known hash of a file if it still has the given size and modification time.
+     *
+     * @param path path relative to the tree root.
+     * @param size current file size.
+     * @param modified current modification time (milliseconds).
+     * @return hex-encoded content hash, or null if the file must be hashed.
+     */
+    public String lookup(String path, long size, long modified) {
+        Stamp stamp = stamps.get(path);
+        return (stamp != null && stamp.size() == size && stamp.modified() == modified) ? stamp.hash() : null;
+    }
+
+    /**
+     * Records the hash of a file and appends it to the log.
+     *
+     * @param stamp file hash with the stats it was computed for.
+     * @param persist false to keep it in memory only (e.g. files modified too recently to trust their stats).
+     */
+    public void record(Stamp stamp, boolean persist) {
+        Stamp previous = stamps.put(stamp.path(), stamp);
+        if (!persist || stamp.equals(previous)) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            if (writer == null) {
+                Files.createDirectories(file.getParent());
+                writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            writer.write(mapper.writeValueAsString(stamp));
+            writer.newLine();
+            lineCount++;
+        } catch (IOException e) {
+            // The hash stays valid in memory; the next session will compute it again.
+            System.err.println("[Cache] Could not write hash index: " + e.getMessage());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Forgets the files that no longer exist, then flushes the log (rewriting it if mostly stale).
+     * Called after a complete walk of the tree.
+     *
+     * @param seen relative paths of all the files found by the walk.
+     */
+    public void sync(Set<String> seen) {
+        stamps.keySet().retainAll(seen);
+        writeLock.lock();
+        try {
+            if (lineCount > (long) stamps.size() * COMPACTION_RATIO + COMPACTION_SLACK) {
+                compact();
+            } else if (writer != null) {
+                writer.flush();
+            }
+        } catch (IOException e) {
+            System.err.println("[Cache] Could not write hash index: " + e.getMessage());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Rewrites the log with the live entries only. Must be called with the write lock held.
+     *
+     * @throws IOException if the log cannot be rewritten.
+     */
+    private void compact() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+        Files.createDirectories(file.getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            for (Stamp stamp : stamps.values()) {
+                out.write(mapper.writeValueAsString(stamp));
+                out.newLine();
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        lineCount = stamps.size();
+    }
+}
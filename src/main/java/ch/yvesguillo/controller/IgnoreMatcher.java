@@ -0,0 +1,641 @@
+package ch.yvesguillo.controller;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiled matcher for {@code .crawlectignore}, {@code .gitignore} and {@code .dockerignore} rules.
+ *
+ * Each ignore file is compiled into a {@link RuleSet} where rules are indexed instead of being tried one by one:
+ * <ul>
+ *   <li>literal names ({@code README.md}, {@code node_modules/}) in a hash map keyed by file name;</li>
+ *   <li>extension patterns ({@code *.json}) in a hash map keyed by extension;</li>
+ *   <li>path patterns ({@code /docs/*.md}, {@code src/**}) in a trie of their literal leading segments,
+ *       the rest being compiled glob segments;</li>
+ *   <li>any other name pattern ({@code *~}, {@code tmp[0-9]*}) in a short list.</li>
+ * </ul>
+ * Only the rules that can possibly match are evaluated, from the last one (gitignore: the last matching rule wins).
+ *
+ * A path is ignored if any of its parent directories is ignored, or if the path itself is, by any of the files
+ * (each file is applied on its own, as Crawlect does). {@code .dockerignore} patterns are always relative to the root.
+ *
+ * Rules are immutable once built; instances are safe to share between threads.
+ */
+public final class IgnoreMatcher {
+
+    /** Crawlect's own ignore file. */
+    public static final String CRAWLECT_IGNORE = ".crawlectignore";
+
+    /** Git ignore file. */
+    public static final String GIT_IGNORE = ".gitignore";
+
+    /** Docker build context ignore file. */
+    public static final String DOCKER_IGNORE = ".dockerignore";
+
+    // Maximum number of cached directory decisions.
+    private static final int DIRECTORY_CACHE_SIZE = 65_536;
+
+    private static final IgnoreMatcher EMPTY = new IgnoreMatcher(new RuleSet[0]);
+
+    private final RuleSet[] ruleSets;
+    private final Map<String, Boolean> directoryCache = new ConcurrentHashMap<>();
+
+    private IgnoreMatcher(RuleSet[] ruleSets) {
+        this.ruleSets = ruleSets;
+    }
+
+    /**
+     * Returns a matcher ignoring nothing.
+     *
+     * @return empty matcher.
+     */
+    public static IgnoreMatcher empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Compiles the ignore files found at the root of a tree.
+     *
+     * @param root crawled directory.
+     * @param crawlectIgnore true to apply {@code .crawlectignore}.
+     * @param gitIgnore true to apply {@code .gitignore}.
+     * @param dockerIgnore true to apply {@code .dockerignore}.
+     * @return the compiled matcher (empty if no file applies).
+     * @throws IOException if an existing ignore file cannot be read.
+     */
+    public static IgnoreMatcher load(Path root, boolean crawlectIgnore, boolean gitIgnore, boolean dockerIgnore) throws IOException {
+        Builder builder = builder();
+        if (crawlectIgnore) {
+            builder.addFile(root.resolve(CRAWLECT_IGNORE), false);
+        }
+        if (gitIgnore) {
+            builder.addFile(root.resolve(GIT_IGNORE), false);
+        }
+        if (dockerIgnore) {
+            builder.addFile(root.resolve(DOCKER_IGNORE), true);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Creates a builder for a matcher.
+     *
+     * @return new builder.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Tells whether the matcher has any rule.
+     *
+     * @return true if no path can be ignored.
+     */
+    public boolean isEmpty() {
+        return ruleSets.length == 0;
+    }
+
+    /**
+     * Classifies a path, checking its parent directories first.
+     * Decisions on directories are cached, so paths sharing parents (the usual case) cost one lookup plus one match.
+     *
+     * @param relativePath path relative to the crawled root, with {@code /} separators.
+     * @param isDirectory true if the path is a directory.
+     * @return true if the path is ignored.
+     */
+    public boolean isIgnored(String relativePath, boolean isDirectory) {
+        if (ruleSets.length == 0) {
+            return false;
+        }
+        int slash = Math.max(relativePath.lastIndexOf('/'), relativePath.lastIndexOf('\\'));
+        if (slash > 0 && isDirectoryIgnored(relativePath.substring(0, slash))) {
+            return true;
+        }
+        String[] segments = split(relativePath);
+        return segments.length > 0 && matchesAny(segments, segments.length, isDirectory);
+    }
+
+    /**
+     * Classifies a directory, its parents included, through the cache.
+     *
+     * @param relativePath directory path relative to the crawled root.
+     * @return true if the directory is ignored.
+     */
+    private boolean isDirectoryIgnored(String relativePath) {
+        Boolean cached = directoryCache.get(relativePath);
+        if (cached != null) {
+            return cached;
+        }
+        boolean ignored = isIgnored(relativePath, true);
+        if (directoryCache.size() >= DIRECTORY_CACHE_SIZE) {
+            // Crude bound: trees are walked roughly in order, so old entries are rarely needed again.
+            directoryCache.clear();
+        }
+        directoryCache.put(relativePath, ignored);
+        return ignored;
+    }
+
+    /**
+     * Classifies one entry whose parent directories are known not to be ignored (e.g. during a tree walk
+     * that does not descend into ignored directories). Cheaper than {@link #isIgnored(String, boolean)}.
+     *
+     * @param segments path segments relative to the crawled root.
+     * @param length number of segments making the entry's path.
+     * @param isDirectory true if the entry is a directory.
+     * @return true if the entry itself is ignored.
+     */
+    public boolean isEntryIgnored(String[] segments, int length, boolean isDirectory) {
+        return ruleSets.length != 0 && matchesAny(segments, length, isDirectory);
+    }
+
+    private boolean matchesAny(String[] segments, int length, boolean isDirectory) {
+        for (RuleSet ruleSet : ruleSets) {
+            if (ruleSet.isIgnored(segments, length, isDirectory)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Splits a relative path into its segments, ignoring empty ones.
+     *
+     * @param path path with {@code /} (or {@code \}) separators.
+     * @return path segments.
+     */
+    public static String[] split(String path) {
+        int count = 0;
+        int length = path.length();
+        for (int i = 0; i < length; i++) {
+            char c = path.charAt(i);
+            if ((c == '/' || c == '\\') && i > 0 && path.charAt(i - 1) != '/' && path.charAt(i - 1) != '\\') {
+                count++;
+            }
+        }
+        String[] segments = new String[count + 1];
+        int n = 0;
+        int start = 0;
+        for (int i = 0; i <= length; i++) {
+            if (i == length || path.charAt(i) == '/' || path.charAt(i) == '\\') {
+                if (i > start) {
+                    segments[n++] = path.substring(start, i);
+                }
+                start = i + 1;
+            }
+        }
+        return (n == segments.length) ? segments : Arrays.copyOf(segments, n);
+    }
+
+    /**
+     * Collects the ignore files to compile.
+     */
+    public static final class Builder {
+
+        private final List<RuleSet> ruleSets = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Adds an ignore file, if it exists.
+         *
+         * @param file ignore file.
+         * @param rootAnchored true to anchor every pattern to the root (.dockerignore semantics).
+         * @return this builder.
+         * @throws IOException if the file exists but cannot be read.
+         */
+        public Builder addFile(Path file, boolean rootAnchored) throws IOException {
+            if (Files.isRegularFile(file)) {
+                addRules(Files.readAllLines(file, StandardCharsets.UTF_8), rootAnchored);
+            }
+            return this;
+        }
+
+        /**
+         * Adds the lines of one ignore file.
+         *
+         * @param lines ignore file lines (comments and blank lines allowed).
+         * @param rootAnchored true to anchor every pattern to the root (.dockerignore semantics).
+         * @return this builder.
+         */
+        public Builder addRules(List<String> lines, boolean rootAnchored) {
+            RuleSet ruleSet = new RuleSet();
+            for (String line : lines) {
+                Rule rule = Rule.parse(line, ruleSet.size, rootAnchored);
+                if (rule != null) {
+                    ruleSet.add(rule);
+                }
+            }
+            if (ruleSet.size > 0) {
+                ruleSets.add(ruleSet);
+            }
+            return this;
+        }
+
+        /**
+         * Builds the immutable matcher.
+         *
+         * @return the compiled matcher.
+         */
+        public IgnoreMatcher build() {
+            return ruleSets.isEmpty() ? EMPTY : new IgnoreMatcher(ruleSets.toArray(new RuleSet[0]));
+        }
+    }
+
+    /**
+     * Rules of one ignore file, indexed by what they can match.
+     */
+    private static final class RuleSet {
+
+        private static final Rule[] NONE = new Rule[0];
+
+        private final Map<String, Rule[]> byName = new HashMap<>();
+        private final Map<String, Rule[]> byExtension = new HashMap<>();
+        private final TrieNode pathRules = new TrieNode();
+        private Rule[] nameRules = NONE;
+        private int size = 0;
+
+        void add(Rule rule) {
+            size++;
+            if (rule.anchored) {
+                // Walk the literal leading segments; the rule waits where they end.
+                TrieNode node = pathRules;
+                int literalCount = 0;
+                while (literalCount < rule.segments.length && rule.segments[literalCount].literal != null) {
+                    node = node.children.computeIfAbsent(rule.segments[literalCount].literal, key -> new TrieNode());
+                    literalCount++;
+                }
+                node.rules = append(node.rules, rule);
+                rule.trieDepth = literalCount;
+            } else {
+                Glob glob = rule.segments[0];
+                if (glob.literal != null) {
+                    byName.merge(glob.literal, new Rule[]{rule}, RuleSet::concat);
+                } else if (glob.extension != null) {
+                    byExtension.merge(glob.extension, new Rule[]{rule}, RuleSet::concat);
+                } else {
+                    nameRules = append(nameRules, rule);
+                }
+            }
+        }
+
+        /**
+         * Applies the last matching rule of this file to one path.
+         */
+        boolean isIgnored(String[] segments, int length, boolean isDirectory) {
+            String name = segments[length - 1];
+            // Index of the last matching rule so far: only later rules need to be tried.
+            Rule best = null;
+
+            best = lastMatch(byName.get(name), segments, length, isDirectory, best);
+
+            int dot = name.lastIndexOf('.');
+            if (dot >= 0) {
+                best = lastMatch(byExtension.get(name.substring(dot + 1)), segments, length, isDirectory, best);
+            }
+
+            best = lastMatch(nameRules, segments, length, isDirectory, best);
+
+            TrieNode node = pathRules;
+            for (int depth = 0; node != null; depth++) {
+                best = lastMatch(node.rules, segments, length, isDirectory, best);
+                if (depth >= length || node.children.isEmpty()) {
+                    break;
+                }
+                node = node.children.get(segments[depth]);
+            }
+
+            return best != null && !best.negated;
+        }
+
+        private static Rule lastMatch(Rule[] candidates, String[] segments, int length, boolean isDirectory, Rule best) {
+            if (candidates == null) {
+                return best;
+            }
+            int floor = (best != null) ? best.index : -1;
+            // Candidates are in file order: scan from the end and stop at the first match.
+            for (int i = candidates.length - 1; i >= 0; i--) {
+                Rule rule = candidates[i];
+                if (rule.index <= floor) {
+                    break;
+                }
+                if (rule.matches(segments, length, isDirectory)) {
+                    return rule;
+                }
+            }
+            return best;
+        }
+
+        private static Rule[] append(Rule[] rules, Rule rule) {
+            Rule[] extended = Arrays.copyOf(rules, rules.length + 1);
+            extended[rules.length] = rule;
+            return extended;
+        }
+
+        private static Rule[] concat(Rule[] first, Rule[] second) {
+            Rule[] joined = Arrays.copyOf(first, first.length + second.length);
+            System.arraycopy(second, 0, joined, first.length, second.length);
+            return joined;
+        }
+    }
+
+    /**
+     * Trie node of anchored rules, keyed by literal path segment.
+     */
+    private static final class TrieNode {
+        private final Map<String, TrieNode> children = new HashMap<>();
+        private Rule[] rules = RuleSet.NONE;
+    }
+
+    /**
+     * One compiled ignore pattern.
+     */
+    private static final class Rule {
+
+        private final int index;
+        private final boolean negated;
+        private final boolean directoryOnly;
+        private final boolean anchored;
+        private final Glob[] segments;
+        // Leading literal segments already checked by the trie walk.
+        private int trieDepth = 0;
+
+        private Rule(int index, boolean negated, boolean directoryOnly, boolean anchored, Glob[] segments) {
+            this.index = index;
+            this.negated = negated;
+            this.directoryOnly = directoryOnly;
+            this.anchored = anchored;
+            this.segments = segments;
+        }
+
+        /**
+         * Parses one ignore file line (gitignore syntax).
+         *
+         * @param line raw line.
+         * @param index rule position in its file.
+         * @param rootAnchored true to anchor the pattern even without a slash.
+         * @return the rule, or null for blank lines and comments.
+         */
+        static Rule parse(String line, int index, boolean rootAnchored) {
+            String pattern = stripTrailingSpaces(line);
+            if (pattern.isEmpty() || pattern.startsWith("#")) {
+                return null;
+            }
+
+            boolean negated = false;
+            if (pattern.startsWith("!")) {
+                negated = true;
+                pattern = pattern.substring(1);
+            } else if (pattern.startsWith("\\!") || pattern.startsWith("\\#")) {
+                pattern = pattern.substring(1);
+            }
+
+            boolean directoryOnly = false;
+            while (pattern.endsWith("/")) {
+                directoryOnly = true;
+                pattern = pattern.substring(0, pattern.length() - 1);
+            }
+            if (pattern.isEmpty()) {
+                return null;
+            }
+
+            // A slash at the start or in the middle anchors the pattern to the root.
+            boolean anchored = rootAnchored || pattern.indexOf('/') >= 0;
+            while (pattern.startsWith("/")) {
+                pattern = pattern.substring(1);
+            }
+
+            String[] parts = split(pattern);
+            if (parts.length == 0) {
+                return null;
+            }
+            Glob[] segments = new Glob[parts.length];
+            for (int i = 0; i < parts.length; i++) {
+                segments[i] = Glob.compile(parts[i]);
+            }
+            return new Rule(index, negated, directoryOnly, anchored, segments);
+        }
+
+        private static String stripTrailingSpaces(String line) {
+            int end = line.length();
+            while (end > 0 && line.charAt(end - 1) == ' ' && !(end > 1 && line.charAt(end - 2) == '\\')) {
+                end--;
+            }
+            String stripped = line.substring(0, end);
+            return stripped.endsWith("\\ ") ? stripped.substring(0, stripped.length() - 2) + " " : stripped;
+        }
+
+        boolean matches(String[] path, int length, boolean isDirectory) {
+            if (directoryOnly && !isDirectory) {
+                return false;
+            }
+            if (!anchored) {
+                // Single name pattern, matched against the last segment at any depth.
+                return segments[0].matches(path[length - 1]);
+            }
+            return matchSegments(trieDepth, path, trieDepth, length);
+        }
+
+        /**
+         * Matches pattern segments from {@code p} against path segments from {@code s} to {@code end}.
+         */
+        private boolean matchSegments(int p, String[] path, int s, int end) {
+            while (p < segments.length) {
+                Glob glob = segments[p];
+                if (glob.doubleStar) {
+                    if (p == segments.length - 1) {
+                        // Trailing "**": everything inside, not the directory itself.
+                        return s < end;
+                    }
+                    for (int skip = s; skip <= end; skip++) {
+                        if (matchSegments(p + 1, path, skip, end)) {
+                            return true;
+                        }
+                    }
+                    return false;
+                }
+                if (s >= end || !glob.matches(path[s])) {
+                    return false;
+                }
+                p++;
+                s++;
+            }
+            return s == end;
+        }
+    }
+
+    /**
+     * One compiled glob segment: a literal, an extension pattern ({@code *.ext}), {@code **}, or a compiled pattern.
+     */
+    private static final class Glob {
+
+        // Pattern opcodes.
+        private static final int ANY_CHAR = -1;
+        private static final int ANY_RUN = -2;
+        private static final int CLASS = -3;
+
+        private final String literal;
+        private final String extension;
+        private final boolean doubleStar;
+        // Opcodes: a character (>= 0), ANY_CHAR, ANY_RUN, or CLASS followed by its index in classes.
+        private final int[] program;
+        private final CharClass[] classes;
+
+        private Glob(String literal, String extension, boolean doubleStar, int[] program, CharClass[] classes) {
+            this.literal = literal;
+            this.extension = extension;
+            this.doubleStar = doubleStar;
+            this.program = program;
+            this.classes = classes;
+        }
+
+        static Glob compile(String pattern) {
+            if (pattern.equals("**")) {
+                return new Glob(null, null, true, null, null);
+            }
+
+            List<Integer> program = new ArrayList<>();
+            List<CharClass> classes = new ArrayList<>();
+            StringBuilder literal = new StringBuilder();
+            boolean hasWildcard = false;
+
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                if (c == '\\' && i + 1 < pattern.length()) {
+                    c = pattern.charAt(++i);
+                    program.add((int) c);
+                    literal.append(c);
+                } else if (c == '*') {
+                    hasWildcard = true;
+                    // Consecutive stars are one run.
+                    if (program.isEmpty() || program.get(program.size() - 1) != ANY_RUN) {
+                        program.add(ANY_RUN);
+                    }
+                } else if (c == '?') {
+                    hasWildcard = true;
+                    program.add(ANY_CHAR);
+                } else if (c == '[' && pattern.indexOf(']', i + 2) > 0) {
+                    hasWildcard = true;
+                    int close = pattern.indexOf(']', i + 2);
+                    classes.add(CharClass.parse(pattern.substring(i + 1, close)));
+                    program.add(CLASS);
+                    program.add(classes.size() - 1);
+                    i = close;
+                } else {
+                    program.add((int) c);
+                    literal.append(c);
+                }
+            }
+
+            if (!hasWildcard) {
+                return new Glob(literal.toString(), null, false, null, null);
+            }
+
+            // "*.ext" (literal extension without dots or wildcards) is indexed by extension.
+            String extension = null;
+            if (pattern.startsWith("*.") && pattern.indexOf('.', 2) < 0 && pattern.chars().skip(1).noneMatch(ch -> ch == '*' || ch == '?' || ch == '[' || ch == '\\')) {
+                extension = pattern.substring(2);
+            }
+
+            int[] opcodes = program.stream().mapToInt(Integer::intValue).toArray();
+            return new Glob(null, extension, false, opcodes, classes.toArray(new CharClass[0]));
+        }
+
+        /**
+         * Matches one path segment. Linear for patterns with a single star run,
+         * and without recursion otherwise (the last star is the only backtracking point).
+         */
+        boolean matches(String text) {
+            if (literal != null) {
+                return literal.equals(text);
+            }
+            if (extension != null) {
+                return text.length() > extension.length() && text.endsWith(extension) && text.charAt(text.length() - extension.length() - 1) == '.';
+            }
+
+            int p = 0;
+            int t = 0;
+            int starP = -1;
+            int starT = -1;
+            int length = text.length();
+            while (t < length) {
+                if (p < program.length) {
+                    int op = program[p];
+                    if (op == ANY_RUN) {
+                        starP = ++p;
+                        starT = t;
+                        continue;
+                    }
+                    char c = text.charAt(t);
+                    if (op == ANY_CHAR || op == c) {
+                        p++;
+                        t++;
+                        continue;
+                    }
+                    if (op == CLASS && classes[program[p + 1]].contains(c)) {
+                        p += 2;
+                        t++;
+                        continue;
+                    }
+                }
+                if (starP < 0) {
+                    return false;
+                }
+                // Let the last star absorb one more character.
+                p = starP;
+                t = ++starT;
+            }
+            while (p < program.length && program[p] == ANY_RUN) {
+                p++;
+            }
+            return p == program.length;
+        }
+    }
+
+    /**
+     * Character class ({@code [abc]}, {@code [a-z]}, {@code [!0-9]}).
+     */
+    private static final class CharClass {
+
+        private final char[] ranges;
+        private final boolean negated;
+
+        private CharClass(char[] ranges, boolean negated) {
+            this.ranges = ranges;
+            this.negated = negated;
+        }
+
+        static CharClass parse(String body) {
+            boolean negated = !body.isEmpty() && (body.charAt(0) == '!' || body.charAt(0) == '^');
+            int start = negated ? 1 : 0;
+            StringBuilder ranges = new StringBuilder();
+            for (int i = start; i < body.length(); i++) {
+                char low = body.charAt(i);
+                char high = low;
+                if (i + 2 < body.length() && body.charAt(i + 1) == '-') {
+                    high = body.charAt(i + 2);
+                    i += 2;
+                }
+                ranges.append(low).append(high);
+            }
+            return new CharClass(ranges.toString().toCharArray(), negated);
+        }
+
+        boolean contains(char c) {
+            for (int i = 0; i < ranges.length; i += 2) {
+                if (c >= ranges[i] && c <= ranges[i + 1]) {
+                    return !negated;
+                }
+            }
+            return negated;
+        }
+    }
+}
@@ -0,0 +1,421 @@
+package ch.yvesguillo.controller;
+
+import ch.yvesguillo.model.CrawlJob;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Singleton job queue running Crawlect jobs with a bounded degree of parallelism.
+ *
+ * Jobs wait in submission order (which can be changed with {@link #move(CrawlJob, int)})
+ * and are dispatched while fewer than {@link #getConcurrency()} jobs are running.
+ * Each running job uses its own virtual thread. Listeners are notified of every state change
+ * (from scheduler threads: GUI listeners must hop to the EDT themselves).
+ */
+public final class JobScheduler {
+
+    /**
+     * Receives job state changes.
+     */
+    @FunctionalInterface
+    public interface JobListener {
+
+        /**
+         * Called when a job was added, removed, reordered or changed state.
+         *
+         * @param job the affected job.
+         */
+        void jobChanged(CrawlJob job);
+    }
+
+    // A queued job together with what is needed to run it.
+    private record Entry(CrawlJob job, Consumer<String> lineListener, CompletableFuture<OutputCapture> result, RunControl control) {
+    }
+
+    private static JobScheduler instance;
+
+    private static final Metrics.Timer RUN_TIMER = Metrics.timer("run.total");
+    private static final Metrics.Histogram OUTPUT_LINES = Metrics.histogram("run.outputLines", "lines");
+    private static final Metrics.Counter SUCCEEDED = Metrics.counter("run.succeeded");
+    private static final Metrics.Counter FAILED = Metrics.counter("run.failed");
+    private static final Metrics.Counter CANCELLED = Metrics.counter("run.cancelled");
+    private static final Metrics.Counter TIMED_OUT = Metrics.counter("run.timedOut");
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+    // Jobs, queue and concurrency, guarded by this.
+    private final List<CrawlJob> jobs = new ArrayList<>();
+    private final List<Entry> queue = new ArrayList<>();
+    private final Map<CrawlJob, Entry> running = new HashMap<>();
+    private final List<JobListener> listeners = new CopyOnWriteArrayList<>();
+    private int concurrency;
+
+    /**
+     * Private constructor to enforce singleton pattern.
+     *
+     * @param concurrency maximum number of jobs running at once.
+     */
+    private JobScheduler(int concurrency) {
+        this.concurrency = Math.max(1, concurrency);
+    }
+
+    /**
+     * Explicitly initializes the singleton scheduler.
+     *
+     * @param concurrency maximum number of jobs running at once.
+     * @throws IllegalStateException if already initialized.
+     */
+    public static synchronized void initialize(int concurrency) {
+        if (instance != null) {
+            throw new IllegalStateException("JobScheduler has already been initialized.");
+        }
+        instance = new JobScheduler(concurrency);
+    }
+
+    /**
+     * Lazily initializes the scheduler with the default concurrency, otherwise returns the existing instance.
+     *
+     * @return Singleton instance of JobScheduler.
+     */
+    public static synchronized JobScheduler lazyGetInstance() {
+        if (instance == null) {
+            instance = new JobScheduler(defaultConcurrency());
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the already initialized singleton instance.
+     *
+     * @return Singleton instance of JobScheduler.
+     * @throws IllegalStateException if the scheduler has not been initialized yet.
+     */
+    public static JobScheduler getInstance() {
+        if (instance == null) {
+            throw new IllegalStateException("JobScheduler has not been initialized.");
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the default concurrency: half the cores, between 1 and 4.
+     * Crawls are mostly disk-bound, so more parallel runs than that rarely pays off.
+     *
+     * @return default maximum number of parallel jobs.
+     */
+    public static int defaultConcurrency() {
+        return Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+    }
+
+    /**
+     * Registers a listener notified of every job change.
+     *
+     * @param listener the listener.
+     */
+    public void addListener(JobListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Submits a new job.
+     *
+     * @param args Crawlect CLI arguments.
+     * @param first true to put the job at the head of the queue (e.g. an interactive "run now").
+     * @param lineListener receives the job's output lines, prefixed with the job number (may be null).
+     * @return the job's result: its captured output (to be closed by the caller), or the failure.
+     */
+    public CompletableFuture<OutputCapture> submit(List<String> args, boolean first, Consumer<String> lineListener) {
+        return submit(createJob(args), first, lineListener);
+    }
+
+    /**
+     * Creates a job numbered by this scheduler, without submitting it.
+     *
+     * @param args Crawlect CLI arguments.
+     * @return the new job, to be passed to {@link #submit(CrawlJob, boolean, Consumer)}.
+     */
+    public CrawlJob createJob(List<String> args) {
+        return new CrawlJob(nextId.getAndIncrement(), args);
+    }
+
+    /**
+     * Submits a job created by {@link #createJob(List)}.
+     *
+     * @param job the job to run.
+     * @param first true to put the job at the head of the queue (e.g. an interactive "run now").
+     * @param lineListener receives the job's output lines, prefixed with the job number (may be null).
+     * @return the job's result: its captured output (to be closed by the caller), or the failure.
+     */
+    public CompletableFuture<OutputCapture> submit(CrawlJob job, boolean first, Consumer<String> lineListener) {
+        Entry entry = new Entry(job, lineListener, new CompletableFuture<>(), new RunControl());
+
+        synchronized (this) {
+            jobs.add(job);
+            if (first) {
+                queue.add(0, entry);
+            } else {
+                queue.add(entry);
+            }
+        }
+
+        System.out.println("[Queue] Submitted " + job);
+        notifyListeners(job);
+        dispatch();
+        return entry.result();
+    }
+
+    /**
+     * Cancels a job: removes it from the queue, or stops it if running.
+     *
+     * @param job the job to cancel.
+     */
+    public void cancel(CrawlJob job) {
+        Entry cancelled = null;
+        synchronized (this) {
+            for (Entry entry : queue) {
+                if (entry.job() == job) {
+                    cancelled = entry;
+                    break;
+                }
+            }
+            if (cancelled != null) {
+                queue.remove(cancelled);
+            } else {
+                Entry active = running.get(job);
+                if (active != null) {
+                    // The run thread reports the final state.
+                    active.control().cancel();
+                }
+            }
+        }
+
+        if (cancelled != null) {
+            job.markFinished(CrawlJob.State.CANCELLED, null, "Cancelled before start");
+            cancelled.result().completeExceptionally(new CancellationException("Crawlect run cancelled."));
+            notifyListeners(job);
+        }
+    }
+
+    /**
+     * Cancels every queued and running job.
+     */
+    public void cancelAll() {
+        for (CrawlJob job : getJobs()) {
+            if (!job.getState().isFinished()) {
+                cancel(job);
+            }
+        }
+    }
+
+    /**
+     * Moves a queued job within the queue (reprioritizes it).
+     *
+     * @param job the queued job.
+     * @param offset negative to run it sooner, positive to run it later.
+     */
+    public void move(CrawlJob job, int offset) {
+        boolean moved = false;
+        synchronized (this) {
+            for (int i = 0; i < queue.size(); i++) {
+                if (queue.get(i).job() == job) {
+                    int target = Math.max(0, Math.min(queue.size() - 1, i + offset));
+                    if (target != i) {
+                        queue.add(target, queue.remove(i));
+                        moved = true;
+                    }
+                    break;
+                }
+            }
+        }
+        if (moved) {
+            notifyListeners(job);
+        }
+    }
+
+    /**
+     * Forgets all finished jobs.
+     */
+    public void clearFinished() {
+        synchronized (this) {
+            jobs.removeIf(job -> job.getState().isFinished());
+        }
+        notifyListeners(null);
+    }
+
+    /**
+     * Returns a snapshot of all known jobs: running and finished jobs in submission order, then queued jobs in queue order.
+     *
+     * @return list of jobs.
+     */
+    public List<CrawlJob> getJobs() {
+        synchronized (this) {
+            List<CrawlJob> snapshot = new ArrayList<>();
+            for (CrawlJob job : jobs) {
+                if (job.getState() != CrawlJob.State.QUEUED) {
+                    snapshot.add(job);
+                }
+            }
+            for (Entry entry : queue) {
+                snapshot.add(entry.job());
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * Returns the maximum number of jobs running at once.
+     *
+     * @return concurrency limit.
+     */
+    public int getConcurrency() {
+        synchronized (this) {
+            return concurrency;
+        }
+    }
+
+    /**
+     * Changes the maximum number of jobs running at once. Running jobs are never interrupted.
+     *
+     * @param concurrency new limit (at least 1).
+     */
+    public void setConcurrency(int concurrency) {
+        synchronized (this) {
+            this.concurrency = Math.max(1, concurrency);
+        }
+        dispatch();
+    }
+
+    /**
+     * Starts queued jobs while the concurrency limit allows.
+     */
+    private void dispatch() {
+        List<Entry> started = new ArrayList<>();
+        synchronized (this) {
+            while (running.size() < concurrency && !queue.isEmpty()) {
+                Entry entry = queue.remove(0);
+                entry.job().markRunning();
+                running.put(entry.job(), entry);
+                started.add(entry);
+            }
+        }
+
+        for (Entry entry : started) {
+            notifyListeners(entry.job());
+            executor.execute(() -> execute(entry));
+        }
+    }
+
+    /**
+     * Runs one job and records its outcome.
+     *
+     * @param entry the job to run.
+     */
+    private void execute(Entry entry) {
+        CrawlJob job = entry.job();
+        System.out.println("[Queue] Running " + job);
+
+        // Parallel jobs share the console: tag each line with its job number.
+        Consumer<String> listener = null;
+        if (entry.lineListener() != null) {
+            String prefix = "[#" + job.getId() + "] ";
+            listener = line -> entry.lineListener().accept(prefix + line);
+        }
+
+        FileTime outputBefore = lastModified(job.getOutputFile());
+        long start = RUN_TIMER.start();
+        try {
+            OutputCapture output = CrawlectLauncher.run(job.getArgs(), listener, entry.control());
+            RUN_TIMER.stop(start);
+            OUTPUT_LINES.record(output.getLineCount());
+            SUCCEEDED.increment();
+            job.markFinished(CrawlJob.State.SUCCEEDED, 0, output.getLineCount() + " lines of output");
+            entry.result().complete(output);
+        } catch (CancellationException e) {
+            CANCELLED.increment();
+            discardPartialOutput(job, outputBefore);
+            job.markFinished(CrawlJob.State.CANCELLED, null, "Cancelled");
+            entry.result().completeExceptionally(e);
+        } catch (TimeoutException e) {
+            TIMED_OUT.increment();
+            discardPartialOutput(job, outputBefore);
+            job.markFinished(CrawlJob.State.FAILED, null, e.getMessage());
+            entry.result().completeExceptionally(e);
+        } catch (CrawlectExitException e) {
+            FAILED.increment();
+            job.markFinished(CrawlJob.State.FAILED, e.getExitCode(), e.getMessage());
+            entry.result().completeExceptionally(e);
+        } catch (Exception e) {
+            FAILED.increment();
+            job.markFinished(CrawlJob.State.FAILED, null, e.getMessage());
+            entry.result().completeExceptionally(e);
+        } finally {
+            entry.control().finish();
+            synchronized (this) {
+                running.remove(job);
+            }
+        }
+
+        System.out.println("[Queue] Finished " + job + " in " + job.getDurationMillis() + " ms");
+        if (UserSettings.isInitialized()) {
+            RunJournal.lazyGetInstance().record(job, entry.control());
+        }
+        notifyListeners(job);
+        dispatch();
+    }
+
+    /**
+     * Returns the modification time of a file.
+     *
+     * @param file file (may be null).
+     * @return modification time, or null if there is no such file.
+     */
+    private static FileTime lastModified(Path file) {
+        try {
+            return (file != null && Files.isRegularFile(file)) ? Files.getLastModifiedTime(file) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Deletes the output file of a stopped run, if the run wrote it: a partial digest is of no use,
+     * and may be large. A file the run did not touch is kept.
+     *
+     * @param job the stopped job.
+     * @param before modification time of the output file before the run, null if it did not exist.
+     */
+    private static void discardPartialOutput(CrawlJob job, FileTime before) {
+        Path output = job.getOutputFile();
+        FileTime after = lastModified(output);
+        if (after == null || after.equals(before)) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(output);
+            System.out.println("[Queue] Deleted partial output of #" + job.getId() + ": " + output);
+        } catch (IOException e) {
+            System.err.println("[Queue] Could not delete partial output of #" + job.getId() + ": " + e.getMessage());
+        }
+    }
+
+    private void notifyListeners(CrawlJob job) {
+        for (JobListener listener : listeners) {
+            listener.jobChanged(job);
+        }
+    }
+}
@@ -0,0 +1,592 @@
+package ch.yvesguillo.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Local HTTP proxy caching the answers of the LLM host, so that re-running Crawlect with LLM tasks on unchanged
+ * files costs no LLM call.
+ *
+ * Listens on the loopback interface and forwards every request to the upstream host (an Ollama server). POST
+ * requests are cached on disk, keyed by a hash of the model, the request path and the request body (the prompt);
+ * only successful answers are kept. Least recently used answers are evicted beyond a total size. Identical
+ * requests arriving while the first one is still waiting for the upstream share its answer instead of being sent
+ * again (a split or parallel run asking the same question).
+ *
+ * At most one proxy runs at a time: while it runs, Ollama runs aimed at its upstream are pointed at it
+ * (see {@link #route(List)}).
+ */
+public final class LlmProxy {
+
+    public static final String DEFAULT_UPSTREAM = "http://localhost:11434";
+    public static final long DEFAULT_MAX_CACHE_BYTES = 256L << 20;
+
+    private static final String DIRECTORY_NAME = "llm-cache";
+
+    // Managed by the HTTP client or meaningless once the request is re-sent.
+    private static final Set<String> SKIPPED_HEADERS = Set.of(
+            "host", "content-length", "connection", "transfer-encoding", "expect", "upgrade",
+            "keep-alive", "te", "trailer", "accept-encoding", "proxy-connection");
+
+    private static final Metrics.Counter HITS = Metrics.counter("llm.proxy.hits");
+    private static final Metrics.Counter MISSES = Metrics.counter("llm.proxy.misses");
+    private static final Metrics.Counter COALESCED = Metrics.counter("llm.proxy.coalesced");
+    private static final Metrics.Timer UPSTREAM_TIMER = Metrics.timer("llm.proxy.upstream");
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    // Read by every run thread through route(), without locking.
+    private static volatile LlmProxy instance;
+    // Serializes start and stop, which bind the socket and read the cache directory.
+    private static final ReentrantLock lifecycleLock = new ReentrantLock();
+
+    private final URI upstream;
+    private final Path directory;
+    private final long maxCacheBytes;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final HttpClient client;
+    private final Map<String, CompletableFuture<Response>> inFlight = new ConcurrentHashMap<>();
+
+    // Guards the index. Held while evicted answers are deleted.
+    private final ReentrantLock indexLock = new ReentrantLock();
+    // Cached answer sizes by key, least recently used first.
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(16, 0.75f, true);
+    private long cacheBytes = 0;
+
+    /**
+     * On-disk cache entry metadata, (de)serialized by Jackson. The answer body is stored next to it.
+     */
+    public static class Entry {
+        public String model;
+        public String target;
+        public int status;
+        public String contentType;
+        public long createdAt;
+    }
+
+    /**
+     * Answer of the upstream host, as replayed to Crawlect.
+     *
+     * @param status HTTP status code.
+     * @param contentType Content-Type header (may be null).
+     * @param body response body.
+     */
+    record Response(int status, String contentType, byte[] body) {
+    }
+
+    // Private constructor: see start().
+    private LlmProxy(URI upstream, Path directory, long maxCacheBytes) throws IOException {
+        this.upstream = upstream;
+        this.directory = directory;
+        this.maxCacheBytes = maxCacheBytes;
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        loadIndex();
+
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    /**
+     * Starts the proxy in front of the given host, caching in the user config directory.
+     * A proxy already running is stopped first.
+     *
+     * @param upstream LLM host URL (e.g. {@value #DEFAULT_UPSTREAM}).
+     * @param maxCacheBytes cached answers beyond this total size are evicted, least recently used first.
+     * @return the running proxy.
+     * @throws IOException if the proxy cannot listen.
+     * @throws IllegalArgumentException if the host is not an http(s) URL.
+     */
+    public static LlmProxy start(String upstream, long maxCacheBytes) throws IOException {
+        return start(upstream, UserSettings.getInstance().getConfigDirectory().toPath().resolve(DIRECTORY_NAME), maxCacheBytes);
+    }
+
+    /**
+     * Starts the proxy in front of the given host, caching in the given directory (e.g. against a stub LLM server).
+     * A proxy already running is stopped first.
+     *
+     * @param upstream LLM host URL.
+     * @param cacheDirectory directory of the cached answers.
+     * @param maxCacheBytes cached answers beyond this total size are evicted, least recently used first.
+     * @return the running proxy.
+     * @throws IOException if the proxy cannot listen.
+     * @throws IllegalArgumentException if the host is not an http(s) URL.
+     */
+    static LlmProxy start(String upstream, Path cacheDirectory, long maxCacheBytes) throws IOException {
+        URI uri = URI.create(normalizeHost(upstream));
+        if ((!"http".equals(uri.getScheme()) && !"https".equals(uri.getScheme())) || uri.getHost() == null) {
+            throw new IllegalArgumentException("Not an http(s) URL: " + upstream);
+        }
+        lifecycleLock.lock();
+        try {
+            stop();
+            LlmProxy proxy = new LlmProxy(uri, cacheDirectory, maxCacheBytes);
+            instance = proxy;
+            System.out.println("[LLM Proxy] Listening on " + proxy.getAddress() + " for " + uri
+                    + " (" + proxy.getCachedCount() + " cached answers)");
+            return proxy;
+        } finally {
+            lifecycleLock.unlock();
+        }
+    }
+
+    /**
+     * Stops the running proxy, if any. Cached answers are kept.
+     */
+    public static void stop() {
+        lifecycleLock.lock();
+        try {
+            LlmProxy proxy = instance;
+            if (proxy != null) {
+                instance = null;
+                proxy.server.stop(0);
+                proxy.executor.shutdownNow();
+                System.out.println("[LLM Proxy] Stopped");
+            }
+        } finally {
+            lifecycleLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the running proxy.
+     *
+     * @return the proxy, or null if none is running.
+     */
+    public static LlmProxy getRunning() {
+        return instance;
+    }
+
+    /**
+     * Points a run at the running proxy: Ollama runs whose {@code --llm-host} is the proxy's upstream (or unset,
+     * when the upstream is {@value #DEFAULT_UPSTREAM}) get the proxy as their host. Other runs are returned as is.
+     *
+     * @param args Crawlect CLI arguments.
+     * @return the arguments to run with.
+     */
+    public static List<String> route(List<String> args) {
+        LlmProxy proxy = getRunning();
+        if (proxy == null || !"ollama".equalsIgnoreCase(value(args, "-llmapi", "--llm-api"))) {
+            return args;
+        }
+        String host = value(args, "-llmhost", "--llm-host");
+        String target = normalizeHost(host == null || host.isBlank() ? DEFAULT_UPSTREAM : host);
+        if (!target.equals(proxy.upstream.toString())) {
+            System.out.println("[LLM Proxy] Not proxying " + target + " (proxy is for " + proxy.upstream + ")");
+            return args;
+        }
+
+        List<String> routed = new ArrayList<>(args.size() + 2);
+        for (int i = 0; i < args.size(); i++) {
+            String arg = args.get(i);
+            if (arg.equals("-llmhost") || arg.equals("--llm-host")) {
+                i++;
+                continue;
+            }
+            routed.add(arg);
+        }
+        routed.add("--llm-host");
+        routed.add(proxy.getAddress());
+        return routed;
+    }
+
+    /**
+     * Deletes all cached answers, through the running proxy if any.
+     *
+     * @return number of deleted answers.
+     */
+    public static int clear() {
+        LlmProxy proxy = getRunning();
+        if (proxy != null) {
+            return proxy.clearCache();
+        }
+        Path dir = UserSettings.getInstance().getConfigDirectory().toPath().resolve(DIRECTORY_NAME);
+        int count = 0;
+        for (Path file : listFiles(dir)) {
+            if (file.getFileName().toString().endsWith(".json")) {
+                count++;
+            }
+            deleteQuietly(file);
+        }
+        System.out.println("[LLM Proxy] Cleared " + count + " cached answers");
+        return count;
+    }
+
+    /**
+     * Returns the URL Crawlect should use as its LLM host.
+     *
+     * @return proxy URL.
+     */
+    public String getAddress() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Returns the host the proxy forwards to.
+     *
+     * @return upstream URL.
+     */
+    public URI getUpstream() {
+        return upstream;
+    }
+
+    /**
+     * Returns the size limit of the cache.
+     *
+     * @return maximum total size of the cached answers, in bytes.
+     */
+    public long getMaxCacheBytes() {
+        return maxCacheBytes;
+    }
+
+    /**
+     * Returns the number of cached answers.
+     *
+     * @return entry count.
+     */
+    public int getCachedCount() {
+        indexLock.lock();
+        try {
+            return index.size();
+        } finally {
+            indexLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the total size of the cached answers.
+     *
+     * @return size in bytes.
+     */
+    public long getCachedBytes() {
+        indexLock.lock();
+        try {
+            return cacheBytes;
+        } finally {
+            indexLock.unlock();
+        }
+    }
+
+    private int clearCache() {
+        indexLock.lock();
+        try {
+            int count = index.size();
+            for (String key : index.keySet()) {
+                deleteQuietly(entryFile(key));
+                deleteQuietly(bodyFile(key));
+            }
+            index.clear();
+            cacheBytes = 0;
+            System.out.println("[LLM Proxy] Cleared " + count + " cached answers");
+            return count;
+        } finally {
+            indexLock.unlock();
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            Response response;
+            try {
+                byte[] body = exchange.getRequestBody().readAllBytes();
+                String target = exchange.getRequestURI().getRawPath()
+                        + (exchange.getRequestURI().getRawQuery() != null ? "?" + exchange.getRequestURI().getRawQuery() : "");
+                if ("POST".equals(exchange.getRequestMethod())) {
+                    response = cachedOrForward(target, body, exchange.getRequestHeaders());
+                } else {
+                    response = forward(exchange.getRequestMethod(), target, body, exchange.getRequestHeaders());
+                }
+            } catch (Exception e) {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                System.err.println("[LLM Proxy] " + upstream + " unreachable: " + cause);
+                response = new Response(502, "text/plain; charset=utf-8",
+                        ("LLM proxy: " + upstream + " unreachable: " + cause.getMessage()).getBytes(StandardCharsets.UTF_8));
+            }
+
+            if (response.contentType() != null) {
+                exchange.getResponseHeaders().set("Content-Type", response.contentType());
+            }
+            boolean empty = response.body().length == 0 || "HEAD".equals(exchange.getRequestMethod());
+            exchange.sendResponseHeaders(response.status(), empty ? -1 : response.body().length);
+            if (!empty) {
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(response.body());
+                }
+            }
+        }
+    }
+
+    /**
+     * Answers a POST from the cache, from an identical request in flight, or from the upstream host.
+     */
+    private Response cachedOrForward(String target, byte[] body, Headers headers) throws Exception {
+        String model = modelOf(body);
+        String key = key(model, target, body);
+        Response cached = read(key);
+        if (cached != null) {
+            HITS.increment();
+            return cached;
+        }
+
+        CompletableFuture<Response> mine = new CompletableFuture<>();
+        CompletableFuture<Response> pending = inFlight.putIfAbsent(key, mine);
+        if (pending != null) {
+            COALESCED.increment();
+            return pending.join();
+        }
+        try {
+            // Stored by a request that completed between the lookup and the registration.
+            Response response = read(key);
+            if (response != null) {
+                HITS.increment();
+            } else {
+                MISSES.increment();
+                response = forward("POST", target, body, headers);
+                if (response.status() / 100 == 2) {
+                    store(key, model, target, response);
+                }
+            }
+            mine.complete(response);
+            return response;
+        } catch (Exception e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private Response forward(String method, String target, byte[] body, Headers headers) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(upstream + target))
+                .method(method, body.length == 0 ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofByteArray(body));
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            if (SKIPPED_HEADERS.contains(header.getKey().toLowerCase(Locale.ROOT))) {
+                continue;
+            }
+            for (String value : header.getValue()) {
+                request.header(header.getKey(), value);
+            }
+        }
+
+        long start = UPSTREAM_TIMER.start();
+        HttpResponse<byte[]> response = client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        UPSTREAM_TIMER.stop(start);
+        return new Response(response.statusCode(), response.headers().firstValue("Content-Type").orElse(null), response.body());
+    }
+
+    private Response read(String key) {
+        indexLock.lock();
+        try {
+            if (index.get(key) == null) {
+                return null;
+            }
+        } finally {
+            indexLock.unlock();
+        }
+        try {
+            Entry entry = mapper.readValue(entryFile(key).toFile(), Entry.class);
+            byte[] body = Files.readAllBytes(bodyFile(key));
+            // Most recently used answers survive eviction, across restarts too.
+            Files.setLastModifiedTime(entryFile(key), FileTime.fromMillis(System.currentTimeMillis()));
+            return new Response(entry.status, entry.contentType, body);
+        } catch (IOException e) {
+            // Evicted meanwhile, or unreadable: ask the upstream again.
+            return null;
+        }
+    }
+
+    private void store(String key, String model, String target, Response response) {
+        try {
+            Files.createDirectories(directory);
+            Path temp = directory.resolve(key + ".tmp");
+            Files.write(temp, response.body());
+            Files.move(temp, bodyFile(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            Entry entry = new Entry();
+            entry.model = model;
+            entry.target = target;
+            entry.status = response.status();
+            entry.contentType = response.contentType();
+            entry.createdAt = System.currentTimeMillis();
+            mapper.writeValue(temp.toFile(), entry);
+            // The entry file is written last: it marks the answer as complete.
+            Files.move(temp, entryFile(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            long size = response.body().length + Files.size(entryFile(key));
+            indexLock.lock();
+            try {
+                Long previous = index.put(key, size);
+                cacheBytes += size - (previous != null ? previous : 0);
+                evict();
+            } finally {
+                indexLock.unlock();
+            }
+        } catch (IOException e) {
+            System.err.println("[LLM Proxy] Could not cache answer: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes the least recently used answers beyond {@link #maxCacheBytes}, keeping at least the newest one.
+     * Called with the index lock held.
+     */
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> eldest = index.entrySet().iterator();
+        while (cacheBytes > maxCacheBytes && index.size() > 1 && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            deleteQuietly(entryFile(entry.getKey()));
+            deleteQuietly(bodyFile(entry.getKey()));
+            cacheBytes -= entry.getValue();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Rebuilds the index from the cache directory, least recently used first, and drops incomplete answers.
+     */
+    private void loadIndex() {
+        List<Path> entries = new ArrayList<>();
+        for (Path file : listFiles(directory)) {
+            String name = file.getFileName().toString();
+            if (name.endsWith(".json")) {
+                entries.add(file);
+            } else if (name.endsWith(".tmp")
+                    || name.endsWith(".body") && !Files.exists(entryFile(name.substring(0, name.length() - 5)))) {
+                deleteQuietly(file);
+            }
+        }
+        entries.sort(Comparator.comparingLong((Path file) -> file.toFile().lastModified()));
+
+        indexLock.lock();
+        try {
+            for (Path file : entries) {
+                String key = file.getFileName().toString().replace(".json", "");
+                Path body = bodyFile(key);
+                if (!Files.isRegularFile(body)) {
+                    deleteQuietly(file);
+                    continue;
+                }
+                long size = file.toFile().length() + body.toFile().length();
+                index.put(key, size);
+                cacheBytes += size;
+            }
+            evict();
+        } finally {
+            indexLock.unlock();
+        }
+    }
+
+    private static String modelOf(byte[] body) {
+        try {
+            JsonNode model = mapper.readTree(body).path("model");
+            return model.isTextual() ? model.asText() : "";
+        } catch (IOException e) {
+            return "";
+        }
+    }
+
+    private static String key(String model, String target, byte[] body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((model + "\n" + target + "\n").getBytes(StandardCharsets.UTF_8));
+            digest.update(body);
+            return HexFormat.of().formatHex(digest.digest()).substring(0, 32);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Same host written with or without a trailing slash.
+    private static String normalizeHost(String host) {
+        String trimmed = host.trim();
+        while (trimmed.endsWith("/")) {
+            trimmed = trimmed.substring(0, trimmed.length() - 1);
+        }
+        return trimmed;
+    }
+
+    private static String value(List<String> args, String shortFlag, String longFlag) {
+        for (int i = 0; i + 1 < args.size(); i++) {
+            if (args.get(i).equals(shortFlag) || args.get(i).equals(longFlag)) {
+                return args.get(i + 1);
+            }
+        }
+        return null;
+    }
+
+    private Path entryFile(String key) {
+        return directory.resolve(key + ".json");
+    }
+
+    private Path bodyFile(String key) {
+        return directory.resolve(key + ".body");
+    }
+
+    private static List<Path> listFiles(Path dir) {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(dir)) {
+            return files;
+        }
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+            for (Path entry : entries) {
+                if (Files.isRegularFile(entry)) {
+                    files.add(entry);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("[LLM Proxy] Could not list " + dir + ": " + e.getMessage());
+        }
+        return files;
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.err.println("[LLM Proxy] Could not delete " + file + ": " + e.getMessage());
+        }
+    }
+}
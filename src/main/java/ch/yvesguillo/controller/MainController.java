@@ -1,10 +1,20 @@
 package ch.yvesguillo.controller;
 
+import java.awt.Component;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import javax.swing.*;
+import javax.swing.filechooser.FileNameExtensionFilter;
 
+import ch.yvesguillo.model.CrawlJob;
 import ch.yvesguillo.view.MainWindow;
+import ch.yvesguillo.view.ProfilesDialog;
+import ch.yvesguillo.view.ResultViewerDialog;
+import ch.yvesguillo.view.RunHistoryDialog;
 
 /**
  * Singleton controller class responsible for handling user actions 
@@ -19,6 +29,15 @@ public class MainController {
     // Reference to the main view
     private static MainWindow view;
 
+    // Active watch mode session (null when not watching) and its debounce window.
+    private WatchSession watchSession;
+    private long watchDebounceMillis = WatchSession.DEFAULT_DEBOUNCE_MILLIS;
+    // Watch session being prepared (inputs checked in the background), if any.
+    private CompletableFuture<WatchSession> watchStart;
+
+    // Token budget last used to chunk a digest.
+    private int chunkTokenBudget = DigestChunker.DEFAULT_TOKEN_BUDGET;
+
     /**
      * Private constructor to enforce singleton pattern.
      *
@@ -78,11 +97,160 @@ public class MainController {
 
     /**
      * Handles the "Run Crawlect" button click.
-     * Delegates the task of building CLI args, validation, execution, and result display.
+     * Delegates the task of building CLI args, validation, pre-scan, execution, and result display.
+     * The run itself happens in the background; the Run button is disabled until it completes.
      */
     public void runnRequest() {
         System.out.println("[Control] Scan requested");
-        CrawlectRunner.runCrawlectCommand(view.inputMap, view.storedValues, view);
+        // Also while the inputs are checked in the background: no second run meanwhile.
+        view.setRunning(true);
+        CompletableFuture<Void> run = CrawlectRunner.runCrawlectCommand(view.inputMap, view.storedValues, view, view.getConsole(), view.getStatusBar());
+        run.whenComplete((result, error) -> SwingUtilities.invokeLater(() -> view.setRunning(false)));
+    }
+
+    /**
+     * Handles the "Add to queue" button click.
+     * Builds and validates the CLI args (in the background), and queues the run behind the pending jobs.
+     */
+    public void enqueueRequest() {
+        System.out.println("[Control] Queued scan requested");
+        CrawlectRunner.enqueueCrawlectCommand(view.inputMap, view.storedValues, view, view.getConsole());
+    }
+
+    /**
+     * Handles the "Watch" toggle: starts or stops re-running Crawlect on every change of the target tree.
+     *
+     * @param enabled true to start watching.
+     */
+    public void watchToggleRequest(boolean enabled) {
+        if (enabled) {
+            System.out.println("[Control] Watch mode requested");
+            CompletableFuture<WatchSession> start = CrawlectRunner.startWatch(view.inputMap, view.storedValues, view, view.getConsole(), view.getStatusBar(), watchDebounceMillis);
+            watchStart = start;
+            // Completed on the EDT.
+            start.thenAccept(session -> {
+                if (watchStart != start) {
+                    // Toggled off while the inputs were checked.
+                    if (session != null) {
+                        session.stop();
+                    }
+                    return;
+                }
+                watchStart = null;
+                if (session == null) {
+                    // Not started (invalid input or cancelled by user).
+                    view.setWatching(false);
+                } else {
+                    watchSession = session;
+                }
+            });
+        } else if (watchSession != null || watchStart != null) {
+            watchStart = null;
+            System.out.println("[Control] Watch mode stopped");
+            if (watchSession != null) {
+                watchSession.stop();
+                watchSession = null;
+            }
+            view.getStatusBar().showIdle("Ready");
+        }
+    }
+
+    /**
+     * Asks for the watch mode debounce window (applies to the next watch session).
+     */
+    public void watchDebounceRequest() {
+        JSpinner spinner = new JSpinner(new SpinnerNumberModel((int) watchDebounceMillis, 0, 60_000, 250));
+        int choice = JOptionPane.showConfirmDialog(view, new Object[]{"Quiet time before re-running after changes (ms):", spinner},
+                "Watch Debounce", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        if (choice == JOptionPane.OK_OPTION) {
+            watchDebounceMillis = ((Number) spinner.getValue()).longValue();
+            System.out.println("[Control] Watch debounce set to " + watchDebounceMillis + " ms");
+        }
+    }
+
+    /**
+     * Asks for the run timeouts (apply to the runs started afterwards).
+     */
+    public void runTimeoutsRequest() {
+        JSpinner timeoutSpinner = new JSpinner(new SpinnerNumberModel((int) (RunControl.getDefaultTimeoutMillis() / 60_000), 0, 24 * 60, 1));
+        JSpinner idleSpinner = new JSpinner(new SpinnerNumberModel((int) (RunControl.getDefaultIdleTimeoutMillis() / 1000), 0, 24 * 3600, 10));
+        int choice = JOptionPane.showConfirmDialog(view, new Object[]{
+                        "Stop a run after (minutes, 0 = never):", timeoutSpinner,
+                        "Stop a run without output for (seconds, 0 = never):", idleSpinner},
+                "Run Timeouts", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        if (choice == JOptionPane.OK_OPTION) {
+            long timeoutMillis = ((Number) timeoutSpinner.getValue()).longValue() * 60_000;
+            long idleMillis = ((Number) idleSpinner.getValue()).longValue() * 1000;
+            RunControl.setDefaultTimeouts(timeoutMillis, idleMillis);
+            System.out.println("[Control] Run timeouts set to " + timeoutMillis + " ms (wall), " + idleMillis + " ms (idle)");
+        }
+    }
+
+    /**
+     * Asks how many parallel Crawlect processes a large tree is split into (applies to the runs started afterwards).
+     */
+    public void splitRunsRequest() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        JSpinner spinner = new JSpinner(new SpinnerNumberModel(SplitCrawl.getParallelRuns(), 1, Math.max(16, cores), 1));
+        int choice = JOptionPane.showConfirmDialog(view, new Object[]{
+                        "Crawl large trees as parallel runs of their subtrees (1 = never split):", spinner},
+                "Split Large Trees", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        if (choice == JOptionPane.OK_OPTION) {
+            SplitCrawl.setParallelRuns(((Number) spinner.getValue()).intValue());
+            System.out.println("[Control] Split runs set to " + SplitCrawl.getParallelRuns());
+        }
+    }
+
+    /**
+     * Cancels a queued or running job.
+     *
+     * @param job the job to cancel.
+     */
+    public void cancelJobRequest(CrawlJob job) {
+        System.out.println("[Control] Cancel requested for job #" + job.getId());
+        JobScheduler.lazyGetInstance().cancel(job);
+    }
+
+    /**
+     * Opens the output file of a job in the result viewer.
+     *
+     * @param job the job.
+     */
+    public void viewOutputRequest(CrawlJob job) {
+        Path output = job.getOutputFile();
+        if (output == null || !Files.isRegularFile(output)) {
+            JOptionPane.showMessageDialog(view, "Job #" + job.getId() + " has no output file to show.", "Output Viewer", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        System.out.println("[Control] Viewing output of job #" + job.getId() + ": " + output);
+        ResultViewerDialog.open(view, output);
+    }
+
+    /**
+     * Moves a queued job sooner or later in the queue.
+     *
+     * @param job the queued job.
+     * @param offset negative to run it sooner, positive to run it later.
+     */
+    public void moveJobRequest(CrawlJob job, int offset) {
+        JobScheduler.lazyGetInstance().move(job, offset);
+    }
+
+    /**
+     * Removes the finished jobs from the queue view.
+     */
+    public void clearFinishedJobsRequest() {
+        JobScheduler.lazyGetInstance().clearFinished();
+    }
+
+    /**
+     * Changes the maximum number of parallel Crawlect runs.
+     *
+     * @param concurrency new limit.
+     */
+    public void concurrencyChangeRequest(int concurrency) {
+        System.out.println("[Control] Parallel runs set to " + concurrency);
+        JobScheduler.lazyGetInstance().setConcurrency(concurrency);
     }
 
     /**
@@ -126,4 +294,271 @@ public class MainController {
             field.setText(chooser.getSelectedFile().getAbsolutePath());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Enables or disables the warm Crawlect worker process.
+     *
+     * @param enabled true to run Crawlect in a long-lived worker.
+     */
+    public void warmWorkerToggleRequest(boolean enabled) {
+        System.out.println("[Control] Warm worker " + (enabled ? "enabled" : "disabled"));
+        CrawlectWorker.setEnabled(enabled);
+    }
+
+    /**
+     * Enables or disables reusing the results of unchanged crawls.
+     *
+     * @param enabled true to serve unchanged crawls from the result cache.
+     */
+    public void resultCacheToggleRequest(boolean enabled) {
+        System.out.println("[Control] Result cache " + (enabled ? "enabled" : "disabled"));
+        ResultCache.setEnabled(enabled);
+    }
+
+    /**
+     * Deletes all cached results.
+     */
+    public void clearResultCacheRequest() {
+        System.out.println("[Control] Result cache clearing requested");
+        int count = ResultCache.lazyGetInstance().clear();
+        JOptionPane.showMessageDialog(view, count + " cached result(s) deleted.", "Result Cache", JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    /**
+     * Asks whether LLM calls should go through the caching proxy, and in front of which host.
+     * Applies to the runs started afterwards.
+     */
+    public void llmProxyRequest() {
+        LlmProxy running = LlmProxy.getRunning();
+        JCheckBox enabledBox = new JCheckBox("Cache LLM answers through a local proxy", running != null);
+        JTextField hostField = new JTextField(running != null ? running.getUpstream().toString() : LlmProxy.DEFAULT_UPSTREAM, 28);
+        long maxBytes = running != null ? running.getMaxCacheBytes() : LlmProxy.DEFAULT_MAX_CACHE_BYTES;
+        JSpinner sizeSpinner = new JSpinner(new SpinnerNumberModel((int) (maxBytes >> 20), 1, 64 * 1024, 64));
+        String status = running == null ? "Not running." : String.format("Listening on %s: %,d cached answers (%,d KB).",
+                running.getAddress(), running.getCachedCount(), running.getCachedBytes() >> 10);
+        int choice = JOptionPane.showConfirmDialog(view, new Object[]{
+                        enabledBox,
+                        "LLM host to cache (Ollama runs using it go through the proxy):", hostField,
+                        "Cache size (MB):", sizeSpinner,
+                        status},
+                "LLM Cache Proxy", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        if (choice != JOptionPane.OK_OPTION) {
+            return;
+        }
+        if (!enabledBox.isSelected()) {
+            System.out.println("[Control] LLM cache proxy disabled");
+            LlmProxy.stop();
+            return;
+        }
+        try {
+            LlmProxy proxy = LlmProxy.start(hostField.getText(), ((Number) sizeSpinner.getValue()).longValue() << 20);
+            System.out.println("[Control] LLM cache proxy enabled for " + proxy.getUpstream());
+        } catch (IOException | IllegalArgumentException e) {
+            JOptionPane.showMessageDialog(view, "Could not start the LLM cache proxy:\n" + e.getMessage(), "LLM Cache Proxy", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    /**
+     * Deletes all cached LLM answers.
+     */
+    public void clearLlmCacheRequest() {
+        System.out.println("[Control] LLM cache clearing requested");
+        int count = LlmProxy.clear();
+        JOptionPane.showMessageDialog(view, count + " cached LLM answer(s) deleted.", "LLM Cache Proxy", JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    /**
+     * Saves a JSON snapshot of the run pipeline metrics to a file chosen by the user.
+     */
+    public void exportMetricsRequest() {
+        System.out.println("[Control] Metrics export requested");
+
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new File("crawlect-gui-metrics.json"));
+        if (chooser.showSaveDialog(view) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        try {
+            Metrics.writeSnapshot(chooser.getSelectedFile().toPath());
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(view, "Could not save the metrics:\n" + e.getMessage(), "Metrics", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    /**
+     * Splits the output file of a job into chunks for LLMs.
+     *
+     * @param job the job.
+     */
+    public void chunkOutputRequest(CrawlJob job) {
+        Path output = job.getOutputFile();
+        if (output == null || !Files.isRegularFile(output)) {
+            JOptionPane.showMessageDialog(view, "Job #" + job.getId() + " has no output file to chunk.", "Chunk for LLMs", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        chunkDigest(output);
+    }
+
+    /**
+     * Asks for a digest file and splits it into chunks for LLMs.
+     */
+    public void chunkDigestRequest() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileFilter(new FileNameExtensionFilter("Markdown digests", "md", "markdown", "txt"));
+        if (chooser.showOpenDialog(view) == JFileChooser.APPROVE_OPTION) {
+            chunkDigest(chooser.getSelectedFile().toPath());
+        }
+    }
+
+    /**
+     * Asks for the token budget, then splits a digest in the background and reports the chunks written.
+     *
+     * @param digest digest file.
+     */
+    private void chunkDigest(Path digest) {
+        JSpinner spinner = new JSpinner(new SpinnerNumberModel(chunkTokenBudget, DigestChunker.MIN_TOKEN_BUDGET, 10_000_000, 1000));
+        int choice = JOptionPane.showConfirmDialog(view, new Object[]{
+                        "Split " + digest.getFileName() + " into chunks of at most (estimated tokens):", spinner},
+                "Chunk for LLMs", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        if (choice != JOptionPane.OK_OPTION) {
+            return;
+        }
+        chunkTokenBudget = ((Number) spinner.getValue()).intValue();
+        System.out.println("[Control] Chunking " + digest + " by " + chunkTokenBudget + " tokens");
+
+        int budget = chunkTokenBudget;
+        Thread.ofVirtual().name("crawlect-chunker").start(() -> {
+            try {
+                DigestChunker.Result result = DigestChunker.split(digest, budget);
+                SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(view,
+                        result.chunks().size() + " chunk(s), about " + String.format("%,d", result.tokens()) + " tokens in all, written to:\n"
+                                + result.directory() + "\n(see " + DigestChunker.MANIFEST + ")",
+                        "Chunk for LLMs", JOptionPane.INFORMATION_MESSAGE));
+            } catch (IOException e) {
+                SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(view, "Could not chunk the digest:\n" + e.getMessage(),
+                        "Chunk for LLMs", JOptionPane.ERROR_MESSAGE));
+            }
+        });
+    }
+
+    /**
+     * Opens the run history dialog.
+     */
+    public void runHistoryRequest() {
+        new RunHistoryDialog(view).setVisible(true);
+    }
+
+    /**
+     * Opens the profiles dialog.
+     */
+    public void profilesRequest() {
+        new ProfilesDialog(view).setVisible(true);
+    }
+
+    /**
+     * Applies a saved profile to the options.
+     *
+     * @param parent parent component for error dialogs.
+     * @param name profile name.
+     * @return true if the profile was applied.
+     */
+    public boolean loadProfileRequest(Component parent, String name) {
+        try {
+            Map<String, Object> values = ProfileStore.lazyGetInstance().load(name);
+            if (values == null) {
+                return false;
+            }
+            view.applyValues(UserSettings.toOptionValues(values));
+            System.out.println("[Control] Profile loaded: " + name);
+            return true;
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(parent, "Could not load profile '" + name + "': " + e.getMessage(), "Profiles", JOptionPane.ERROR_MESSAGE);
+            return false;
+        }
+    }
+
+    /**
+     * Asks for a name and saves the current options as a profile.
+     *
+     * @param parent parent component for the dialogs.
+     * @param suggestion initial name (may be null).
+     * @return the saved profile name, or null if nothing was saved.
+     */
+    public String saveProfileRequest(Component parent, String suggestion) {
+        String name = askProfileName(parent, "Save the current options as profile:", suggestion);
+        if (name == null) {
+            return null;
+        }
+        try {
+            ProfileStore.lazyGetInstance().save(name, UserSettings.toSimpleValues(view.storedValues));
+            System.out.println("[Control] Profile saved: " + name);
+            return name;
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(parent, "Could not save profile '" + name + "': " + e.getMessage(), "Profiles", JOptionPane.ERROR_MESSAGE);
+            return null;
+        }
+    }
+
+    /**
+     * Asks for a name and copies a profile under it.
+     *
+     * @param parent parent component for the dialogs.
+     * @param source profile to copy.
+     * @return the new profile name, or null if nothing was copied.
+     */
+    public String cloneProfileRequest(Component parent, String source) {
+        String name = askProfileName(parent, "Copy profile '" + source + "' as:", source + " (copy)");
+        if (name == null) {
+            return null;
+        }
+        try {
+            return ProfileStore.lazyGetInstance().copy(source, name) ? name : null;
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(parent, "Could not copy profile '" + source + "': " + e.getMessage(), "Profiles", JOptionPane.ERROR_MESSAGE);
+            return null;
+        }
+    }
+
+    /**
+     * Deletes a profile after confirmation.
+     *
+     * @param parent parent component for the dialogs.
+     * @param name profile name.
+     * @return true if the profile was deleted.
+     */
+    public boolean deleteProfileRequest(Component parent, String name) {
+        int choice = JOptionPane.showConfirmDialog(parent, "Delete profile '" + name + "'?", "Profiles", JOptionPane.OK_CANCEL_OPTION, JOptionPane.WARNING_MESSAGE);
+        if (choice != JOptionPane.OK_OPTION) {
+            return false;
+        }
+        try {
+            return ProfileStore.lazyGetInstance().delete(name);
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(parent, "Could not delete profile '" + name + "': " + e.getMessage(), "Profiles", JOptionPane.ERROR_MESSAGE);
+            return false;
+        }
+    }
+
+    /**
+     * Asks for a profile name, confirming before an existing profile is replaced.
+     *
+     * @param parent parent component for the dialogs.
+     * @param message prompt.
+     * @param suggestion initial name (may be null).
+     * @return the name, or null if the user cancelled.
+     */
+    private String askProfileName(Component parent, String message, String suggestion) {
+        Object input = JOptionPane.showInputDialog(parent, message, "Profiles", JOptionPane.PLAIN_MESSAGE, null, null, suggestion);
+        String name = (input != null) ? input.toString().strip() : "";
+        if (name.isEmpty()) {
+            return null;
+        }
+        if (ProfileStore.lazyGetInstance().contains(name)) {
+            int choice = JOptionPane.showConfirmDialog(parent, "Profile '" + name + "' exists. Replace it?", "Profiles", JOptionPane.OK_CANCEL_OPTION, JOptionPane.WARNING_MESSAGE);
+            if (choice != JOptionPane.OK_OPTION) {
+                return null;
+            }
+        }
+        return name;
+    }
+}
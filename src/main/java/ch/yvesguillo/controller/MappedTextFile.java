@@ -0,0 +1,418 @@
+package ch.yvesguillo.controller;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Read-only, memory-mapped view of a (possibly huge) UTF-8 text file, addressed by line.
+ *
+ * The file is mapped in segments of up to 1 GB, so its content never enters the heap.
+ * Line offsets are indexed by a background pass ({@link #index(BooleanSupplier)}), sparsely:
+ * only the start of every {@value #CHECKPOINT_INTERVAL}th line is recorded, any other line is
+ * reached by scanning forward from the previous checkpoint. Lines are readable as soon as they are indexed.
+ *
+ * The file must not be truncated while mapped; Crawlect-GUI always replaces output files rather than rewriting them.
+ * {@link #close()} stops the indexing pass and any search, and waits for them before unmapping.
+ */
+public final class MappedTextFile implements AutoCloseable {
+
+    // One line start recorded every this many lines.
+    private static final int CHECKPOINT_INTERVAL = 64;
+
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+    private static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    /** Longest line prefix decoded for display, in bytes. */
+    public static final int MAX_LINE_BYTES = 16 * 1024;
+
+    /**
+     * Location of a search match.
+     *
+     * @param offset byte offset of the match in the file.
+     * @param line zero-based line number.
+     * @param column character column in the line.
+     * @param length match length in characters.
+     */
+    public record Match(long offset, long line, int column, int length) {
+    }
+
+    private final Path path;
+    private final long size;
+    private MappedByteBuffer[] segments;
+
+    // Read-held by the indexing pass and searches (which run together), write-held by close() so it never unmaps under them.
+    private final ReentrantReadWriteLock passLock = new ReentrantReadWriteLock();
+    private volatile boolean closing = false;
+
+    // Written by the indexing pass only; the array is published before the count that covers it.
+    private volatile long[] checkpoints = new long[1024];
+    private volatile int checkpointCount = 1;
+    private volatile long indexedLines = 0;
+    private volatile long indexedBytes = 0;
+    private volatile boolean indexed = false;
+
+    /**
+     * Maps a file (indexing starts with {@link #index(BooleanSupplier)}).
+     *
+     * @param path text file.
+     * @throws IOException if the file cannot be opened or mapped.
+     */
+    public MappedTextFile(Path path) throws IOException {
+        this.path = path;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            this.size = channel.size();
+            int count = (int) ((size + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT);
+            segments = new MappedByteBuffer[count];
+            for (int i = 0; i < count; i++) {
+                long start = (long) i << SEGMENT_SHIFT;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_SIZE, size - start));
+            }
+        }
+        // Line 0 starts at offset 0.
+        checkpoints[0] = 0;
+    }
+
+    /**
+     * Returns the mapped file.
+     *
+     * @return file path.
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Returns the file size.
+     *
+     * @return size in bytes.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Indexes the line starts. Blocks until the whole file is indexed; lines become readable as the pass advances.
+     *
+     * @param cancelled polled during the pass; true stops it.
+     * @throws CancellationException if the pass was cancelled.
+     */
+    public void index(BooleanSupplier cancelled) {
+        BooleanSupplier stop = () -> closing || cancelled.getAsBoolean();
+        passLock.readLock().lock();
+        try {
+            indexSegments(stop);
+        } finally {
+            passLock.readLock().unlock();
+        }
+    }
+
+    private void indexSegments(BooleanSupplier stop) {
+        if (stop.getAsBoolean()) {
+            throw new CancellationException("Indexing cancelled.");
+        }
+        long lines = 0;
+        long[] marks = checkpoints;
+        int count = checkpointCount;
+        for (int s = 0; s < segments.length; s++) {
+            MappedByteBuffer segment = segments[s];
+            long base = (long) s << SEGMENT_SHIFT;
+            int limit = segment.limit();
+            for (int i = 0; i < limit; i++) {
+                // Also polled every MB: a file without line breaks has no checkpoints.
+                if ((i & 0xFFFFF) == 0 && stop.getAsBoolean()) {
+                    throw new CancellationException("Indexing cancelled.");
+                }
+                if (segment.get(i) != '\n') {
+                    continue;
+                }
+                lines++;
+                if (lines % CHECKPOINT_INTERVAL == 0) {
+                    if (count == marks.length) {
+                        marks = Arrays.copyOf(marks, count * 2);
+                        checkpoints = marks;
+                    }
+                    marks[count] = base + i + 1;
+                    checkpointCount = ++count;
+                    indexedLines = lines;
+                    indexedBytes = base + i + 1;
+                    if (stop.getAsBoolean()) {
+                        throw new CancellationException("Indexing cancelled.");
+                    }
+                }
+            }
+        }
+        if (stop.getAsBoolean()) {
+            throw new CancellationException("Indexing cancelled.");
+        }
+        // A last line without a line break still counts.
+        boolean trailingLine = size > 0 && byteAt(size - 1) != '\n';
+        indexedLines = lines + (trailingLine ? 1 : 0);
+        indexedBytes = size;
+        indexed = true;
+    }
+
+    /**
+     * Tells whether the whole file has been indexed.
+     *
+     * @return true once indexing is complete.
+     */
+    public boolean isIndexed() {
+        return indexed;
+    }
+
+    /**
+     * Returns the number of lines indexed so far (all lines once {@link #isIndexed()}).
+     *
+     * @return readable line count.
+     */
+    public long getLineCount() {
+        return indexedLines;
+    }
+
+    /**
+     * Returns the indexing progress.
+     *
+     * @return fraction of the file indexed, between 0 and 1.
+     */
+    public double getIndexProgress() {
+        return (size == 0) ? 1 : indexedBytes / (double) size;
+    }
+
+    /**
+     * Returns the byte offset where a line starts.
+     *
+     * @param line zero-based line, within the indexed part.
+     * @return start offset.
+     */
+    public long getLineOffset(long line) {
+        return lineStart(Math.max(0, Math.min(line, Math.max(0, getLineCount() - 1))));
+    }
+
+    /**
+     * Reads consecutive lines (without line breaks). Lines longer than {@link #MAX_LINE_BYTES} are cut.
+     *
+     * @param first zero-based first line.
+     * @param count maximum number of lines.
+     * @return the lines, fewer if the end of the indexed part is reached.
+     */
+    public List<String> readLines(long first, int count) {
+        List<String> lines = new ArrayList<>(count);
+        long available = Math.min(count, getLineCount() - first);
+        if (first < 0 || available <= 0) {
+            return lines;
+        }
+        long offset = lineStart(first);
+        for (long i = 0; i < available && offset < size; i++) {
+            long end = lineEnd(offset);
+            lines.add(decode(offset, end));
+            offset = end + 1;
+        }
+        return lines;
+    }
+
+    /**
+     * Searches for a text, starting at a byte offset and wrapping around the file once.
+     * Case-insensitive matching folds ASCII letters only.
+     *
+     * @param text text to find (not empty).
+     * @param from byte offset to start from (a match starting there is included when searching forward).
+     * @param forward true to search towards the end of the file.
+     * @param matchCase false to ignore the case of ASCII letters.
+     * @param cancelled polled during the search; true stops it.
+     * @return the match, or null if the text does not occur in the indexed part of the file.
+     * @throws CancellationException if the search was cancelled.
+     */
+    public Match find(String text, long from, boolean forward, boolean matchCase, BooleanSupplier cancelled) {
+        BooleanSupplier stop = () -> closing || cancelled.getAsBoolean();
+        passLock.readLock().lock();
+        try {
+            if (stop.getAsBoolean()) {
+                throw new CancellationException("Search cancelled.");
+            }
+            return search(text, from, forward, matchCase, stop);
+        } finally {
+            passLock.readLock().unlock();
+        }
+    }
+
+    private Match search(String text, long from, boolean forward, boolean matchCase, BooleanSupplier cancelled) {
+        byte[] pattern = text.getBytes(StandardCharsets.UTF_8);
+        if (!matchCase) {
+            foldAscii(pattern);
+        }
+        long limit = indexedBytes;
+        if (pattern.length == 0 || limit < pattern.length) {
+            return null;
+        }
+        long last = limit - pattern.length;
+        long start = Math.max(0, Math.min(from, last));
+
+        long offset = forward ? scanForward(pattern, start, last, matchCase, cancelled) : scanBackward(pattern, start, 0, matchCase, cancelled);
+        if (offset < 0) {
+            // Wrap around.
+            offset = forward ? scanForward(pattern, 0, start - 1, matchCase, cancelled) : scanBackward(pattern, last, start + 1, matchCase, cancelled);
+        }
+        if (offset < 0) {
+            return null;
+        }
+
+        long line = lineOf(offset);
+        long lineStart = lineStart(line);
+        int column = decode(lineStart, offset).length();
+        return new Match(offset, line, column, text.length());
+    }
+
+    /**
+     * Unmaps the file (the mapping is actually released once garbage collected).
+     * Cancels the indexing pass and any search first, and waits for them to stop.
+     */
+    @Override
+    public void close() {
+        closing = true;
+        passLock.writeLock().lock();
+        try {
+            segments = new MappedByteBuffer[0];
+        } finally {
+            passLock.writeLock().unlock();
+        }
+    }
+
+    private long scanForward(byte[] pattern, long from, long to, boolean matchCase, BooleanSupplier cancelled) {
+        byte first = pattern[0];
+        for (long offset = from; offset <= to; offset++) {
+            if ((offset & 0xFFFFF) == 0 && cancelled.getAsBoolean()) {
+                throw new CancellationException("Search cancelled.");
+            }
+            if (fold(byteAt(offset), matchCase) == first && matchesAt(pattern, offset, matchCase)) {
+                return offset;
+            }
+        }
+        return -1;
+    }
+
+    private long scanBackward(byte[] pattern, long from, long to, boolean matchCase, BooleanSupplier cancelled) {
+        byte first = pattern[0];
+        for (long offset = from; offset >= to; offset--) {
+            if ((offset & 0xFFFFF) == 0 && cancelled.getAsBoolean()) {
+                throw new CancellationException("Search cancelled.");
+            }
+            if (fold(byteAt(offset), matchCase) == first && matchesAt(pattern, offset, matchCase)) {
+                return offset;
+            }
+        }
+        return -1;
+    }
+
+    private boolean matchesAt(byte[] pattern, long offset, boolean matchCase) {
+        for (int i = 1; i < pattern.length; i++) {
+            if (fold(byteAt(offset + i), matchCase) != pattern[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte fold(byte value, boolean matchCase) {
+        return (!matchCase && value >= 'A' && value <= 'Z') ? (byte) (value + ('a' - 'A')) : value;
+    }
+
+    private static void foldAscii(byte[] bytes) {
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = fold(bytes[i], false);
+        }
+    }
+
+    private byte byteAt(long offset) {
+        return segments[(int) (offset >>> SEGMENT_SHIFT)].get((int) (offset & SEGMENT_MASK));
+    }
+
+    /**
+     * Returns the byte offset where a line starts: its checkpoint, then a forward scan.
+     *
+     * @param line zero-based line, within the indexed part.
+     * @return start offset.
+     */
+    private long lineStart(long line) {
+        long offset = checkpoints[(int) (line / CHECKPOINT_INTERVAL)];
+        for (long remaining = line % CHECKPOINT_INTERVAL; remaining > 0; remaining--) {
+            offset = lineEnd(offset) + 1;
+        }
+        return offset;
+    }
+
+    /**
+     * Returns the offset of the line break ending the line starting at the given offset.
+     *
+     * @param start line start offset.
+     * @return offset of the '\n', or the file size for the last line.
+     */
+    private long lineEnd(long start) {
+        long offset = start;
+        while (offset < size && byteAt(offset) != '\n') {
+            offset++;
+        }
+        return offset;
+    }
+
+    /**
+     * Returns the line holding a byte offset: binary search of the checkpoints, then a forward scan.
+     *
+     * @param offset byte offset within the indexed part.
+     * @return zero-based line.
+     */
+    private long lineOf(long offset) {
+        long[] marks = checkpoints;
+        int low = 0;
+        int high = checkpointCount - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (marks[middle] <= offset) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        long line = (long) low * CHECKPOINT_INTERVAL;
+        for (long position = marks[low]; position < offset; position++) {
+            if (byteAt(position) == '\n') {
+                line++;
+            }
+        }
+        return line;
+    }
+
+    /**
+     * Decodes a byte range as UTF-8, without the trailing '\r' and cut at {@link #MAX_LINE_BYTES}.
+     *
+     * @param start first byte.
+     * @param end byte after the last one.
+     * @return decoded text.
+     */
+    private String decode(long start, long end) {
+        if (end > start && byteAt(end - 1) == '\r') {
+            end--;
+        }
+        int length = (int) Math.min(end - start, MAX_LINE_BYTES);
+        byte[] bytes = new byte[length];
+        int segment = (int) (start >>> SEGMENT_SHIFT);
+        if (length > 0 && segment == (int) ((start + length - 1) >>> SEGMENT_SHIFT)) {
+            segments[segment].get((int) (start & SEGMENT_MASK), bytes);
+        } else {
+            for (int i = 0; i < length; i++) {
+                bytes[i] = byteAt(start + i);
+            }
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
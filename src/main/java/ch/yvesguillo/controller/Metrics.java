@@ -0,0 +1,488 @@
+package ch.yvesguillo.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Utility class holding the named counters, timers and histograms of the run pipeline
+ * (interpreter discovery, schema, settings, argument building, pre-run checks, process spawn, output, run time).
+ *
+ * Recording is lock-free and cheap enough for hot paths. Metrics are readable as a JSON snapshot,
+ * and as JMX MXBeans under the {@value #DOMAIN} domain once {@link #publish()} has been called
+ * (kept off the startup path: the platform MBean server is slow to create).
+ */
+public final class Metrics {
+
+    private static final String DOMAIN = "ch.yvesguillo.crawlect";
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    // All metrics, by name. Guarded by the class monitor (metrics are created once, then cached by their users).
+    private static final Map<String, Metric> registry = new TreeMap<>();
+    private static MBeanServer server = null;
+
+    // Private constructor to prevent instantiation.
+    private Metrics() {
+        throw new UnsupportedOperationException("Metrics is an utility class");
+    }
+
+    /**
+     * JMX view of a counter.
+     */
+    public interface CounterMXBean {
+        long getCount();
+
+        void reset();
+    }
+
+    /**
+     * JMX view of a histogram or timer. Percentiles are approximate (within about 6%).
+     */
+    public interface HistogramMXBean {
+        String getUnit();
+
+        long getCount();
+
+        double getMean();
+
+        double getMin();
+
+        double getMax();
+
+        double get50thPercentile();
+
+        double get95thPercentile();
+
+        double get99thPercentile();
+
+        void reset();
+    }
+
+    /**
+     * JMX view of the whole registry.
+     */
+    public interface RegistryMXBean {
+        String getSnapshotJson() throws IOException;
+
+        void reset();
+    }
+
+    /**
+     * Common part of all metrics.
+     */
+    private sealed interface Metric permits Counter, Histogram {
+        String type();
+
+        Class<?> mxBeanInterface();
+
+        Map<String, Object> snapshot();
+
+        void reset();
+    }
+
+    /**
+     * Monotonic event count.
+     */
+    public static final class Counter implements Metric, CounterMXBean {
+
+        private final LongAdder count = new LongAdder();
+
+        private Counter() {
+        }
+
+        /**
+         * Counts one event.
+         */
+        public void increment() {
+            count.increment();
+        }
+
+        /**
+         * Counts some events.
+         *
+         * @param events number of events.
+         */
+        public void add(long events) {
+            count.add(events);
+        }
+
+        @Override
+        public long getCount() {
+            return count.sum();
+        }
+
+        @Override
+        public void reset() {
+            count.reset();
+        }
+
+        @Override
+        public String type() {
+            return "Counter";
+        }
+
+        @Override
+        public Class<?> mxBeanInterface() {
+            return CounterMXBean.class;
+        }
+
+        @Override
+        public Map<String, Object> snapshot() {
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("type", type());
+            snapshot.put("count", getCount());
+            return snapshot;
+        }
+    }
+
+    /**
+     * Distribution of non-negative values, in log-linear buckets: 8 exact buckets for 0 to 7,
+     * then 8 sub-buckets per power of two, so any percentile is off by at most 1/16 of the value.
+     */
+    public static sealed class Histogram implements Metric, HistogramMXBean permits Timer {
+
+        private static final int SUB_BUCKET_BITS = 3;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private static final int BUCKETS = (63 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+        private final String unit;
+        // Raw values are divided by this for display (e.g. nanoseconds shown as milliseconds).
+        private final double scale;
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+        private final LongAccumulator max = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+        private Histogram(String unit, double scale) {
+            this.unit = unit;
+            this.scale = scale;
+        }
+
+        /**
+         * Records one value (negative values count as 0).
+         *
+         * @param value raw value.
+         */
+        public void record(long value) {
+            long clamped = Math.max(0, value);
+            buckets.incrementAndGet(bucket(clamped));
+            count.increment();
+            sum.add(clamped);
+            min.accumulate(clamped);
+            max.accumulate(clamped);
+        }
+
+        private static int bucket(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+            return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+        }
+
+        private static long lowerBound(int bucket) {
+            if (bucket < SUB_BUCKETS) {
+                return bucket;
+            }
+            int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+            return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+        }
+
+        /**
+         * Returns an approximate percentile: the middle of the bucket holding it, within the observed range.
+         *
+         * @param quantile between 0 and 1.
+         * @return scaled value, or 0 if nothing was recorded.
+         */
+        public double getPercentile(double quantile) {
+            long total = count.sum();
+            if (total == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(quantile * total));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) {
+                    long low = lowerBound(i);
+                    long high = (i + 1 < BUCKETS) ? lowerBound(i + 1) : Long.MAX_VALUE;
+                    long middle = low + (high - low) / 2;
+                    return Math.min(Math.max(middle, min.get()), max.get()) / scale;
+                }
+            }
+            return max.get() / scale;
+        }
+
+        @Override
+        public String getUnit() {
+            return unit;
+        }
+
+        @Override
+        public long getCount() {
+            return count.sum();
+        }
+
+        @Override
+        public double getMean() {
+            long total = count.sum();
+            return (total == 0) ? 0 : sum.sum() / (double) total / scale;
+        }
+
+        @Override
+        public double getMin() {
+            return (count.sum() == 0) ? 0 : min.get() / scale;
+        }
+
+        @Override
+        public double getMax() {
+            return (count.sum() == 0) ? 0 : max.get() / scale;
+        }
+
+        @Override
+        public double get50thPercentile() {
+            return getPercentile(0.50);
+        }
+
+        @Override
+        public double get95thPercentile() {
+            return getPercentile(0.95);
+        }
+
+        @Override
+        public double get99thPercentile() {
+            return getPercentile(0.99);
+        }
+
+        @Override
+        public void reset() {
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets.set(i, 0);
+            }
+            count.reset();
+            sum.reset();
+            min.reset();
+            max.reset();
+        }
+
+        @Override
+        public String type() {
+            return "Histogram";
+        }
+
+        @Override
+        public Class<?> mxBeanInterface() {
+            return HistogramMXBean.class;
+        }
+
+        @Override
+        public Map<String, Object> snapshot() {
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("type", type());
+            snapshot.put("unit", unit);
+            snapshot.put("count", getCount());
+            snapshot.put("mean", getMean());
+            snapshot.put("min", getMin());
+            snapshot.put("max", getMax());
+            snapshot.put("p50", get50thPercentile());
+            snapshot.put("p95", get95thPercentile());
+            snapshot.put("p99", get99thPercentile());
+            return snapshot;
+        }
+    }
+
+    /**
+     * Histogram of durations, recorded in nanoseconds and reported in milliseconds.
+     */
+    public static final class Timer extends Histogram {
+
+        private Timer() {
+            super("ms", 1_000_000.0);
+        }
+
+        /**
+         * Returns a start timestamp for {@link #stop(long)}.
+         *
+         * @return {@link System#nanoTime()}.
+         */
+        public long start() {
+            return System.nanoTime();
+        }
+
+        /**
+         * Records the time elapsed since a start timestamp.
+         *
+         * @param startNanos value returned by {@link #start()}.
+         */
+        public void stop(long startNanos) {
+            record(System.nanoTime() - startNanos);
+        }
+
+        /**
+         * Runs some work and records its duration, whether it completes or throws.
+         *
+         * @param work timed work.
+         * @param <T> result type.
+         * @return the work result.
+         * @throws Exception whatever the work throws.
+         */
+        public <T> T time(Callable<T> work) throws Exception {
+            long start = start();
+            try {
+                return work.call();
+            } finally {
+                stop(start);
+            }
+        }
+
+        @Override
+        public String type() {
+            return "Timer";
+        }
+    }
+
+    /**
+     * Returns the counter with the given name, creating it if needed.
+     *
+     * @param name dotted metric name.
+     * @return the counter.
+     * @throws IllegalStateException if the name is used by a metric of another type.
+     */
+    public static Counter counter(String name) {
+        return get(name, Counter.class, Counter::new);
+    }
+
+    /**
+     * Returns the histogram with the given name, creating it if needed.
+     *
+     * @param name dotted metric name.
+     * @param unit unit of the recorded values (for display).
+     * @return the histogram.
+     * @throws IllegalStateException if the name is used by a metric of another type.
+     */
+    public static Histogram histogram(String name, String unit) {
+        return get(name, Histogram.class, () -> new Histogram(unit, 1));
+    }
+
+    /**
+     * Returns the timer with the given name, creating it if needed.
+     *
+     * @param name dotted metric name.
+     * @return the timer.
+     * @throws IllegalStateException if the name is used by a metric of another type.
+     */
+    public static Timer timer(String name) {
+        return get(name, Timer.class, Timer::new);
+    }
+
+    private static synchronized <M extends Metric> M get(String name, Class<M> type, Supplier<M> factory) {
+        Metric existing = registry.get(name);
+        if (existing == null) {
+            M created = factory.get();
+            registry.put(name, created);
+            register(name, created);
+            return created;
+        }
+        if (existing.getClass() != type) {
+            throw new IllegalStateException("Metric " + name + " is a " + existing.type() + ", not a " + type.getSimpleName());
+        }
+        return type.cast(existing);
+    }
+
+    /**
+     * Registers the registry and every metric (present and future) with the platform MBean server,
+     * for JConsole or VisualVM. Registration failures are logged only. Safe to call more than once.
+     */
+    public static synchronized void publish() {
+        if (server != null) {
+            return;
+        }
+        server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(new StandardMBean(new RegistryMXBean() {
+                @Override
+                public String getSnapshotJson() throws IOException {
+                    return Metrics.getSnapshotJson();
+                }
+
+                @Override
+                public void reset() {
+                    Metrics.reset();
+                }
+            }, RegistryMXBean.class, true), new ObjectName(DOMAIN + ":type=Metrics"));
+        } catch (JMException e) {
+            System.err.println("[Metrics] Could not register the registry MBean: " + e.getMessage());
+        }
+        registry.forEach(Metrics::register);
+        System.out.println("[Metrics] Published " + registry.size() + " metric(s) to JMX under " + DOMAIN);
+    }
+
+    private static void register(String name, Metric metric) {
+        if (server == null) {
+            return;
+        }
+        try {
+            ObjectName objectName = new ObjectName(DOMAIN + ":type=" + metric.type() + ",name=" + ObjectName.quote(name));
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            StandardMBean mbean = new StandardMBean(metric, (Class) metric.mxBeanInterface(), true);
+            server.registerMBean(mbean, objectName);
+        } catch (JMException e) {
+            System.err.println("[Metrics] Could not register " + name + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the current values of all metrics.
+     *
+     * @return metric snapshots by name, sorted by name.
+     */
+    public static synchronized Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        registry.forEach((name, metric) -> snapshot.put(name, metric.snapshot()));
+        return snapshot;
+    }
+
+    /**
+     * Returns the current values of all metrics as pretty-printed JSON.
+     *
+     * @return JSON object of metric snapshots by name.
+     * @throws IOException if serialization fails.
+     */
+    public static String getSnapshotJson() throws IOException {
+        return mapper.writerWithDefaultPrettyPrinter().writeValueAsString(snapshot());
+    }
+
+    /**
+     * Writes the current values of all metrics to a JSON file.
+     *
+     * @param file target file (replaced).
+     * @throws IOException if the file cannot be written.
+     */
+    public static void writeSnapshot(Path file) throws IOException {
+        mapper.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), snapshot());
+    }
+
+    /**
+     * Resets all metrics to zero.
+     */
+    public static synchronized void reset() {
+        registry.values().forEach(Metric::reset);
+    }
+}
@@ -0,0 +1,256 @@
+package ch.yvesguillo.controller;
+
+import ch.yvesguillo.model.CliOption;
+
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Checks the value of one CLI option, compiled once from its schema entry: {@code type}, {@code choices},
+ * {@code guitype} and {@code default}.
+ *
+ * {@link #check(Object)} is cheap and never touches the file system. {@link #probe(String, PathProbe)} checks
+ * the paths of folder and file options through the (cached, time-bounded) {@link PathProbe}.
+ * Free of any Swing dependency, so it is shared by the GUI and the headless batch mode.
+ */
+public final class OptionValidator {
+
+    // Required by the GUI whatever the schema says: a run without them is meaningless.
+    private static final Set<String> MANDATORY_FLAGS = Set.of("--path", "--output");
+
+    private static final Map<CliOption, OptionValidator> compiled = new ConcurrentHashMap<>();
+
+    private enum Kind { BOOLEAN, CHOICE, INTEGER, DECIMAL, FOLDER, OUTPUT_FILE, TEXT }
+
+    /**
+     * Severity of a verdict.
+     */
+    public enum Level { OK, WARNING, ERROR }
+
+    /**
+     * Outcome of a check.
+     *
+     * @param level severity.
+     * @param message what is wrong (null when OK).
+     */
+    public record Verdict(Level level, String message) {
+
+        public static final Verdict OK = new Verdict(Level.OK, null);
+
+        static Verdict error(String message) {
+            return new Verdict(Level.ERROR, message);
+        }
+
+        static Verdict warning(String message) {
+            return new Verdict(Level.WARNING, message);
+        }
+
+        /**
+         * Tells whether the value prevents a run.
+         *
+         * @return true for an error.
+         */
+        public boolean isError() {
+            return level == Level.ERROR;
+        }
+    }
+
+    private final CliOption option;
+    private final Kind kind;
+    private final boolean required;
+    private final Set<String> choices;
+    // A non-numeric default of a numeric option (e.g. "inf" for --depth): the value Crawlect uses when none is given.
+    private final String symbolicDefault;
+
+    // Private constructor: see of().
+    private OptionValidator(CliOption option) {
+        this.option = option;
+        this.kind = kindOf(option);
+        this.required = option.required || MANDATORY_FLAGS.contains(option.getPrimaryFlag());
+        this.choices = option.hasChoices ? new LinkedHashSet<>(option.choices) : Set.of();
+
+        String defaultValue = (option.defaultValue != null) ? option.defaultValue.trim() : "";
+        boolean numeric = kind == Kind.INTEGER || kind == Kind.DECIMAL;
+        this.symbolicDefault = (numeric && !defaultValue.isEmpty() && parse(defaultValue) == null) ? defaultValue : null;
+    }
+
+    /**
+     * Returns the validator of an option, compiling it on first use.
+     *
+     * @param option schema option.
+     * @return its validator.
+     */
+    public static OptionValidator of(CliOption option) {
+        OptionValidator validator = compiled.get(option);
+        // Equal options of another schema (Crawlect updated) may differ in type or choices.
+        if (validator == null || validator.option != option) {
+            validator = new OptionValidator(option);
+            compiled.put(option, validator);
+        }
+        return validator;
+    }
+
+    /**
+     * Checks the value itself: presence, number format and choices. Never touches the file system.
+     *
+     * @param value value as stored by the GUI (String, Boolean) or null.
+     * @return the verdict.
+     */
+    public Verdict check(Object value) {
+        if (kind == Kind.BOOLEAN) {
+            return Verdict.OK;
+        }
+        String text = textOf(value);
+        String flag = option.getPrimaryFlag();
+        if (text.isEmpty()) {
+            return required ? Verdict.error("The '" + flag + "' field is required.") : Verdict.OK;
+        }
+
+        switch (kind) {
+            case CHOICE -> {
+                if (!choices.contains(text)) {
+                    return Verdict.error("The '" + flag + "' field must be one of: " + String.join(", ", choices) + ".");
+                }
+            }
+            case INTEGER, DECIMAL -> {
+                if (isSymbolicDefault(text)) {
+                    return Verdict.OK;
+                }
+                if (parse(text) == null) {
+                    String expected = (kind == Kind.INTEGER) ? "a valid integer" : "a valid number";
+                    String or = (symbolicDefault != null) ? " (or '" + symbolicDefault + "')" : "";
+                    return Verdict.error("The '" + flag + "' field must be " + expected + or + ".");
+                }
+            }
+            case FOLDER, OUTPUT_FILE -> {
+                try {
+                    Path.of(text);
+                } catch (InvalidPathException e) {
+                    return Verdict.error("The '" + flag + "' field is not a valid path: " + e.getReason() + ".");
+                }
+            }
+            default -> {
+                // Free text.
+            }
+        }
+        return Verdict.OK;
+    }
+
+    /**
+     * Tells whether a value is the non-numeric default of a numeric option (e.g. {@code inf} for {@code --depth}),
+     * which Crawlect applies by itself but would not parse from the command line.
+     *
+     * @param value value as stored by the GUI.
+     * @return true if the value stands for the default.
+     */
+    public boolean isSymbolicDefault(Object value) {
+        return symbolicDefault != null && symbolicDefault.equalsIgnoreCase(textOf(value));
+    }
+
+    /**
+     * Tells whether {@link #probe(String, PathProbe)} has anything to check for this value.
+     *
+     * @param value value as stored by the GUI.
+     * @return true for a non-empty folder or output file path.
+     */
+    public boolean needsProbe(Object value) {
+        return (kind == Kind.FOLDER || kind == Kind.OUTPUT_FILE) && !textOf(value).isEmpty();
+    }
+
+    /**
+     * Checks the path of a folder or output file option on the file system.
+     * Should follow a successful {@link #check(Object)}.
+     *
+     * @param value path, as typed.
+     * @param probes cached, time-bounded file system probes.
+     * @return the verdict (a warning if the file system did not answer in time).
+     */
+    public Verdict probe(String value, PathProbe probes) {
+        Path path;
+        try {
+            path = Path.of(value.trim()).toAbsolutePath().normalize();
+        } catch (InvalidPathException e) {
+            return Verdict.error("The '" + option.getPrimaryFlag() + "' field is not a valid path: " + e.getReason() + ".");
+        }
+
+        if (kind == Kind.FOLDER) {
+            PathProbe.State state = probes.get(path);
+            if (state == null) {
+                return slow(path);
+            }
+            if (!state.exists() || !state.directory()) {
+                return Verdict.error("The path to scan does not exist or is not a directory:\n" + path);
+            }
+            return Verdict.OK;
+        }
+
+        if (kind == Kind.OUTPUT_FILE) {
+            Path parent = path.getParent();
+            if (parent != null) {
+                PathProbe.State parentState = probes.get(parent);
+                if (parentState == null) {
+                    return slow(parent);
+                }
+                if (!parentState.exists() || !parentState.directory() || !parentState.writable()) {
+                    return Verdict.error("Cannot write to the output directory:\n" + parent);
+                }
+            }
+            PathProbe.State state = probes.get(path);
+            if (state == null) {
+                return slow(path);
+            }
+            if (state.directory()) {
+                return Verdict.error("The output is a directory:\n" + path);
+            }
+            if (state.exists()) {
+                return Verdict.warning("The file already exists: you will be asked before it is replaced.");
+            }
+        }
+        return Verdict.OK;
+    }
+
+    private static Verdict slow(Path path) {
+        return Verdict.warning("Could not check " + path + " in time (slow or unreachable file system).");
+    }
+
+    private static Kind kindOf(CliOption option) {
+        if (option.isBoolean) {
+            return Kind.BOOLEAN;
+        }
+        if (option.hasChoices) {
+            return Kind.CHOICE;
+        }
+        String guitype = (option.getGuitype() != null) ? option.getGuitype() : "";
+        String flag = option.getPrimaryFlag();
+        // Schemas without GUI hints: the two path options Crawlect always had.
+        if (guitype.equals("folderpath") || (guitype.isEmpty() && flag.equals("--path"))) {
+            return Kind.FOLDER;
+        }
+        if (guitype.equals("filepath") || (guitype.isEmpty() && flag.equals("--output"))) {
+            return Kind.OUTPUT_FILE;
+        }
+        String type = (option.type != null) ? option.type.toLowerCase(Locale.ROOT) : "";
+        return switch (type) {
+            case "int" -> Kind.INTEGER;
+            case "float" -> Kind.DECIMAL;
+            default -> Kind.TEXT;
+        };
+    }
+
+    private Number parse(String text) {
+        try {
+            return (kind == Kind.INTEGER) ? (Number) Long.parseLong(text) : (Number) Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String textOf(Object value) {
+        return (value == null) ? "" : value.toString().trim();
+    }
+}
@@ -0,0 +1,336 @@
+package ch.yvesguillo.controller;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Bounded sink for process output.
+ *
+ * Keeps only the last lines in memory (ring buffer bounded by line count and characters)
+ * and spills the complete log to a temporary file through a {@link FileChannel}.
+ * The full log can then be paged through with {@link #readPage(int)} without ever holding it in heap.
+ *
+ * Call {@link #close()} once the log is no longer needed: it releases the channel and deletes the spill file.
+ * Spill files live in a per-process folder under {@code crawlect-gui-output} in the temporary directory;
+ * {@link #sweepSpillFiles()} removes the folders left behind by processes that are gone.
+ */
+public final class OutputCapture implements Consumer<String>, AutoCloseable {
+
+    /** Default number of lines kept in memory. */
+    public static final int DEFAULT_TAIL_LINES = 500;
+
+    /** Default number of characters kept in memory. */
+    public static final int DEFAULT_TAIL_CHARS = 64 * 1024;
+
+    /** Number of lines per page when browsing the spilled log. */
+    public static final int PAGE_LINES = 1000;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // One folder per process, so a sweep never touches the captures of a running instance.
+    private static final Path SPILL_ROOT = Path.of(System.getProperty("java.io.tmpdir"), "crawlect-gui-output");
+    private static final Path SPILL_DIRECTORY = SPILL_ROOT.resolve(Long.toString(ProcessHandle.current().pid()));
+
+    private final int maxTailLines;
+    private final int maxTailChars;
+    private final ArrayDeque<String> tail = new ArrayDeque<>();
+    private int tailChars = 0;
+    private boolean truncated = false;
+
+    // Guards the capture. Held while the spill file is written or read.
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Path spillFile;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    // Byte offset of the first line of each page.
+    private long[] pageOffsets = new long[16];
+    private int pageCount = 0;
+
+    private long lineCount = 0;
+    private long byteCount = 0;
+    private long spilledBytes = 0;
+    private boolean closed = false;
+
+    private OutputCapture(int maxTailLines, int maxTailChars) throws IOException {
+        this.maxTailLines = maxTailLines;
+        this.maxTailChars = maxTailChars;
+        Files.createDirectories(SPILL_DIRECTORY);
+        this.spillFile = Files.createTempFile(SPILL_DIRECTORY, "crawlect-output-", ".log");
+        this.channel = FileChannel.open(spillFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Creates a capture with the default in-memory bounds.
+     *
+     * @return a new empty capture.
+     * @throws IOException if the spill file cannot be created.
+     */
+    public static OutputCapture create() throws IOException {
+        return new OutputCapture(DEFAULT_TAIL_LINES, DEFAULT_TAIL_CHARS);
+    }
+
+    /**
+     * Creates a capture keeping at most the given amount of output in memory.
+     *
+     * @param maxTailLines maximum number of lines kept in memory.
+     * @param maxTailChars maximum number of characters kept in memory.
+     * @return a new empty capture.
+     * @throws IOException if the spill file cannot be created.
+     */
+    public static OutputCapture create(int maxTailLines, int maxTailChars) throws IOException {
+        if (maxTailLines < 1 || maxTailChars < 1) {
+            throw new IllegalArgumentException("Tail bounds must be positive.");
+        }
+        return new OutputCapture(maxTailLines, maxTailChars);
+    }
+
+    /**
+     * Appends a line to the capture (spill file and in-memory tail).
+     *
+     * @param line output line, without trailing line break.
+     */
+    @Override
+    public void accept(String line) {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+
+            if (lineCount % PAGE_LINES == 0) {
+                if (pageCount == pageOffsets.length) {
+                    pageOffsets = Arrays.copyOf(pageOffsets, pageCount * 2);
+                }
+                pageOffsets[pageCount++] = byteCount;
+            }
+            lineCount++;
+
+            try {
+                write((line + "\n").getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                System.err.println("[Run] Output spill failed: " + e.getMessage());
+            }
+
+            // Very long lines are truncated in memory only; the spill file keeps them whole.
+            String kept = line;
+            if (line.length() > maxTailChars) {
+                kept = line.substring(line.length() - maxTailChars);
+                truncated = true;
+            }
+            tail.addLast(kept);
+            tailChars += kept.length();
+            while (tail.size() > maxTailLines || (tailChars > maxTailChars && tail.size() > 1)) {
+                tailChars -= tail.removeFirst().length();
+                truncated = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void write(byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!buffer.hasRemaining()) {
+                drainBuffer();
+            }
+            int chunk = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, chunk);
+            offset += chunk;
+        }
+        byteCount += bytes.length;
+    }
+
+    private void drainBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            spilledBytes += channel.write(buffer, spilledBytes);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Returns the last captured lines (bounded), joined with line breaks.
+     *
+     * @return output tail.
+     */
+    public String getTail() {
+        lock.lock();
+        try {
+            StringBuilder builder = new StringBuilder(tailChars + tail.size());
+            for (String line : tail) {
+                builder.append(line).append('\n');
+            }
+            return builder.toString();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Tells whether older lines were dropped from the in-memory tail.
+     *
+     * @return true if {@link #getTail()} does not contain the whole output.
+     */
+    public boolean isTruncated() {
+        lock.lock();
+        try {
+            return truncated;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the total number of captured lines.
+     *
+     * @return line count.
+     */
+    public long getLineCount() {
+        lock.lock();
+        try {
+            return lineCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the total size of the captured output, in bytes (UTF-8).
+     *
+     * @return byte count.
+     */
+    public long getByteCount() {
+        lock.lock();
+        try {
+            return byteCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of pages of {@link #PAGE_LINES} lines available through {@link #readPage(int)}.
+     *
+     * @return page count.
+     */
+    public int getPageCount() {
+        lock.lock();
+        try {
+            return pageCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the location of the spill file holding the complete log.
+     *
+     * @return spill file path.
+     */
+    public Path getSpillFile() {
+        return spillFile;
+    }
+
+    /**
+     * Reads one page of the complete log from the spill file.
+     *
+     * @param page zero-based page index.
+     * @return page content.
+     * @throws IOException if the spill file cannot be read.
+     */
+    public String readPage(int page) throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IOException("Output capture has been closed.");
+            }
+            if (page < 0 || page >= pageCount) {
+                throw new IndexOutOfBoundsException("No such page: " + page);
+            }
+
+            // Make sure everything written so far is visible to the reader.
+            if (buffer.position() > 0) {
+                drainBuffer();
+            }
+
+            long start = pageOffsets[page];
+            long end = (page + 1 < pageCount) ? pageOffsets[page + 1] : byteCount;
+            ByteBuffer content = ByteBuffer.allocate(Math.toIntExact(end - start));
+            while (content.hasRemaining()) {
+                if (channel.read(content, start + content.position()) < 0) {
+                    break;
+                }
+            }
+            return new String(content.array(), 0, content.position(), StandardCharsets.UTF_8);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deletes the spill folders of processes that are no longer running (crashed or killed before {@link #close()}).
+     * Best effort: failures are logged and skipped.
+     */
+    public static void sweepSpillFiles() {
+        if (!Files.isDirectory(SPILL_ROOT)) {
+            return;
+        }
+        try (DirectoryStream<Path> folders = Files.newDirectoryStream(SPILL_ROOT)) {
+            for (Path folder : folders) {
+                long pid;
+                try {
+                    pid = Long.parseLong(folder.getFileName().toString());
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                if (ProcessHandle.of(pid).isPresent()) {
+                    continue;
+                }
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(folder)) {
+                    for (Path file : files) {
+                        Files.deleteIfExists(file);
+                    }
+                }
+                Files.deleteIfExists(folder);
+            }
+        } catch (IOException e) {
+            System.err.println("[Run] Could not sweep output spill files: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Releases the spill file.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            tail.clear();
+            try {
+                channel.close();
+                Files.deleteIfExists(spillFile);
+            } catch (IOException e) {
+                System.err.println("[Run] Could not delete output spill file: " + e.getMessage());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package ch.yvesguillo.controller;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Cached, time-bounded file system probes (existence, type, writability), for validating paths as they are typed.
+ *
+ * A probe runs on its own virtual thread and is awaited at most {@link #TIMEOUT_MILLIS}: a network mount that
+ * hangs makes the answer unknown instead of blocking the caller. The probe keeps running meanwhile, and later
+ * requests for the same path share it instead of piling up more blocked calls. Answers are reused for
+ * {@link #TTL_MILLIS}.
+ */
+public final class PathProbe {
+
+    public static final long TIMEOUT_MILLIS = 1500;
+    public static final long TTL_MILLIS = 3000;
+
+    // Answers beyond this count are dropped once stale.
+    private static final int MAX_ENTRIES = 256;
+
+    private static final Metrics.Counter TIMEOUTS = Metrics.counter("validation.probe.timeouts");
+
+    /**
+     * What a probe found.
+     *
+     * @param exists the path exists.
+     * @param directory it is a directory.
+     * @param writable it can be written to.
+     */
+    public record State(boolean exists, boolean directory, boolean writable) {
+    }
+
+    private record Cached(CompletableFuture<State> state, long probedAt) {
+
+        boolean isFresh(long now) {
+            return !state.isDone() || now - probedAt < TTL_MILLIS;
+        }
+    }
+
+    private final Map<Path, Cached> cache = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Returns the state of a path, probing it unless a fresh answer (or a probe in progress) exists.
+     *
+     * @param path absolute path.
+     * @return its state, or null if the file system did not answer in time.
+     */
+    public State get(Path path) {
+        long now = System.currentTimeMillis();
+        Cached cached = cache.compute(path, (key, previous) -> (previous != null && previous.isFresh(now))
+                ? previous
+                : new Cached(CompletableFuture.supplyAsync(() -> probe(key), executor), now));
+        if (cache.size() > MAX_ENTRIES) {
+            cache.values().removeIf(entry -> !entry.isFresh(now));
+        }
+
+        try {
+            return cached.state().get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            TIMEOUTS.increment();
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            // Denied access and the like: as good as missing.
+            return new State(false, false, false);
+        }
+    }
+
+    /**
+     * Forgets the answer for a path, after the application created or deleted it.
+     *
+     * @param path absolute path.
+     */
+    public void invalidate(Path path) {
+        cache.remove(path);
+    }
+
+    private static State probe(Path path) {
+        boolean exists = Files.exists(path);
+        return new State(exists, exists && Files.isDirectory(path), exists && Files.isWritable(path));
+    }
+}
@@ -0,0 +1,368 @@
+package ch.yvesguillo.controller;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Parallel pre-scan of the tree Crawlect is about to crawl.
+ *
+ * Each directory is listed by its own fork-join task, so large trees are walked on all cores.
+ * Honors {@code --recur}, {@code --depth} and the ignore files Crawlect applies (see {@link IgnoreMatcher}),
+ * does not follow symbolic links (neither does Crawlect), and can be cancelled from any thread. Running counters are readable while the scan is in progress.
+ */
+public final class PathScanner {
+
+    // Number of top-level directories reported as the largest.
+    private static final int LARGEST_COUNT = 5;
+
+    // Listing directories blocks on I/O: a bit more parallelism than cores keeps the disk busy.
+    private static final ForkJoinPool POOL = new ForkJoinPool(Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+
+    /**
+     * Size of one top-level directory.
+     *
+     * @param path directory path.
+     * @param bytes total size of the files it holds (within the scanned depth).
+     */
+    public record DirectorySize(Path path, long bytes) {
+    }
+
+    /**
+     * Totals of one directory, recorded when {@link #recordDirectories()} was called.
+     *
+     * @param bytes total size of the files in its subtree (within the scanned depth).
+     * @param files number of files directly in it.
+     */
+    public record DirectoryTotals(long bytes, long files) {
+    }
+
+    /**
+     * Scan totals.
+     *
+     * @param files number of regular files.
+     * @param directories number of directories walked (including the root).
+     * @param bytes total size of the files.
+     * @param ignored number of files and directories skipped by the ignore rules (contents of ignored directories excluded).
+     * @param unreadable number of directories that could not be listed.
+     * @param largest largest top-level directories, biggest first.
+     * @param millis scan wall-clock time.
+     */
+    public record Result(long files, long directories, long bytes, long ignored, long unreadable, List<DirectorySize> largest, long millis) {
+
+        /**
+         * Returns a one-line human-readable summary.
+         *
+         * @return summary text.
+         */
+        public String describe() {
+            StringBuilder text = new StringBuilder();
+            text.append(String.format("%,d files, %s in %,d directories (%d ms)", files, formatBytes(bytes), directories, millis));
+            if (ignored > 0) {
+                text.append(String.format(", %,d entries ignored", ignored));
+            }
+            if (unreadable > 0) {
+                text.append(String.format(", %,d unreadable", unreadable));
+            }
+            if (!largest.isEmpty()) {
+                text.append("; largest:");
+                for (DirectorySize dir : largest) {
+                    text.append(' ').append(dir.path().getFileName()).append(" (").append(formatBytes(dir.bytes())).append(')');
+                }
+            }
+            return text.toString();
+        }
+    }
+
+    private final Path root;
+    private final boolean recursive;
+    private final int maxDepth;
+    private final boolean[] ignoreFiles;
+
+    private final LongAdder files = new LongAdder();
+    private final LongAdder directories = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder ignored = new LongAdder();
+    private final LongAdder unreadable = new LongAdder();
+    private final ConcurrentHashMap<Path, Long> topLevel = new ConcurrentHashMap<>();
+    private ConcurrentHashMap<Path, DirectoryTotals> directoryTotals = null;
+    private volatile boolean cancelled = false;
+
+    /**
+     * Constructs a scanner (the scan starts with {@link #scan()}).
+     *
+     * @param root directory to scan.
+     * @param recursive false to only count the files directly in the root.
+     * @param maxDepth maximum directory depth below the root ({@link Integer#MAX_VALUE} for no limit).
+     * @param crawlectIgnore true to apply {@code .crawlectignore}.
+     * @param gitIgnore true to apply {@code .gitignore}.
+     * @param dockerIgnore true to apply {@code .dockerignore}.
+     */
+    public PathScanner(Path root, boolean recursive, int maxDepth, boolean crawlectIgnore, boolean gitIgnore, boolean dockerIgnore) {
+        this.root = root;
+        this.recursive = recursive;
+        this.maxDepth = maxDepth;
+        this.ignoreFiles = new boolean[]{crawlectIgnore, gitIgnore, dockerIgnore};
+    }
+
+    /**
+     * Creates a scanner matching the given Crawlect arguments
+     * ({@code --path}, {@code --no-recur}, {@code --depth} and the {@code --no-*ig} switches).
+     *
+     * @param args Crawlect CLI arguments.
+     * @return the scanner, or null if the arguments have no path.
+     */
+    public static PathScanner fromArgs(List<String> args) {
+        String path = null;
+        boolean recursive = true;
+        int depth = Integer.MAX_VALUE;
+        // Crawlect applies all three ignore files by default.
+        boolean crawlectIgnore = !args.contains("--no-crawlig");
+        boolean gitIgnore = !args.contains("--no-gitig");
+        boolean dockerIgnore = !args.contains("--no-dockig");
+
+        for (int i = 0; i < args.size(); i++) {
+            String flag = args.get(i);
+            boolean hasValue = i + 1 < args.size();
+            if ((flag.equals("--path") || flag.equals("-p")) && hasValue) {
+                path = args.get(i + 1);
+            } else if ((flag.equals("--depth") || flag.equals("-d")) && hasValue) {
+                try {
+                    depth = Math.max(0, Integer.parseInt(args.get(i + 1).trim()));
+                } catch (NumberFormatException e) {
+                    // "inf" or invalid: no limit.
+                }
+            } else if (flag.equals("--no-recur")) {
+                recursive = false;
+            } else if (flag.equals("--recur")) {
+                recursive = true;
+            }
+        }
+
+        return (path != null) ? new PathScanner(Path.of(path), recursive, depth, crawlectIgnore, gitIgnore, dockerIgnore) : null;
+    }
+
+    /**
+     * Walks the tree. Blocks until done.
+     *
+     * @return scan totals.
+     * @throws CancellationException if {@link #cancel()} was called.
+     */
+    public Result scan() {
+        long start = System.nanoTime();
+
+        POOL.invoke(new DirectoryTask(root, new String[0], loadIgnoreMatcher()));
+
+        List<DirectorySize> largest = topLevel.entrySet().stream()
+                .map(entry -> new DirectorySize(entry.getKey(), entry.getValue()))
+                .sorted(Comparator.comparingLong(DirectorySize::bytes).reversed())
+                .limit(LARGEST_COUNT)
+                .toList();
+
+        return new Result(files.sum(), directories.sum(), bytes.sum(), ignored.sum(), unreadable.sum(), largest, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Makes the scan record the totals of every directory it walks (see {@link #getDirectoryTotals()}).
+     * Call before {@link #scan()}.
+     *
+     * @return this scanner.
+     */
+    public PathScanner recordDirectories() {
+        directoryTotals = new ConcurrentHashMap<>();
+        return this;
+    }
+
+    /**
+     * Returns the totals of every directory walked (root included), ignored directories excepted.
+     *
+     * @return totals by directory, or an empty map if {@link #recordDirectories()} was not called.
+     */
+    public Map<Path, DirectoryTotals> getDirectoryTotals() {
+        return (directoryTotals != null) ? directoryTotals : Map.of();
+    }
+
+    /**
+     * Stops the scan; {@link #scan()} then throws a {@link CancellationException}.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Returns the root of the scan.
+     *
+     * @return scanned directory.
+     */
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * Tells whether subdirectories are walked.
+     *
+     * @return false for {@code --no-recur}.
+     */
+    public boolean isRecursive() {
+        return recursive;
+    }
+
+    /**
+     * Returns the maximum directory depth below the root.
+     *
+     * @return depth limit ({@link Integer#MAX_VALUE} for no limit).
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Compiles the ignore files enabled for this scan.
+     *
+     * @return the matcher (empty if the ignore files cannot be read).
+     */
+    public IgnoreMatcher loadIgnoreMatcher() {
+        return loadIgnoreMatcher(root);
+    }
+
+    /**
+     * Compiles the ignore files enabled for this scan, as found in another directory
+     * (the rules Crawlect would apply if asked to crawl it).
+     *
+     * @param directory directory holding the ignore files.
+     * @return the matcher (empty if the ignore files cannot be read).
+     */
+    public IgnoreMatcher loadIgnoreMatcher(Path directory) {
+        try {
+            return IgnoreMatcher.load(directory, ignoreFiles[0], ignoreFiles[1], ignoreFiles[2]);
+        } catch (IOException e) {
+            System.err.println("[Scan] Could not read ignore files: " + e.getMessage());
+            return IgnoreMatcher.empty();
+        }
+    }
+
+    /**
+     * Returns the number of files found so far.
+     *
+     * @return running file count.
+     */
+    public long getFilesSoFar() {
+        return files.sum();
+    }
+
+    /**
+     * Returns the size of the files found so far.
+     *
+     * @return running byte count.
+     */
+    public long getBytesSoFar() {
+        return bytes.sum();
+    }
+
+    /**
+     * Formats a byte count with a binary unit (e.g. "12.3 MB").
+     *
+     * @param bytes byte count.
+     * @return formatted size.
+     */
+    public static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        String units = "KMGTPE";
+        int unit = (63 - Long.numberOfLeadingZeros(bytes)) / 10;
+        return String.format("%.1f %sB", bytes / (double) (1L << (unit * 10)), units.charAt(unit - 1));
+    }
+
+    /**
+     * Lists one directory, counting its files and forking one task per subdirectory.
+     * Returns the total size of the files in its subtree.
+     */
+    private final class DirectoryTask extends RecursiveTask<Long> {
+
+        private final Path dir;
+        // Path segments relative to the root; their count is the depth.
+        private final String[] segments;
+        private final IgnoreMatcher matcher;
+
+        DirectoryTask(Path dir, String[] segments, IgnoreMatcher matcher) {
+            this.dir = dir;
+            this.segments = segments;
+            this.matcher = matcher;
+        }
+
+        @Override
+        protected Long compute() {
+            if (cancelled) {
+                throw new CancellationException("Scan cancelled.");
+            }
+
+            long total = 0;
+            long ownFiles = 0;
+            int depth = segments.length;
+            List<DirectoryTask> subtasks = new ArrayList<>();
+            // Reused for each entry: this directory's segments plus the entry name.
+            String[] entrySegments = Arrays.copyOf(segments, depth + 1);
+
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                for (Path entry : entries) {
+                    BasicFileAttributes attributes;
+                    try {
+                        attributes = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    } catch (IOException e) {
+                        // Vanished or unreadable entry.
+                        continue;
+                    }
+                    if (!attributes.isDirectory() && !attributes.isRegularFile()) {
+                        continue;
+                    }
+                    entrySegments[depth] = entry.getFileName().toString();
+                    if (matcher.isEntryIgnored(entrySegments, depth + 1, attributes.isDirectory())) {
+                        ignored.increment();
+                        continue;
+                    }
+                    if (attributes.isDirectory()) {
+                        if (recursive && depth < maxDepth) {
+                            subtasks.add(new DirectoryTask(entry, entrySegments.clone(), matcher));
+                        }
+                    } else {
+                        files.increment();
+                        ownFiles++;
+                        bytes.add(attributes.size());
+                        total += attributes.size();
+                    }
+                }
+            } catch (IOException | DirectoryIteratorException e) {
+                unreadable.increment();
+            }
+            directories.increment();
+
+            invokeAll(subtasks);
+            for (DirectoryTask subtask : subtasks) {
+                long size = subtask.join();
+                total += size;
+                if (depth == 0) {
+                    topLevel.put(subtask.dir, size);
+                }
+            }
+            if (directoryTotals != null) {
+                directoryTotals.put(dir, new DirectoryTotals(total, ownFiles));
+            }
+            return total;
+        }
+    }
+}
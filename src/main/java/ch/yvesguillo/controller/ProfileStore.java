@@ -0,0 +1,404 @@
+package ch.yvesguillo.controller;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Singleton store of named run profiles: sets of option values (keyed by primary flag, as in the config file).
+ *
+ * All profiles live in one append-only JSON-lines file: each save appends a record, each deletion a tombstone,
+ * and the last record of a name wins. The first use of the store only indexes the names and the byte range of each
+ * live record (values are skipped by the streaming parser); a profile's values are read and parsed when it is loaded.
+ * The file is rewritten once it holds mostly dead records. Names are case-insensitive.
+ * Every write is forced to disk: a crash can at worst tear the last record, which is skipped when indexing,
+ * and the next record starts on a new line.
+ */
+public final class ProfileStore {
+
+    private static final String FILE_NAME = "profiles.jsonl";
+
+    // Rewrite the file once it holds more than this many records per live profile (plus some slack).
+    private static final int COMPACTION_RATIO = 2;
+    private static final int COMPACTION_SLACK = 256;
+
+    private static ProfileStore instance;
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * One line of the profiles file, (de)serialized by Jackson. The name comes first, so indexing can stop there.
+     */
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    @JsonPropertyOrder({"name", "deleted", "values"})
+    public static class Record {
+        public String name;
+        public boolean deleted;
+        public Map<String, Object> values;
+    }
+
+    /**
+     * Location of a live record in the file.
+     *
+     * @param offset first byte.
+     * @param length byte length, without the line break.
+     */
+    private record Slot(long offset, int length) {
+    }
+
+    private final Path file;
+    // Live profiles, sorted by name.
+    private final TreeMap<String, Slot> index = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    // Guards the index and the file. Held while the file is read or written.
+    private final ReentrantLock lock = new ReentrantLock();
+    private boolean indexed = false;
+    private long recordCount = 0;
+
+    // Private constructor to enforce singleton pattern.
+    private ProfileStore(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Lazily creates the singleton in the user config directory (the profiles file is indexed on first use).
+     *
+     * @return singleton instance of ProfileStore.
+     */
+    public static synchronized ProfileStore lazyGetInstance() {
+        if (instance == null) {
+            instance = new ProfileStore(UserSettings.getInstance().getConfigDirectory().toPath().resolve(FILE_NAME));
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the profile names.
+     *
+     * @return names, sorted case-insensitively.
+     */
+    public List<String> getNames() {
+        lock.lock();
+        try {
+            ensureIndexed();
+            return List.copyOf(index.keySet());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Tells whether a profile exists.
+     *
+     * @param name profile name (case-insensitive).
+     * @return true if it exists.
+     */
+    public boolean contains(String name) {
+        lock.lock();
+        try {
+            ensureIndexed();
+            return index.containsKey(name);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads the values of a profile.
+     *
+     * @param name profile name (case-insensitive).
+     * @return values keyed by primary flag, or null if no such profile exists.
+     * @throws IOException if the file cannot be read.
+     */
+    public Map<String, Object> load(String name) throws IOException {
+        lock.lock();
+        try {
+            ensureIndexed();
+            Slot slot = index.get(name);
+            if (slot == null) {
+                return null;
+            }
+            Record record = mapper.readValue(readSlot(slot), Record.class);
+            return (record.values != null) ? record.values : Map.of();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Saves a profile, replacing any profile with the same name.
+     *
+     * @param name profile name.
+     * @param values values keyed by primary flag.
+     * @throws IOException if the file cannot be written.
+     * @throws IllegalArgumentException if the name is blank.
+     */
+    public void save(String name, Map<String, Object> values) throws IOException {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("A profile needs a name.");
+        }
+        Record record = new Record();
+        record.name = name.strip();
+        record.values = values;
+
+        lock.lock();
+        try {
+            ensureIndexed();
+            Slot slot = append(record);
+            // Keep the latest spelling of the name.
+            index.remove(record.name);
+            index.put(record.name, slot);
+            compactIfNeeded();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Copies a profile under a new name.
+     *
+     * @param source existing profile name.
+     * @param target new profile name (replaced if it exists).
+     * @return false if the source profile does not exist.
+     * @throws IOException if the file cannot be read or written.
+     */
+    public boolean copy(String source, String target) throws IOException {
+        lock.lock();
+        try {
+            Map<String, Object> values = load(source);
+            if (values == null) {
+                return false;
+            }
+            save(target, values);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deletes a profile.
+     *
+     * @param name profile name (case-insensitive).
+     * @return false if no such profile exists.
+     * @throws IOException if the file cannot be written.
+     */
+    public boolean delete(String name) throws IOException {
+        lock.lock();
+        try {
+            ensureIndexed();
+            if (!index.containsKey(name)) {
+                return false;
+            }
+            Record record = new Record();
+            record.name = name;
+            record.deleted = true;
+            append(record);
+            index.remove(name);
+            compactIfNeeded();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Indexes the profiles file once. Must be called with the lock held.
+     */
+    private void ensureIndexed() {
+        if (indexed) {
+            return;
+        }
+        indexed = true;
+        try {
+            buildIndex();
+            System.out.println("[Profiles] Indexed " + index.size() + " profile(s) from: " + file);
+        } catch (IOException e) {
+            System.err.println("[Profiles] Could not read " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Scans the file once, reading only the name (and deletion mark) of each record.
+     * Unreadable lines, e.g. the last one of an interrupted write, are skipped.
+     *
+     * @throws IOException if the file exists but cannot be read.
+     */
+    private void buildIndex() throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] buffer = new byte[1 << 16];
+            ByteArrayOutputStream line = new ByteArrayOutputStream(1024);
+            long offset = 0;
+            long lineStart = 0;
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                int start = 0;
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] == '\n') {
+                        line.write(buffer, start, i - start);
+                        if (line.size() > 0) {
+                            indexLine(line.toByteArray(), lineStart);
+                        }
+                        line.reset();
+                        start = i + 1;
+                        lineStart = offset + i + 1;
+                    }
+                }
+                line.write(buffer, start, read - start);
+                offset += read;
+            }
+            if (line.size() > 0) {
+                indexLine(line.toByteArray(), lineStart);
+            }
+        } catch (NoSuchFileException e) {
+            // No profile saved yet.
+        }
+    }
+
+    private void indexLine(byte[] bytes, long offset) {
+        String name = null;
+        boolean deleted = false;
+        try (JsonParser parser = mapper.getFactory().createParser(bytes)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "name" -> name = parser.getValueAsString();
+                    case "deleted" -> deleted = value == JsonToken.VALUE_TRUE;
+                    // The values are only parsed when the profile is loaded.
+                    default -> parser.skipChildren();
+                }
+            }
+            if (parser.currentToken() != JsonToken.END_OBJECT) {
+                return;
+            }
+        } catch (IOException e) {
+            return;
+        }
+        if (name == null) {
+            return;
+        }
+        recordCount++;
+        index.remove(name);
+        if (!deleted) {
+            index.put(name, new Slot(offset, bytes.length));
+        }
+    }
+
+    /**
+     * Appends a record to the file, on a new line if the last one was torn, and forces it to disk.
+     * Must be called with the lock held.
+     *
+     * @param record record to write.
+     * @return where the record was written.
+     * @throws IOException if the file cannot be written.
+     */
+    private Slot append(Record record) throws IOException {
+        byte[] bytes = mapper.writeValueAsBytes(record);
+        Files.createDirectories(file.getParent());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long end = channel.size();
+            // Glued onto a torn line, the record would be lost at the next indexing.
+            boolean newLine = !endsWithLineBreak(channel, end);
+            ByteBuffer buffer = ByteBuffer.allocate(bytes.length + 2);
+            if (newLine) {
+                buffer.put((byte) '\n');
+            }
+            buffer.put(bytes).put((byte) '\n').flip();
+            long offset = end + (newLine ? 1 : 0);
+            while (buffer.hasRemaining()) {
+                end += channel.write(buffer, end);
+            }
+            channel.force(false);
+            recordCount++;
+            return new Slot(offset, bytes.length);
+        }
+    }
+
+    /**
+     * Tells whether a file is empty or ends with a line break.
+     *
+     * @param channel open file.
+     * @param size file size.
+     * @return false if the last line is unterminated (torn by a crash).
+     * @throws IOException if the file cannot be read.
+     */
+    private static boolean endsWithLineBreak(FileChannel channel, long size) throws IOException {
+        if (size == 0) {
+            return true;
+        }
+        ByteBuffer last = ByteBuffer.allocate(1);
+        return channel.read(last, size - 1) < 1 || last.get(0) == '\n';
+    }
+
+    private byte[] readSlot(Slot slot) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return readSlot(channel, slot);
+        }
+    }
+
+    private byte[] readSlot(FileChannel channel, Slot slot) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(slot.length());
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, slot.offset() + buffer.position()) < 0) {
+                throw new IOException("Profiles file truncated: " + file);
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Rewrites the file with the live records only (copied as raw bytes), once dead ones dominate.
+     * Must be called with the lock held.
+     *
+     * @throws IOException if the file cannot be rewritten.
+     */
+    private void compactIfNeeded() throws IOException {
+        if (recordCount <= (long) index.size() * COMPACTION_RATIO + COMPACTION_SLACK) {
+            return;
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Map<String, Slot> moved = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             FileChannel target = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream out = new BufferedOutputStream(Channels.newOutputStream(target));
+            long offset = 0;
+            for (Map.Entry<String, Slot> entry : index.entrySet()) {
+                byte[] bytes = readSlot(channel, entry.getValue());
+                out.write(bytes);
+                out.write('\n');
+                moved.put(entry.getKey(), new Slot(offset, bytes.length));
+                offset += bytes.length + 1;
+            }
+            out.flush();
+            // On disk before it replaces the file.
+            target.force(false);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        index.putAll(moved);
+        recordCount = index.size();
+        System.out.println("[Profiles] Compacted " + file + " to " + recordCount + " record(s)");
+    }
+}
@@ -0,0 +1,254 @@
+package ch.yvesguillo.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Utility class locating a Python interpreter able to import Crawlect.
+ *
+ * All candidates (common command names, active and local virtual environments, Python executables
+ * found on the {@code PATH}) are probed concurrently; the first one importing {@code crawlect} wins.
+ * The winner's absolute path and version are persisted, so later startups only check that this
+ * single file is unchanged instead of probing again.
+ */
+public final class PythonLocator {
+
+    private static final String CACHE_FILE_NAME = "interpreter.json";
+
+    // Seconds granted to all probes together.
+    private static final long PROBE_TIMEOUT_SECONDS = 30;
+
+    // Prefixes the probe answers, told apart from whatever importing Crawlect may print.
+    private static final String PROBE_MARKER = "crawlect-gui-probe:";
+
+    // Prints the absolute interpreter path and its version; fails if Crawlect is missing.
+    private static final String PROBE_SCRIPT =
+            "import sys,crawlect;print('" + PROBE_MARKER + "' + sys.executable);print('" + PROBE_MARKER + "%d.%d.%d' % sys.version_info[:3])";
+
+    // Matches python, python3, python3.12, python.exe...
+    private static final Pattern PYTHON_EXECUTABLE = Pattern.compile("python(3(\\.\\d+)?)?(\\.exe)?");
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * Located interpreter, also the persisted cache entry (de)serialized by Jackson.
+     */
+    public static class Interpreter {
+        public String path;
+        public String version;
+        public long size;
+        public long lastModified;
+    }
+
+    // Private constructor to prevent instantiation.
+    private PythonLocator() {
+        throw new UnsupportedOperationException("PythonLocator is an utility class");
+    }
+
+    /**
+     * Returns the persisted interpreter if it is unchanged, otherwise probes all candidates.
+     *
+     * @param cacheDir directory holding the cache file (may be null: no persistence).
+     * @return the located interpreter.
+     * @throws RuntimeException if no interpreter can import Crawlect.
+     */
+    public static Interpreter locate(File cacheDir) throws Exception {
+        File cacheFile = (cacheDir != null) ? new File(cacheDir, CACHE_FILE_NAME) : null;
+
+        Interpreter cached = read(cacheFile);
+        if (cached != null) {
+            System.out.println("[Run] Python is: " + cached.path + " (" + cached.version + ", cached)");
+            return cached;
+        }
+
+        Interpreter found = probeAll(candidates());
+        stamp(found);
+        System.out.println("[Run] Python is: " + found.path + " (" + found.version + ")");
+
+        if (cacheFile != null) {
+            try {
+                mapper.writeValue(cacheFile, found);
+            } catch (IOException e) {
+                System.err.println("[Run] Could not persist interpreter: " + e.getMessage());
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Deletes the persisted interpreter, forcing a new discovery on next {@link #locate(File)}.
+     *
+     * @param cacheDir directory holding the cache file (may be null).
+     */
+    public static void forget(File cacheDir) {
+        if (cacheDir != null && new File(cacheDir, CACHE_FILE_NAME).delete()) {
+            System.out.println("[Run] Forgot cached Python interpreter");
+        }
+    }
+
+    /**
+     * Reads the persisted interpreter and checks the file is unchanged since it was probed.
+     *
+     * @param cacheFile cache file (may be null).
+     * @return the cached interpreter, or null if missing or stale.
+     */
+    private static Interpreter read(File cacheFile) {
+        if (cacheFile == null || !cacheFile.exists()) {
+            return null;
+        }
+        try {
+            Interpreter cached = mapper.readValue(cacheFile, Interpreter.class);
+            Path path = Path.of(cached.path);
+            if (!Files.isExecutable(path)) {
+                return null;
+            }
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            if (attributes.size() != cached.size || attributes.lastModifiedTime().toMillis() != cached.lastModified) {
+                return null;
+            }
+            return cached;
+        } catch (Exception e) {
+            System.err.println("[Run] Ignoring cached interpreter: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Lists the interpreter candidates: command names, virtual environments and {@code PATH} entries.
+     *
+     * @return distinct candidate commands or paths.
+     */
+    private static List<String> candidates() {
+        Set<String> candidates = new LinkedHashSet<>(List.of("py", "python", "python3"));
+
+        // Active and local virtual environments.
+        List<String> environments = new ArrayList<>();
+        for (String variable : List.of("VIRTUAL_ENV", "CONDA_PREFIX")) {
+            String value = System.getenv(variable);
+            if (value != null && !value.isBlank()) {
+                environments.add(value);
+            }
+        }
+        String workDir = System.getProperty("user.dir");
+        environments.add(new File(workDir, ".venv").getPath());
+        environments.add(new File(workDir, "venv").getPath());
+
+        for (String environment : environments) {
+            for (String relative : List.of("bin/python", "bin/python3", "Scripts/python.exe", "python.exe")) {
+                File executable = new File(environment, relative);
+                if (executable.canExecute()) {
+                    candidates.add(executable.getAbsolutePath());
+                }
+            }
+        }
+
+        // Python executables found on the PATH.
+        String pathVariable = System.getenv("PATH");
+        if (pathVariable != null) {
+            for (String directory : pathVariable.split(File.pathSeparator)) {
+                if (directory.isBlank()) continue;
+                Path dir = Path.of(directory);
+                if (!Files.isDirectory(dir)) continue;
+                try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                    for (Path entry : entries) {
+                        String name = entry.getFileName().toString().toLowerCase();
+                        if (PYTHON_EXECUTABLE.matcher(name).matches() && Files.isExecutable(entry)) {
+                            candidates.add(entry.toAbsolutePath().toString());
+                        }
+                    }
+                } catch (IOException | SecurityException e) {
+                    // Unreadable PATH entry: skip it.
+                }
+            }
+        }
+
+        return new ArrayList<>(candidates);
+    }
+
+    /**
+     * Probes all candidates concurrently and returns the first one able to import Crawlect.
+     *
+     * @param candidates commands or paths to probe.
+     * @return the winning interpreter.
+     * @throws RuntimeException if none succeeds.
+     */
+    private static Interpreter probeAll(List<String> candidates) throws Exception {
+        Queue<Process> processes = new ConcurrentLinkedQueue<>();
+        List<Callable<Interpreter>> probes = new ArrayList<>();
+        for (String candidate : candidates) {
+            probes.add(() -> probe(candidate, processes));
+        }
+
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            return executor.invokeAny(probes, PROBE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new RuntimeException("Could not locate a Python interpreter with Crawlect installed. Make sure it is installed and accessible.", e);
+        } finally {
+            // Losing probes may still be blocked reading their output: kill them rather than wait.
+            processes.forEach(Process::destroy);
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Checks that a candidate can import Crawlect.
+     *
+     * @param candidate command or path.
+     * @param processes registry of started probe processes.
+     * @return the interpreter (absolute path and version).
+     * @throws Exception if the candidate cannot be run, cannot import Crawlect or reports no interpreter file.
+     */
+    private static Interpreter probe(String candidate, Queue<Process> processes) throws Exception {
+        // Warnings on stderr (deprecations, site packages...) must not be taken for the answers.
+        Process process = new ProcessBuilder(candidate, "-c", PROBE_SCRIPT).redirectError(ProcessBuilder.Redirect.DISCARD).start();
+        processes.add(process);
+        try {
+            String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            List<String> lines = output.lines()
+                    .filter(line -> line.startsWith(PROBE_MARKER))
+                    .map(line -> line.substring(PROBE_MARKER.length()).trim())
+                    .toList();
+            if (process.waitFor() != 0 || lines.size() < 2 || lines.get(0).isEmpty() || !Files.isRegularFile(Path.of(lines.get(0)))) {
+                throw new IllegalStateException("Python is not " + candidate);
+            }
+
+            Interpreter interpreter = new Interpreter();
+            interpreter.path = lines.get(0);
+            interpreter.version = lines.get(1);
+            return interpreter;
+        } finally {
+            process.destroy();
+        }
+    }
+
+    /**
+     * Records the size and modification time of the interpreter file, used to validate the cache.
+     *
+     * @param interpreter located interpreter.
+     * @throws IOException if the file cannot be read.
+     */
+    private static void stamp(Interpreter interpreter) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(Path.of(interpreter.path), BasicFileAttributes.class);
+        interpreter.size = attributes.size();
+        interpreter.lastModified = attributes.lastModifiedTime().toMillis();
+    }
+}
@@ -1,54 +1,73 @@
 package ch.yvesguillo.controller;
 
 import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 /**
  * Utility class for executing Python-related tasks,
  * such as locating the Python executable, running the Crawlect CLI,
  * and fetching the CLI schema in JSON format.
  *
- * Automatically caches the first valid Python command detected.
+ * Automatically caches the Python interpreter located by {@link PythonLocator}.
  */
 public final class PythonRunner {
 
     private static String pythonCommand = null;
 
+    // Guards pythonCommand. Held during discovery, which runs the candidate interpreters.
+    private static final ReentrantLock lock = new ReentrantLock();
+
+    private static final Metrics.Timer LOCATE_TIMER = Metrics.timer("python.locate");
+
     // Private constructor to prevent instantiation.
     private PythonRunner() {
         throw new UnsupportedOperationException("PythonRunner is an utility class");
     }
 
     /**
-     * Returns the path or command name of the first working Python interpreter.
+     * Returns the absolute path of the Python interpreter able to run Crawlect.
+     * Discovery is delegated to {@link PythonLocator}, which persists its result in the config directory.
      *
-     * @return the working Python command (e.g., "python3").
+     * @return the working Python interpreter path.
      * @throws RuntimeException if no Python interpreter is found.
      */
     public static String getPythonCommand() throws Exception {
-        if (pythonCommand != null) {
+        lock.lock();
+        try {
+            if (pythonCommand == null) {
+                pythonCommand = LOCATE_TIMER.time(() -> PythonLocator.locate(configDirectory())).path;
+            }
             return pythonCommand;
+        } finally {
+            lock.unlock();
         }
+    }
 
-        List<String> candidates = Arrays.asList("py", "python", "python3");
-
-        for (String cmd : candidates) {
-            try {
-                Process process = new ProcessBuilder(cmd, "--version").start();
-                if (process.waitFor() == 0) {
-                    pythonCommand = cmd;
-                    System.out.println("[Run] Python is: " + cmd);
-                    return cmd;
-                }
-            } catch (Exception e) {
-                System.out.println("[Run] Python is not " + cmd);
-            }
+    /**
+     * Forgets the current interpreter (in memory and on disk), e.g. after it stopped working.
+     */
+    public static void invalidatePythonCommand() {
+        lock.lock();
+        try {
+            pythonCommand = null;
+            PythonLocator.forget(configDirectory());
+        } finally {
+            lock.unlock();
         }
+    }
 
-        throw new RuntimeException("Could not locate Python. Make sure it is installed and accessible.");
+    /**
+     * Returns the directory where the interpreter is persisted, if user settings are available.
+     *
+     * @return config directory or null.
+     */
+    private static File configDirectory() {
+        return UserSettings.isInitialized() ? UserSettings.getInstance().getConfigDirectory() : null;
     }
 
     /**
@@ -58,8 +77,20 @@ public final class PythonRunner {
      * @throws RuntimeException if Crawlect is not installed or execution fails.
      */
     public static String getCliSchemaJson() throws Exception {
+        try {
+            return fetchCliSchemaJson();
+        } catch (Exception e) {
+            // The persisted interpreter may have lost Crawlect: probe again once.
+            System.err.println("[Run] Schema fetch failed, locating Python again: " + e.getMessage());
+            invalidatePythonCommand();
+            return fetchCliSchemaJson();
+        }
+    }
+
+    private static String fetchCliSchemaJson() throws Exception {
         Process process = new ProcessBuilder(getPythonCommand(), "-m", "crawlect", "-clischem").start();
-        String output = readProcessOutput(process);
+        // The schema is small and needed whole: read it at once.
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
 
         if (process.waitFor() == 0 && !output.isBlank()) {
             return output;
@@ -69,20 +100,53 @@ public final class PythonRunner {
     }
 
     /**
-     * Reads the full stdout of a process and returns it as a String.
+     * Reads the full stdout of a process into a bounded {@link OutputCapture}.
      *
      * @param process the running process.
-     * @return process output as a String.
+     * @return the capture holding the output tail and the spilled full log.
      * @throws Exception if an I/O error occurs.
      */
-    public static String readProcessOutput(Process process) throws Exception {
-        StringBuilder output = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+    public static OutputCapture readProcessOutput(Process process) throws Exception {
+        return readProcessOutput(process, null);
+    }
+
+    /**
+     * Reads the full stdout of a process into a bounded {@link OutputCapture},
+     * forwarding each line to a listener as soon as it is read.
+     *
+     * @param process the running process.
+     * @param lineListener receives every output line (may be null).
+     * @return the capture holding the output tail and the spilled full log.
+     * @throws Exception if an I/O error occurs.
+     */
+    public static OutputCapture readProcessOutput(Process process, Consumer<String> lineListener) throws Exception {
+        OutputCapture capture = OutputCapture.create();
+        try {
+            readProcessOutput(process.getInputStream(), capture, lineListener);
+        } catch (Exception e) {
+            capture.close();
+            throw e;
+        }
+        return capture;
+    }
+
+    /**
+     * Reads a process output stream line by line into the given capture.
+     *
+     * @param stream the process output stream (closed when fully read).
+     * @param capture sink receiving every line.
+     * @param lineListener also receives every line (may be null).
+     * @throws Exception if an I/O error occurs.
+     */
+    public static void readProcessOutput(InputStream stream, OutputCapture capture, Consumer<String> lineListener) throws Exception {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream))) {
             String line;
             while ((line = reader.readLine()) != null) {
-                output.append(line).append("\n");
+                capture.accept(line);
+                if (lineListener != null) {
+                    lineListener.accept(line);
+                }
             }
         }
-        return output.toString();
     }
 }
\ No newline at end of file
@@ -0,0 +1,399 @@
+package ch.yvesguillo.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.DateFormat;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Singleton caching the output of Crawlect runs, so that re-running unchanged crawls costs no Python process.
+ *
+ * An entry is keyed by the installed Crawlect (see {@link SchemaCache#getInstalledFingerprint(File)})
+ * and the normalized run arguments, and is valid while the {@link TreeFingerprint} of the crawled tree is unchanged.
+ * On a hit, the cached output file is copied to the requested output path and the run's console output is replayed.
+ * Only runs with an explicit {@code --output} and {@code --path} are cached.
+ */
+public final class ResultCache {
+
+    private static final String DIRECTORY_NAME = "result-cache";
+    private static final String INDEX_DIRECTORY_NAME = "hashes";
+
+    // Least recently used entries beyond this count are deleted.
+    private static final int MAX_ENTRIES = 64;
+
+    private static ResultCache instance;
+    private static volatile boolean enabled = true;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Path directory;
+    // One index per crawled root, kept in memory once loaded.
+    private final Map<Path, FileHashIndex> indexes = new ConcurrentHashMap<>();
+
+    /**
+     * On-disk cache entry metadata, (de)serialized by Jackson. The output itself is stored next to it.
+     */
+    public static class Entry {
+        public List<String> args;
+        public String fingerprint;
+        public long createdAt;
+        public String log;
+    }
+
+    // Private constructor to enforce singleton pattern.
+    private ResultCache(File configDirectory) {
+        this.directory = configDirectory.toPath().resolve(DIRECTORY_NAME);
+    }
+
+    /**
+     * Lazily creates the singleton in the user config directory.
+     *
+     * @return singleton instance of ResultCache.
+     */
+    public static synchronized ResultCache lazyGetInstance() {
+        if (instance == null) {
+            instance = new ResultCache(UserSettings.getInstance().getConfigDirectory());
+        }
+        return instance;
+    }
+
+    /**
+     * Tells whether runs should go through the cache.
+     *
+     * @return true if the cache is enabled.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enables or disables the cache (entries are kept either way).
+     *
+     * @param enable true to reuse the results of unchanged crawls.
+     */
+    public static void setEnabled(boolean enable) {
+        enabled = enable;
+    }
+
+    /**
+     * Fingerprints the tree a run would crawl and looks its result up.
+     *
+     * @param args Crawlect CLI arguments.
+     * @param control cancellation handle (cancelling stops the fingerprint).
+     * @return the lookup (a hit or a miss to store afterwards), or null if the run cannot be cached.
+     * @throws CancellationException if the run was cancelled.
+     */
+    public Lookup lookup(List<String> args, RunControl control) {
+        Path output = outputOf(args);
+        PathScanner scope = PathScanner.fromArgs(args);
+        if (output == null || scope == null || !Files.isDirectory(scope.getRoot())) {
+            return null;
+        }
+
+        String installed = SchemaCache.getInstalledFingerprint(UserSettings.getInstance().getConfigDirectory());
+        if (installed == null) {
+            return null;
+        }
+
+        try {
+            List<String> normalized = normalize(args);
+            String key = hash(installed + "\n" + String.join("\n", normalized)).substring(0, 32);
+
+            Path root = scope.getRoot().toAbsolutePath().normalize();
+            FileHashIndex index = indexFor(root);
+            TreeFingerprint tree = new TreeFingerprint(scope, index, output, control::isCancelled);
+            long start = System.nanoTime();
+            String fingerprint = tree.compute();
+            System.out.printf("[Cache] Fingerprinted %s in %d ms (%,d files hashed, %,d unchanged)%n",
+                    root, (System.nanoTime() - start) / 1_000_000, tree.getHashedFiles(), tree.getReusedFiles());
+
+            Entry cached = readEntry(key);
+            boolean hit = cached != null && fingerprint.equals(cached.fingerprint) && Files.isRegularFile(outputFile(key));
+            return new Lookup(key, normalized, fingerprint, output, hit ? cached : null);
+        } catch (CancellationException e) {
+            throw e;
+        } catch (Exception e) {
+            // Caching is an optimization only: run Crawlect as if there was no cache.
+            System.err.println("[Cache] Lookup failed: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Deletes all cached results and file hashes.
+     *
+     * @return number of deleted results.
+     */
+    public int clear() {
+        int count = 0;
+        indexes.clear();
+        for (Path file : listFiles(directory)) {
+            if (file.toString().endsWith(".json")) {
+                count++;
+            }
+            deleteQuietly(file);
+        }
+        for (Path file : listFiles(directory.resolve(INDEX_DIRECTORY_NAME))) {
+            deleteQuietly(file);
+        }
+        System.out.println("[Cache] Cleared " + count + " cached results");
+        return count;
+    }
+
+    /**
+     * Result of a lookup: a hit to restore, or a miss whose run output should be stored.
+     */
+    public final class Lookup {
+
+        private final String key;
+        private final List<String> args;
+        private final String fingerprint;
+        private final Path output;
+        private final Entry hit;
+
+        private Lookup(String key, List<String> args, String fingerprint, Path output, Entry hit) {
+            this.key = key;
+            this.args = args;
+            this.fingerprint = fingerprint;
+            this.output = output;
+            this.hit = hit;
+        }
+
+        /**
+         * Tells whether an unchanged result is cached.
+         *
+         * @return true on a hit.
+         */
+        public boolean isHit() {
+            return hit != null;
+        }
+
+        /**
+         * Restores a hit: copies the cached output file and replays the cached console output.
+         *
+         * @param lineListener receives every replayed line (may be null).
+         * @return the replayed output (to be closed by the caller), or null if the result could not be restored.
+         */
+        public OutputCapture restore(Consumer<String> lineListener) {
+            try {
+                Files.createDirectories(output.toAbsolutePath().getParent());
+                Path temp = output.resolveSibling(output.getFileName() + ".crawlect-cache.tmp");
+                Files.copy(outputFile(key), temp, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(temp, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                // Most recently used entries survive pruning.
+                Files.setLastModifiedTime(entryFile(key), FileTime.fromMillis(System.currentTimeMillis()));
+            } catch (IOException e) {
+                System.err.println("[Cache] Could not restore " + output + ": " + e.getMessage());
+                return null;
+            }
+
+            System.out.println("[Cache] Restored " + output + " (tree unchanged)");
+            OutputCapture capture;
+            try {
+                capture = OutputCapture.create();
+            } catch (IOException e) {
+                System.err.println("[Cache] Could not replay output: " + e.getMessage());
+                return null;
+            }
+            List<String> lines = new ArrayList<>();
+            lines.add("[Cache] Tree unchanged since " + DateFormat.getDateTimeInstance().format(new Date(hit.createdAt))
+                    + ": output restored to " + output);
+            if (hit.log != null) {
+                hit.log.lines().forEach(lines::add);
+            }
+            for (String line : lines) {
+                capture.accept(line);
+                if (lineListener != null) {
+                    lineListener.accept(line);
+                }
+            }
+            return capture;
+        }
+
+        /**
+         * Stores the result of a successful run (a no-op if the run wrote no output file).
+         *
+         * @param runOutput the run's console output.
+         */
+        public void store(OutputCapture runOutput) {
+            if (!Files.isRegularFile(output)) {
+                return;
+            }
+            try {
+                Files.createDirectories(directory);
+                Path temp = directory.resolve(key + ".tmp");
+                Files.copy(output, temp, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(temp, outputFile(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+                Entry entry = new Entry();
+                entry.args = args;
+                entry.fingerprint = fingerprint;
+                entry.createdAt = System.currentTimeMillis();
+                entry.log = runOutput.getTail();
+                mapper.writeValue(temp.toFile(), entry);
+                Files.move(temp, entryFile(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+                System.out.println("[Cache] Stored result for " + output);
+                prune();
+            } catch (IOException e) {
+                System.err.println("[Cache] Could not store result: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Returns the hash index of a crawled root, loading it on first use.
+     *
+     * @param root absolute root of the crawl.
+     * @return its index.
+     * @throws IOException if the index cannot be read.
+     */
+    private FileHashIndex indexFor(Path root) throws IOException {
+        FileHashIndex index = indexes.get(root);
+        if (index == null) {
+            String name = hash(root.toString()).substring(0, 32) + ".jsonl";
+            index = FileHashIndex.load(directory.resolve(INDEX_DIRECTORY_NAME).resolve(name));
+            FileHashIndex loaded = indexes.putIfAbsent(root, index);
+            if (loaded != null) {
+                index = loaded;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Normalizes arguments into a stable key: one option per element (flag and values), paths made absolute, sorted.
+     *
+     * @param args Crawlect CLI arguments.
+     * @return normalized options.
+     */
+    static List<String> normalize(List<String> args) {
+        List<String> options = new ArrayList<>();
+        StringBuilder current = null;
+        String flag = null;
+        for (String arg : args) {
+            if (arg.startsWith("-")) {
+                if (current != null) {
+                    options.add(current.toString());
+                }
+                current = new StringBuilder(arg);
+                flag = arg;
+            } else {
+                boolean isPath = "--path".equals(flag) || "-p".equals(flag) || "--output".equals(flag) || "-o".equals(flag);
+                String value = isPath ? Path.of(arg).toAbsolutePath().normalize().toString() : arg;
+                if (current == null) {
+                    current = new StringBuilder();
+                }
+                current.append('\u0000').append(value);
+            }
+        }
+        if (current != null) {
+            options.add(current.toString());
+        }
+        options.sort(Comparator.naturalOrder());
+        return options;
+    }
+
+    private static Path outputOf(List<String> args) {
+        for (int i = 0; i + 1 < args.size(); i++) {
+            if (args.get(i).equals("--output") || args.get(i).equals("-o")) {
+                return Path.of(args.get(i + 1)).toAbsolutePath().normalize();
+            }
+        }
+        return null;
+    }
+
+    static String hash(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Path entryFile(String key) {
+        return directory.resolve(key + ".json");
+    }
+
+    private Path outputFile(String key) {
+        return directory.resolve(key + ".out");
+    }
+
+    private Entry readEntry(String key) {
+        Path file = entryFile(key);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            return mapper.readValue(file.toFile(), Entry.class);
+        } catch (IOException e) {
+            System.err.println("[Cache] Ignoring unreadable entry: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Deletes the least recently used entries beyond {@link #MAX_ENTRIES}.
+     */
+    private void prune() {
+        List<Path> entries = new ArrayList<>();
+        for (Path file : listFiles(directory)) {
+            if (file.getFileName().toString().endsWith(".json")) {
+                entries.add(file);
+            }
+        }
+        if (entries.size() <= MAX_ENTRIES) {
+            return;
+        }
+        entries.sort(Comparator.comparingLong((Path file) -> file.toFile().lastModified()).reversed());
+        for (Path file : entries.subList(MAX_ENTRIES, entries.size())) {
+            String key = file.getFileName().toString().replace(".json", "");
+            deleteQuietly(file);
+            deleteQuietly(outputFile(key));
+        }
+    }
+
+    private static List<Path> listFiles(Path dir) {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(dir)) {
+            return files;
+        }
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+            for (Path entry : entries) {
+                if (Files.isRegularFile(entry)) {
+                    files.add(entry);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("[Cache] Could not list " + dir + ": " + e.getMessage());
+        }
+        return files;
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.err.println("[Cache] Could not delete " + file + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package ch.yvesguillo.controller;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Handle used to cancel a Crawlect run from another thread, to bound its duration, and to account for its CPU time.
+ *
+ * The runner attaches the process executing the run as soon as it is known (a split run attaches one per partition);
+ * cancelling terminates them with their whole process tree (or right away when attached after cancellation):
+ * politely first, then forcibly for whatever is still alive after a grace period.
+ * A run is also cancelled when it exceeds its wall-clock timeout, or produces no output for its idle timeout
+ * (e.g. a stuck LLM call); both are taken from the defaults when the control is created, 0 meaning no limit.
+ * While attached, the CPU time of each process (and of its live descendants) is sampled periodically:
+ * the operating system forgets it once the process has exited, so the last sample is the measure.
+ * The timeouts apply to the run as a whole, from the first attachment.
+ */
+public class RunControl {
+
+    private static final long CPU_SAMPLE_MILLIS = 250;
+    private static final long WATCHDOG_MILLIS = 1000;
+    // Time given to the process tree to exit after a polite termination request.
+    private static final long KILL_GRACE_MILLIS = 3000;
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "crawlect-run-control");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static volatile long defaultTimeoutMillis = 0;
+    private static volatile long defaultIdleTimeoutMillis = 0;
+
+    private final long createdAt = System.currentTimeMillis();
+    private final long timeoutMillis = defaultTimeoutMillis;
+    private final long idleTimeoutMillis = defaultIdleTimeoutMillis;
+    private volatile boolean cancelled = false;
+    private volatile boolean cached = false;
+    private volatile String timeoutReason = null;
+
+    // Attached processes and their CPU time, in no particular order.
+    private final Map<Process, CpuSample> processes = new ConcurrentHashMap<>();
+    private volatile ScheduledFuture<?> sampling;
+
+    // Watchdog enforcing the timeouts, and the time of attachment and of the last output line (System.nanoTime()).
+    private volatile ScheduledFuture<?> watchdog;
+    private volatile long attachedNanos;
+    private volatile long lastOutputNanos;
+
+    /**
+     * Sets the timeouts of the runs started from now on.
+     *
+     * @param timeoutMillis maximum wall-clock duration of a run, 0 for no limit.
+     * @param idleTimeoutMillis maximum time without output, 0 for no limit.
+     */
+    public static void setDefaultTimeouts(long timeoutMillis, long idleTimeoutMillis) {
+        defaultTimeoutMillis = Math.max(0, timeoutMillis);
+        defaultIdleTimeoutMillis = Math.max(0, idleTimeoutMillis);
+    }
+
+    /**
+     * Returns the wall-clock timeout of new runs.
+     *
+     * @return milliseconds, 0 for no limit.
+     */
+    public static long getDefaultTimeoutMillis() {
+        return defaultTimeoutMillis;
+    }
+
+    /**
+     * Returns the idle-output timeout of new runs.
+     *
+     * @return milliseconds, 0 for no limit.
+     */
+    public static long getDefaultIdleTimeoutMillis() {
+        return defaultIdleTimeoutMillis;
+    }
+
+    /**
+     * Registers a process executing the run. The first one starts sampling the CPU time and enforcing the timeouts.
+     *
+     * @param process the Crawlect (or worker) process.
+     */
+    public void attach(Process process) {
+        ProcessHandle handle = process.toHandle();
+        // CPU time already used by a long-lived worker before this run is not the run's.
+        boolean startedBefore = handle.info().startInstant().map(start -> start.toEpochMilli() < createdAt).orElse(false);
+        processes.put(process, new CpuSample(startedBefore ? cpuTime(handle) : 0));
+        // Checked after registering: a concurrent cancel() either sees the process or is seen here.
+        if (cancelled) {
+            terminate(process);
+        }
+
+        startSampling();
+    }
+
+    /**
+     * Starts sampling the CPU time and enforcing the timeouts, once.
+     */
+    private synchronized void startSampling() {
+        if (sampling != null) {
+            return;
+        }
+        sampling = SCHEDULER.scheduleAtFixedRate(this::sampleCpu, CPU_SAMPLE_MILLIS, CPU_SAMPLE_MILLIS, TimeUnit.MILLISECONDS);
+        attachedNanos = System.nanoTime();
+        lastOutputNanos = attachedNanos;
+        if (timeoutMillis > 0 || idleTimeoutMillis > 0) {
+            watchdog = SCHEDULER.scheduleAtFixedRate(this::checkTimeouts, WATCHDOG_MILLIS, WATCHDOG_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Takes a last CPU sample of one attached process and stops sampling it. Call once its output has ended,
+     * before it is reaped. The run's timeouts keep being enforced until {@link #finish()}.
+     *
+     * @param process a process given to {@link #attach(Process)}.
+     */
+    public void release(Process process) {
+        CpuSample sample = processes.get(process);
+        if (sample != null && !sample.released) {
+            sample.update(process);
+            sample.released = true;
+        }
+    }
+
+    /**
+     * Records that the run produced output (resets the idle timeout). Called for every output line.
+     */
+    public void outputSeen() {
+        lastOutputNanos = System.nanoTime();
+    }
+
+    /**
+     * Takes a last CPU sample and stops sampling and enforcing the timeouts. Call once the run's output has ended,
+     * before the process is reaped. Safe to call more than once.
+     */
+    public void finish() {
+        ScheduledFuture<?> currentWatchdog = watchdog;
+        if (currentWatchdog != null) {
+            currentWatchdog.cancel(false);
+            watchdog = null;
+        }
+        ScheduledFuture<?> current = sampling;
+        if (current != null) {
+            current.cancel(false);
+            sampleCpu();
+            processes.keySet().forEach(this::release);
+        }
+    }
+
+    /**
+     * Cancels the run, terminating its process trees if already started.
+     */
+    public void cancel() {
+        cancelled = true;
+        for (Process process : processes.keySet()) {
+            if (process.isAlive()) {
+                terminate(process);
+            }
+        }
+    }
+
+    /**
+     * Tells whether the run has been cancelled.
+     *
+     * @return true once {@link #cancel()} was called.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Tells why the run was stopped by a timeout.
+     *
+     * @return the timeout description, or null if no timeout expired.
+     */
+    public String getTimeoutReason() {
+        return timeoutReason;
+    }
+
+    /**
+     * Records that the run was served from the {@link ResultCache} (no process ran).
+     */
+    public void markCached() {
+        cached = true;
+    }
+
+    /**
+     * Tells whether the run was served from the {@link ResultCache}.
+     *
+     * @return true for a cache hit.
+     */
+    public boolean isCached() {
+        return cached;
+    }
+
+    /**
+     * Returns the CPU time used by the run, as last sampled.
+     *
+     * @return CPU milliseconds, or -1 if no process was attached or the platform does not report it.
+     */
+    public long getCpuMillis() {
+        long nanos = -1;
+        for (CpuSample sample : processes.values()) {
+            if (sample.nanos >= 0) {
+                nanos = Math.max(nanos, 0) + sample.nanos;
+            }
+        }
+        return (nanos < 0) ? -1 : TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    private void checkTimeouts() {
+        long now = System.nanoTime();
+        if (timeoutMillis > 0 && now - attachedNanos > TimeUnit.MILLISECONDS.toNanos(timeoutMillis)) {
+            timeOut("Timed out after " + formatSeconds(timeoutMillis));
+        } else if (idleTimeoutMillis > 0 && now - lastOutputNanos > TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis)) {
+            timeOut("Timed out: no output for " + formatSeconds(idleTimeoutMillis));
+        }
+    }
+
+    private void timeOut(String reason) {
+        if (cancelled) {
+            return;
+        }
+        timeoutReason = reason;
+        System.err.println("[Run] " + reason + ", stopping Crawlect");
+        ScheduledFuture<?> currentWatchdog = watchdog;
+        if (currentWatchdog != null) {
+            currentWatchdog.cancel(false);
+        }
+        cancel();
+    }
+
+    private static String formatSeconds(long millis) {
+        return (millis % 1000 == 0) ? (millis / 1000) + " s" : String.format("%.1f s", millis / 1000.0);
+    }
+
+    /**
+     * Terminates a process and all its descendants: politely, then forcibly after {@value #KILL_GRACE_MILLIS} ms.
+     * The tree is listed before anything is terminated: descendants are re-parented once their parent is gone.
+     *
+     * @param root the process to terminate.
+     */
+    private static void terminate(Process root) {
+        ProcessHandle handle = root.toHandle();
+        List<ProcessHandle> tree = Stream.concat(handle.descendants(), Stream.of(handle)).toList();
+        for (ProcessHandle member : tree) {
+            member.destroy();
+        }
+        SCHEDULER.schedule(() -> {
+            // Also catch children spawned while the tree was shutting down.
+            List<ProcessHandle> survivors = Stream.concat(tree.stream(), handle.descendants())
+                    .filter(ProcessHandle::isAlive)
+                    .distinct()
+                    .toList();
+            for (ProcessHandle survivor : survivors) {
+                survivor.destroyForcibly();
+            }
+            if (!survivors.isEmpty()) {
+                System.err.println("[Run] Force-killed " + survivors.size() + " process(es) still alive after " + KILL_GRACE_MILLIS + " ms");
+            }
+        }, KILL_GRACE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private void sampleCpu() {
+        processes.forEach((process, sample) -> {
+            if (!sample.released) {
+                sample.update(process);
+            }
+        });
+    }
+
+    /**
+     * Returns the CPU time of a process and of its live descendants.
+     *
+     * @param handle process.
+     * @return CPU nanoseconds, or -1 if unknown (e.g. the process has been reaped).
+     */
+    private static long cpuTime(ProcessHandle handle) {
+        long self = handle.info().totalCpuDuration().map(Duration::toNanos).orElse(-1L);
+        if (self < 0) {
+            return -1;
+        }
+        return self + handle.descendants()
+                .mapToLong(child -> child.info().totalCpuDuration().map(Duration::toNanos).orElse(0L))
+                .sum();
+    }
+
+    /**
+     * CPU time of one attached process: the highest total seen, since descendants that already exited are no longer counted.
+     */
+    private static final class CpuSample {
+
+        private final long baselineNanos;
+        private volatile long nanos = 0;
+        private volatile boolean released = false;
+
+        CpuSample(long baselineNanos) {
+            this.baselineNanos = baselineNanos;
+        }
+
+        void update(Process process) {
+            long total = cpuTime(process.toHandle());
+            if (total >= 0) {
+                nanos = Math.max(nanos, total - baselineNanos);
+            }
+        }
+    }
+}
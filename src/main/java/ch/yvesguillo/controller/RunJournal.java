@@ -0,0 +1,388 @@
+package ch.yvesguillo.controller;
+
+import ch.yvesguillo.model.CrawlJob;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * Singleton journal of past Crawlect runs, with timing statistics to predict the duration of the next one.
+ *
+ * Entries are appended as JSON lines, one {@code write} each, to rolling segment files
+ * ({@code journal/runs-NNNNNN.jsonl}, at most {@value #MAX_SEGMENTS} of {@value #SEGMENT_BYTES} bytes):
+ * a crash can at worst tear the last line, which is skipped when reading; the next entry starts on a new line. The most recent entries are kept in memory,
+ * loaded on first use.
+ */
+public final class RunJournal {
+
+    private static final String DIRECTORY_NAME = "journal";
+    private static final String SEGMENT_PREFIX = "runs-";
+    private static final String SEGMENT_SUFFIX = ".jsonl";
+
+    private static final long SEGMENT_BYTES = 1 << 20;
+    private static final int MAX_SEGMENTS = 16;
+    // Entries kept in memory for queries.
+    private static final int MAX_LOADED = 5000;
+    // Recent runs considered by a prediction.
+    private static final int PREDICTION_SAMPLES = 5;
+    private static final int THROUGHPUT_SAMPLES = 20;
+
+    // Tolerates fields of other versions (journals written before isTimingSample() was ignored carry "timingSample").
+    private static final ObjectMapper mapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private static RunJournal instance;
+
+    /**
+     * One finished run, (de)serialized by Jackson as one journal line.
+     *
+     * @param startedAt start time (epoch milliseconds).
+     * @param state final job state (SUCCEEDED, FAILED or CANCELLED).
+     * @param exitCode Crawlect exit code, if known.
+     * @param args Crawlect CLI arguments.
+     * @param pathKey fingerprint of the crawled path (absolute, normalized).
+     * @param optionsKey fingerprint of the options, output path excluded: same key, same work.
+     * @param files pre-scan file count, -1 if not pre-scanned.
+     * @param bytes pre-scan byte count, -1 if not pre-scanned.
+     * @param wallMillis wall-clock duration.
+     * @param cpuMillis CPU time of the Crawlect process and its children, -1 if unknown.
+     * @param outputBytes size of the output file, -1 if none.
+     * @param cached true if the result was restored from the {@link ResultCache}.
+     */
+    public record Entry(long startedAt, String state, Integer exitCode, List<String> args, String pathKey, String optionsKey,
+                        long files, long bytes, long wallMillis, long cpuMillis, long outputBytes, boolean cached) {
+
+        /**
+         * Tells whether the run did real work to completion (a successful run, not served from the cache).
+         *
+         * @return true if the entry can serve as a timing sample.
+         */
+        @JsonIgnore
+        public boolean isTimingSample() {
+            return "SUCCEEDED".equals(state) && !cached && wallMillis > 0;
+        }
+
+        /**
+         * Returns the file throughput of the run.
+         *
+         * @return files per second, or -1 if unknown.
+         */
+        public double filesPerSecond() {
+            return (files >= 0 && wallMillis > 0) ? files * 1000.0 / wallMillis : -1;
+        }
+
+        /**
+         * Returns the data throughput of the run.
+         *
+         * @return bytes per second, or -1 if unknown.
+         */
+        public double bytesPerSecond() {
+            return (bytes >= 0 && wallMillis > 0) ? bytes * 1000.0 / wallMillis : -1;
+        }
+    }
+
+    /**
+     * Predicted duration of a run.
+     *
+     * @param millis expected wall-clock duration.
+     * @param samples number of past runs it is based on.
+     * @param basis what the past runs have in common with this one (for display).
+     */
+    public record Prediction(long millis, int samples, String basis) {
+    }
+
+    /**
+     * Fingerprints identifying comparable runs.
+     *
+     * @param pathKey fingerprint of the crawled path.
+     * @param optionsKey fingerprint of the options, output path excluded.
+     */
+    private record Keys(String pathKey, String optionsKey) {
+
+        static Keys of(List<String> args) {
+            // Crawlect crawls the current directory by default.
+            String path = Path.of(".").toAbsolutePath().normalize().toString();
+            List<String> options = new ArrayList<>();
+            for (String option : ResultCache.normalize(args)) {
+                if (option.startsWith("--path\u0000") || option.startsWith("-p\u0000")) {
+                    path = option.substring(option.indexOf('\u0000') + 1);
+                }
+                if (!option.startsWith("--output\u0000") && !option.startsWith("-o\u0000")) {
+                    options.add(option);
+                }
+            }
+            return new Keys(ResultCache.hash(path).substring(0, 16), ResultCache.hash(String.join("\n", options)).substring(0, 16));
+        }
+    }
+
+    private final Path directory;
+    // Guards the segments and the loaded entries. Held while the segments are read or written.
+    private final ReentrantLock lock = new ReentrantLock();
+    private Deque<Entry> entries;
+    private Path segment;
+
+    // Private constructor to enforce singleton pattern.
+    private RunJournal(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Lazily creates the singleton in the user config directory (entries are read on first query).
+     *
+     * @return singleton instance of RunJournal.
+     */
+    public static synchronized RunJournal lazyGetInstance() {
+        if (instance == null) {
+            instance = new RunJournal(UserSettings.getInstance().getConfigDirectory().toPath().resolve(DIRECTORY_NAME));
+        }
+        return instance;
+    }
+
+    /**
+     * Appends the entry of a finished job. Failures are logged, never thrown: the journal must not affect runs.
+     *
+     * @param job the finished job.
+     * @param control the job's run control (CPU time, cache hit).
+     */
+    public void record(CrawlJob job, RunControl control) {
+        Path output = job.getOutputFile();
+        long outputBytes = -1;
+        try {
+            if (output != null && Files.isRegularFile(output)) {
+                outputBytes = Files.size(output);
+            }
+        } catch (IOException e) {
+            // Leave unknown.
+        }
+
+        Keys keys = Keys.of(job.getArgs());
+        Entry entry = new Entry(job.getStartedAt(), job.getState().name(), job.getExitCode(), job.getArgs(), keys.pathKey(),
+                keys.optionsKey(), job.getScannedFiles(), job.getScannedBytes(),
+                job.getDurationMillis(), control.getCpuMillis(), outputBytes, control.isCached());
+
+        lock.lock();
+        try {
+            ensureLoaded();
+            append(entry);
+            entries.addLast(entry);
+            if (entries.size() > MAX_LOADED) {
+                entries.removeFirst();
+            }
+        } catch (IOException e) {
+            System.err.println("[Journal] Could not record run #" + job.getId() + ": " + e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the most recent entries.
+     *
+     * @return entries, oldest first.
+     */
+    public List<Entry> getEntries() {
+        lock.lock();
+        try {
+            ensureLoaded();
+            return List.copyOf(entries);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Predicts the duration of a run from past ones, preferring the closest match:
+     * runs with the same options, then runs over the same path, then the recent data throughput.
+     *
+     * @param args Crawlect CLI arguments of the run.
+     * @param bytes pre-scan byte count of the run, -1 if unknown.
+     * @return the prediction, or null if there is no comparable past run.
+     */
+    public Prediction predict(List<String> args, long bytes) {
+        Keys keys = Keys.of(args);
+        List<Entry> recent = getEntries();
+        List<Entry> sameOptions = latest(recent, entry -> entry.optionsKey().equals(keys.optionsKey()), PREDICTION_SAMPLES);
+        if (!sameOptions.isEmpty()) {
+            return new Prediction(scaled(sameOptions, bytes), sameOptions.size(), "runs with the same options");
+        }
+        List<Entry> sameTree = latest(recent, entry -> entry.pathKey().equals(keys.pathKey()), PREDICTION_SAMPLES);
+        if (!sameTree.isEmpty()) {
+            return new Prediction(scaled(sameTree, bytes), sameTree.size(), "runs over the same path");
+        }
+        if (bytes >= 0) {
+            List<Entry> measured = latest(recent, entry -> entry.bytesPerSecond() > 0, THROUGHPUT_SAMPLES);
+            if (!measured.isEmpty()) {
+                double throughput = median(measured.stream().mapToDouble(Entry::bytesPerSecond).toArray());
+                return new Prediction((long) (bytes * 1000.0 / throughput), measured.size(), "recent throughput");
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the median duration of the samples, scaled to the given size when the samples' sizes are known
+     * (the tree may have grown or shrunk since).
+     */
+    private static long scaled(List<Entry> samples, long bytes) {
+        double wall = median(samples.stream().mapToDouble(Entry::wallMillis).toArray());
+        if (bytes > 0) {
+            double[] sizes = samples.stream().mapToDouble(Entry::bytes).filter(size -> size > 0).toArray();
+            if (sizes.length == samples.size()) {
+                wall *= bytes / median(sizes);
+            }
+        }
+        return (long) wall;
+    }
+
+    /**
+     * Returns the latest timing samples matching a filter.
+     *
+     * @param recent entries, oldest first.
+     * @param filter condition.
+     * @param limit maximum count.
+     * @return matching samples, newest first.
+     */
+    private static List<Entry> latest(List<Entry> recent, Predicate<Entry> filter, int limit) {
+        List<Entry> selected = new ArrayList<>();
+        for (int i = recent.size() - 1; i >= 0 && selected.size() < limit; i--) {
+            Entry entry = recent.get(i);
+            if (entry.isTimingSample() && filter.test(entry)) {
+                selected.add(entry);
+            }
+        }
+        return selected;
+    }
+
+    private static double median(double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int middle = sorted.length / 2;
+        return (sorted.length % 2 == 1) ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+    }
+
+    /**
+     * Reads the segments once, keeping the last {@value #MAX_LOADED} entries. Must be called with the lock held.
+     */
+    private void ensureLoaded() {
+        if (entries != null) {
+            return;
+        }
+        entries = new ArrayDeque<>();
+        List<Path> segments = listSegments();
+        for (Path file : segments) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    try {
+                        entries.addLast(mapper.readValue(line, Entry.class));
+                        if (entries.size() > MAX_LOADED) {
+                            entries.removeFirst();
+                        }
+                    } catch (IOException e) {
+                        // Torn or foreign line: skip it.
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("[Journal] Could not read " + file + ": " + e.getMessage());
+            }
+        }
+        segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        System.out.println("[Journal] Loaded " + entries.size() + " run(s) from " + segments.size() + " segment(s)");
+    }
+
+    /**
+     * Appends an entry to the current segment, rolling to a new one when it is full. Must be called with the lock held.
+     *
+     * @param entry entry to write.
+     * @throws IOException if the segment cannot be written.
+     */
+    private void append(Entry entry) throws IOException {
+        byte[] line = (mapper.writeValueAsString(entry) + "\n").getBytes(StandardCharsets.UTF_8);
+        if (segment == null || !Files.exists(segment) || Files.size(segment) + line.length > SEGMENT_BYTES) {
+            roll();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long end = channel.size();
+            // A torn last line would swallow this entry: end it first.
+            ByteBuffer buffer = endsWithLineBreak(channel, end)
+                    ? ByteBuffer.wrap(line)
+                    : ByteBuffer.allocate(line.length + 1).put((byte) '\n').put(line).flip();
+            while (buffer.hasRemaining()) {
+                end += channel.write(buffer, end);
+            }
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Tells whether a file is empty or ends with a line break.
+     *
+     * @param channel open file.
+     * @param size file size.
+     * @return false if the last line is unterminated (torn by a crash).
+     * @throws IOException if the file cannot be read.
+     */
+    private static boolean endsWithLineBreak(FileChannel channel, long size) throws IOException {
+        if (size == 0) {
+            return true;
+        }
+        ByteBuffer last = ByteBuffer.allocate(1);
+        return channel.read(last, size - 1) < 1 || last.get(0) == '\n';
+    }
+
+    /**
+     * Starts a new segment and deletes the oldest ones beyond {@value #MAX_SEGMENTS}. Must be called with the lock held.
+     *
+     * @throws IOException if the journal directory cannot be created.
+     */
+    private void roll() throws IOException {
+        Files.createDirectories(directory);
+        List<Path> segments = listSegments();
+        long next = 1;
+        if (!segments.isEmpty()) {
+            String last = segments.get(segments.size() - 1).getFileName().toString();
+            next = Long.parseLong(last.substring(SEGMENT_PREFIX.length(), last.length() - SEGMENT_SUFFIX.length())) + 1;
+        }
+        segment = directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, next, SEGMENT_SUFFIX));
+        for (int i = 0; i <= segments.size() - MAX_SEGMENTS; i++) {
+            Files.deleteIfExists(segments.get(i));
+        }
+    }
+
+    /**
+     * Lists the segment files.
+     *
+     * @return segments, oldest first.
+     */
+    private List<Path> listSegments() {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(segments::add);
+        } catch (IOException e) {
+            System.err.println("[Journal] Could not list " + directory + ": " + e.getMessage());
+        }
+        // Fixed-width numbers: name order is creation order.
+        Collections.sort(segments);
+        return segments;
+    }
+}
@@ -0,0 +1,112 @@
+package ch.yvesguillo.controller;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Estimates the progress of a Crawlect run from the pre-scan totals.
+ *
+ * Crawlect does not report its progress, so two signals are combined (the most advanced wins):
+ * output lines mentioning a path, against the scanned file count,
+ * and the size of the output file, against the scanned byte count (the digest embeds file contents).
+ * The size is sampled on the run thread as the output lines arrive, so readers on the EDT never touch the disk.
+ * The estimate stays below 100% until the run ends.
+ */
+public class RunProgress implements Consumer<String> {
+
+    // Never claim completion before the run actually ends.
+    private static final double MAX_ESTIMATE = 0.99;
+    private static final long SIZE_SAMPLE_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+
+    private final PathScanner.Result totals;
+    private final File outputFile;
+    private final long startedAt = System.currentTimeMillis();
+    private final AtomicLong pathLines = new AtomicLong();
+    private volatile long outputBytes = 0;
+    private volatile long sampledAtNanos = System.nanoTime() - SIZE_SAMPLE_NANOS;
+    private volatile long expectedMillis = -1;
+
+    /**
+     * Constructs an estimator for a run about to start.
+     *
+     * @param totals pre-scan totals of the crawled tree.
+     * @param args Crawlect CLI arguments (to locate the output file).
+     */
+    public RunProgress(PathScanner.Result totals, List<String> args) {
+        this.totals = totals;
+        this.outputFile = outputFileOf(args);
+    }
+
+    /**
+     * Returns the pre-scan totals the estimate is based on.
+     *
+     * @return totals of the crawled tree.
+     */
+    public PathScanner.Result getTotals() {
+        return totals;
+    }
+
+    /**
+     * Sets the duration predicted from past runs, used for the ETA until the output shows enough progress.
+     *
+     * @param expectedMillis expected wall-clock duration of the run.
+     */
+    public void setExpectedMillis(long expectedMillis) {
+        this.expectedMillis = expectedMillis;
+    }
+
+    private static File outputFileOf(List<String> args) {
+        for (int i = 0; i + 1 < args.size(); i++) {
+            if (args.get(i).equals("--output") || args.get(i).equals("-o")) {
+                return new File(args.get(i + 1));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Counts one output line of the run, and samples the output file size (every 250 ms at most).
+     *
+     * @param line output line.
+     */
+    @Override
+    public void accept(String line) {
+        if (line.indexOf('/') >= 0 || line.indexOf('\\') >= 0) {
+            pathLines.incrementAndGet();
+        }
+        long now = System.nanoTime();
+        if (outputFile != null && now - sampledAtNanos >= SIZE_SAMPLE_NANOS) {
+            sampledAtNanos = now;
+            outputBytes = outputFile.length();
+        }
+    }
+
+    /**
+     * Returns the estimated completed fraction of the run.
+     *
+     * @return fraction between 0 and {@value #MAX_ESTIMATE}.
+     */
+    public double getFraction() {
+        double byLines = (totals.files() > 0) ? pathLines.get() / (double) totals.files() : 0;
+        double bySize = (totals.bytes() > 0) ? outputBytes / (double) totals.bytes() : 0;
+        return Math.min(MAX_ESTIMATE, Math.max(byLines, bySize));
+    }
+
+    /**
+     * Returns the estimated remaining time, extrapolated from the elapsed time
+     * (or, before there is enough progress to extrapolate, from the predicted duration).
+     *
+     * @return remaining milliseconds, or -1 while there is not enough progress to tell.
+     */
+    public long getEtaMillis() {
+        double fraction = getFraction();
+        long elapsed = System.currentTimeMillis() - startedAt;
+        if (fraction < 0.01) {
+            return (expectedMillis > elapsed) ? expectedMillis - elapsed : -1;
+        }
+        return (long) (elapsed * (1 - fraction) / fraction);
+    }
+}
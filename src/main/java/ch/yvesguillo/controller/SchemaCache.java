@@ -0,0 +1,216 @@
+package ch.yvesguillo.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Utility class caching the Crawlect CLI schema on disk, next to the user config file.
+ *
+ * The cache entry is keyed by a fingerprint of the resolved Python interpreter and of the installed
+ * Crawlect package (version, location and modification times). The fingerprint is recomputed from
+ * file metadata only, so a valid cache (along with the interpreter persisted by {@link PythonLocator})
+ * lets the GUI start without spawning any Python process.
+ * The schema is fetched again only when the fingerprint changes (interpreter or Crawlect updated).
+ */
+public final class SchemaCache {
+
+    private static final String CACHE_FILE_NAME = "cli-schema-cache.json";
+
+    // Prints the interpreter path, Crawlect package dir, version and metadata dir, one per line.
+    private static final String PROBE_SCRIPT =
+            "import sys,os,crawlect,importlib.metadata as m;"
+            + "d=m.distribution('crawlect');"
+            + "print(sys.executable);"
+            + "print(os.path.dirname(os.path.abspath(crawlect.__file__)));"
+            + "print(d.version);"
+            + "print(getattr(d,'_path',''))";
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private static final Metrics.Counter CACHE_HITS = Metrics.counter("schema.cache.hits");
+    private static final Metrics.Timer FETCH_TIMER = Metrics.timer("schema.fetch");
+
+    /**
+     * On-disk cache entry, (de)serialized by Jackson.
+     */
+    public static class Entry {
+        public String interpreter;
+        public String packagePath;
+        public String metadataPath;
+        public String version;
+        public String fingerprint;
+        public String schema;
+    }
+
+    // Private constructor to prevent instantiation.
+    private SchemaCache() {
+        throw new UnsupportedOperationException("SchemaCache is an utility class");
+    }
+
+    /**
+     * Returns the CLI schema JSON, from the cache if its fingerprint is still valid,
+     * otherwise fetched from Crawlect and written back to the cache.
+     *
+     * @param cacheDir directory holding the cache file.
+     * @return JSON string representing the CLI schema.
+     * @throws Exception if the schema can be neither restored nor fetched.
+     */
+    public static String getCliSchemaJson(File cacheDir) throws Exception {
+        File cacheFile = new File(cacheDir, CACHE_FILE_NAME);
+
+        // Cheap as well: the interpreter location is itself persisted.
+        String interpreter = PythonRunner.getPythonCommand();
+
+        Entry cached = read(cacheFile);
+        if (cached != null && interpreter.equals(cached.interpreter)
+                && cached.fingerprint != null && cached.fingerprint.equals(fingerprint(cached))) {
+            System.out.println("[Schema] Using cached schema for Crawlect " + cached.version);
+            CACHE_HITS.increment();
+            return cached.schema;
+        }
+
+        String schema = FETCH_TIMER.time(PythonRunner::getCliSchemaJson);
+
+        try {
+            Entry entry = probe();
+            entry.schema = schema;
+            entry.fingerprint = fingerprint(entry);
+            mapper.writeValue(cacheFile, entry);
+            System.out.println("[Schema] Cached schema for Crawlect " + entry.version + " in: " + cacheFile.getAbsolutePath());
+        } catch (Exception e) {
+            // Caching is an optimization only: keep going with the fetched schema.
+            System.err.println("[Schema] Could not cache schema: " + e.getMessage());
+        }
+
+        return schema;
+    }
+
+    /**
+     * Identifies the installed Crawlect from the cache entry, without spawning any process.
+     * Used to invalidate data produced by another Crawlect version or interpreter.
+     *
+     * @param cacheDir directory holding the cache file.
+     * @return the fingerprint of the installed Crawlect, or null if the cache is missing or stale.
+     */
+    public static String getInstalledFingerprint(File cacheDir) {
+        Entry cached = read(new File(cacheDir, CACHE_FILE_NAME));
+        try {
+            if (cached != null && PythonRunner.getPythonCommand().equals(cached.interpreter)
+                    && cached.fingerprint != null && cached.fingerprint.equals(fingerprint(cached))) {
+                return cached.fingerprint;
+            }
+        } catch (Exception e) {
+            // No interpreter: nothing to identify.
+        }
+        return null;
+    }
+
+    /**
+     * Reads the cache entry, if any.
+     *
+     * @param cacheFile cache file.
+     * @return cached entry, or null if missing or unreadable.
+     */
+    private static Entry read(File cacheFile) {
+        if (!cacheFile.exists()) {
+            return null;
+        }
+        try {
+            return mapper.readValue(cacheFile, Entry.class);
+        } catch (IOException e) {
+            System.err.println("[Schema] Ignoring unreadable cache: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Asks the current interpreter where Crawlect is installed and which version it is.
+     *
+     * @return a cache entry without schema nor fingerprint.
+     * @throws Exception if the probe fails.
+     */
+    private static Entry probe() throws Exception {
+        Process process = new ProcessBuilder(PythonRunner.getPythonCommand(), "-c", PROBE_SCRIPT).start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        List<String> lines = output.lines().map(String::trim).toList();
+
+        if (process.waitFor() != 0 || lines.size() < 4) {
+            throw new RuntimeException("Crawlect package location could not be determined.");
+        }
+
+        Entry entry = new Entry();
+        entry.interpreter = lines.get(0);
+        entry.packagePath = lines.get(1);
+        entry.version = lines.get(2);
+        entry.metadataPath = lines.get(3);
+        return entry;
+    }
+
+    /**
+     * Computes the fingerprint of an entry from file metadata only (no process spawned).
+     *
+     * @param entry cache entry.
+     * @return hex-encoded SHA-256 fingerprint.
+     */
+    private static String fingerprint(Entry entry) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            update(digest, entry.version);
+            update(digest, stamp(entry.interpreter, false));
+            update(digest, stamp(entry.packagePath, true));
+            update(digest, stamp(entry.metadataPath, true));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    /**
+     * Describes a path by its size and modification time, including its direct children for directories.
+     *
+     * @param location file or directory path (may be null or empty).
+     * @param withChildren whether to include the direct children of a directory.
+     * @return stamp string.
+     * @throws IOException if the directory cannot be listed.
+     */
+    private static String stamp(String location, boolean withChildren) throws IOException {
+        if (location == null || location.isEmpty()) {
+            return "none";
+        }
+        Path path = Path.of(location);
+        if (!Files.exists(path)) {
+            return location + ":missing";
+        }
+
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        long latest = attributes.lastModifiedTime().toMillis();
+        long size = attributes.size();
+
+        if (withChildren && attributes.isDirectory()) {
+            try (DirectoryStream<Path> children = Files.newDirectoryStream(path)) {
+                for (Path child : children) {
+                    BasicFileAttributes childAttributes = Files.readAttributes(child, BasicFileAttributes.class);
+                    latest = Math.max(latest, childAttributes.lastModifiedTime().toMillis());
+                    size += childAttributes.size();
+                }
+            }
+        }
+
+        return location + ":" + size + ":" + latest;
+    }
+}
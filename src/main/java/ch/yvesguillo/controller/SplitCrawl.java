@@ -0,0 +1,471 @@
+package ch.yvesguillo.controller;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Utility class running one crawl as several Crawlect processes in parallel, one per partition of the tree,
+ * then merging their digests into the requested output.
+ *
+ * The tree is pre-scanned with {@link PathScanner}; the largest directories are then split into their subdirectories
+ * and their own files (crawled with {@code --no-recur}) until every partition is below an equal share of the total size.
+ * Partitions run largest first, a few at a time, each into its own temporary output. Their digests are then
+ * concatenated in path order into {@code --output}, copied by the kernel ({@link FileChannel#transferTo}).
+ * Each part of the merged digest keeps its own header and tree.
+ *
+ * Crawlect only applies the ignore files of the directory it crawls: a partition is crawled on its own only if
+ * its ignore files select the same files as the root's, otherwise it is split further. Runs that cannot be split
+ * exactly, small trees, runs without {@code --output} and runs with LLM tasks (which must see the whole tree)
+ * are not split.
+ */
+public final class SplitCrawl {
+
+    // Below this, starting Python several times costs more than crawling at once.
+    private static final long MIN_SPLIT_BYTES = 8L << 20;
+    // Partitions allowed per parallel run, once split for exactness.
+    private static final int MAX_PARTITIONS_PER_RUN = 16;
+
+    // Flags replaced in the partition runs: with a value, then without.
+    private static final Set<String> REPLACED_OPTIONS = Set.of("-p", "--path", "-o", "--output", "-op", "--output-prefix",
+            "-os", "--output-suffix", "-d", "--depth");
+    private static final Set<String> REPLACED_SWITCHES = Set.of("--recur", "--no-recur", "-open", "--open", "--no-open");
+
+    private static final byte[] NEWLINE = {'\n'};
+
+    private static final Metrics.Timer PLAN_TIMER = Metrics.timer("split.plan");
+    private static final Metrics.Timer MERGE_TIMER = Metrics.timer("split.merge");
+
+    private static volatile int parallelRuns = 1;
+
+    /**
+     * One partition of the tree.
+     *
+     * @param path directory crawled.
+     * @param level depth of the directory below the root.
+     * @param recursive false to only crawl the files directly in the directory.
+     * @param bytes size of the files crawled.
+     */
+    record Partition(Path path, int level, boolean recursive, long bytes) {
+    }
+
+    // Private constructor to prevent instantiation.
+    private SplitCrawl() {
+        throw new UnsupportedOperationException("SplitCrawl is an utility class");
+    }
+
+    /**
+     * Tells whether large trees are split.
+     *
+     * @return true if more than one parallel run is allowed.
+     */
+    public static boolean isEnabled() {
+        return parallelRuns > 1;
+    }
+
+    /**
+     * Returns the number of Crawlect processes a split run uses at once.
+     *
+     * @return parallel runs, 1 when splitting is disabled.
+     */
+    public static int getParallelRuns() {
+        return parallelRuns;
+    }
+
+    /**
+     * Sets the number of Crawlect processes a split run uses at once.
+     *
+     * @param runs parallel runs, 1 (or less) to disable splitting.
+     */
+    public static void setParallelRuns(int runs) {
+        parallelRuns = Math.max(1, runs);
+    }
+
+    /**
+     * Runs Crawlect split into partitions, if the tree is worth and safe to split.
+     *
+     * @param args list of CLI arguments (excluding the "python -m crawlect" prefix).
+     * @param lineListener receives the output lines of every partition, interleaved (may be null).
+     * @param control cancellation handle, shared by every partition.
+     * @return captured output of all partitions (to be closed by the caller), or null if the run is not split.
+     * @throws CrawlectExitException if a partition exits with an error (the others are stopped).
+     * @throws java.util.concurrent.CancellationException if the run was cancelled.
+     * @throws java.util.concurrent.TimeoutException if the run was stopped by a timeout.
+     */
+    public static OutputCapture run(List<String> args, Consumer<String> lineListener, RunControl control) throws Exception {
+        int runs = parallelRuns;
+        PathScanner scanner = PathScanner.fromArgs(args);
+        String output = value(args, "-o", "--output");
+        if (scanner == null || !scanner.isRecursive()) {
+            return null;
+        }
+        if (output == null) {
+            System.out.println("[Split] No --output to merge into: crawling as a whole");
+            return null;
+        }
+        if (value(args, "-llmreq", "--llm-request") != null || value(args, "-llmcust", "--llm-custom-requests") != null) {
+            System.out.println("[Split] LLM tasks need the whole tree: crawling as a whole");
+            return null;
+        }
+
+        long start = PLAN_TIMER.start();
+        List<Partition> partitions = plan(scanner, runs);
+        PLAN_TIMER.stop(start);
+        if (partitions == null) {
+            return null;
+        }
+        if (control.isCancelled()) {
+            throw CrawlectLauncher.stopped(control);
+        }
+
+        Path directory = Files.createTempDirectory("crawlect-split-");
+        OutputCapture capture = OutputCapture.create();
+        try {
+            List<Path> digests = new ArrayList<>();
+            Map<Partition, List<String>> partitionArgs = new HashMap<>();
+            for (Partition partition : partitions) {
+                Path digest = directory.resolve(String.format("part-%04d.md", digests.size()));
+                digests.add(digest);
+                partitionArgs.put(partition, partitionArgs(args, partition, scanner.getMaxDepth(), digest));
+            }
+
+            try {
+                runPartitions(partitions, partitionArgs, runs, capture, lineListener, control);
+            } finally {
+                control.finish();
+            }
+            merge(digests, Path.of(output));
+            return capture;
+        } catch (Exception e) {
+            capture.close();
+            throw e;
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    /**
+     * Partitions the tree: pre-scan, split down to balanced partitions, then further where ignore rules require it.
+     *
+     * @param scanner scanner of the tree to crawl (not yet used).
+     * @param runs number of parallel runs.
+     * @return partitions in path order (the merge order), or null if the tree is not worth or not safe to split.
+     */
+    static List<Partition> plan(PathScanner scanner, int runs) {
+        Path root = scanner.getRoot();
+        PathScanner.Result totals = scanner.recordDirectories().scan();
+        if (totals.bytes() < MIN_SPLIT_BYTES) {
+            System.out.println("[Split] " + PathScanner.formatBytes(totals.bytes()) + " to crawl: crawling as a whole");
+            return null;
+        }
+
+        Map<Path, PathScanner.DirectoryTotals> directories = scanner.getDirectoryTotals();
+        Map<Path, List<Path>> subdirectories = directories.keySet().stream()
+                .filter(directory -> !directory.equals(root))
+                .collect(Collectors.groupingBy(Path::getParent));
+        Splitter splitter = new Splitter(directories, subdirectories, scanner.getMaxDepth());
+        int maxPartitions = runs * MAX_PARTITIONS_PER_RUN;
+
+        // Balance: split the largest partition until all are below an equal share.
+        long share = totals.bytes() / runs;
+        PriorityQueue<Partition> pending = new PriorityQueue<>(Comparator.comparingLong(Partition::bytes).reversed());
+        pending.add(new Partition(root, 0, true, totals.bytes()));
+        while (pending.peek().bytes() > share && splitter.canSplit(pending.peek())
+                && pending.size() + subdirectories.get(pending.peek().path()).size() <= maxPartitions) {
+            pending.addAll(splitter.split(pending.poll()));
+        }
+
+        // Exactness: split further the partitions whose own ignore rules would select other files.
+        IgnoreMatcher rootRules = scanner.loadIgnoreMatcher();
+        List<Partition> exact = new ArrayList<>();
+        List<Partition> unchecked = new ArrayList<>(pending);
+        while (!unchecked.isEmpty()) {
+            Map<Boolean, List<Partition>> checked = unchecked.parallelStream()
+                    .collect(Collectors.partitioningBy(partition -> selectsSameFiles(partition, scanner, rootRules)));
+            exact.addAll(checked.get(true));
+            unchecked = new ArrayList<>();
+            for (Partition partition : checked.get(false)) {
+                if (!splitter.canSplit(partition)) {
+                    System.out.println("[Split] The ignore files of " + partition.path() + " differ from the root's: crawling as a whole");
+                    return null;
+                }
+                unchecked.addAll(splitter.split(partition));
+            }
+            if (exact.size() + unchecked.size() > maxPartitions) {
+                System.out.println("[Split] More than " + maxPartitions + " partitions needed to honor the ignore files: crawling as a whole");
+                return null;
+            }
+        }
+        if (exact.size() < 2) {
+            System.out.println("[Split] " + root + " cannot be split in at most " + maxPartitions + " partitions: crawling as a whole");
+            return null;
+        }
+
+        exact.sort((a, b) -> comparePaths(root.relativize(a.path()), root.relativize(b.path())));
+        Partition largest = exact.stream().max(Comparator.comparingLong(Partition::bytes)).orElseThrow();
+        System.out.println("[Split] Crawling " + root + " as " + exact.size() + " partitions, " + runs + " at a time (largest: "
+                + largest.path() + ", " + PathScanner.formatBytes(largest.bytes()) + ")");
+        return exact;
+    }
+
+    /**
+     * Runs the partitions, largest first, at most {@code runs} at once. The first failure stops the others.
+     */
+    private static void runPartitions(List<Partition> partitions, Map<Partition, List<String>> partitionArgs, int runs,
+                                      OutputCapture capture, Consumer<String> lineListener, RunControl control) throws Exception {
+        List<Partition> largestFirst = new ArrayList<>(partitions);
+        largestFirst.sort(Comparator.comparingLong(Partition::bytes).reversed());
+
+        Semaphore slots = new Semaphore(runs);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Partition partition : largestFirst) {
+                slots.acquire();
+                if (failure.get() != null || control.isCancelled()) {
+                    slots.release();
+                    break;
+                }
+                executor.execute(() -> {
+                    try {
+                        CrawlectLauncher.runProcess(partitionArgs.get(partition), capture, lineListener, control);
+                    } catch (Exception e) {
+                        // Keep the cause: the partitions stopped because of it only report a cancellation.
+                        if (failure.compareAndSet(null, e) && !control.isCancelled()) {
+                            System.err.println("[Split] Partition " + partition.path() + " failed, stopping the others");
+                            control.cancel();
+                        }
+                    } finally {
+                        slots.release();
+                    }
+                });
+            }
+        }
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        if (control.isCancelled()) {
+            throw CrawlectLauncher.stopped(control);
+        }
+    }
+
+    /**
+     * Returns the arguments crawling one partition into its own output.
+     *
+     * @param args arguments of the whole run.
+     * @param partition the partition.
+     * @param maxDepth depth limit of the whole run ({@link Integer#MAX_VALUE} for no limit).
+     * @param output temporary output of the partition.
+     * @return partition arguments.
+     */
+    static List<String> partitionArgs(List<String> args, Partition partition, int maxDepth, Path output) {
+        List<String> partArgs = new ArrayList<>();
+        for (int i = 0; i < args.size(); i++) {
+            String arg = args.get(i);
+            if (REPLACED_OPTIONS.contains(arg)) {
+                i++;
+            } else if (!REPLACED_SWITCHES.contains(arg)) {
+                partArgs.add(arg);
+            }
+        }
+
+        partArgs.addAll(List.of("--path", partition.path().toString(), "--output", output.toString()));
+        if (!partition.recursive()) {
+            partArgs.add("--no-recur");
+        } else if (maxDepth != Integer.MAX_VALUE) {
+            partArgs.addAll(List.of("--depth", String.valueOf(maxDepth - partition.level())));
+        }
+        partArgs.add("--no-open");
+        return partArgs;
+    }
+
+    /**
+     * Concatenates the partition digests into the output, which is replaced atomically once complete.
+     * A digest not ending with a line break gets one. Missing digests (partitions with nothing to crawl) are skipped.
+     *
+     * @param digests digests in merge order.
+     * @param output final output file.
+     * @throws IOException if a digest cannot be read or the output written.
+     */
+    static void merge(List<Path> digests, Path output) throws IOException {
+        long start = MERGE_TIMER.start();
+        Path temp = output.resolveSibling(output.getFileName() + ".tmp");
+        long total = 0;
+        try (FileChannel target = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (Path digest : digests) {
+                if (!Files.isRegularFile(digest)) {
+                    continue;
+                }
+                try (FileChannel source = FileChannel.open(digest, StandardOpenOption.READ)) {
+                    long size = source.size();
+                    for (long position = 0; position < size; ) {
+                        position += source.transferTo(position, size - position, target);
+                    }
+                    total += size;
+                    if (size > 0 && !endsWithNewline(source, size)) {
+                        target.write(ByteBuffer.wrap(NEWLINE));
+                    }
+                }
+            }
+        }
+
+        try {
+            Files.move(temp, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, output, StandardCopyOption.REPLACE_EXISTING);
+        }
+        MERGE_TIMER.stop(start);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("[Split] Merged " + digests.size() + " digests (" + PathScanner.formatBytes(total) + ") into " + output + " in " + millis + " ms");
+    }
+
+    private static boolean endsWithNewline(FileChannel channel, long size) throws IOException {
+        ByteBuffer last = ByteBuffer.allocate(1);
+        return channel.read(last, size - 1) == 1 && last.get(0) == '\n';
+    }
+
+    /**
+     * Tells whether crawling a partition on its own selects the same files as crawling the whole tree,
+     * given that Crawlect reads the ignore files of the crawled directory only.
+     */
+    private static boolean selectsSameFiles(Partition partition, PathScanner scanner, IgnoreMatcher rootRules) {
+        Path root = scanner.getRoot();
+        if (partition.path().equals(root)) {
+            return true;
+        }
+        IgnoreMatcher ownRules = scanner.loadIgnoreMatcher(partition.path());
+        if (ownRules.isEmpty() && rootRules.isEmpty()) {
+            return true;
+        }
+        String[] rootSegments = IgnoreMatcher.split(root.relativize(partition.path()).toString().replace('\\', '/'));
+        int depthLeft = partition.recursive() ? scanner.getMaxDepth() - partition.level() : 0;
+        return selectsSameFiles(partition.path(), rootSegments, new String[0], rootRules, ownRules, partition.recursive(), depthLeft);
+    }
+
+    /**
+     * Walks a directory comparing, for every entry, the decision of the root's ignore rules with the partition's.
+     */
+    private static boolean selectsSameFiles(Path directory, String[] rootSegments, String[] ownSegments,
+                                            IgnoreMatcher rootRules, IgnoreMatcher ownRules, boolean recursive, int depthLeft) {
+        String[] rootEntry = Arrays.copyOf(rootSegments, rootSegments.length + 1);
+        String[] ownEntry = Arrays.copyOf(ownSegments, ownSegments.length + 1);
+        List<Path> subdirectories = new ArrayList<>();
+
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+            for (Path entry : entries) {
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                } catch (IOException e) {
+                    continue;
+                }
+                boolean isDirectory = attributes.isDirectory();
+                if ((!isDirectory && !attributes.isRegularFile()) || (isDirectory && !recursive)) {
+                    continue;
+                }
+                String name = entry.getFileName().toString();
+                rootEntry[rootSegments.length] = name;
+                ownEntry[ownSegments.length] = name;
+                boolean ignored = rootRules.isEntryIgnored(rootEntry, rootEntry.length, isDirectory);
+                if (ignored != ownRules.isEntryIgnored(ownEntry, ownEntry.length, isDirectory)) {
+                    return false;
+                }
+                if (isDirectory && !ignored && depthLeft > 0) {
+                    subdirectories.add(entry);
+                }
+            }
+        } catch (IOException | DirectoryIteratorException e) {
+            // Unreadable for either crawl.
+            return true;
+        }
+
+        for (Path subdirectory : subdirectories) {
+            String name = subdirectory.getFileName().toString();
+            rootEntry[rootSegments.length] = name;
+            ownEntry[ownSegments.length] = name;
+            if (!selectsSameFiles(subdirectory, rootEntry.clone(), ownEntry.clone(), rootRules, ownRules, true, depthLeft - 1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Orders relative paths name by name, a directory before its contents.
+     */
+    private static int comparePaths(Path a, Path b) {
+        int count = Math.min(a.getNameCount(), b.getNameCount());
+        for (int i = 0; i < count; i++) {
+            int order = a.getName(i).toString().compareTo(b.getName(i).toString());
+            if (order != 0) {
+                return order;
+            }
+        }
+        return Integer.compare(a.getNameCount(), b.getNameCount());
+    }
+
+    private static String value(List<String> args, String shortFlag, String longFlag) {
+        for (int i = 0; i + 1 < args.size(); i++) {
+            if (args.get(i).equals(shortFlag) || args.get(i).equals(longFlag)) {
+                return args.get(i + 1);
+            }
+        }
+        return null;
+    }
+
+    private static void deleteDirectory(Path directory) {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        } catch (IOException e) {
+            System.err.println("[Split] Could not delete " + directory + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Splits a partition into its subdirectories and its own files, from the pre-scan totals.
+     */
+    private record Splitter(Map<Path, PathScanner.DirectoryTotals> directories, Map<Path, List<Path>> subdirectories, int maxDepth) {
+
+        boolean canSplit(Partition partition) {
+            return partition.recursive() && partition.level() < maxDepth && subdirectories.containsKey(partition.path());
+        }
+
+        List<Partition> split(Partition partition) {
+            List<Partition> parts = new ArrayList<>();
+            long ownBytes = partition.bytes();
+            for (Path subdirectory : subdirectories.get(partition.path())) {
+                long bytes = directories.get(subdirectory).bytes();
+                parts.add(new Partition(subdirectory, partition.level() + 1, true, bytes));
+                ownBytes -= bytes;
+            }
+            if (directories.get(partition.path()).files() > 0) {
+                parts.add(new Partition(partition.path(), partition.level(), false, ownBytes));
+            }
+            return parts;
+        }
+    }
+}
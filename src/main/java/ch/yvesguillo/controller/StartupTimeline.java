@@ -0,0 +1,100 @@
+package ch.yvesguillo.controller;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Utility class recording the wall-clock time of each startup phase.
+ *
+ * Offsets are measured from the JVM process start when the platform reports it
+ * (otherwise from the first use of this class), so the "first-frame" mark is the actual time-to-first-frame.
+ */
+public final class StartupTimeline {
+
+    /**
+     * One recorded phase or mark (a mark has a zero duration).
+     *
+     * @param name phase name.
+     * @param startMillis offset of the phase start from the origin, in milliseconds.
+     * @param durationMillis phase wall-clock duration, in milliseconds.
+     * @param thread name of the thread that ran the phase.
+     */
+    public record Phase(String name, long startMillis, long durationMillis, String thread) {
+    }
+
+    // Nanosecond timestamp of the origin, and its lag behind the process start.
+    private static final long originNanos = System.nanoTime();
+    private static final long originOffsetMillis = ProcessHandle.current().info().startInstant()
+            .map(start -> Math.max(0, Duration.between(start, Instant.now()).toMillis()))
+            .orElse(0L);
+
+    private static final List<Phase> phases = new ArrayList<>();
+
+    // Private constructor to prevent instantiation.
+    private StartupTimeline() {
+        throw new UnsupportedOperationException("StartupTimeline is an utility class");
+    }
+
+    /**
+     * Runs a phase and records its wall-clock time.
+     *
+     * @param name phase name.
+     * @param work phase body.
+     * @param <T> phase result type.
+     * @return the phase result.
+     * @throws Exception whatever the phase throws (the time is recorded anyway).
+     */
+    public static <T> T time(String name, Callable<T> work) throws Exception {
+        long start = System.nanoTime();
+        try {
+            return work.call();
+        } finally {
+            record(name, start, System.nanoTime());
+        }
+    }
+
+    /**
+     * Records an instantaneous event (e.g. the first frame being shown).
+     *
+     * @param name event name.
+     */
+    public static void mark(String name) {
+        long now = System.nanoTime();
+        record(name, now, now);
+    }
+
+    /**
+     * Returns the offset of the given instant from the origin.
+     *
+     * @param nanos {@link System#nanoTime()} value.
+     * @return offset in milliseconds.
+     */
+    private static long offsetMillis(long nanos) {
+        return originOffsetMillis + (nanos - originNanos) / 1_000_000;
+    }
+
+    private static synchronized void record(String name, long startNanos, long endNanos) {
+        phases.add(new Phase(name, offsetMillis(startNanos), (endNanos - startNanos) / 1_000_000, Thread.currentThread().getName()));
+    }
+
+    /**
+     * Returns the recorded phases, in completion order.
+     *
+     * @return copy of the recorded phases.
+     */
+    public static synchronized List<Phase> getPhases() {
+        return List.copyOf(phases);
+    }
+
+    /**
+     * Prints the recorded phases to stdout.
+     */
+    public static synchronized void report() {
+        for (Phase phase : phases) {
+            System.out.printf("[Init] %-12s start +%5d ms, took %5d ms%n", phase.name(), phase.startMillis(), phase.durationMillis());
+        }
+    }
+}
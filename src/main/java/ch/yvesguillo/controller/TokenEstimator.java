@@ -0,0 +1,116 @@
+package ch.yvesguillo.controller;
+
+/**
+ * Utility class estimating how many tokens an LLM tokenizer would make of a text, without any vocabulary.
+ *
+ * Mimics the pre-tokenization of byte-pair encoders (GPT, Llama): words split at case changes, a short word
+ * being one token and a long one a few; numbers by groups of three digits; a space glued to the word it precedes;
+ * runs of whitespace or of one repeated symbol as one token per few characters; other symbols and non-Latin
+ * characters one token each. Good enough to size chunks against a context window, with some margin.
+ */
+public final class TokenEstimator {
+
+    // Characters per token of a word segment, of a number, and of a run of one repeated symbol.
+    private static final int WORD_CHARS = 7;
+    private static final int DIGIT_CHARS = 3;
+    private static final int REPEAT_CHARS = 4;
+
+    // Private constructor to prevent instantiation.
+    private TokenEstimator() {
+        throw new UnsupportedOperationException("TokenEstimator is an utility class");
+    }
+
+    /**
+     * Estimates the tokens of a text.
+     *
+     * @param text the text.
+     * @return estimated token count.
+     */
+    public static long count(CharSequence text) {
+        return count(text, 0);
+    }
+
+    /**
+     * Estimates the tokens of one line of a longer text, its line break included.
+     * The indentation is free: tokenizers merge it with the preceding line break.
+     *
+     * @param line line content, without its line break.
+     * @param endsLine true if a line break follows.
+     * @return estimated token count.
+     */
+    public static long countLine(CharSequence line, boolean endsLine) {
+        int start = 0;
+        while (start < line.length() && (line.charAt(start) == ' ' || line.charAt(start) == '\t')) {
+            start++;
+        }
+        return count(line, start) + (endsLine ? 1 : 0);
+    }
+
+    private static long count(CharSequence text, int start) {
+        int length = text.length();
+        long tokens = 0;
+        int i = start;
+        while (i < length) {
+            int c = Character.codePointAt(text, i);
+            if (c == ' ' && i + 1 < length && isWordChar(Character.codePointAt(text, i + 1))) {
+                // Glued to the next word or number.
+                i++;
+            } else if (Character.isWhitespace(c)) {
+                int end = i;
+                while (end < length && Character.isWhitespace(text.charAt(end))) {
+                    end++;
+                }
+                tokens += ceilDiv(end - i, REPEAT_CHARS);
+                i = end;
+            } else if (isLatinLetter(c)) {
+                int end = i;
+                int segment = 0;
+                boolean lowerBefore = false;
+                while (end < length && isLatinLetter(text.charAt(end))) {
+                    char letter = text.charAt(end);
+                    if (Character.isUpperCase(letter) && lowerBefore) {
+                        // camelCase hump: a new segment.
+                        tokens += ceilDiv(segment, WORD_CHARS);
+                        segment = 0;
+                    }
+                    lowerBefore = Character.isLowerCase(letter);
+                    segment++;
+                    end++;
+                }
+                tokens += ceilDiv(segment, WORD_CHARS);
+                i = end;
+            } else if (c >= '0' && c <= '9') {
+                int end = i;
+                while (end < length && text.charAt(end) >= '0' && text.charAt(end) <= '9') {
+                    end++;
+                }
+                tokens += ceilDiv(end - i, DIGIT_CHARS);
+                i = end;
+            } else if (c < 0x80) {
+                int end = i;
+                while (end < length && text.charAt(end) == c) {
+                    end++;
+                }
+                tokens += ceilDiv(end - i, REPEAT_CHARS);
+                i = end;
+            } else {
+                tokens++;
+                i += Character.charCount(c);
+            }
+        }
+        return tokens;
+    }
+
+    private static boolean isWordChar(int c) {
+        return isLatinLetter(c) || (c >= '0' && c <= '9');
+    }
+
+    // ASCII and accented Latin letters: the scripts byte-pair vocabularies merge into words.
+    private static boolean isLatinLetter(int c) {
+        return (c < 0x250) && Character.isLetter(c);
+    }
+
+    private static long ceilDiv(int count, int per) {
+        return (count + per - 1) / per;
+    }
+}
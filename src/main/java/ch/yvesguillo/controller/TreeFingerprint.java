@@ -0,0 +1,233 @@
+package ch.yvesguillo.controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Merkle-style fingerprint of the files Crawlect would include in a crawl.
+ *
+ * Walks the same tree as {@link PathScanner} (same depth, recursion and ignore rules), one fork-join task per directory.
+ * Each file contributes the hash of its content, each directory the hash of its sorted entries (name, kind and hash),
+ * so the root hash changes whenever any included file is added, removed, renamed or edited.
+ * File contents are only read when their size or modification time differ from the {@link FileHashIndex}.
+ */
+public final class TreeFingerprint {
+
+    // Hashing is mostly I/O: same sizing as the pre-scan pool.
+    private static final ForkJoinPool POOL = new ForkJoinPool(Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+
+    // A file modified this recently may change again within the same timestamp tick: its hash is not persisted.
+    private static final long RACY_MILLIS = 2000;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final PathScanner scope;
+    private final FileHashIndex index;
+    private final Path excluded;
+    private final BooleanSupplier cancelled;
+
+    private final Set<String> seen = ConcurrentHashMap.newKeySet();
+    private final LongAdder hashed = new LongAdder();
+    private final LongAdder reused = new LongAdder();
+    private long startedAt;
+
+    /**
+     * Constructs a fingerprint (computed by {@link #compute()}).
+     *
+     * @param scope scanner describing the crawled tree (root, depth, recursion and ignore files).
+     * @param index known file hashes of this tree, updated as files are hashed.
+     * @param excluded file left out of the fingerprint, typically the crawl output itself (may be null).
+     * @param cancelled polled during the walk; true stops it.
+     */
+    public TreeFingerprint(PathScanner scope, FileHashIndex index, Path excluded, BooleanSupplier cancelled) {
+        this.scope = scope;
+        this.index = index;
+        this.excluded = (excluded != null) ? excluded.toAbsolutePath().normalize() : null;
+        this.cancelled = cancelled;
+    }
+
+    /**
+     * Walks the tree and computes the root hash. Blocks until done.
+     *
+     * @return hex-encoded root hash.
+     * @throws CancellationException if the walk was cancelled.
+     */
+    public String compute() {
+        startedAt = System.currentTimeMillis();
+        IgnoreMatcher matcher = scope.loadIgnoreMatcher();
+        byte[] root = POOL.invoke(new DirectoryTask(scope.getRoot(), new String[0], matcher));
+        index.sync(seen);
+        return HexFormat.of().formatHex(root);
+    }
+
+    /**
+     * Returns the number of files whose content had to be read.
+     *
+     * @return hashed file count.
+     */
+    public long getHashedFiles() {
+        return hashed.sum();
+    }
+
+    /**
+     * Returns the number of files whose hash was taken from the index.
+     *
+     * @return reused file count.
+     */
+    public long getReusedFiles() {
+        return reused.sum();
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns the content hash of a file, from the index when its stats are unchanged.
+     *
+     * @param file file to hash.
+     * @param relative path relative to the root.
+     * @param attributes current file attributes.
+     * @return content hash.
+     */
+    private byte[] fileHash(Path file, String relative, BasicFileAttributes attributes) {
+        long size = attributes.size();
+        long modified = attributes.lastModifiedTime().toMillis();
+        seen.add(relative);
+
+        String known = index.lookup(relative, size, modified);
+        if (known != null) {
+            reused.increment();
+            return HexFormat.of().parseHex(known);
+        }
+
+        MessageDigest digest = newDigest();
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            // Unreadable file (Crawlect cannot read it either): identified by its stats, never persisted.
+            digest.reset();
+            digest.update(("unreadable:" + size + ":" + modified).getBytes(StandardCharsets.UTF_8));
+            return digest.digest();
+        }
+        hashed.increment();
+
+        byte[] hash = digest.digest();
+        index.record(new FileHashIndex.Stamp(relative, size, modified, HexFormat.of().formatHex(hash)), modified < startedAt - RACY_MILLIS);
+        return hash;
+    }
+
+    /**
+     * Hashes one directory: its files directly, its subdirectories through forked tasks.
+     */
+    private final class DirectoryTask extends RecursiveTask<byte[]> {
+
+        private final Path dir;
+        // Path segments relative to the root; their count is the depth.
+        private final String[] segments;
+        private final IgnoreMatcher matcher;
+
+        DirectoryTask(Path dir, String[] segments, IgnoreMatcher matcher) {
+            this.dir = dir;
+            this.segments = segments;
+            this.matcher = matcher;
+        }
+
+        @Override
+        protected byte[] compute() {
+            if (cancelled.getAsBoolean()) {
+                throw new CancellationException("Fingerprint cancelled.");
+            }
+
+            int depth = segments.length;
+            String prefix = (depth == 0) ? "" : String.join("/", segments) + "/";
+            String[] entrySegments = Arrays.copyOf(segments, depth + 1);
+            // Sorted by name: the hash must not depend on the listing order.
+            Map<String, byte[]> files = new TreeMap<>();
+            Map<String, DirectoryTask> subdirectories = new TreeMap<>();
+            boolean unreadable = false;
+
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                for (Path entry : entries) {
+                    BasicFileAttributes attributes;
+                    try {
+                        attributes = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    } catch (IOException e) {
+                        continue;
+                    }
+                    if (!attributes.isDirectory() && !attributes.isRegularFile()) {
+                        continue;
+                    }
+                    String name = entry.getFileName().toString();
+                    entrySegments[depth] = name;
+                    if (matcher.isEntryIgnored(entrySegments, depth + 1, attributes.isDirectory())) {
+                        continue;
+                    }
+                    if (attributes.isDirectory()) {
+                        if (scope.isRecursive() && depth < scope.getMaxDepth()) {
+                            subdirectories.put(name, new DirectoryTask(entry, entrySegments.clone(), matcher));
+                        }
+                    } else if (excluded == null || !name.equals(excluded.getFileName().toString())
+                            || !entry.toAbsolutePath().normalize().equals(excluded)) {
+                        files.put(name, fileHash(entry, prefix + name, attributes));
+                    }
+                }
+            } catch (IOException | DirectoryIteratorException e) {
+                unreadable = true;
+            }
+
+            List<DirectoryTask> subtasks = new ArrayList<>(subdirectories.values());
+            invokeAll(subtasks);
+
+            MessageDigest digest = newDigest();
+            if (unreadable) {
+                digest.update((byte) '!');
+            }
+            for (Map.Entry<String, byte[]> file : files.entrySet()) {
+                update(digest, 'F', file.getKey(), file.getValue());
+            }
+            for (Map.Entry<String, DirectoryTask> subdirectory : subdirectories.entrySet()) {
+                update(digest, 'D', subdirectory.getKey(), subdirectory.getValue().join());
+            }
+            return digest.digest();
+        }
+
+        private static void update(MessageDigest digest, char kind, String name, byte[] hash) {
+            digest.update((byte) kind);
+            digest.update(name.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(hash);
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package ch.yvesguillo.controller;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/**
+ * Watches the tree Crawlect crawls and reports debounced bursts of changes.
+ *
+ * Directories are registered with a {@link WatchService} breadth-first, so the shallow (usually busiest) part
+ * of the tree gets native notifications. Past a budget of watches (a quarter of the inotify limit on Linux),
+ * the remaining "cold" directories are polled instead: each poll compares a signature of their entries' stats.
+ * The same depth, recursion and ignore rules as the crawl apply, and the crawl output never triggers a change.
+ *
+ * Events are coalesced: the callback fires once the tree has been quiet for the debounce window
+ * (or after {@value #MAX_DEFER_FACTOR} windows of continuous changes).
+ */
+public final class TreeWatcher implements AutoCloseable {
+
+    // Used when the platform limit cannot be read.
+    private static final int DEFAULT_WATCH_BUDGET = 8192;
+    private static final String INOTIFY_LIMIT_FILE = "/proc/sys/fs/inotify/max_user_watches";
+
+    private static final long POLL_SECONDS = 5;
+
+    // A burst that never settles still fires after this many debounce windows.
+    private static final int MAX_DEFER_FACTOR = 10;
+
+    /**
+     * Directory tracked by the watcher.
+     *
+     * @param path absolute directory path.
+     * @param segments path segments relative to the root; their count is the depth.
+     */
+    private record Directory(Path path, String[] segments) {
+    }
+
+    /**
+     * Directory polled for changes.
+     *
+     * @param directory the directory.
+     * @param signature signature of its entries at the last poll.
+     */
+    private record ColdDirectory(Directory directory, long signature) {
+    }
+
+    private final PathScanner scope;
+    private final Path excluded;
+    private final long debounceMillis;
+    private final IntConsumer onChange;
+    private final int watchBudget;
+
+    private final Map<WatchKey, Directory> watched = new ConcurrentHashMap<>();
+    private final Map<Path, ColdDirectory> polled = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "crawlect-watch-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicInteger pendingChanges = new AtomicInteger();
+
+    private WatchService service;
+    private IgnoreMatcher matcher;
+    private ScheduledFuture<?> pendingFire;
+    private long burstStartedAt;
+    private volatile boolean closed = false;
+
+    /**
+     * Constructs a watcher (watching starts with {@link #start()}).
+     *
+     * @param scope scanner describing the crawled tree (root, depth, recursion and ignore files).
+     * @param excluded file whose changes are ignored, typically the crawl output (may be null).
+     * @param debounceMillis quiet time required before a burst of changes is reported.
+     * @param onChange called on the timer thread with the number of changes in the burst.
+     */
+    public TreeWatcher(PathScanner scope, Path excluded, long debounceMillis, IntConsumer onChange) {
+        this.scope = scope;
+        this.excluded = (excluded != null) ? excluded.toAbsolutePath().normalize() : null;
+        this.debounceMillis = Math.max(0, debounceMillis);
+        this.onChange = onChange;
+        this.watchBudget = watchBudget();
+    }
+
+    /**
+     * Returns the number of directories the watcher may register natively.
+     * On Linux, the per-user inotify limit is shared with every other process (IDEs, file managers...),
+     * so only a quarter of it is used.
+     *
+     * @return watch budget.
+     */
+    private static int watchBudget() {
+        try {
+            Path limit = Path.of(INOTIFY_LIMIT_FILE);
+            if (Files.isReadable(limit)) {
+                return Math.max(256, Integer.parseInt(Files.readString(limit).trim()) / 4);
+            }
+        } catch (IOException | NumberFormatException e) {
+            // Fall through to the default.
+        }
+        return DEFAULT_WATCH_BUDGET;
+    }
+
+    /**
+     * Walks the tree, registers the watches and starts the watch and poll threads.
+     *
+     * @throws IOException if the watch service cannot be created.
+     */
+    public void start() throws IOException {
+        service = FileSystems.getDefault().newWatchService();
+        matcher = scope.loadIgnoreMatcher();
+        track(new Directory(scope.getRoot().toAbsolutePath().normalize(), new String[0]));
+
+        System.out.println("[Watch] Watching " + scope.getRoot() + ": " + watched.size() + " directories notified, "
+                + polled.size() + " polled every " + POLL_SECONDS + " s");
+
+        Thread.ofPlatform().daemon().name("crawlect-watch").start(this::watchLoop);
+        timer.scheduleWithFixedDelay(this::pollColdDirectories, POLL_SECONDS, POLL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Returns the number of natively watched directories.
+     *
+     * @return watched directory count.
+     */
+    public int getWatchedDirectories() {
+        return watched.size();
+    }
+
+    /**
+     * Returns the number of directories polled for changes.
+     *
+     * @return polled directory count.
+     */
+    public int getPolledDirectories() {
+        return polled.size();
+    }
+
+    /**
+     * Stops watching. Pending changes are dropped.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        timer.shutdownNow();
+        try {
+            if (service != null) {
+                service.close();
+            }
+        } catch (IOException e) {
+            System.err.println("[Watch] Could not close watch service: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Tracks a directory and its subdirectories, breadth-first: watched while the budget lasts, polled afterwards.
+     *
+     * @param top directory to track.
+     */
+    private void track(Directory top) {
+        Deque<Directory> queue = new ArrayDeque<>();
+        queue.add(top);
+        while (!queue.isEmpty() && !closed) {
+            Directory dir = queue.poll();
+            boolean isWatched = false;
+            if (watched.size() < watchBudget) {
+                try {
+                    WatchKey key = dir.path().register(service,
+                            StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+                    watched.put(key, dir);
+                    isWatched = true;
+                } catch (IOException e) {
+                    // Out of native watches or unreadable: poll it instead.
+                }
+            }
+            long signature = listSubdirectories(dir, queue);
+            if (!isWatched) {
+                polled.put(dir.path(), new ColdDirectory(dir, signature));
+            }
+        }
+    }
+
+    /**
+     * Lists a directory, queuing its included subdirectories (within the depth limit).
+     *
+     * @param dir directory to list.
+     * @param subdirectories receives the subdirectories (may be null).
+     * @return signature of the directory's included entries (names, sizes and modification times).
+     */
+    private long listSubdirectories(Directory dir, Deque<Directory> subdirectories) {
+        int depth = dir.segments().length;
+        String[] entrySegments = Arrays.copyOf(dir.segments(), depth + 1);
+        long signature = 0;
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir.path())) {
+            for (Path entry : entries) {
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                } catch (IOException e) {
+                    continue;
+                }
+                String name = entry.getFileName().toString();
+                entrySegments[depth] = name;
+                if (isExcluded(entry) || matcher.isEntryIgnored(entrySegments, depth + 1, attributes.isDirectory())) {
+                    continue;
+                }
+                // Order-independent: the listing order may vary between polls.
+                signature += (name.hashCode() * 31L + attributes.size()) * 31L + attributes.lastModifiedTime().toMillis();
+                if (attributes.isDirectory() && subdirectories != null && scope.isRecursive() && depth < scope.getMaxDepth()) {
+                    subdirectories.add(new Directory(entry, entrySegments.clone()));
+                }
+            }
+        } catch (IOException | DirectoryIteratorException e) {
+            return -1;
+        }
+        return signature;
+    }
+
+    private boolean isExcluded(Path entry) {
+        // The output file and the temporary copy the result cache restores it through.
+        return excluded != null && entry.getParent() != null && entry.getParent().equals(excluded.getParent())
+                && entry.getFileName().toString().startsWith(excluded.getFileName().toString());
+    }
+
+    /**
+     * Watch thread: filters native events and starts tracking new directories.
+     */
+    private void watchLoop() {
+        while (!closed) {
+            WatchKey key;
+            try {
+                key = service.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+
+            Directory dir = watched.get(key);
+            int changes = 0;
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    // Events were lost: assume something changed.
+                    changes++;
+                    continue;
+                }
+                if (dir == null || !(event.context() instanceof Path name)) {
+                    continue;
+                }
+                Path entry = dir.path().resolve(name);
+                if (isExcluded(entry)) {
+                    continue;
+                }
+                boolean isDirectory = Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS);
+                String[] segments = Arrays.copyOf(dir.segments(), dir.segments().length + 1);
+                segments[segments.length - 1] = name.toString();
+                if (matcher.isEntryIgnored(segments, segments.length, isDirectory)) {
+                    continue;
+                }
+                changes++;
+                if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && isDirectory
+                        && scope.isRecursive() && dir.segments().length < scope.getMaxDepth()) {
+                    track(new Directory(entry, segments));
+                }
+            }
+            if (!key.reset()) {
+                // Directory deleted (its parent reports the change).
+                watched.remove(key);
+            }
+            if (changes > 0) {
+                changed(changes);
+            }
+        }
+    }
+
+    /**
+     * Poll task: compares the signatures of the cold directories.
+     */
+    private void pollColdDirectories() {
+        int changes = 0;
+        for (ColdDirectory cold : polled.values()) {
+            if (closed) {
+                return;
+            }
+            Directory dir = cold.directory();
+            Deque<Directory> subdirectories = new ArrayDeque<>();
+            long signature = listSubdirectories(dir, subdirectories);
+            if (signature == cold.signature()) {
+                continue;
+            }
+            changes++;
+            if (signature == -1 && !Files.isDirectory(dir.path())) {
+                polled.remove(dir.path());
+                continue;
+            }
+            polled.put(dir.path(), new ColdDirectory(dir, signature));
+            for (Directory subdirectory : subdirectories) {
+                // New directory below a cold one: stays cold.
+                polled.computeIfAbsent(subdirectory.path(), path -> new ColdDirectory(subdirectory, listSubdirectories(subdirectory, null)));
+            }
+        }
+        if (changes > 0) {
+            changed(changes);
+        }
+    }
+
+    /**
+     * Records changes and (re)arms the debounce timer.
+     *
+     * @param changes number of changes seen.
+     */
+    private synchronized void changed(int changes) {
+        if (closed) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (pendingChanges.getAndAdd(changes) == 0) {
+            burstStartedAt = now;
+        }
+        if (pendingFire != null) {
+            pendingFire.cancel(false);
+        }
+        long deadline = Math.min(now + debounceMillis, burstStartedAt + debounceMillis * MAX_DEFER_FACTOR);
+        pendingFire = timer.schedule(this::fire, Math.max(0, deadline - now), TimeUnit.MILLISECONDS);
+    }
+
+    private void fire() {
+        int changes = takeChanges();
+        if (changes > 0 && !closed) {
+            onChange.accept(changes);
+        }
+    }
+
+    private synchronized int takeChanges() {
+        pendingFire = null;
+        return pendingChanges.getAndSet(0);
+    }
+}
@@ -5,30 +5,63 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 import ch.yvesguillo.model.CliOption;
 import ch.yvesguillo.model.CliSchemaParser;
+import ch.yvesguillo.model.OptionValues;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Singleton class responsible for managing user-level application settings.
  *
  * Saves and loads values from a config file located in a standard system path,
  * depending on the platform (Windows/macOS/Linux).
+ *
+ * Saving is write-behind: {@link #saveConfig(Map)} only records the values, and a background writer
+ * flushes the latest ones shortly after, replacing the file atomically. Rapid changes (e.g. typing) coalesce
+ * into a single write, and pending values are flushed on exit.
  */
 public final class UserSettings {
 
     private static UserSettings instance;
 
-    private final Map<CliOption, Object> storedValues = new HashMap<>();
+    // Quiet time coalescing successive saves into one write.
+    private static final long SAVE_DELAY_MILLIS = 500;
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private static final Metrics.Timer LOAD_TIMER = Metrics.timer("settings.load");
+    private static final Metrics.Counter SAVE_REQUESTS = Metrics.counter("settings.save.requests");
+    private static final Metrics.Timer WRITE_TIMER = Metrics.timer("settings.write");
+
     private final File configFile;
+    private Map<String, Object> preloadedConfig;
+
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "crawlect-settings-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Serializes the file writes.
+    private final ReentrantLock writeLock = new ReentrantLock();
+    // Pending values, guarded by this.
+    private Map<String, Object> pendingConfig;
+    private boolean flushScheduled = false;
 
     private UserSettings(String appName) {
         if (appName == null || appName.isBlank()) {
             throw new IllegalArgumentException("Missing app name for UserSettings.");
         }
         this.configFile = resolveUserConfigFile(appName);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "crawlect-settings-flush"));
     }
 
     /**
@@ -56,6 +89,15 @@ public final class UserSettings {
         return instance;
     }
 
+    /**
+     * Tells whether the singleton has been initialized.
+     *
+     * @return true if {@link #getInstance()} can be called.
+     */
+    public static synchronized boolean isInitialized() {
+        return instance != null;
+    }
+
     /**
      * Returns the already-initialized singleton instance.
      *
@@ -104,58 +146,191 @@ public final class UserSettings {
     }
 
     /**
-     * Saves the current stored values to disk as JSON.
+     * Returns the directory holding the config file; other persistent caches live next to it.
+     *
+     * @return config directory.
      */
-    public void saveConfig( Map<CliOption, Object> newConfig) {
+    public File getConfigDirectory() {
+        return configFile.getParentFile();
+    }
+
+    /**
+     * Schedules the given values to be saved to disk as JSON. Returns immediately:
+     * the values are copied, and written by the background writer (see {@link #flush()}).
+     * Must be called on the thread owning the map (e.g. the EDT for the GUI values).
+     *
+     * @param newConfig values to save.
+     */
+    public void saveConfig(Map<CliOption, Object> newConfig) {
         // Convert CliOption keys to String keys (primary flags) before saving.
-        Map<String, Object> simpleMap = new HashMap<>();
+        Map<String, Object> simpleMap = toSimpleValues(newConfig);
+        SAVE_REQUESTS.increment();
 
-        for (Map.Entry<CliOption, Object> entry : newConfig.entrySet()) {
-            simpleMap.put(entry.getKey().getPrimaryFlag(), entry.getValue());
+        synchronized (this) {
+            // Later values supersede unwritten ones.
+            pendingConfig = simpleMap;
+            if (!flushScheduled) {
+                flushScheduled = true;
+                writer.schedule(this::flush, SAVE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Writes the pending values, if any, now. Blocks until written.
+     * Called by the background writer, and on exit.
+     */
+    public void flush() {
+        writeLock.lock();
+        try {
+            Map<String, Object> simpleMap;
+            synchronized (this) {
+                simpleMap = pendingConfig;
+                pendingConfig = null;
+                flushScheduled = false;
+            }
+            if (simpleMap == null) {
+                return;
+            }
+
+            try {
+                writeConfigFile(simpleMap);
+                System.out.println("[Config] Saved to: " + configFile.getAbsolutePath());
+            } catch (IOException e) {
+                System.err.println("[Config] Save failed (will retry on next change or exit): " + e.getMessage());
+                synchronized (this) {
+                    if (pendingConfig == null) {
+                        pendingConfig = simpleMap;
+                    }
+                }
+            }
+        } finally {
+            writeLock.unlock();
         }
+    }
 
-        try (FileWriter writer = new FileWriter(configFile)) {
-            new ObjectMapper()
-                    .writerWithDefaultPrettyPrinter()
-                    .writeValue(writer, simpleMap);
-            System.out.println("[Config] Saved to: " + configFile.getAbsolutePath());
-        } catch (IOException e) {
-            System.err.println("[Config] Save failed: " + e.getMessage());
+    /**
+     * Writes the config file to a temporary file, then moves it over the previous one,
+     * so that a crash never leaves a truncated config behind.
+     *
+     * @param simpleMap values keyed by primary flag.
+     * @throws IOException if the file cannot be written.
+     */
+    private void writeConfigFile(Map<String, Object> simpleMap) throws IOException {
+        long start = WRITE_TIMER.start();
+        Path target = configFile.toPath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        mapper.writerWithDefaultPrettyPrinter().writeValue(temp.toFile(), simpleMap);
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        WRITE_TIMER.stop(start);
+    }
+
+    /**
+     * Reads the config file ahead of time, so that {@link #loadConfig()} only has to map it to CLI options.
+     * Can be called before the CLI schema is available (e.g. concurrently with its loading).
+     */
+    public void preloadConfig() {
+        Map<String, Object> simpleMap = readConfigFile();
+        synchronized (this) {
+            preloadedConfig = simpleMap;
         }
     }
 
     /**
      * Loads settings from disk and maps them to known CLI options.
      * Matching is done by each option's primary flag.
+     * Uses the preloaded file content if {@link #preloadConfig()} was called.
      *
-     * @return a map of loaded settings with {@link CliOption} keys.
+     * @return a new map of loaded settings with {@link CliOption} keys.
      */
     public Map<CliOption, Object> loadConfig() {
-        storedValues.clear(); // Optional: reset before loading
+        Map<String, Object> simpleMap;
+        synchronized (this) {
+            simpleMap = preloadedConfig;
+            preloadedConfig = null;
+        }
+        if (simpleMap == null) {
+            simpleMap = readConfigFile();
+        }
+        return (simpleMap != null) ? toOptionValues(simpleMap) : new OptionValues();
+    }
 
+    /**
+     * Returns the config file path.
+     *
+     * @return config file (may not exist yet).
+     */
+    public File getConfigFile() {
+        return configFile;
+    }
+
+    /**
+     * Maps raw settings to known CLI options, by each option's primary flag.
+     * Keys matching no option are ignored.
+     *
+     * @param simpleMap values keyed by primary flag.
+     * @return values keyed by {@link CliOption}.
+     */
+    public static Map<CliOption, Object> toOptionValues(Map<String, Object> simpleMap) {
+        Map<CliOption, Object> values = new OptionValues();
+        for (CliOption option : CliSchemaParser.getInstance().getAllOptions()) {
+            String key = option.getPrimaryFlag();
+            if (simpleMap.containsKey(key)) {
+                values.put(option, simpleMap.get(key));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Maps option values to raw settings, keyed by each option's primary flag (the config file format).
+     *
+     * @param values values keyed by {@link CliOption}.
+     * @return values keyed by primary flag, in the map's iteration order.
+     */
+    public static Map<String, Object> toSimpleValues(Map<CliOption, Object> values) {
+        Map<String, Object> simpleMap = new LinkedHashMap<>();
+        for (Map.Entry<CliOption, Object> entry : values.entrySet()) {
+            simpleMap.put(entry.getKey().getPrimaryFlag(), entry.getValue());
+        }
+        return simpleMap;
+    }
+
+    /**
+     * Reads a settings file in the config file format (values keyed by primary flag).
+     *
+     * @param file settings file.
+     * @return raw values keyed by primary flag.
+     * @throws IOException if the file cannot be read or parsed.
+     */
+    public static Map<String, Object> readSettingsFile(File file) throws IOException {
+        return mapper.readValue(file, new TypeReference<Map<String, Object>>() {});
+    }
+
+    /**
+     * Reads the raw config file content.
+     *
+     * @return values keyed by primary flag, or null if no readable config file exists.
+     */
+    private Map<String, Object> readConfigFile() {
         if (!configFile.exists()) {
             System.out.println("[Config] No config file found at: " + configFile.getAbsolutePath());
-            return storedValues;
+            return null;
         }
 
+        long start = LOAD_TIMER.start();
         try {
-            Map<String, Object> simpleMap = new ObjectMapper().readValue(
-                configFile,
-                new TypeReference<Map<String, Object>>() {}
-            );
-
-            for (CliOption option : CliSchemaParser.getInstance().getAllOptions()) {
-                String key = option.getPrimaryFlag();
-                if (simpleMap.containsKey(key)) {
-                    storedValues.put(option, simpleMap.get(key));
-                }
-            }
-
+            Map<String, Object> simpleMap = readSettingsFile(configFile);
+            LOAD_TIMER.stop(start);
             System.out.println("[Config] Loaded from: " + configFile.getAbsolutePath());
+            return simpleMap;
         } catch (IOException e) {
             System.err.println("[Config] Load failed: " + e.getMessage());
+            return null;
         }
-
-        return storedValues;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,146 @@
+package ch.yvesguillo.controller;
+
+import ch.yvesguillo.model.CliOption;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Singleton validating option values with their {@link OptionValidator}, off the EDT.
+ *
+ * {@link #validateLater(CliOption, Object, Consumer)} debounces the checks of a field being typed in:
+ * only the last value typed within {@link #DEBOUNCE_MILLIS} is checked, on a virtual thread, and the verdict of
+ * a value edited meanwhile is dropped. File system checks go through a shared {@link PathProbe}, so a slow mount
+ * delays a verdict by {@link PathProbe#TIMEOUT_MILLIS} at most, and the check before a run mostly reuses the
+ * answers found while typing.
+ */
+public final class ValidationEngine {
+
+    public static final long DEBOUNCE_MILLIS = 300;
+
+    private static final Metrics.Timer VALIDATE_TIMER = Metrics.timer("validation.check");
+
+    private static ValidationEngine instance;
+
+    private final PathProbe probes = new PathProbe();
+    private final ScheduledExecutorService debouncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "crawlect-validation-debounce");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<CliOption, ScheduledFuture<?>> scheduled = new ConcurrentHashMap<>();
+    // Latest edit of each option: verdicts of older edits are stale.
+    private final Map<CliOption, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    // Private constructor to enforce singleton pattern.
+    private ValidationEngine() {
+    }
+
+    /**
+     * Lazily creates the singleton.
+     *
+     * @return singleton instance of ValidationEngine.
+     */
+    public static synchronized ValidationEngine lazyGetInstance() {
+        if (instance == null) {
+            instance = new ValidationEngine();
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the file system probes shared by all checks.
+     *
+     * @return the probes.
+     */
+    public PathProbe getProbes() {
+        return probes;
+    }
+
+    /**
+     * Checks a value once it stopped changing for {@link #DEBOUNCE_MILLIS}, in the background.
+     *
+     * @param option edited option.
+     * @param value its new value.
+     * @param callback receives the verdict, from a background thread (GUI callers must hop to the EDT),
+     *                 unless the option was edited again meanwhile.
+     */
+    public void validateLater(CliOption option, Object value, Consumer<OptionValidator.Verdict> callback) {
+        AtomicLong generation = generations.computeIfAbsent(option, key -> new AtomicLong());
+        long edit = generation.incrementAndGet();
+        ScheduledFuture<?> previous = scheduled.put(option, debouncer.schedule(() -> executor.submit(() -> {
+            if (generation.get() != edit) {
+                return;
+            }
+            OptionValidator.Verdict verdict;
+            try {
+                verdict = validate(option, value);
+            } catch (RuntimeException e) {
+                System.err.println("[Validation] Could not check " + option.getPrimaryFlag() + ": " + e.getMessage());
+                return;
+            }
+            if (generation.get() == edit) {
+                callback.accept(verdict);
+            }
+        }), DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS));
+        if (previous != null) {
+            previous.cancel(false);
+        }
+    }
+
+    /**
+     * Checks a value now: the value itself, then its path if any (time-bounded).
+     *
+     * @param option the option.
+     * @param value its value.
+     * @return the verdict.
+     */
+    public OptionValidator.Verdict validate(CliOption option, Object value) {
+        long start = VALIDATE_TIMER.start();
+        try {
+            OptionValidator validator = OptionValidator.of(option);
+            OptionValidator.Verdict verdict = validator.check(value);
+            if (verdict.isError() || !validator.needsProbe(value)) {
+                return verdict;
+            }
+            return validator.probe(value.toString(), probes);
+        } finally {
+            VALIDATE_TIMER.stop(start);
+        }
+    }
+
+    /**
+     * Checks the values of several options now, their file system probes running concurrently.
+     *
+     * @param options options to check.
+     * @param values values keyed by option.
+     * @return the errors and warnings, in the order of the options (valid options are left out).
+     */
+    public Map<CliOption, OptionValidator.Verdict> validateAll(Iterable<CliOption> options, Map<CliOption, Object> values) {
+        // Start every probe first: slow mounts are then awaited together, not one after the other.
+        for (CliOption option : options) {
+            Object value = values.get(option);
+            if (OptionValidator.of(option).needsProbe(value)) {
+                executor.submit(() -> validate(option, value));
+            }
+        }
+
+        Map<CliOption, OptionValidator.Verdict> verdicts = new LinkedHashMap<>();
+        for (CliOption option : options) {
+            OptionValidator.Verdict verdict = validate(option, values.get(option));
+            if (verdict.level() != OptionValidator.Level.OK) {
+                verdicts.put(option, verdict);
+            }
+        }
+        return verdicts;
+    }
+}
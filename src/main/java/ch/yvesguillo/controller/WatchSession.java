@@ -0,0 +1,212 @@
+package ch.yvesguillo.controller;
+
+import ch.yvesguillo.model.CrawlJob;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+
+/**
+ * Watch mode: re-runs Crawlect whenever the crawled tree changes, until stopped.
+ *
+ * Changes are detected and debounced by a {@link TreeWatcher}. At most one run is in flight:
+ * a burst of changes arriving while Crawlect runs cancels that (already outdated) run,
+ * and a single fresh run starts once it has ended. Runs go through the {@link JobScheduler}, ahead of queued jobs.
+ * Runs write to a staging file next to the output, moved over it only once a run succeeds:
+ * the last good digest stays in place while a run is superseded or fails.
+ */
+public final class WatchSession {
+
+    /** Default quiet time before a burst of changes triggers a run. */
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 750;
+
+    private final List<String> args;
+    private final Path output;
+    // Where runs write, moved over the output on success. Its name starts with the output's, so the watcher ignores it.
+    private final Path staging;
+    private final Consumer<String> lineListener;
+    private final Consumer<String> statusListener;
+    private final TreeWatcher watcher;
+
+    // Run state, guarded by this.
+    private CrawlJob current;
+    private boolean rerunPending = false;
+    private boolean stopped = false;
+
+    /**
+     * Constructs a session (watching starts with {@link #start()}).
+     *
+     * @param args Crawlect CLI arguments; must include {@code --path}.
+     * @param debounceMillis quiet time before a burst of changes triggers a run.
+     * @param lineListener receives the output of every run and the session messages.
+     * @param statusListener receives a short status text whenever the session state changes.
+     * @throws IllegalArgumentException if the arguments have no path.
+     */
+    public WatchSession(List<String> args, long debounceMillis, Consumer<String> lineListener, Consumer<String> statusListener) {
+        PathScanner scope = PathScanner.fromArgs(args);
+        if (scope == null) {
+            throw new IllegalArgumentException("Watch mode needs a path to crawl.");
+        }
+        this.output = outputOf(args);
+        this.staging = (output != null) ? output.resolveSibling(output.getFileName() + ".crawlect-watch.tmp") : null;
+        this.args = (staging != null) ? withOutput(args, staging) : List.copyOf(args);
+        this.lineListener = lineListener;
+        this.statusListener = statusListener;
+        this.watcher = new TreeWatcher(scope, output, debounceMillis, this::treeChanged);
+    }
+
+    private static Path outputOf(List<String> args) {
+        for (int i = 0; i + 1 < args.size(); i++) {
+            if (args.get(i).equals("--output") || args.get(i).equals("-o")) {
+                return Path.of(args.get(i + 1));
+            }
+        }
+        return null;
+    }
+
+    private static List<String> withOutput(List<String> args, Path output) {
+        List<String> copy = new ArrayList<>(args);
+        for (int i = 0; i + 1 < copy.size(); i++) {
+            if (copy.get(i).equals("--output") || copy.get(i).equals("-o")) {
+                copy.set(i + 1, output.toString());
+            }
+        }
+        return List.copyOf(copy);
+    }
+
+    /**
+     * Registers the watches and runs Crawlect once right away.
+     * Registering may take a while on large trees: do not call from the EDT.
+     *
+     * @throws IOException if the tree cannot be watched.
+     */
+    public void start() throws IOException {
+        if (staging != null) {
+            // Left over by a session that ended abruptly.
+            Files.deleteIfExists(staging);
+        }
+        statusListener.accept("Watch: registering…");
+        watcher.start();
+        lineListener.accept(String.format("[Watch] Watching for changes (%,d directories notified, %,d polled)",
+                watcher.getWatchedDirectories(), watcher.getPolledDirectories()));
+        synchronized (this) {
+            if (!stopped) {
+                startRun("Initial run");
+            }
+        }
+    }
+
+    /**
+     * Stops watching and cancels the run in flight, if any.
+     */
+    public void stop() {
+        watcher.close();
+        CrawlJob running;
+        synchronized (this) {
+            stopped = true;
+            rerunPending = false;
+            running = current;
+        }
+        if (running != null) {
+            JobScheduler.lazyGetInstance().cancel(running);
+        }
+        lineListener.accept("[Watch] Stopped");
+    }
+
+    /**
+     * Debounced change callback: runs Crawlect, or supersedes the run in flight.
+     *
+     * @param changes number of changes in the burst.
+     */
+    private void treeChanged(int changes) {
+        CrawlJob outdated = null;
+        synchronized (this) {
+            if (stopped) {
+                return;
+            }
+            if (current == null) {
+                startRun(changes + " change(s) detected");
+            } else if (!rerunPending) {
+                // The run in flight started from an outdated tree: cancel it, rerun once it has ended.
+                rerunPending = true;
+                outdated = current;
+            }
+        }
+        if (outdated != null) {
+            lineListener.accept("[Watch] " + changes + " change(s) detected, superseding run #" + outdated.getId());
+            JobScheduler.lazyGetInstance().cancel(outdated);
+        }
+    }
+
+    /**
+     * Submits a run. Must be called while synchronized on this session.
+     *
+     * @param reason why the run starts (logged).
+     */
+    private void startRun(String reason) {
+        JobScheduler scheduler = JobScheduler.lazyGetInstance();
+        CrawlJob job = scheduler.createJob(args);
+        current = job;
+        lineListener.accept("[Watch] " + reason + ", running Crawlect (#" + job.getId() + ")");
+        statusListener.accept("Watch: crawling…");
+
+        scheduler.submit(job, true, lineListener).whenComplete((capture, error) -> {
+            if (capture != null) {
+                capture.close();
+            }
+            publish(job);
+            String status = switch (job.getState()) {
+                case SUCCEEDED -> "Watch: up to date (run #" + job.getId() + ")";
+                case CANCELLED -> "Watch: superseded";
+                default -> "Watch: last run failed (" + job.getMessage() + ")";
+            };
+            if (error != null && !(error instanceof CancellationException)) {
+                lineListener.accept("[Error] " + error.getMessage());
+            }
+
+            synchronized (this) {
+                current = null;
+                if (stopped) {
+                    return;
+                }
+                if (rerunPending) {
+                    rerunPending = false;
+                    startRun("Tree changed during run #" + job.getId());
+                    return;
+                }
+            }
+            statusListener.accept(status);
+        });
+    }
+
+    /**
+     * Moves the staging file of a successful run over the output; drops it otherwise.
+     *
+     * @param job the ended run.
+     */
+    private void publish(CrawlJob job) {
+        if (staging == null || !Files.isRegularFile(staging)) {
+            return;
+        }
+        try {
+            if (job.getState() == CrawlJob.State.SUCCEEDED) {
+                Files.move(staging, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                ValidationEngine.lazyGetInstance().getProbes().invalidate(output.toAbsolutePath().normalize());
+                return;
+            }
+        } catch (IOException e) {
+            lineListener.accept("[Watch] Could not update " + output + ": " + e.getMessage());
+        }
+        try {
+            // The next run starts from a clean slate.
+            Files.deleteIfExists(staging);
+        } catch (IOException e) {
+            lineListener.accept("[Watch] Could not delete " + staging + ": " + e.getMessage());
+        }
+    }
+}
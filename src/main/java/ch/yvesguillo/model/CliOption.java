@@ -10,6 +10,8 @@ import java.util.Objects;
  *
  * Each {@code CliOption} corresponds to one logical argument (e.g., {@code --output}).
  * Fields are populated via Jackson from a JSON source, typically generated by Crawlect.
+ * {@link #postProcess(int)} then compiles the derived fields once: the option is used as a hash key
+ * everywhere, so its flags, hash and position in the schema are never recomputed afterwards.
  */
 public class CliOption {
 
@@ -33,6 +35,13 @@ public class CliOption {
     public boolean isBoolean;
     public boolean hasChoices;
 
+    // Compiled by postProcess (flags are interned: equal flags are the same instance).
+    private String primaryFlag;
+    private String negativeFlag;
+    private String shortFlag = "";
+    private int hash;
+    private int ordinal = -1;
+
     /**
      * Empty constructor required for Jackson.
      */
@@ -40,15 +49,43 @@ public class CliOption {
     }
 
     /**
-     * Performs post-processing to compute derived flags.
+     * Performs post-processing to compute derived fields.
+     *
+     * Should be called once, after JSON deserialization.
      *
-     * Should be called after JSON deserialization.
+     * @param ordinal position of the option in its schema.
      */
-    public void postProcess() {
-        this.isBoolean = flags.stream().anyMatch(f -> f.startsWith("--no-"));
+    void postProcess(int ordinal) {
+        this.flags = flags.stream().map(String::intern).toList();
+        for (String flag : flags) {
+            if (primaryFlag == null && flag.startsWith("--")) {
+                primaryFlag = flag;
+            }
+            if (negativeFlag == null && flag.startsWith("--no-")) {
+                negativeFlag = flag;
+            }
+            if (shortFlag.isEmpty() && flag.startsWith("-") && !flag.startsWith("--")) {
+                shortFlag = flag;
+            }
+        }
+        if (primaryFlag == null) {
+            primaryFlag = flags.get(0);
+        }
+        this.hash = primaryFlag.hashCode();
+        this.ordinal = ordinal;
+        this.isBoolean = negativeFlag != null;
         this.hasChoices = choices != null && !choices.isEmpty();
     }
 
+    /**
+     * Returns the position of the option in its schema, dense from 0 (usable as an array index).
+     *
+     * @return ordinal, or -1 if the option was not compiled by a schema.
+     */
+    public int getOrdinal() {
+        return ordinal;
+    }
+
     /**
      * Returns the primary long-form flag (e.g., {@code --output}).
      * Falls back to the first flag if none start with {@code --}.
@@ -56,10 +93,7 @@ public class CliOption {
      * @return primary CLI flag.
      */
     public String getPrimaryFlag() {
-        return flags.stream()
-                .filter(f -> f.startsWith("--"))
-                .findFirst()
-                .orElse(flags.get(0));
+        return primaryFlag;
     }
 
     /**
@@ -68,10 +102,7 @@ public class CliOption {
      * @return negative flag or null.
      */
     public String getNegativeFlag() {
-        return flags.stream()
-                .filter(f -> f.startsWith("--no-"))
-                .findFirst()
-                .orElse(null);
+        return negativeFlag;
     }
 
     /**
@@ -80,10 +111,7 @@ public class CliOption {
      * @return short CLI flag or empty string.
      */
     public String getShortFlag() {
-        return flags.stream()
-                .filter(f -> f.startsWith("-") && !f.startsWith("--"))
-                .findFirst()
-                .orElse("");
+        return shortFlag;
     }
 
     /**
@@ -155,12 +183,12 @@ public class CliOption {
         if (this == obj) return true;
         if (obj == null || getClass() != obj.getClass()) return false;
         CliOption other = (CliOption) obj;
-        return Objects.equals(getPrimaryFlag(), other.getPrimaryFlag());
+        return hash == other.hash && Objects.equals(primaryFlag, other.primaryFlag);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(getPrimaryFlag());
+        return hash;
     }
 
     @Override
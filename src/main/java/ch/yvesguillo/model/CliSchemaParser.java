@@ -4,25 +4,59 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * Singleton class that parses a JSON CLI schema and creates usable {@link CliOption} parameter objects.
  *
+ * The parsed schema is compiled once and immutable: options are numbered in schema order
+ * (see {@link CliOption#getOrdinal()}) and indexed by group and by flag.
+ *
  * You can use {@link #initialize(String)} to explicitly initialize then {@link #getInstance(String)} to retrive the singleton, or {@link #lazyGetInstance(String)} to auto-initialize on first access.
  */
 public final class CliSchemaParser {
 
     private static CliSchemaParser instance;
     private final List<CliOption> options;
+    // Options by group, groups sorted by name; computed once as the schema never changes.
+    private final Map<String, List<CliOption>> optionsByGroup;
+    // Options by any of their flags (long, short or negative).
+    private final Map<String, CliOption> optionsByFlag;
 
     private CliSchemaParser(String jsonContent) throws IOException {
         ObjectMapper mapper = new ObjectMapper();
-        this.options = mapper.readValue(jsonContent, new TypeReference<>() {});
-        for (CliOption option : options) {
-            option.postProcess();
+        List<CliOption> parsed = mapper.readValue(jsonContent, new TypeReference<>() {});
+        Map<String, List<CliOption>> groups = new TreeMap<>();
+        Map<String, CliOption> flagIndex = new HashMap<>();
+        for (int i = 0; i < parsed.size(); i++) {
+            CliOption option = parsed.get(i);
+            option.postProcess(i);
+            groups.computeIfAbsent(option.group, group -> new ArrayList<>()).add(option);
+            for (String flag : option.flags) {
+                // First option wins, as when scanning the schema in order.
+                flagIndex.putIfAbsent(flag, option);
+            }
         }
+        groups.replaceAll((group, groupOptions) -> List.copyOf(groupOptions));
+        this.options = List.copyOf(parsed);
+        this.optionsByGroup = Collections.unmodifiableMap(groups);
+        this.optionsByFlag = Map.copyOf(flagIndex);
+    }
+
+    /**
+     * Parses a schema into a standalone parser, leaving the singleton untouched (e.g. for benchmarks).
+     *
+     * @param jsonContent JSON CLI schema.
+     * @return a new parser.
+     * @throws IOException if the schema cannot be parsed.
+     */
+    public static CliSchemaParser parse(String jsonContent) throws IOException {
+        return new CliSchemaParser(jsonContent);
     }
 
     /**
@@ -74,34 +108,47 @@ public final class CliSchemaParser {
     /**
      * Returns all parsed CLI options.
      *
-     * @return List of {@link CliOption}.
+     * @return Unmodifiable list of {@link CliOption}, in schema order (index = ordinal).
      */
     public List<CliOption> getAllOptions() {
         return options;
     }
 
+    /**
+     * Returns the number of options, i.e. the bound of their ordinals.
+     *
+     * @return option count.
+     */
+    public int getOptionCount() {
+        return options.size();
+    }
+
+    /**
+     * Returns the option accepting the given flag.
+     *
+     * @param flag any flag of the option (long, short or negative).
+     * @return the option, or null if unknown.
+     */
+    public CliOption findOption(String flag) {
+        return (flag == null) ? null : optionsByFlag.get(flag);
+    }
+
     /**
      * Returns a list of unique groups defined in the CLI options.
      *
      * @return List of group names.
      */
     public List<String> getGroups() {
-        return options.stream()
-                .map(o -> o.group)
-                .distinct()
-                .sorted()
-                .collect(Collectors.toList());
+        return new ArrayList<>(optionsByGroup.keySet());
     }
 
     /**
      * Returns all CLI options that belong to the specified group.
      *
      * @param groupName Name of the group.
-     * @return List of {@link CliOption} in that group.
+     * @return Unmodifiable list of {@link CliOption} in that group (empty for an unknown group).
      */
     public List<CliOption> getOptionsForGroup(String groupName) {
-        return options.stream()
-                .filter(o -> o.group.equals(groupName))
-                .collect(Collectors.toList());
+        return optionsByGroup.getOrDefault(groupName, List.of());
     }
 }
\ No newline at end of file
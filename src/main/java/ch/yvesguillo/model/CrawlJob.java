@@ -0,0 +1,224 @@
+package ch.yvesguillo.model;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * One Crawlect run submitted to the job queue.
+ *
+ * Holds an immutable snapshot of the CLI arguments, so the user can keep editing options
+ * (or enqueue other runs) while the job waits or runs. State fields are updated by the scheduler.
+ */
+public class CrawlJob {
+
+    /**
+     * Lifecycle of a job.
+     */
+    public enum State {
+        QUEUED, RUNNING, SUCCEEDED, FAILED, CANCELLED;
+
+        /**
+         * Tells whether the job has ended.
+         *
+         * @return true for the final states.
+         */
+        public boolean isFinished() {
+            return this == SUCCEEDED || this == FAILED || this == CANCELLED;
+        }
+    }
+
+    private final int id;
+    private final List<String> args;
+    private final String path;
+    private final String output;
+
+    private volatile State state = State.QUEUED;
+    private volatile long startedAt = 0;
+    private volatile long finishedAt = 0;
+    private volatile Integer exitCode = null;
+    private volatile String message = "";
+    private volatile long scannedFiles = -1;
+    private volatile long scannedBytes = -1;
+
+    /**
+     * Constructs a queued job.
+     *
+     * @param id Job number, unique within the session.
+     * @param args Crawlect CLI arguments (copied).
+     */
+    public CrawlJob(int id, List<String> args) {
+        this.id = id;
+        this.args = List.copyOf(args);
+        this.path = valueOf(args, "--path", "-p", ".");
+        this.output = valueOf(args, "--output", "-o", "(dynamic)");
+    }
+
+    /**
+     * Returns the value following a flag in the argument list.
+     *
+     * @param args argument list.
+     * @param longFlag long form of the flag.
+     * @param shortFlag short form of the flag.
+     * @param fallback value returned if the flag is absent.
+     * @return flag value or fallback.
+     */
+    private static String valueOf(List<String> args, String longFlag, String shortFlag, String fallback) {
+        for (int i = 0; i + 1 < args.size(); i++) {
+            if (args.get(i).equals(longFlag) || args.get(i).equals(shortFlag)) {
+                return args.get(i + 1);
+            }
+        }
+        return fallback;
+    }
+
+    /**
+     * Returns the job number.
+     *
+     * @return job number.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Returns the Crawlect CLI arguments of this job.
+     *
+     * @return immutable argument list.
+     */
+    public List<String> getArgs() {
+        return args;
+    }
+
+    /**
+     * Returns the crawled path (value of {@code --path}).
+     *
+     * @return path to crawl.
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Returns the output file (value of {@code --output}).
+     *
+     * @return output file path, or a placeholder for dynamic names.
+     */
+    public String getOutput() {
+        return output;
+    }
+
+    /**
+     * Returns the output file, if the arguments name one.
+     *
+     * @return output file path, or null for dynamic names.
+     */
+    public Path getOutputFile() {
+        String value = valueOf(args, "--output", "-o", null);
+        return (value != null) ? Path.of(value) : null;
+    }
+
+    /**
+     * Returns the current state.
+     *
+     * @return job state.
+     */
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Returns the Crawlect exit code.
+     *
+     * @return exit code, or null if unknown.
+     */
+    public Integer getExitCode() {
+        return exitCode;
+    }
+
+    /**
+     * Returns the outcome description.
+     *
+     * @return message (empty until finished).
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Records the pre-scan totals of the crawled tree.
+     *
+     * @param files number of files Crawlect will include.
+     * @param bytes their total size.
+     */
+    public void setScanTotals(long files, long bytes) {
+        this.scannedFiles = files;
+        this.scannedBytes = bytes;
+    }
+
+    /**
+     * Returns the number of files found by the pre-scan.
+     *
+     * @return file count, or -1 if the tree was not pre-scanned.
+     */
+    public long getScannedFiles() {
+        return scannedFiles;
+    }
+
+    /**
+     * Returns the total size of the files found by the pre-scan.
+     *
+     * @return size in bytes, or -1 if the tree was not pre-scanned.
+     */
+    public long getScannedBytes() {
+        return scannedBytes;
+    }
+
+    /**
+     * Returns when the job started.
+     *
+     * @return epoch milliseconds, 0 if not started.
+     */
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    /**
+     * Marks the job as started now.
+     */
+    public void markRunning() {
+        startedAt = System.currentTimeMillis();
+        state = State.RUNNING;
+    }
+
+    /**
+     * Marks the job as ended.
+     *
+     * @param finalState One of the final states.
+     * @param exitCode Crawlect exit code, if known (may be null).
+     * @param message Short outcome description.
+     */
+    public void markFinished(State finalState, Integer exitCode, String message) {
+        this.finishedAt = System.currentTimeMillis();
+        this.exitCode = exitCode;
+        this.message = (message != null) ? message : "";
+        this.state = finalState;
+    }
+
+    /**
+     * Returns the run duration so far (or total once finished).
+     *
+     * @return duration in milliseconds, 0 if not started.
+     */
+    public long getDurationMillis() {
+        if (startedAt == 0) {
+            return 0;
+        }
+        long end = (finishedAt != 0) ? finishedAt : System.currentTimeMillis();
+        return end - startedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "#" + id + " " + path + " → " + output + " [" + state + "]";
+    }
+}
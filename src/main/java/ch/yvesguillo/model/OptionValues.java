@@ -0,0 +1,249 @@
+package ch.yvesguillo.model;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Values of CLI options, stored in a dense array indexed by {@link CliOption#getOrdinal()}.
+ *
+ * A drop-in {@link Map} for the option values the GUI and the batch mode pass around:
+ * lookups are a bounds check and an array access, nothing is hashed, and iteration follows the schema order.
+ * Only options of the schema the map was created for can be keys. Not thread-safe, like {@link java.util.HashMap}.
+ */
+public final class OptionValues extends AbstractMap<CliOption, Object> {
+
+    // Stands for a null value, so that null slots mean "absent".
+    private static final Object NULL = new Object();
+
+    private final List<CliOption> options;
+    private final Object[] values;
+    private int size = 0;
+    private Set<Map.Entry<CliOption, Object>> entrySet;
+
+    /**
+     * Creates an empty map for the options of the current schema.
+     *
+     * @throws IllegalStateException if the schema has not been loaded.
+     */
+    public OptionValues() {
+        this(CliSchemaParser.getInstance().getAllOptions());
+    }
+
+    /**
+     * Creates a map for the options of the current schema, holding a copy of the given values.
+     *
+     * @param source values to copy.
+     * @throws IllegalStateException if the schema has not been loaded.
+     * @throws IllegalArgumentException if a key is not an option of the schema.
+     */
+    public OptionValues(Map<CliOption, ?> source) {
+        this();
+        if (source instanceof OptionValues other && other.options == options) {
+            System.arraycopy(other.values, 0, values, 0, values.length);
+            size = other.size;
+        } else {
+            putAll(source);
+        }
+    }
+
+    /**
+     * Creates an empty map for the given options.
+     *
+     * @param options options of a schema, in ordinal order.
+     */
+    OptionValues(List<CliOption> options) {
+        this.options = options;
+        this.values = new Object[options.size()];
+    }
+
+    /**
+     * Returns the array slot of a key.
+     *
+     * @param key candidate key.
+     * @return the slot, or -1 if the key is not an option of the schema.
+     */
+    private int slot(Object key) {
+        if (key instanceof CliOption option) {
+            int ordinal = option.getOrdinal();
+            if (ordinal >= 0 && ordinal < values.length && options.get(ordinal).equals(option)) {
+                return ordinal;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        int slot = slot(key);
+        return slot >= 0 && values[slot] != null;
+    }
+
+    @Override
+    public Object get(Object key) {
+        int slot = slot(key);
+        return (slot < 0) ? null : unmask(values[slot]);
+    }
+
+    @Override
+    public Object put(CliOption key, Object value) {
+        int slot = slot(key);
+        if (slot < 0) {
+            throw new IllegalArgumentException("Unknown option: " + key);
+        }
+        Object previous = values[slot];
+        values[slot] = (value == null) ? NULL : value;
+        if (previous == null) {
+            size++;
+        }
+        return unmask(previous);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        int slot = slot(key);
+        if (slot < 0 || values[slot] == null) {
+            return null;
+        }
+        Object previous = values[slot];
+        values[slot] = null;
+        size--;
+        return unmask(previous);
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    @Override
+    public Set<Map.Entry<CliOption, Object>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<>() {
+                @Override
+                public Iterator<Map.Entry<CliOption, Object>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public void clear() {
+                    OptionValues.this.clear();
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    private static Object unmask(Object value) {
+        return (value == NULL) ? null : value;
+    }
+
+    /**
+     * Iterates over the present slots, in ordinal order.
+     */
+    private final class EntryIterator implements Iterator<Map.Entry<CliOption, Object>> {
+
+        private int next = advance(0);
+        private int last = -1;
+
+        private int advance(int from) {
+            int slot = from;
+            while (slot < values.length && values[slot] == null) {
+                slot++;
+            }
+            return slot;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < values.length;
+        }
+
+        @Override
+        public Map.Entry<CliOption, Object> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            last = next;
+            next = advance(next + 1);
+            return new Entry(last);
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0 || values[last] == null) {
+                throw new IllegalStateException();
+            }
+            values[last] = null;
+            size--;
+            last = -1;
+        }
+    }
+
+    /**
+     * Entry writing through to its slot.
+     */
+    private final class Entry implements Map.Entry<CliOption, Object> {
+
+        private final int slot;
+
+        private Entry(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        public CliOption getKey() {
+            return options.get(slot);
+        }
+
+        @Override
+        public Object getValue() {
+            return unmask(values[slot]);
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            Object previous = values[slot];
+            values[slot] = (value == null) ? NULL : value;
+            if (previous == null) {
+                // Removed meanwhile: the entry is back.
+                size++;
+            }
+            return unmask(previous);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Map.Entry<?, ?> other
+                    && getKey().equals(other.getKey())
+                    && Objects.equals(getValue(), other.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return getKey().hashCode() ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return getKey().getPrimaryFlag() + "=" + getValue();
+        }
+    }
+}
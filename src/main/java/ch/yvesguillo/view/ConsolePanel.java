@@ -0,0 +1,104 @@
+package ch.yvesguillo.view;
+
+import javax.swing.*;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import java.awt.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Read-only console displaying the live output of Crawlect runs.
+ *
+ * Lines may be appended from any thread. They are queued and flushed to the
+ * text area in batches: at most one flush is pending on the Event Dispatch Thread
+ * at any time, so a chatty process never floods the EDT with one event per line.
+ */
+public class ConsolePanel extends JPanel {
+
+    // Maximum number of characters kept in the text area; older text is trimmed.
+    private static final int MAX_CHARS = 500_000;
+
+    private final JTextArea textArea;
+    private final ConcurrentLinkedQueue<String> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+
+    /**
+     * Constructs an empty console.
+     *
+     * @param font Font used for the output text.
+     */
+    public ConsolePanel(Font font) {
+        super(new BorderLayout());
+
+        textArea = new JTextArea();
+        textArea.setEditable(false);
+        textArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, font.getSize()));
+
+        JButton clearButton = new JButton("Clear");
+        clearButton.setFont(font);
+        clearButton.addActionListener(e -> clear());
+
+        JPanel toolbar = new JPanel(new FlowLayout(FlowLayout.RIGHT, 5, 2));
+        toolbar.add(clearButton);
+
+        add(new JScrollPane(textArea), BorderLayout.CENTER);
+        add(toolbar, BorderLayout.SOUTH);
+    }
+
+    /**
+     * Queues a line for display. Safe to call from any thread.
+     *
+     * @param line Text line (without trailing line break).
+     */
+    public void appendLine(String line) {
+        pending.add(line);
+        if (flushScheduled.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::flush);
+        }
+    }
+
+    /**
+     * Clears the console content. Must be called on the EDT.
+     */
+    public void clear() {
+        pending.clear();
+        textArea.setText("");
+    }
+
+    /**
+     * Drains all queued lines into the text area in a single document update.
+     */
+    private void flush() {
+        // Reset first: lines queued while draining will schedule another flush.
+        flushScheduled.set(false);
+
+        StringBuilder batch = new StringBuilder();
+        String line;
+        while ((line = pending.poll()) != null) {
+            batch.append(line).append('\n');
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        // No need to insert more than what would be kept.
+        if (batch.length() > MAX_CHARS) {
+            batch.delete(0, batch.length() - MAX_CHARS);
+        }
+
+        Document doc = textArea.getDocument();
+        try {
+            int excess = doc.getLength() + batch.length() - MAX_CHARS;
+            if (excess > 0) {
+                doc.remove(0, Math.min(excess, doc.getLength()));
+            }
+            doc.insertString(doc.getLength(), batch.toString(), null);
+        } catch (BadLocationException e) {
+            System.err.println("[GUI] Console update failed: " + e.getMessage());
+        }
+
+        // Keep the latest output in view.
+        textArea.setCaretPosition(doc.getLength());
+    }
+}
@@ -0,0 +1,196 @@
+package ch.yvesguillo.view;
+
+import ch.yvesguillo.controller.MainController;
+import ch.yvesguillo.model.CrawlJob;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Table of the queued, running and finished Crawlect jobs, with per-job actions.
+ *
+ * Job changes may be signalled from any thread through {@link #refresh()}: refreshes are coalesced
+ * so at most one is pending on the EDT. Durations of running jobs are refreshed every second.
+ */
+public class JobQueuePanel extends JPanel {
+
+    private static final String[] COLUMNS = {"#", "Path", "Output", "State", "Duration", "Exit"};
+
+    private final Supplier<List<CrawlJob>> jobSource;
+    private final JobTableModel model = new JobTableModel();
+    private final JTable table = new JTable(model);
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean(false);
+
+    /**
+     * Constructs the queue panel.
+     *
+     * @param font Font used for the table and buttons.
+     * @param jobSource Supplies a snapshot of the jobs to display.
+     * @param concurrency Initial number of parallel runs.
+     */
+    public JobQueuePanel(Font font, Supplier<List<CrawlJob>> jobSource, int concurrency) {
+        super(new BorderLayout());
+        this.jobSource = jobSource;
+
+        table.setFont(font);
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        table.getColumnModel().getColumn(0).setMaxWidth(40);
+        table.getColumnModel().getColumn(3).setPreferredWidth(80);
+        table.getColumnModel().getColumn(4).setPreferredWidth(70);
+        table.getColumnModel().getColumn(5).setMaxWidth(50);
+
+        JButton cancelButton = new JButton("Cancel");
+        cancelButton.setToolTipText("Remove the selected job from the queue, or stop it if running.");
+        cancelButton.addActionListener(e -> withSelectedJob(job -> MainController.getInstance().cancelJobRequest(job)));
+
+        JButton upButton = new JButton("▲");
+        upButton.setToolTipText("Run the selected queued job sooner.");
+        upButton.addActionListener(e -> withSelectedJob(job -> MainController.getInstance().moveJobRequest(job, -1)));
+
+        JButton downButton = new JButton("▼");
+        downButton.setToolTipText("Run the selected queued job later.");
+        downButton.addActionListener(e -> withSelectedJob(job -> MainController.getInstance().moveJobRequest(job, 1)));
+
+        JButton viewButton = new JButton("View output");
+        viewButton.setToolTipText("Open the output file of the selected job in the viewer.");
+        viewButton.addActionListener(e -> withSelectedJob(job -> MainController.getInstance().viewOutputRequest(job)));
+
+        JButton chunkButton = new JButton("Chunk for LLM…");
+        chunkButton.setToolTipText("Split the output file of the selected job into chunks that fit an LLM context window.");
+        chunkButton.addActionListener(e -> withSelectedJob(job -> MainController.getInstance().chunkOutputRequest(job)));
+
+        JButton clearButton = new JButton("Clear finished");
+        clearButton.addActionListener(e -> MainController.getInstance().clearFinishedJobsRequest());
+
+        JLabel parallelLabel = new JLabel("Parallel runs:");
+        JSpinner parallelSpinner = new JSpinner(new SpinnerNumberModel(concurrency, 1, 16, 1));
+        parallelSpinner.setToolTipText("Maximum number of Crawlect runs at once. Crawls are mostly disk-bound.");
+        parallelSpinner.addChangeListener(e -> MainController.getInstance().concurrencyChangeRequest((Integer) parallelSpinner.getValue()));
+
+        JPanel toolbar = new JPanel(new FlowLayout(FlowLayout.RIGHT, 5, 2));
+        for (JComponent component : new JComponent[]{parallelLabel, parallelSpinner, upButton, downButton, cancelButton, viewButton, chunkButton, clearButton}) {
+            component.setFont(font);
+            toolbar.add(component);
+        }
+
+        add(new JScrollPane(table), BorderLayout.CENTER);
+        add(toolbar, BorderLayout.SOUTH);
+
+        // Keeps the durations of running jobs ticking.
+        new Timer(1000, e -> {
+            if (model.hasRunningJobs()) {
+                model.fireTableRowsUpdated(0, model.getRowCount() - 1);
+            }
+        }).start();
+    }
+
+    /**
+     * Schedules a reload of the job table. Safe to call from any thread.
+     */
+    public void refresh() {
+        if (refreshScheduled.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::reload);
+        }
+    }
+
+    private void reload() {
+        refreshScheduled.set(false);
+
+        CrawlJob selected = selectedJob();
+        model.setJobs(jobSource.get());
+
+        // Keep the selection on the same job across reloads.
+        int row = model.indexOf(selected);
+        if (row >= 0) {
+            table.setRowSelectionInterval(row, row);
+        }
+    }
+
+    private CrawlJob selectedJob() {
+        int row = table.getSelectedRow();
+        return (row >= 0) ? model.getJob(row) : null;
+    }
+
+    private void withSelectedJob(Consumer<CrawlJob> action) {
+        CrawlJob job = selectedJob();
+        if (job != null) {
+            action.accept(job);
+        }
+    }
+
+    /**
+     * Formats a duration as "m:ss".
+     *
+     * @param millis duration in milliseconds.
+     * @return formatted duration.
+     */
+    private static String formatDuration(long millis) {
+        long seconds = millis / 1000;
+        return String.format("%d:%02d", seconds / 60, seconds % 60);
+    }
+
+    /**
+     * Table model over a snapshot of the jobs.
+     */
+    private static class JobTableModel extends AbstractTableModel {
+
+        private List<CrawlJob> jobs = new ArrayList<>();
+
+        void setJobs(List<CrawlJob> jobs) {
+            this.jobs = jobs;
+            fireTableDataChanged();
+        }
+
+        CrawlJob getJob(int row) {
+            return jobs.get(row);
+        }
+
+        int indexOf(CrawlJob job) {
+            return (job == null) ? -1 : jobs.indexOf(job);
+        }
+
+        boolean hasRunningJobs() {
+            for (CrawlJob job : jobs) {
+                if (job.getState() == CrawlJob.State.RUNNING) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public int getRowCount() {
+            return jobs.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            CrawlJob job = jobs.get(row);
+            return switch (column) {
+                case 0 -> job.getId();
+                case 1 -> job.getPath();
+                case 2 -> job.getOutput();
+                case 3 -> job.getState();
+                case 4 -> (job.getState() == CrawlJob.State.QUEUED) ? "" : formatDuration(job.getDurationMillis());
+                case 5 -> (job.getExitCode() != null) ? job.getExitCode() : "";
+                default -> "";
+            };
+        }
+    }
+}
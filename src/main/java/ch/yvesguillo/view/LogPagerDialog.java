@@ -0,0 +1,86 @@
+package ch.yvesguillo.view;
+
+import ch.yvesguillo.controller.OutputCapture;
+
+import javax.swing.*;
+import java.awt.*;
+import java.io.IOException;
+
+/**
+ * Modal dialog paging through the complete output of a Crawlect run.
+ *
+ * Only one page of {@link OutputCapture#PAGE_LINES} lines is loaded from the spill file at a time,
+ * so browsing a huge log never holds it whole in memory.
+ */
+public class LogPagerDialog extends JDialog {
+
+    private final OutputCapture capture;
+    private final JTextArea textArea;
+    private final JLabel pageLabel;
+    private final JButton prevButton;
+    private final JButton nextButton;
+    private int page = 0;
+
+    /**
+     * Constructs the pager, initially showing the last page.
+     *
+     * @param owner Parent window.
+     * @param capture Captured output to browse.
+     */
+    public LogPagerDialog(Window owner, OutputCapture capture) {
+        super(owner, "Crawlect output", ModalityType.APPLICATION_MODAL);
+        this.capture = capture;
+
+        textArea = new JTextArea();
+        textArea.setEditable(false);
+        textArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+
+        prevButton = new JButton("◀ Previous");
+        prevButton.addActionListener(e -> showPage(page - 1));
+        nextButton = new JButton("Next ▶");
+        nextButton.addActionListener(e -> showPage(page + 1));
+        pageLabel = new JLabel();
+
+        JPanel navigation = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 5));
+        navigation.add(prevButton);
+        navigation.add(pageLabel);
+        navigation.add(nextButton);
+
+        setLayout(new BorderLayout());
+        add(new JScrollPane(textArea), BorderLayout.CENTER);
+        add(navigation, BorderLayout.SOUTH);
+        setSize(800, 600);
+        setLocationRelativeTo(owner);
+
+        showPage(Math.max(0, capture.getPageCount() - 1));
+    }
+
+    /**
+     * Loads and displays the given page from the spill file.
+     *
+     * @param index zero-based page index.
+     */
+    private void showPage(int index) {
+        int pageCount = capture.getPageCount();
+        if (pageCount == 0) {
+            pageLabel.setText("No output");
+            prevButton.setEnabled(false);
+            nextButton.setEnabled(false);
+            return;
+        }
+
+        page = Math.max(0, Math.min(index, pageCount - 1));
+        try {
+            textArea.setText(capture.readPage(page));
+            textArea.setCaretPosition(0);
+        } catch (IOException e) {
+            textArea.setText("Could not read the output log: " + e.getMessage());
+        }
+
+        long firstLine = (long) page * OutputCapture.PAGE_LINES + 1;
+        long lastLine = Math.min(firstLine + OutputCapture.PAGE_LINES - 1, capture.getLineCount());
+        pageLabel.setText(String.format("Page %d / %d (lines %d–%d of %d)", page + 1, pageCount, firstLine, lastLine, capture.getLineCount()));
+        prevButton.setEnabled(page > 0);
+        nextButton.setEnabled(page < pageCount - 1);
+    }
+}
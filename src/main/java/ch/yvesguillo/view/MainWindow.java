@@ -1,24 +1,34 @@
 package ch.yvesguillo.view;
 
+import ch.yvesguillo.controller.JobScheduler;
 import ch.yvesguillo.controller.MainController;
+import ch.yvesguillo.controller.OptionValidator;
+import ch.yvesguillo.controller.ResultCache;
 import ch.yvesguillo.controller.UserSettings;
+import ch.yvesguillo.controller.ValidationEngine;
 import ch.yvesguillo.model.CliOption;
 import ch.yvesguillo.model.CliSchemaParser;
 import ch.yvesguillo.model.ComboItem;
+import ch.yvesguillo.model.OptionValues;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import java.awt.*;
+import java.awt.event.KeyEvent;
 import java.io.IOException;
 import java.util.*;
 import java.util.List;
+import javax.swing.Timer;
 
 /**
  * Main Swing window for the Crawlect GUI application.
  * 
  * Displays:
  * - a sidebar with CLI option groups,
- * - a dynamic panel of inputs based on the selected group,
- * - a "Run" button to execute Crawlect.
+ * - a panel of inputs for the selected group (each group panel is built once, then cached),
+ * - "Run" and "Add to queue" buttons to execute Crawlect,
+ * - a console with the live output and the job queue.
  *
  * Handles input rendering, persistence of user settings, and communication with the controller.
  */
@@ -31,16 +41,38 @@ public class MainWindow extends JFrame {
     private final JList<String> groupList;
     private final DefaultListModel<String> groupListModel;
     private final JPanel optionPanel;
+    private final CardLayout optionCards = new CardLayout();
+    // Groups whose panel is already a card of optionPanel.
+    private final Set<String> builtGroups = new HashSet<>();
+    // Validation messages under the inputs built so far.
+    private final Map<CliOption, JLabel> verdictLabels = new HashMap<>();
+    // True while applyValues() updates the inputs: their listeners must not store what is being shown. EDT only.
+    private boolean applyingValues = false;
+    // Builds the remaining group panels in idle time after startup.
+    private final Timer idleBuilder = new Timer(IDLE_BUILD_MILLIS, e -> buildNextGroupWhenIdle());
+    private final JButton runButton;
+    private final JToggleButton watchButton;
+    private final ConsolePanel console;
+    private final JobQueuePanel queuePanel;
+    private final RunStatusBar statusBar;
+
+    // Delay between two group panels built ahead of time.
+    private static final int IDLE_BUILD_MILLIS = 100;
 
     // Fonts used across the UI
     private static final Font mainFont = UIManager.getFont("Label.font").deriveFont(12f);
     private static final Font heavyFont = UIManager.getFont("Label.font").deriveFont(Font.BOLD, 14f);
+    private static final Font smallFont = UIManager.getFont("Label.font").deriveFont(11f);
 
-    // Maps CLI options to their input widgets for value retrieval.
+    // Colors of the validation messages under the inputs
+    private static final Color ERROR_COLOR = new Color(0xC62828);
+    private static final Color WARNING_COLOR = new Color(0xB26A00);
+
+    // Maps CLI options to their input widgets (of the group panels built so far).
     public static final Map<CliOption, JComponent> inputMap = new HashMap<>();
 
-    // Stores user-provided or restored values for all CLI options.
-    public static Map<CliOption, Object> storedValues = new HashMap<>();
+    // Stores user-provided or restored values for all CLI options; the inputs write to it as they change.
+    public static Map<CliOption, Object> storedValues = new OptionValues();
 
     /**
      * Constructs the main application window and initializes UI components.
@@ -53,11 +85,103 @@ public class MainWindow extends JFrame {
     public MainWindow(List<String> groups, String appTitle, String appVersion) throws IOException {
 
         setTitle(appTitle + " " + appVersion);
-        setSize(900, 600);
+        setSize(900, 750);
         setDefaultCloseOperation(EXIT_ON_CLOSE);
         setLocationRelativeTo(null);
         setLayout(new BorderLayout());
 
+        //////////////////
+        // Menu: Runner //
+        //////////////////
+        JMenu runnerMenu = new JMenu("Runner");
+        runnerMenu.setFont(mainFont);
+
+        JCheckBoxMenuItem warmWorkerItem = new JCheckBoxMenuItem("Keep Crawlect warm (worker process)");
+        warmWorkerItem.setFont(mainFont);
+        warmWorkerItem.setToolTipText("Run Crawlect in a long-lived Python process to skip interpreter startup on each run.");
+        warmWorkerItem.addActionListener(e -> MainController.getInstance().warmWorkerToggleRequest(warmWorkerItem.isSelected()));
+        runnerMenu.add(warmWorkerItem);
+
+        JCheckBoxMenuItem resultCacheItem = new JCheckBoxMenuItem("Reuse unchanged results (cache)", ResultCache.isEnabled());
+        resultCacheItem.setFont(mainFont);
+        resultCacheItem.setToolTipText("Restore the previous output instead of running Crawlect when the options and the crawled files are unchanged.");
+        resultCacheItem.addActionListener(e -> MainController.getInstance().resultCacheToggleRequest(resultCacheItem.isSelected()));
+        runnerMenu.add(resultCacheItem);
+
+        JMenuItem clearCacheItem = new JMenuItem("Clear result cache");
+        clearCacheItem.setFont(mainFont);
+        clearCacheItem.addActionListener(e -> MainController.getInstance().clearResultCacheRequest());
+        runnerMenu.add(clearCacheItem);
+
+        JMenuItem llmProxyItem = new JMenuItem("LLM cache proxy…");
+        llmProxyItem.setFont(mainFont);
+        llmProxyItem.setToolTipText("Send Ollama calls through a local proxy that replays the answers to prompts already asked.");
+        llmProxyItem.addActionListener(e -> MainController.getInstance().llmProxyRequest());
+        runnerMenu.add(llmProxyItem);
+
+        JMenuItem clearLlmCacheItem = new JMenuItem("Clear LLM cache");
+        clearLlmCacheItem.setFont(mainFont);
+        clearLlmCacheItem.addActionListener(e -> MainController.getInstance().clearLlmCacheRequest());
+        runnerMenu.add(clearLlmCacheItem);
+
+        JMenuItem watchDebounceItem = new JMenuItem("Watch debounce…");
+        watchDebounceItem.setFont(mainFont);
+        watchDebounceItem.addActionListener(e -> MainController.getInstance().watchDebounceRequest());
+        runnerMenu.add(watchDebounceItem);
+
+        JMenuItem runTimeoutsItem = new JMenuItem("Run timeouts…");
+        runTimeoutsItem.setFont(mainFont);
+        runTimeoutsItem.setToolTipText("Stop runs that take too long, or hang without output (e.g. a stuck LLM call).");
+        runTimeoutsItem.addActionListener(e -> MainController.getInstance().runTimeoutsRequest());
+        runnerMenu.add(runTimeoutsItem);
+
+        JMenuItem splitRunsItem = new JMenuItem("Split large trees…");
+        splitRunsItem.setFont(mainFont);
+        splitRunsItem.setToolTipText("Crawl large trees as several Crawlect processes in parallel, merged into one output.");
+        splitRunsItem.addActionListener(e -> MainController.getInstance().splitRunsRequest());
+        runnerMenu.add(splitRunsItem);
+
+        JMenuItem chunkDigestItem = new JMenuItem("Chunk a digest for LLMs…");
+        chunkDigestItem.setFont(mainFont);
+        chunkDigestItem.setToolTipText("Split a digest into numbered chunks under a token budget, with a manifest.");
+        chunkDigestItem.addActionListener(e -> MainController.getInstance().chunkDigestRequest());
+        runnerMenu.add(chunkDigestItem);
+
+        JMenuItem runHistoryItem = new JMenuItem("Run history…");
+        runHistoryItem.setFont(mainFont);
+        runHistoryItem.setToolTipText("Past runs with their duration, CPU time and throughput.");
+        runHistoryItem.addActionListener(e -> MainController.getInstance().runHistoryRequest());
+        runnerMenu.add(runHistoryItem);
+
+        JMenuItem exportMetricsItem = new JMenuItem("Export metrics…");
+        exportMetricsItem.setFont(mainFont);
+        exportMetricsItem.setToolTipText("Save the timings of the run pipeline (also exposed over JMX) as JSON.");
+        exportMetricsItem.addActionListener(e -> MainController.getInstance().exportMetricsRequest());
+        runnerMenu.add(exportMetricsItem);
+
+        ////////////////////
+        // Menu: Profiles //
+        ////////////////////
+        JMenu profilesMenu = new JMenu("Profiles");
+        profilesMenu.setFont(mainFont);
+
+        JMenuItem manageProfilesItem = new JMenuItem("Manage profiles…");
+        manageProfilesItem.setFont(mainFont);
+        manageProfilesItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_P, Toolkit.getDefaultToolkit().getMenuShortcutKeyMaskEx()));
+        manageProfilesItem.setToolTipText("Load, save, clone or delete named sets of options.");
+        manageProfilesItem.addActionListener(e -> MainController.getInstance().profilesRequest());
+        profilesMenu.add(manageProfilesItem);
+
+        JMenuItem saveProfileItem = new JMenuItem("Save current as profile…");
+        saveProfileItem.setFont(mainFont);
+        saveProfileItem.addActionListener(e -> MainController.getInstance().saveProfileRequest(this, null));
+        profilesMenu.add(saveProfileItem);
+
+        JMenuBar menuBar = new JMenuBar();
+        menuBar.add(runnerMenu);
+        menuBar.add(profilesMenu);
+        setJMenuBar(menuBar);
+
         /////////////////////////
         // Sidebar: Group list //
         /////////////////////////
@@ -76,32 +200,67 @@ public class MainWindow extends JFrame {
         JPanel leftPanel = new JPanel(new BorderLayout());
         leftPanel.add(groupScroll, BorderLayout.CENTER);
 
-        JButton runButton = new JButton("Run Crawlect ▶");
+        runButton = new JButton("Run Crawlect ▶");
         runButton.setFont(heavyFont);
         runButton.setPreferredSize(new Dimension(250, 40));
         runButton.addActionListener(e -> MainController.getInstance().runnRequest());
-        leftPanel.add(runButton, BorderLayout.SOUTH);
+
+        JButton enqueueButton = new JButton("Add to queue");
+        enqueueButton.setFont(mainFont);
+        enqueueButton.setToolTipText("Queue a run with the current options; queued runs start as parallel slots free up.");
+        enqueueButton.addActionListener(e -> MainController.getInstance().enqueueRequest());
+
+        watchButton = new JToggleButton("Watch");
+        watchButton.setFont(mainFont);
+        watchButton.setToolTipText("Run now, then re-run automatically whenever files under the path change.");
+        watchButton.addActionListener(e -> MainController.getInstance().watchToggleRequest(watchButton.isSelected()));
+
+        JPanel secondaryButtons = new JPanel(new GridLayout(1, 2));
+        secondaryButtons.add(enqueueButton);
+        secondaryButtons.add(watchButton);
+
+        JPanel buttonPanel = new JPanel(new BorderLayout());
+        buttonPanel.add(runButton, BorderLayout.CENTER);
+        buttonPanel.add(secondaryButtons, BorderLayout.SOUTH);
+        leftPanel.add(buttonPanel, BorderLayout.SOUTH);
 
         add(leftPanel, BorderLayout.WEST);
 
         /////////////////////////////////////////
         // Main content: Dynamic options panel //
         /////////////////////////////////////////
-        optionPanel = new JPanel();
-        optionPanel.setLayout(new BoxLayout(optionPanel, BoxLayout.Y_AXIS));
-        optionPanel.setAlignmentY(Component.TOP_ALIGNMENT);
+        // One scrollable card per group, built on first view (or in idle time) and then kept.
+        optionPanel = new JPanel(optionCards);
 
-        JPanel wrapper = new JPanel(new BorderLayout());
-        // Top-aligned scroll content
-        wrapper.add(optionPanel, BorderLayout.NORTH);
-        JScrollPane optionScroll = new JScrollPane(wrapper);
-        add(optionScroll, BorderLayout.CENTER);
+        ////////////////////////////////////////////
+        // Bottom: Live Crawlect output and queue //
+        ////////////////////////////////////////////
+        console = new ConsolePanel(mainFont);
+
+        JobScheduler scheduler = JobScheduler.lazyGetInstance();
+        queuePanel = new JobQueuePanel(mainFont, scheduler::getJobs, scheduler.getConcurrency());
+        scheduler.addListener(job -> queuePanel.refresh());
+
+        JTabbedPane bottomTabs = new JTabbedPane();
+        bottomTabs.setFont(mainFont);
+        bottomTabs.addTab("Console", console);
+        bottomTabs.addTab("Queue", queuePanel);
+
+        JSplitPane splitPane = new JSplitPane(JSplitPane.VERTICAL_SPLIT, optionPanel, bottomTabs);
+        splitPane.setResizeWeight(0.65);
+        add(splitPane, BorderLayout.CENTER);
+
+        // Pre-scan and run progress of the interactive run
+        statusBar = new RunStatusBar(mainFont);
+        add(statusBar, BorderLayout.SOUTH);
 
         // Load previous values if any
         storedValues = UserSettings.getInstance().loadConfig();
 
-        // Initial group display
+        // Initial group display, then the other groups in the background
         updateOptionPanel(groupList.getSelectedValue());
+        idleBuilder.setInitialDelay(IDLE_BUILD_MILLIS * 5);
+        idleBuilder.start();
     }
 
     /**
@@ -147,34 +306,198 @@ public class MainWindow extends JFrame {
     }
 
     /**
-     * Dynamically rebuilds the options panel for the selected group.
+     * Returns the console receiving the live Crawlect output.
+     *
+     * @return the console panel.
+     */
+    public ConsolePanel getConsole() {
+        return console;
+    }
+
+    /**
+     * Returns the status bar showing the pre-scan and run progress.
+     *
+     * @return the status bar.
+     */
+    public RunStatusBar getStatusBar() {
+        return statusBar;
+    }
+
+    /**
+     * Reflects whether a Crawlect run is in progress (disables the Run button meanwhile).
+     * Must be called on the EDT.
+     *
+     * @param running true while a run is in progress.
+     */
+    public void setRunning(boolean running) {
+        runButton.setEnabled(!running);
+        runButton.setText(running ? "Running…" : "Run Crawlect ▶");
+    }
+
+    /**
+     * Reflects whether watch mode is active. Must be called on the EDT.
+     *
+     * @param watching true while watching.
+     */
+    public void setWatching(boolean watching) {
+        watchButton.setSelected(watching);
+    }
+
+    /**
+     * Replaces all option values (e.g. with a profile) and updates the inputs built so far.
+     * Must be called on the EDT.
+     *
+     * @param values new values; options without a value show their default.
+     */
+    public void applyValues(Map<CliOption, Object> values) {
+        storedValues = new OptionValues(values);
+        applyingValues = true;
+        try {
+            for (Map.Entry<CliOption, JComponent> entry : inputMap.entrySet()) {
+                showValue(entry.getKey(), entry.getValue());
+            }
+        } finally {
+            applyingValues = false;
+        }
+        UserSettings.getInstance().saveConfig(storedValues);
+        for (CliOption option : inputMap.keySet()) {
+            validateLater(option, storedValues.get(option));
+        }
+    }
+
+    /**
+     * Shows the stored value of an option (or its default) in its input.
+     *
+     * @param option CLI option.
+     * @param field input widget of the option.
+     */
+    private static void showValue(CliOption option, JComponent field) {
+        Object saved = storedValues.get(option);
+        if (field instanceof JCheckBox checkBox) {
+            checkBox.setSelected((saved instanceof Boolean b) ? b : "true".equalsIgnoreCase(option.defaultValue));
+
+        } else if (field instanceof JComboBox<?> comboBox) {
+            String target = (saved instanceof String text) ? text : option.defaultValue;
+            int selected = 0;
+            for (int i = 0; target != null && i < comboBox.getItemCount(); i++) {
+                if (comboBox.getItemAt(i) instanceof ComboItem item && item.getValue().equals(target)) {
+                    selected = i;
+                    break;
+                }
+            }
+            if (comboBox.getItemCount() > 0) {
+                comboBox.setSelectedIndex(selected);
+            }
+
+        } else if (field instanceof JTextField textField) {
+            String text = (saved instanceof String value) ? value : "";
+            if (!text.equals(textField.getText())) {
+                textField.setText(text);
+            }
+        }
+    }
+
+    /**
+     * Shows the options panel of a group, building it on first view.
      * Called when the user selects a new group in the sidebar.
      *
      * @param group Name of the CLI option group to display.
      */
     private void updateOptionPanel(String group) {
+        if (group == null) {
+            return;
+        }
+        ensureGroupPanel(group);
+        optionCards.show(optionPanel, group);
+    }
 
-        // Save current values
-        for (Map.Entry<CliOption, JComponent> entry : inputMap.entrySet()) {
-            CliOption option = entry.getKey();
-            JComponent field = entry.getValue();
-
-            if (option.isBoolean && field instanceof JCheckBox check) {
-                storedValues.put(option, check.isSelected());
-            } else if (option.hasChoices && field instanceof JComboBox<?> combo) {
-                Object selectedItem = combo.getSelectedItem();
-                if (selectedItem instanceof ComboItem item) {
-                    storedValues.put(option, item.getValue());
-                }
-            } else if (field instanceof JTextField text) {
-                storedValues.put(option, text.getText());
+    /**
+     * Builds the options panel of a group, unless already built, and adds it as a card.
+     *
+     * @param group Name of the CLI option group.
+     */
+    private void ensureGroupPanel(String group) {
+        if (builtGroups.contains(group)) {
+            return;
+        }
+        JPanel groupPanel = buildGroupPanel(group);
+
+        JPanel wrapper = new JPanel(new BorderLayout());
+        // Top-aligned scroll content
+        wrapper.add(groupPanel, BorderLayout.NORTH);
+        optionPanel.add(new JScrollPane(wrapper), group);
+        builtGroups.add(group);
+    }
+
+    /**
+     * Builds the next group panel not built yet, one per timer tick, so the EDT stays responsive.
+     */
+    private void buildNextGroupWhenIdle() {
+        for (int i = 0; i < groupListModel.size(); i++) {
+            String group = groupListModel.get(i);
+            if (!builtGroups.contains(group)) {
+                ensureGroupPanel(group);
+                return;
             }
         }
+        idleBuilder.stop();
+    }
+
+    /**
+     * Records an edited value, schedules the settings to be saved (written in the background),
+     * and schedules the value to be checked (debounced, off the EDT).
+     *
+     * @param option edited option.
+     * @param value new value.
+     */
+    private void storeValue(CliOption option, Object value) {
+        if (applyingValues) {
+            return;
+        }
+        storedValues.put(option, value);
+        UserSettings.getInstance().saveConfig(storedValues);
+        validateLater(option, value);
+    }
+
+    /**
+     * Checks a value in the background, then shows the verdict under its input.
+     *
+     * @param option the option.
+     * @param value its value.
+     */
+    private void validateLater(CliOption option, Object value) {
+        ValidationEngine.lazyGetInstance().validateLater(option, value,
+                verdict -> SwingUtilities.invokeLater(() -> showVerdict(option, verdict)));
+    }
+
+    /**
+     * Shows an error or warning under the input of an option, or hides it when the value is valid.
+     *
+     * @param option the option.
+     * @param verdict outcome of its check.
+     */
+    private void showVerdict(CliOption option, OptionValidator.Verdict verdict) {
+        JLabel label = verdictLabels.get(option);
+        if (label == null) {
+            return;
+        }
+        boolean valid = verdict.level() == OptionValidator.Level.OK;
+        if (!valid) {
+            String message = verdict.message().replace("&", "&amp;").replace("<", "&lt;").replace("\n", "<br>");
+            label.setText("<html>" + message + "</html>");
+            label.setForeground(verdict.isError() ? ERROR_COLOR : WARNING_COLOR);
+        }
+        label.setVisible(!valid);
+    }
 
-        // Reset and prepare layout
-        optionPanel.removeAll();
-        inputMap.clear();
-        optionPanel.setLayout(new GridBagLayout());
+    /**
+     * Creates the labels and inputs of a group. Each input writes its value to {@link #storedValues} as it changes.
+     *
+     * @param group Name of the CLI option group.
+     * @return the group panel.
+     */
+    private JPanel buildGroupPanel(String group) {
+        JPanel groupPanel = new JPanel(new GridBagLayout());
         GridBagConstraints gbc = new GridBagConstraints();
         gbc.insets = new Insets(5, 5, 5, 5);
         gbc.fill = GridBagConstraints.HORIZONTAL;
@@ -194,8 +517,8 @@ public class MainWindow extends JFrame {
 
             if (option.isBoolean) {
                 JCheckBox checkBox = new JCheckBox();
-                Boolean saved = (Boolean) storedValues.get(option);
-                checkBox.setSelected(saved != null ? saved : "true".equalsIgnoreCase(option.defaultValue));
+                showValue(option, checkBox);
+                checkBox.addItemListener(e -> storeValue(option, checkBox.isSelected()));
                 inputMap.put(option, checkBox);
                 inputField = checkBox;
 
@@ -207,25 +530,35 @@ public class MainWindow extends JFrame {
                 for (String choice : option.choices) {
                     comboBox.addItem(new ComboItem(choice, choice));
                 }
-                String saved = (String) storedValues.get(option);
-                String target = (saved != null) ? saved : option.defaultValue;
-                if (target != null) {
-                    for (int i = 0; i < comboBox.getItemCount(); i++) {
-                        ComboItem item = comboBox.getItemAt(i);
-                        if (item.getValue().equals(target)) {
-                            comboBox.setSelectedIndex(i);
-                            break;
-                        }
+                showValue(option, comboBox);
+                comboBox.addActionListener(e -> {
+                    if (comboBox.getSelectedItem() instanceof ComboItem item) {
+                        storeValue(option, item.getValue());
                     }
-                }
+                });
                 inputMap.put(option, comboBox);
                 inputField = comboBox;
 
             } else {
                 // Standard text field input
                 JTextField textField = new JTextField(20);
-                String saved = (String) storedValues.get(option);
-                if (saved != null) textField.setText(saved);
+                showValue(option, textField);
+                textField.getDocument().addDocumentListener(new DocumentListener() {
+                    @Override
+                    public void insertUpdate(DocumentEvent e) {
+                        storeValue(option, textField.getText());
+                    }
+
+                    @Override
+                    public void removeUpdate(DocumentEvent e) {
+                        storeValue(option, textField.getText());
+                    }
+
+                    @Override
+                    public void changedUpdate(DocumentEvent e) {
+                        storeValue(option, textField.getText());
+                    }
+                });
 
                 JComponent displayComponent;
 
@@ -264,21 +597,29 @@ public class MainWindow extends JFrame {
             inputField.setToolTipText(option.getGuitooltip());
             inputField.setFont(mainFont);
 
+            // Errors and warnings about the value, right under it.
+            JLabel verdictLabel = new JLabel();
+            verdictLabel.setFont(smallFont);
+            verdictLabel.setVisible(false);
+            verdictLabels.put(option, verdictLabel);
+
             // Layout the label and input field side by side
             gbc.gridx = 0;
             gbc.gridy = row;
             gbc.weightx = 0.3;
-            optionPanel.add(label, gbc);
+            groupPanel.add(label, gbc);
 
             gbc.gridx = 1;
             gbc.weightx = 0.7;
-            optionPanel.add(inputField, gbc);
+            groupPanel.add(inputField, gbc);
+
+            gbc.gridy = ++row;
+            groupPanel.add(verdictLabel, gbc);
 
             row++;
+            validateLater(option, storedValues.get(option));
         }
 
-        // Refresh UI
-        optionPanel.revalidate();
-        optionPanel.repaint();
+        return groupPanel;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,187 @@
+package ch.yvesguillo.view;
+
+import ch.yvesguillo.controller.MainController;
+import ch.yvesguillo.controller.ProfileStore;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Modal dialog listing the saved run profiles, with a filter to find one among thousands.
+ *
+ * Loading a profile (double-click or Enter) applies its values to the main window and closes the dialog.
+ * The list only holds names: profile values are read from the {@link ProfileStore} when loaded or cloned.
+ */
+public class ProfilesDialog extends JDialog {
+
+    private final JTextField filterField;
+    private final DefaultListModel<String> listModel = new DefaultListModel<>();
+    private final JList<String> profileList;
+    private final JLabel countLabel;
+    private List<String> names = List.of();
+
+    /**
+     * Constructs the dialog.
+     *
+     * @param owner Parent window.
+     */
+    public ProfilesDialog(Window owner) {
+        super(owner, "Profiles", ModalityType.APPLICATION_MODAL);
+
+        filterField = new JTextField();
+        filterField.setToolTipText("Type to filter the profiles by name.");
+        filterField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                applyFilter();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                applyFilter();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                applyFilter();
+            }
+        });
+
+        profileList = new JList<>(listModel);
+        profileList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        // Fixed cell size: no per-row measuring, even with thousands of names.
+        profileList.setPrototypeCellValue("A reasonably long profile name");
+        profileList.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    loadSelected();
+                }
+            }
+        });
+        profileList.getInputMap().put(KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0), "load");
+        profileList.getActionMap().put("load", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                loadSelected();
+            }
+        });
+        // Down arrow in the filter moves to the list.
+        filterField.getInputMap().put(KeyStroke.getKeyStroke(KeyEvent.VK_DOWN, 0), "list");
+        filterField.getActionMap().put("list", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                profileList.requestFocusInWindow();
+                if (profileList.getSelectedIndex() < 0 && !listModel.isEmpty()) {
+                    profileList.setSelectedIndex(0);
+                }
+            }
+        });
+
+        JButton loadButton = new JButton("Load");
+        loadButton.setToolTipText("Apply the selected profile to the options.");
+        loadButton.addActionListener(e -> loadSelected());
+
+        JButton saveButton = new JButton("Save current as…");
+        saveButton.setToolTipText("Save the current options as a new (or replaced) profile.");
+        saveButton.addActionListener(e -> {
+            String saved = MainController.getInstance().saveProfileRequest(this, profileList.getSelectedValue());
+            refresh(saved);
+        });
+
+        JButton cloneButton = new JButton("Clone…");
+        cloneButton.setToolTipText("Copy the selected profile under a new name.");
+        cloneButton.addActionListener(e -> {
+            String source = profileList.getSelectedValue();
+            if (source != null) {
+                refresh(MainController.getInstance().cloneProfileRequest(this, source));
+            }
+        });
+
+        JButton deleteButton = new JButton("Delete");
+        deleteButton.addActionListener(e -> {
+            String name = profileList.getSelectedValue();
+            if (name != null && MainController.getInstance().deleteProfileRequest(this, name)) {
+                refresh(null);
+            }
+        });
+
+        JButton closeButton = new JButton("Close");
+        closeButton.addActionListener(e -> dispose());
+
+        countLabel = new JLabel();
+
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT, 5, 5));
+        buttons.add(loadButton);
+        buttons.add(saveButton);
+        buttons.add(cloneButton);
+        buttons.add(deleteButton);
+        buttons.add(closeButton);
+
+        JPanel bottom = new JPanel(new BorderLayout());
+        bottom.add(countLabel, BorderLayout.WEST);
+        bottom.add(buttons, BorderLayout.EAST);
+
+        JPanel content = new JPanel(new BorderLayout(5, 5));
+        content.setBorder(BorderFactory.createEmptyBorder(8, 8, 8, 8));
+        content.add(filterField, BorderLayout.NORTH);
+        content.add(new JScrollPane(profileList), BorderLayout.CENTER);
+        content.add(bottom, BorderLayout.SOUTH);
+        setContentPane(content);
+
+        getRootPane().registerKeyboardAction(e -> dispose(), KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), JComponent.WHEN_IN_FOCUSED_WINDOW);
+
+        setSize(560, 480);
+        setLocationRelativeTo(owner);
+        refresh(null);
+    }
+
+    /**
+     * Reloads the names from the store, and selects one.
+     *
+     * @param select name to select (null keeps the current selection).
+     */
+    private void refresh(String select) {
+        String selected = (select != null) ? select : profileList.getSelectedValue();
+        names = ProfileStore.lazyGetInstance().getNames();
+        applyFilter();
+        if (selected != null) {
+            for (int i = 0; i < listModel.size(); i++) {
+                if (listModel.get(i).equalsIgnoreCase(selected)) {
+                    profileList.setSelectedIndex(i);
+                    profileList.ensureIndexIsVisible(i);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Shows the names containing the filter text (case-insensitive).
+     */
+    private void applyFilter() {
+        String filter = filterField.getText().strip().toLowerCase(Locale.ROOT);
+        listModel.clear();
+        // Filled in one go: a single list event, not one per name.
+        listModel.addAll(filter.isEmpty() ? names : names.stream().filter(name -> name.toLowerCase(Locale.ROOT).contains(filter)).toList());
+        if (!listModel.isEmpty()) {
+            profileList.setSelectedIndex(0);
+        }
+        countLabel.setText(listModel.size() + " / " + names.size() + " profile(s)");
+    }
+
+    private void loadSelected() {
+        String name = profileList.getSelectedValue();
+        if (name != null && MainController.getInstance().loadProfileRequest(this, name)) {
+            dispose();
+        }
+    }
+}
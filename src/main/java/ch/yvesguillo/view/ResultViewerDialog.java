@@ -0,0 +1,437 @@
+package ch.yvesguillo.view;
+
+import ch.yvesguillo.controller.MappedTextFile;
+import ch.yvesguillo.controller.PathScanner;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.*;
+import java.awt.datatransfer.StringSelection;
+import java.awt.event.ActionEvent;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Viewer for Crawlect outputs of any size.
+ *
+ * The file is memory-mapped ({@link MappedTextFile}) and indexed in the background; only the lines in view
+ * are decoded and painted, so opening a 500 MB digest costs neither heap nor waiting.
+ * Offers jump-to-line and incremental find (Enter / F3 for the next match, Shift+Enter / Shift+F3 for the previous one).
+ * Clicking a line selects it; Ctrl+C copies it.
+ */
+public class ResultViewerDialog extends JDialog {
+
+    private static final int POLL_MILLIS = 200;
+    private static final int WHEEL_LINES = 3;
+    private static final int TAB_WIDTH = 4;
+
+    // Indexing and searches block on page faults: one virtual thread each keeps the EDT free.
+    private static final ExecutorService WORKERS = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final MappedTextFile file;
+    private final LinesView linesView = new LinesView();
+    private final JScrollBar verticalBar = new JScrollBar(JScrollBar.VERTICAL);
+    private final JScrollBar horizontalBar = new JScrollBar(JScrollBar.HORIZONTAL);
+    private final JTextField lineField = new JTextField(8);
+    private final JTextField findField = new JTextField(20);
+    private final JCheckBox matchCaseBox = new JCheckBox("Match case");
+    private final JLabel statusLabel = new JLabel();
+    private final JLabel findLabel = new JLabel();
+    private final Timer indexTimer = new Timer(POLL_MILLIS, e -> indexProgressed());
+    // Incremented by every new search: older searches stop and their results are dropped.
+    private final AtomicLong searchGeneration = new AtomicLong();
+
+    private volatile boolean closed = false;
+    private MappedTextFile.Match match;
+    private long selectedLine = -1;
+
+    /**
+     * Opens a viewer on a file, or reports why it cannot be opened.
+     *
+     * @param owner parent window.
+     * @param path text file to view.
+     */
+    public static void open(Window owner, Path path) {
+        try {
+            new ResultViewerDialog(owner, new MappedTextFile(path)).setVisible(true);
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(owner, "Cannot open the output file:\n" + e.getMessage(), "Output Viewer", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    /**
+     * Constructs the viewer and starts indexing the file.
+     *
+     * @param owner parent window.
+     * @param file mapped file, closed with the dialog.
+     */
+    private ResultViewerDialog(Window owner, MappedTextFile file) {
+        super(owner, file.getPath().getFileName() + " (" + PathScanner.formatBytes(file.getSize()) + ")", ModalityType.MODELESS);
+        this.file = file;
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+
+        linesView.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        verticalBar.addAdjustmentListener(e -> linesView.repaint());
+        horizontalBar.addAdjustmentListener(e -> linesView.repaint());
+        linesView.addMouseWheelListener(e -> verticalBar.setValue(verticalBar.getValue() + e.getWheelRotation() * WHEEL_LINES));
+        linesView.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                long line = verticalBar.getValue() + (long) e.getY() / linesView.lineHeight();
+                selectedLine = (line < file.getLineCount()) ? line : -1;
+                linesView.requestFocusInWindow();
+                linesView.repaint();
+            }
+        });
+
+        JPanel viewport = new JPanel(new BorderLayout());
+        viewport.add(linesView, BorderLayout.CENTER);
+        viewport.add(verticalBar, BorderLayout.EAST);
+        viewport.add(horizontalBar, BorderLayout.SOUTH);
+
+        lineField.setToolTipText("Line number; Enter to jump.");
+        lineField.addActionListener(e -> jumpToLine());
+        findField.setToolTipText("Searched as you type; Enter for the next match, Shift+Enter for the previous one.");
+        findField.addActionListener(e -> findNext((e.getModifiers() & ActionEvent.SHIFT_MASK) == 0));
+        findField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                findIncremental();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                findIncremental();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                findIncremental();
+            }
+        });
+        matchCaseBox.addActionListener(e -> findIncremental());
+
+        JPanel toolbar = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 2));
+        toolbar.add(new JLabel("Go to line:"));
+        toolbar.add(lineField);
+        toolbar.add(new JLabel("Find:"));
+        toolbar.add(findField);
+        toolbar.add(matchCaseBox);
+        toolbar.add(findLabel);
+
+        JPanel footer = new JPanel(new BorderLayout());
+        footer.setBorder(BorderFactory.createEmptyBorder(2, 5, 2, 5));
+        footer.add(statusLabel, BorderLayout.WEST);
+
+        setLayout(new BorderLayout());
+        add(toolbar, BorderLayout.NORTH);
+        add(viewport, BorderLayout.CENTER);
+        add(footer, BorderLayout.SOUTH);
+        bindKeys();
+        setSize(900, 650);
+        setLocationRelativeTo(owner);
+
+        WORKERS.submit(() -> {
+            try {
+                file.index(() -> closed);
+            } catch (CancellationException e) {
+                // Dialog closed while indexing.
+            }
+        });
+        indexTimer.start();
+        indexProgressed();
+    }
+
+    @Override
+    public void dispose() {
+        closed = true;
+        searchGeneration.incrementAndGet();
+        indexTimer.stop();
+        super.dispose();
+        file.close();
+    }
+
+    private void bindKeys() {
+        JRootPane root = getRootPane();
+        bind(root, KeyStroke.getKeyStroke(KeyEvent.VK_F, InputEvent.CTRL_DOWN_MASK), "find", () -> findField.requestFocusInWindow());
+        bind(root, KeyStroke.getKeyStroke(KeyEvent.VK_G, InputEvent.CTRL_DOWN_MASK), "goto", () -> lineField.requestFocusInWindow());
+        bind(root, KeyStroke.getKeyStroke(KeyEvent.VK_F3, 0), "findNext", () -> findNext(true));
+        bind(root, KeyStroke.getKeyStroke(KeyEvent.VK_F3, InputEvent.SHIFT_DOWN_MASK), "findPrevious", () -> findNext(false));
+        bind(root, KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), "close", this::dispose);
+
+        bind(linesView, KeyStroke.getKeyStroke(KeyEvent.VK_UP, 0), "lineUp", () -> scrollBy(-1));
+        bind(linesView, KeyStroke.getKeyStroke(KeyEvent.VK_DOWN, 0), "lineDown", () -> scrollBy(1));
+        bind(linesView, KeyStroke.getKeyStroke(KeyEvent.VK_PAGE_UP, 0), "pageUp", () -> scrollBy(-linesView.visibleLines()));
+        bind(linesView, KeyStroke.getKeyStroke(KeyEvent.VK_PAGE_DOWN, 0), "pageDown", () -> scrollBy(linesView.visibleLines()));
+        bind(linesView, KeyStroke.getKeyStroke(KeyEvent.VK_HOME, InputEvent.CTRL_DOWN_MASK), "top", () -> verticalBar.setValue(0));
+        bind(linesView, KeyStroke.getKeyStroke(KeyEvent.VK_END, InputEvent.CTRL_DOWN_MASK), "bottom", () -> verticalBar.setValue(verticalBar.getMaximum()));
+        bind(linesView, KeyStroke.getKeyStroke(KeyEvent.VK_C, InputEvent.CTRL_DOWN_MASK), "copy", this::copySelectedLine);
+    }
+
+    private static void bind(JComponent component, KeyStroke key, String name, Runnable action) {
+        int condition = (component instanceof JRootPane) ? JComponent.WHEN_IN_FOCUSED_WINDOW : JComponent.WHEN_FOCUSED;
+        component.getInputMap(condition).put(key, name);
+        component.getActionMap().put(name, new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                action.run();
+            }
+        });
+    }
+
+    private void scrollBy(int lines) {
+        verticalBar.setValue(verticalBar.getValue() + lines);
+    }
+
+    /**
+     * Timer tick while indexing: extends the scroll range to the lines indexed so far.
+     */
+    private void indexProgressed() {
+        updateScrollRange();
+        long lines = file.getLineCount();
+        if (file.isIndexed()) {
+            indexTimer.stop();
+            statusLabel.setText(String.format("%,d lines · %s", lines, PathScanner.formatBytes(file.getSize())));
+        } else {
+            statusLabel.setText(String.format("Indexing… %d%% (%,d lines so far)", Math.round(file.getIndexProgress() * 100), lines));
+        }
+        linesView.repaint();
+    }
+
+    private void updateScrollRange() {
+        int lines = (int) Math.min(Integer.MAX_VALUE, file.getLineCount());
+        int visible = Math.max(1, linesView.visibleLines());
+        verticalBar.setValues(Math.min(verticalBar.getValue(), Math.max(0, lines - visible)), visible, 0, Math.max(lines, visible));
+        verticalBar.setBlockIncrement(visible);
+    }
+
+    private void jumpToLine() {
+        try {
+            long line = Long.parseLong(lineField.getText().trim().replace(",", "").replace("'", "")) - 1;
+            if (line < 0 || line >= file.getLineCount()) {
+                findLabel.setText(file.isIndexed() ? "No such line" : "Not indexed yet");
+                return;
+            }
+            selectedLine = line;
+            reveal(line);
+            findLabel.setText(" ");
+        } catch (NumberFormatException e) {
+            findLabel.setText("Not a line number");
+        }
+    }
+
+    /**
+     * Scrolls so that a line is in view (centered, unless already visible).
+     *
+     * @param line zero-based line.
+     */
+    private void reveal(long line) {
+        int first = verticalBar.getValue();
+        int visible = linesView.visibleLines();
+        if (line < first || line >= first + visible - 1) {
+            verticalBar.setValue((int) Math.max(0, line - visible / 2));
+        }
+        linesView.repaint();
+    }
+
+    /**
+     * Searches as the user types: from the current match (or the first line in view) onwards.
+     */
+    private void findIncremental() {
+        long from = (match != null) ? match.offset() : file.getLineOffset(verticalBar.getValue());
+        search(from, true);
+    }
+
+    /**
+     * Searches the next or previous match.
+     *
+     * @param forward true for the next match.
+     */
+    private void findNext(boolean forward) {
+        long from = (match != null)
+                ? match.offset() + (forward ? 1 : -1)
+                : file.getLineOffset(verticalBar.getValue());
+        search(from, forward);
+    }
+
+    private void search(long from, boolean forward) {
+        String text = findField.getText();
+        long generation = searchGeneration.incrementAndGet();
+        if (text.isEmpty()) {
+            match = null;
+            findLabel.setText(" ");
+            linesView.repaint();
+            return;
+        }
+
+        boolean matchCase = matchCaseBox.isSelected();
+        findLabel.setText("Searching…");
+        WORKERS.submit(() -> {
+            MappedTextFile.Match found;
+            try {
+                found = file.find(text, from, forward, matchCase, () -> closed || searchGeneration.get() != generation);
+            } catch (CancellationException e) {
+                return;
+            }
+            SwingUtilities.invokeLater(() -> {
+                if (searchGeneration.get() != generation) {
+                    return;
+                }
+                match = found;
+                if (found == null) {
+                    findLabel.setText(file.isIndexed() ? "Not found" : "Not found (yet: still indexing)");
+                } else {
+                    findLabel.setText(String.format("Line %,d", found.line() + 1));
+                    selectedLine = found.line();
+                    reveal(found.line());
+                    revealColumn(found);
+                }
+                linesView.repaint();
+            });
+        });
+    }
+
+    /**
+     * Scrolls horizontally so that a match is in view.
+     *
+     * @param found the match.
+     */
+    private void revealColumn(MappedTextFile.Match found) {
+        List<String> lines = file.readLines(found.line(), 1);
+        if (lines.isEmpty()) {
+            return;
+        }
+        FontMetrics metrics = linesView.getFontMetrics(linesView.getFont());
+        int x = metrics.stringWidth(expandTabs(lines.get(0).substring(0, Math.min(found.column(), lines.get(0).length()))));
+        int width = linesView.getWidth() - linesView.gutterWidth();
+        if (x < horizontalBar.getValue() || x > horizontalBar.getValue() + width - 50) {
+            horizontalBar.setValue(Math.max(0, x - width / 3));
+        }
+    }
+
+    private void copySelectedLine() {
+        if (selectedLine < 0) {
+            return;
+        }
+        List<String> lines = file.readLines(selectedLine, 1);
+        if (!lines.isEmpty()) {
+            Toolkit.getDefaultToolkit().getSystemClipboard().setContents(new StringSelection(lines.get(0)), null);
+        }
+    }
+
+    private static String expandTabs(String line) {
+        return (line.indexOf('\t') < 0) ? line : line.replace("\t", " ".repeat(TAB_WIDTH));
+    }
+
+    /**
+     * Paints the lines in view only, with a line number gutter, the selected line and the current match.
+     */
+    private class LinesView extends JComponent {
+
+        // Widest line painted so far, in pixels: the horizontal scroll range only grows.
+        private int widestLine = 0;
+
+        LinesView() {
+            setFocusable(true);
+            setOpaque(true);
+            addComponentListener(new ComponentAdapter() {
+                @Override
+                public void componentResized(ComponentEvent e) {
+                    updateScrollRange();
+                    updateHorizontalRange();
+                }
+            });
+        }
+
+        int lineHeight() {
+            return getFontMetrics(getFont()).getHeight();
+        }
+
+        int visibleLines() {
+            return Math.max(1, getHeight() / lineHeight());
+        }
+
+        int gutterWidth() {
+            FontMetrics metrics = getFontMetrics(getFont());
+            return metrics.stringWidth(String.valueOf(Math.max(1, file.getLineCount()))) + metrics.charWidth(' ') * 2;
+        }
+
+        private void updateHorizontalRange() {
+            int width = Math.max(1, getWidth() - gutterWidth());
+            horizontalBar.setValues(Math.min(horizontalBar.getValue(), Math.max(0, widestLine - width)), width, 0, Math.max(widestLine, width));
+            horizontalBar.setBlockIncrement(width / 2);
+            horizontalBar.setUnitIncrement(getFontMetrics(getFont()).charWidth(' ') * 4);
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            Graphics2D g2 = (Graphics2D) g.create();
+            g2.setColor(UIManager.getColor("TextArea.background"));
+            g2.fillRect(0, 0, getWidth(), getHeight());
+            g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+
+            FontMetrics metrics = g2.getFontMetrics(getFont());
+            int height = metrics.getHeight();
+            int gutter = gutterWidth();
+            long first = verticalBar.getValue();
+            List<String> lines = file.readLines(first, visibleLines() + 1);
+            Color foreground = UIManager.getColor("TextArea.foreground");
+            Color selection = UIManager.getColor("TextArea.selectionBackground");
+            int widest = widestLine;
+
+            for (int i = 0; i < lines.size(); i++) {
+                long line = first + i;
+                int y = i * height;
+                String text = expandTabs(lines.get(i));
+
+                if (line == selectedLine) {
+                    g2.setColor(selection);
+                    g2.fillRect(gutter, y, getWidth() - gutter, height);
+                }
+
+                Graphics2D clip = (Graphics2D) g2.create(gutter, 0, getWidth() - gutter, getHeight());
+                int x = -horizontalBar.getValue();
+                if (match != null && match.line() == line) {
+                    String raw = lines.get(i);
+                    int start = Math.min(match.column(), raw.length());
+                    int end = Math.min(start + match.length(), raw.length());
+                    int from = metrics.stringWidth(expandTabs(raw.substring(0, start)));
+                    int to = metrics.stringWidth(expandTabs(raw.substring(0, end)));
+                    clip.setColor(Color.ORANGE);
+                    clip.fillRect(x + from, y, Math.max(2, to - from), height);
+                }
+                clip.setColor(foreground);
+                clip.setFont(getFont());
+                clip.drawString(text, x, y + metrics.getAscent());
+                clip.dispose();
+                widest = Math.max(widest, metrics.stringWidth(text));
+
+                g2.setColor(Color.GRAY);
+                g2.setFont(getFont());
+                String number = String.valueOf(line + 1);
+                g2.drawString(number, gutter - metrics.charWidth(' ') - metrics.stringWidth(number), y + metrics.getAscent());
+            }
+
+            g2.setColor(Color.LIGHT_GRAY);
+            g2.drawLine(gutter - 2, 0, gutter - 2, getHeight());
+            g2.dispose();
+
+            if (widest > widestLine) {
+                widestLine = widest;
+                SwingUtilities.invokeLater(this::updateHorizontalRange);
+            }
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package ch.yvesguillo.view;
+
+import ch.yvesguillo.controller.PathScanner;
+import ch.yvesguillo.controller.RunJournal;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.awt.event.KeyEvent;
+import java.awt.geom.Path2D;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Modal dialog showing the recent runs recorded in the {@link RunJournal}:
+ * a table (newest first) and a chart of the throughput of the runs that did real work (files/s and MB/s).
+ */
+public class RunHistoryDialog extends JDialog {
+
+    private static final String[] COLUMNS = {"Started", "State", "Path", "Files", "Size", "Wall", "CPU", "Output", "Files/s", "MB/s"};
+    private static final DateTimeFormatter STARTED_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+
+    // Runs shown in the table and the chart.
+    private static final int MAX_ROWS = 500;
+    private static final int MAX_POINTS = 100;
+
+    /**
+     * Constructs the dialog from the current journal entries.
+     *
+     * @param owner Parent window.
+     */
+    public RunHistoryDialog(Window owner) {
+        super(owner, "Run history", ModalityType.APPLICATION_MODAL);
+
+        List<RunJournal.Entry> entries = RunJournal.lazyGetInstance().getEntries();
+        List<RunJournal.Entry> newestFirst = entries.subList(Math.max(0, entries.size() - MAX_ROWS), entries.size()).reversed();
+        List<RunJournal.Entry> samples = entries.stream().filter(entry -> entry.isTimingSample() && entry.filesPerSecond() >= 0).toList();
+        samples = samples.subList(Math.max(0, samples.size() - MAX_POINTS), samples.size());
+
+        JTable table = new JTable(new HistoryTableModel(newestFirst));
+        table.getColumnModel().getColumn(0).setPreferredWidth(140);
+        table.getColumnModel().getColumn(2).setPreferredWidth(220);
+
+        JPanel charts = new JPanel(new GridLayout(1, 2, 8, 0));
+        charts.add(new ThroughputChart("Files/s", samples, RunJournal.Entry::filesPerSecond, new Color(0x4FA3E0)));
+        charts.add(new ThroughputChart("MB/s", samples, entry -> entry.bytesPerSecond() / (1024 * 1024), new Color(0x7BC67B)));
+        charts.setPreferredSize(new Dimension(0, 180));
+
+        JButton closeButton = new JButton("Close");
+        closeButton.addActionListener(e -> dispose());
+
+        JPanel bottom = new JPanel(new BorderLayout());
+        bottom.add(new JLabel(entries.size() + " run(s) in the journal, " + samples.size() + " charted"), BorderLayout.WEST);
+        bottom.add(closeButton, BorderLayout.EAST);
+
+        JPanel content = new JPanel(new BorderLayout(5, 5));
+        content.setBorder(BorderFactory.createEmptyBorder(8, 8, 8, 8));
+        content.add(charts, BorderLayout.NORTH);
+        content.add(new JScrollPane(table), BorderLayout.CENTER);
+        content.add(bottom, BorderLayout.SOUTH);
+        setContentPane(content);
+
+        getRootPane().registerKeyboardAction(e -> dispose(), KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), JComponent.WHEN_IN_FOCUSED_WINDOW);
+
+        setSize(900, 560);
+        setLocationRelativeTo(owner);
+    }
+
+    private static String formatMillis(long millis) {
+        if (millis < 0) {
+            return "";
+        }
+        long seconds = millis / 1000;
+        return (seconds < 60) ? String.format("%.1f s", millis / 1000.0) : String.format("%d:%02d", seconds / 60, seconds % 60);
+    }
+
+    private static String formatRate(double rate) {
+        return (rate < 0) ? "" : String.format("%.1f", rate);
+    }
+
+    /**
+     * Read-only rows of the journal entries.
+     */
+    private static class HistoryTableModel extends AbstractTableModel {
+
+        private final List<RunJournal.Entry> rows;
+
+        HistoryTableModel(List<RunJournal.Entry> rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public int getRowCount() {
+            return rows.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            RunJournal.Entry entry = rows.get(row);
+            return switch (column) {
+                case 0 -> STARTED_FORMAT.format(Instant.ofEpochMilli(entry.startedAt()));
+                case 1 -> entry.cached() ? entry.state() + " (cached)" : entry.state();
+                case 2 -> pathOf(entry.args());
+                case 3 -> (entry.files() < 0) ? "" : entry.files();
+                case 4 -> (entry.bytes() < 0) ? "" : PathScanner.formatBytes(entry.bytes());
+                case 5 -> formatMillis(entry.wallMillis());
+                case 6 -> formatMillis(entry.cpuMillis());
+                case 7 -> (entry.outputBytes() < 0) ? "" : PathScanner.formatBytes(entry.outputBytes());
+                case 8 -> formatRate(entry.filesPerSecond());
+                case 9 -> formatRate(entry.bytesPerSecond() / (1024 * 1024));
+                default -> "";
+            };
+        }
+
+        private static String pathOf(List<String> args) {
+            for (int i = 0; i + 1 < args.size(); i++) {
+                if (args.get(i).equals("--path") || args.get(i).equals("-p")) {
+                    return args.get(i + 1);
+                }
+            }
+            return ".";
+        }
+    }
+
+    /**
+     * Line chart of one throughput measure over the charted runs, oldest on the left.
+     */
+    private static class ThroughputChart extends JComponent {
+
+        private static final int MARGIN = 6;
+
+        private final String title;
+        private final double[] values;
+        private final Color color;
+
+        ThroughputChart(String title, List<RunJournal.Entry> samples, ToDoubleFunction<RunJournal.Entry> measure, Color color) {
+            this.title = title;
+            this.values = samples.stream().mapToDouble(measure).map(value -> Math.max(0, value)).toArray();
+            this.color = color;
+            setBorder(BorderFactory.createLineBorder(UIManager.getColor("Component.borderColor")));
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            Graphics2D g2 = (Graphics2D) g.create();
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g2.setColor(UIManager.getColor("TextArea.background"));
+            g2.fillRect(0, 0, getWidth(), getHeight());
+
+            FontMetrics metrics = g2.getFontMetrics(getFont());
+            double max = 0;
+            for (double value : values) {
+                max = Math.max(max, value);
+            }
+            g2.setColor(UIManager.getColor("Label.foreground"));
+            g2.drawString(title + (values.length > 0 ? "  (max " + formatRate(max) + ")" : "  (no data yet)"), MARGIN, MARGIN + metrics.getAscent());
+
+            int top = MARGIN * 2 + metrics.getHeight();
+            int width = getWidth() - MARGIN * 2;
+            int height = getHeight() - top - MARGIN;
+            if (values.length == 0 || max <= 0 || width <= 0 || height <= 0) {
+                g2.dispose();
+                return;
+            }
+
+            Path2D.Double line = new Path2D.Double();
+            for (int i = 0; i < values.length; i++) {
+                double x = MARGIN + ((values.length == 1) ? width / 2.0 : i * width / (double) (values.length - 1));
+                double y = top + height - values[i] / max * height;
+                if (i == 0) {
+                    line.moveTo(x, y);
+                } else {
+                    line.lineTo(x, y);
+                }
+                g2.setColor(color);
+                g2.fillOval((int) x - 2, (int) y - 2, 5, 5);
+            }
+            g2.setStroke(new BasicStroke(1.5f));
+            g2.draw(line);
+            g2.dispose();
+        }
+    }
+}
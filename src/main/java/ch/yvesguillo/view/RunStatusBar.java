@@ -0,0 +1,116 @@
+package ch.yvesguillo.view;
+
+import ch.yvesguillo.controller.PathScanner;
+import ch.yvesguillo.controller.RunProgress;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * Status bar showing the pre-scan and the progress of the interactive Crawlect run, with a Cancel button.
+ *
+ * While tracking a scan or a run, the bar polls it a few times per second on the EDT,
+ * so progress sources never have to post events themselves. All methods must be called on the EDT.
+ */
+public class RunStatusBar extends JPanel {
+
+    private static final int POLL_MILLIS = 250;
+
+    private final JProgressBar progressBar = new JProgressBar(0, 1000);
+    private final JButton cancelButton = new JButton("Cancel");
+    private final Timer timer = new Timer(POLL_MILLIS, e -> poll());
+
+    private PathScanner scanner;
+    private RunProgress progress;
+    private Runnable cancelAction;
+
+    /**
+     * Constructs an idle status bar.
+     *
+     * @param font Font used for the text and button.
+     */
+    public RunStatusBar(Font font) {
+        super(new BorderLayout(5, 0));
+        setBorder(BorderFactory.createEmptyBorder(2, 5, 2, 5));
+
+        progressBar.setStringPainted(true);
+        progressBar.setFont(font);
+        cancelButton.setFont(font);
+        cancelButton.addActionListener(e -> {
+            if (cancelAction != null) {
+                cancelAction.run();
+            }
+        });
+
+        add(progressBar, BorderLayout.CENTER);
+        add(cancelButton, BorderLayout.EAST);
+        showIdle("Ready");
+    }
+
+    /**
+     * Shows the live counters of a pre-scan.
+     *
+     * @param scanner the scan in progress.
+     * @param onCancel called when the user cancels.
+     */
+    public void trackScan(PathScanner scanner, Runnable onCancel) {
+        this.scanner = scanner;
+        this.progress = null;
+        this.cancelAction = onCancel;
+        progressBar.setIndeterminate(true);
+        cancelButton.setEnabled(true);
+        poll();
+        timer.start();
+    }
+
+    /**
+     * Shows the estimated progress and ETA of a run.
+     *
+     * @param progress the run's progress estimator (null: no estimate, the bar is indeterminate).
+     * @param onCancel called when the user cancels.
+     */
+    public void trackRun(RunProgress progress, Runnable onCancel) {
+        this.scanner = null;
+        this.progress = progress;
+        this.cancelAction = onCancel;
+        progressBar.setIndeterminate(progress == null);
+        cancelButton.setEnabled(true);
+        poll();
+        timer.start();
+    }
+
+    /**
+     * Stops tracking and shows a final message.
+     *
+     * @param text message to display.
+     */
+    public void showIdle(String text) {
+        timer.stop();
+        scanner = null;
+        progress = null;
+        cancelAction = null;
+        progressBar.setIndeterminate(false);
+        progressBar.setValue(0);
+        progressBar.setString(text);
+        cancelButton.setEnabled(false);
+    }
+
+    private void poll() {
+        if (scanner != null) {
+            progressBar.setString(String.format("Scanning %s… %,d files, %s",
+                    scanner.getRoot().getFileName(), scanner.getFilesSoFar(), PathScanner.formatBytes(scanner.getBytesSoFar())));
+        } else if (progress != null) {
+            double fraction = progress.getFraction();
+            long eta = progress.getEtaMillis();
+            progressBar.setValue((int) (fraction * 1000));
+            progressBar.setString(String.format("Crawling… %d%%", Math.round(fraction * 100))
+                    + ((eta >= 0) ? " · ETA " + formatSeconds(eta / 1000) : ""));
+        } else {
+            progressBar.setString("Crawling…");
+        }
+    }
+
+    private static String formatSeconds(long seconds) {
+        return String.format("%d:%02d", seconds / 60, seconds % 60);
+    }
+}
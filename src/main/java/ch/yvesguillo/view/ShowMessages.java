@@ -1,7 +1,11 @@
 package ch.yvesguillo.view;
 
-import javax.swing.JFrame;
-import javax.swing.JOptionPane;
+import ch.yvesguillo.controller.OutputCapture;
+
+import javax.swing.*;
+import java.awt.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 /**
  * Utility class for displaying standardized message dialogs in the Crawlect GUI.
@@ -32,4 +36,44 @@ public final class ShowMessages {
                 JOptionPane.ERROR_MESSAGE
         );
     }
-}
\ No newline at end of file
+
+    /**
+     * Displays the end-of-run dialog with the tail of the Crawlect output.
+     * If older lines were dropped from memory, a button lets the user page through the full log.
+     * If the run wrote an output file, a button opens it in the {@link ResultViewerDialog}.
+     *
+     * @param capture The captured run output.
+     * @param output The output file written by the run (may be null).
+     * @param win The parent JFrame that owns the dialog.
+     */
+    public static void showRunResult(OutputCapture capture, Path output, JFrame win) {
+        JTextArea textArea = new JTextArea(capture.getTail());
+        textArea.setEditable(false);
+        JScrollPane scrollPane = new JScrollPane(textArea);
+        scrollPane.setPreferredSize(new Dimension(480, 270));
+
+        JPanel content = new JPanel(new BorderLayout(0, 5));
+        content.add(scrollPane, BorderLayout.CENTER);
+
+        if (capture.isTruncated()) {
+            JButton browseButton = new JButton("Browse full log (" + capture.getLineCount() + " lines)…");
+            browseButton.addActionListener(e -> new LogPagerDialog(SwingUtilities.getWindowAncestor(browseButton), capture).setVisible(true));
+
+            JPanel footer = new JPanel(new BorderLayout());
+            footer.add(new JLabel("Showing the last lines only."), BorderLayout.WEST);
+            footer.add(browseButton, BorderLayout.EAST);
+            content.add(footer, BorderLayout.SOUTH);
+        }
+
+        if (output != null && Files.isRegularFile(output)) {
+            JButton viewButton = new JButton("Open " + output.getFileName() + "…");
+            viewButton.addActionListener(e -> {
+                SwingUtilities.getWindowAncestor(viewButton).dispose();
+                ResultViewerDialog.open(win, output);
+            });
+            content.add(viewButton, BorderLayout.NORTH);
+        }
+
+        JOptionPane.showMessageDialog(win, content, "Crawlect finished", JOptionPane.INFORMATION_MESSAGE);
+    }
+}
@@ -0,0 +1,37 @@
+package ch.yvesguillo.view;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * Lightweight splash window shown while the application starts.
+ *
+ * Displays the application name and an indeterminate progress bar until the main window is ready.
+ */
+public class StartupSplash extends JWindow {
+
+    /**
+     * Constructs the splash window (not yet visible).
+     *
+     * @param appTitle Application name to display.
+     */
+    public StartupSplash(String appTitle) {
+        JLabel title = new JLabel(appTitle, SwingConstants.CENTER);
+        title.setFont(UIManager.getFont("Label.font").deriveFont(Font.BOLD, 18f));
+
+        JLabel status = new JLabel("Loading Crawlect options…", SwingConstants.CENTER);
+
+        JProgressBar progress = new JProgressBar();
+        progress.setIndeterminate(true);
+
+        JPanel content = new JPanel(new BorderLayout(0, 10));
+        content.setBorder(BorderFactory.createEmptyBorder(20, 30, 20, 30));
+        content.add(title, BorderLayout.NORTH);
+        content.add(status, BorderLayout.CENTER);
+        content.add(progress, BorderLayout.SOUTH);
+
+        setContentPane(content);
+        setSize(320, 120);
+        setLocationRelativeTo(null);
+    }
+}
@@ -0,0 +1,126 @@
+# Crawlect-GUI warm worker.
+#
+# Long-lived Python process running Crawlect in-process, so repeated runs do not pay
+# interpreter startup and module import again.
+#
+# Protocol: JSON lines over stdin (requests) and stdout (responses).
+#   -> {"id": 1, "cmd": "run", "args": ["--path", "."]}
+#   <- {"id": 1, "type": "out", "line": "..."}      (any number)
+#   <- {"id": 1, "type": "exit", "code": 0}
+#   -> {"id": 2, "cmd": "ping"}
+#   <- {"id": 2, "type": "pong", "busy": false}
+#   -> {"cmd": "exit"}
+# On startup, once Crawlect is imported: {"type": "ready", "pid": 1234, "version": "1.0.6"}
+
+import io
+import json
+import os
+import runpy
+import sys
+import threading
+import traceback
+
+_protocol = sys.stdout
+_send_lock = threading.Lock()
+_run_lock = threading.Lock()
+
+
+def send(message):
+    with _send_lock:
+        _protocol.write(json.dumps(message) + "\n")
+        _protocol.flush()
+
+
+class LineStream(io.TextIOBase):
+    """Text stream forwarding every complete line as an "out" message."""
+
+    def __init__(self, request_id):
+        self.request_id = request_id
+        self.pending = ""
+
+    def writable(self):
+        return True
+
+    def write(self, text):
+        self.pending += text
+        while "\n" in self.pending:
+            line, self.pending = self.pending.split("\n", 1)
+            send({"id": self.request_id, "type": "out", "line": line})
+        return len(text)
+
+    def flush(self):
+        pass
+
+    def close_line(self):
+        if self.pending:
+            send({"id": self.request_id, "type": "out", "line": self.pending})
+            self.pending = ""
+
+
+def run(request_id, args):
+    stream = LineStream(request_id)
+    saved = (sys.stdout, sys.stderr, sys.argv, os.getcwd())
+    sys.stdout = sys.stderr = stream
+    sys.argv = ["crawlect"] + [str(arg) for arg in args]
+    code = 0
+    try:
+        runpy.run_module("crawlect", run_name="__main__", alter_sys=False)
+    except SystemExit as exit_request:
+        if exit_request.code is None:
+            code = 0
+        elif isinstance(exit_request.code, int):
+            code = exit_request.code
+        else:
+            stream.write(str(exit_request.code) + "\n")
+            code = 1
+    except BaseException:
+        traceback.print_exc(file=stream)
+        code = 1
+    finally:
+        stream.close_line()
+        sys.stdout, sys.stderr, sys.argv = saved[0], saved[1], saved[2]
+        os.chdir(saved[3])
+        _run_lock.release()
+    send({"id": request_id, "type": "exit", "code": code})
+
+
+def main():
+    import crawlect
+
+    try:
+        from importlib import metadata
+        version = metadata.version("crawlect")
+    except Exception:
+        version = getattr(crawlect, "__version__", "")
+
+    send({"type": "ready", "pid": os.getpid(), "version": version})
+
+    for raw in sys.stdin:
+        raw = raw.strip()
+        if not raw:
+            continue
+        try:
+            request = json.loads(raw)
+        except ValueError:
+            send({"type": "error", "message": "Invalid request: " + raw[:200]})
+            continue
+
+        command = request.get("cmd")
+        request_id = request.get("id")
+
+        if command == "ping":
+            send({"id": request_id, "type": "pong", "busy": _run_lock.locked()})
+        elif command == "run":
+            if not _run_lock.acquire(blocking=False):
+                send({"id": request_id, "type": "error", "message": "Worker is busy."})
+                continue
+            # Runs on its own thread so pings keep being answered meanwhile.
+            threading.Thread(target=run, args=(request_id, request.get("args", [])), daemon=True).start()
+        elif command == "exit":
+            break
+        else:
+            send({"id": request_id, "type": "error", "message": "Unknown command: " + str(command)})
+
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,221 @@
+package ch.yvesguillo.controller;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Checks the {@link LlmProxy} cache against a stub LLM server on the loopback interface:
+ * misses are forwarded and stored, hits are replayed without an upstream call, identical concurrent requests
+ * are sent once, failed answers are not cached, the cache survives a restart, least recently used answers are
+ * evicted, and an unreachable upstream yields 502.
+ *
+ * Run with {@code mvn -P checks verify}. Exits with status 1 on the first failed check.
+ * Uses a throw-away cache directory, deleted afterwards.
+ */
+public final class LlmProxyCheck {
+
+    // Upstream latency: long enough for concurrent requests to overlap.
+    private static final long STUB_DELAY_MILLIS = 300;
+    private static final int CONCURRENT_REQUESTS = 8;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private HttpServer stub;
+
+    // Private constructor: see main().
+    private LlmProxyCheck() {
+    }
+
+    /**
+     * Runs every check.
+     *
+     * @param args ignored.
+     * @throws Exception if the stub or the proxy cannot start.
+     */
+    public static void main(String[] args) throws Exception {
+        LlmProxyCheck check = new LlmProxyCheck();
+        Path directory = Files.createTempDirectory("crawlect-gui-llm-check");
+        try {
+            check.startStub();
+            check.run(directory);
+            System.out.println("[Check] LLM proxy: all checks passed");
+        } catch (AssertionError e) {
+            System.err.println("[Check] LLM proxy: " + e.getMessage());
+            System.exit(1);
+        } finally {
+            LlmProxy.stop();
+            if (check.stub != null) {
+                check.stub.stop(0);
+            }
+            deleteTree(directory);
+        }
+    }
+
+    private void run(Path directory) throws Exception {
+        String upstream = "http://127.0.0.1:" + stub.getAddress().getPort();
+        Path cache = directory.resolve("cache");
+        LlmProxy proxy = LlmProxy.start(upstream, cache, LlmProxy.DEFAULT_MAX_CACHE_BYTES);
+
+        // Miss: forwarded, then stored.
+        expect(post(proxy, "/api/generate", "first").statusCode() == 200, "miss answered");
+        expectCalls(1, "miss forwarded");
+        expect(proxy.getCachedCount() == 1, "miss stored");
+
+        // Hit: replayed without calling the upstream.
+        HttpResponse<String> hit = post(proxy, "/api/generate", "first");
+        expect(hit.statusCode() == 200 && hit.body().contains("first"), "hit replayed");
+        expectCalls(1, "hit served from the cache");
+
+        // Identical concurrent requests: sent once.
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        CountDownLatch ready = new CountDownLatch(CONCURRENT_REQUESTS);
+        List<Future<HttpResponse<String>>> pending = new ArrayList<>();
+        for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+            pending.add(executor.submit(() -> {
+                ready.countDown();
+                ready.await();
+                return post(proxy, "/api/chat", "shared");
+            }));
+        }
+        int answered = 0;
+        for (Future<HttpResponse<String>> response : pending) {
+            answered += (response.get().statusCode() == 200) ? 1 : 0;
+        }
+        executor.shutdown();
+        expect(answered == CONCURRENT_REQUESTS, "every concurrent request answered");
+        expectCalls(2, CONCURRENT_REQUESTS + " identical requests sent once");
+
+        // Failed answers: passed through, never cached.
+        expect(post(proxy, "/fail", "broken").statusCode() == 500, "500 passed through");
+        expect(post(proxy, "/fail", "broken").statusCode() == 500, "500 passed through again");
+        expectCalls(4, "500 not cached");
+        expect(proxy.getCachedCount() == 2, "500 not stored");
+
+        // Restart: the cache is reloaded from disk.
+        LlmProxy.stop();
+        LlmProxy restarted = LlmProxy.start(upstream, cache, LlmProxy.DEFAULT_MAX_CACHE_BYTES);
+        expect(restarted.getCachedCount() == 2, "cache reloaded after a restart");
+        expect(post(restarted, "/api/generate", "first").statusCode() == 200, "reloaded answer replayed");
+        expectCalls(4, "reloaded answer served from the cache");
+
+        checkEviction(upstream, directory.resolve("eviction"));
+        checkUnreachable(directory.resolve("unreachable"));
+    }
+
+    /**
+     * Fills a cache sized for two answers: the third one evicts the least recently used.
+     */
+    private void checkEviction(String upstream, Path cache) throws Exception {
+        LlmProxy proxy = LlmProxy.start(upstream, cache, LlmProxy.DEFAULT_MAX_CACHE_BYTES);
+        post(proxy, "/api/generate", "evict-a");
+        long answerBytes = proxy.getCachedBytes();
+
+        // Room for two answers of the same size, not three.
+        proxy = LlmProxy.start(upstream, cache, answerBytes * 5 / 2);
+        post(proxy, "/api/generate", "evict-b");
+        expect(proxy.getCachedCount() == 2, "two answers fit");
+        // A becomes the most recently used: B is now the eldest.
+        post(proxy, "/api/generate", "evict-a");
+        post(proxy, "/api/generate", "evict-c");
+        expect(proxy.getCachedCount() == 2, "size limit enforced");
+
+        int calls = upstreamCalls.get();
+        post(proxy, "/api/generate", "evict-a");
+        expectCalls(calls, "recently used answer kept");
+        post(proxy, "/api/generate", "evict-b");
+        expectCalls(calls + 1, "least recently used answer evicted");
+    }
+
+    /**
+     * Points the proxy at a port nobody listens on.
+     */
+    private void checkUnreachable(Path cache) throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            port = socket.getLocalPort();
+        }
+        LlmProxy proxy = LlmProxy.start("http://127.0.0.1:" + port, cache, LlmProxy.DEFAULT_MAX_CACHE_BYTES);
+        expect(post(proxy, "/api/generate", "nobody").statusCode() == 502, "502 on an unreachable upstream");
+        expect(proxy.getCachedCount() == 0, "502 not stored");
+    }
+
+    /**
+     * Starts the stub LLM server: echoes the prompt after a delay, or answers 500 under /fail.
+     */
+    private void startStub() throws IOException {
+        stub = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        stub.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        stub.createContext("/", this::answer);
+        stub.start();
+    }
+
+    private void answer(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            upstreamCalls.incrementAndGet();
+            String prompt = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            try {
+                Thread.sleep(STUB_DELAY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            boolean fail = exchange.getRequestURI().getPath().startsWith("/fail");
+            byte[] body = (fail ? "stub failure" : "{\"response\":" + prompt + "}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(fail ? 500 : 200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    private HttpResponse<String> post(LlmProxy proxy, String target, String prompt) throws IOException, InterruptedException {
+        String body = "{\"model\":\"stub\",\"prompt\":\"" + prompt + "\"}";
+        HttpRequest request = HttpRequest.newBuilder(URI.create(proxy.getAddress() + target))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private void expectCalls(int expected, String check) {
+        int actual = upstreamCalls.get();
+        expect(actual == expected, check + " (upstream calls: " + actual + ", expected " + expected + ")");
+    }
+
+    private static void expect(boolean condition, String check) {
+        if (!condition) {
+            throw new AssertionError("FAILED: " + check);
+        }
+        System.out.println("[Check] ok: " + check);
+    }
+
+    private static void deleteTree(Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}